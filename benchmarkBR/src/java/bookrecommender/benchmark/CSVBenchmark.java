@@ -0,0 +1,150 @@
+package bookrecommender.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark della lettura del file {@code Libri.dati.csv} usata dal tool di creazione del database.
+ * <p>
+ * {@link #splitLine()} misura la divisione di una singola riga con {@code LeggiFileCSV.splitLine},
+ * su un campione delle righe reali; {@link #fileSequenziale(Blackhole)} e
+ * {@link #fileParallelo(Blackhole)} misurano la lettura dell'intero file, riga per riga oppure
+ * con {@code ParserCSVParallelo}, come tempo di una singola esecuzione.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CSVBenchmark {
+    /** Numero di righe del campione, potenza di due. */
+    private static final int CAMPIONE = 4096;
+
+    private static final MethodHandle NUOVO_PARSER;
+    private static final MethodHandle PROSSIMO;
+    private static final MethodHandle CHIUDI;
+
+    static {
+        try {
+            Class<?> parser = Class.forName("ParserCSVParallelo");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            NUOVO_PARSER = lookup.findConstructor(parser, MethodType.methodType(void.class, Path.class, ForkJoinPool.class))
+                    .asType(MethodType.methodType(Object.class, Path.class, ForkJoinPool.class));
+            PROSSIMO = lookup.findVirtual(parser, "prossimo", MethodType.methodType(String[].class))
+                    .asType(MethodType.methodType(String[].class, Object.class));
+            CHIUDI = lookup.findVirtual(parser, "close", MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(void.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Path file;
+    private String[] righe;
+    private int prossima;
+    private ForkJoinPool pool;
+
+    /**
+     * Prepara il campione di righe, distribuito uniformemente sul file.
+     */
+    @Setup
+    public void prepara() {
+        DatiCatalogo dati = DatiCatalogo.carica();
+        file = dati.file;
+        righe = new String[CAMPIONE];
+        for (int i = 0; i < CAMPIONE; i++) {
+            righe[i] = dati.righe[(int) ((long) i * dati.righe.length / CAMPIONE)];
+        }
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Chiude il pool usato dal parser parallelo.
+     */
+    @TearDown
+    public void chiudi() {
+        pool.shutdown();
+    }
+
+    /**
+     * Divide una riga del campione.
+     *
+     * @return i campi della riga.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String[] splitLine() {
+        String riga = righe[prossima];
+        prossima = (prossima + 1) & (CAMPIONE - 1);
+        return DatiCatalogo.splitLine(riga);
+    }
+
+    /**
+     * Legge e divide tutte le righe del file in un solo thread.
+     *
+     * @param bh il consumatore dei campi.
+     * @throws IOException se la lettura del file non riesce.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public void fileSequenziale(Blackhole bh) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String riga;
+            while ((riga = br.readLine()) != null) {
+                bh.consume(DatiCatalogo.splitLine(riga));
+            }
+        }
+    }
+
+    /**
+     * Legge tutto il file con {@code ParserCSVParallelo}.
+     *
+     * @param bh il consumatore dei record.
+     * @throws Throwable se la lettura del file non riesce.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public void fileParallelo(Blackhole bh) throws Throwable {
+        Object parser = (Object) NUOVO_PARSER.invokeExact(file, pool);
+        try {
+            String[] campi;
+            while ((campi = (String[]) PROSSIMO.invokeExact(parser)) != null) {
+                bh.consume(campi);
+            }
+        } finally {
+            CHIUDI.invokeExact(parser);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package bookrecommender.benchmark;
+
+import bookrecommender.condivisi.libri.Libro;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Catalogo dei libri letto da {@code Libri.dati.csv}, condiviso dai benchmark.
+ * <p>
+ * I benchmark misurano le strutture del server sui dati reali del progetto invece che su
+ * dati generati: la distribuzione delle lunghezze dei titoli, delle categorie e degli editori
+ * influenza direttamente i tempi degli indici. Il file viene cercato nel percorso indicato dalla
+ * proprietà di sistema {@code bookrecommender.benchmark.csv} o, in mancanza, nella directory
+ * corrente e in quella superiore (la radice del progetto, se i benchmark sono avviati da
+ * {@code benchmarkBR}). Le righe sono divise con {@code LeggiFileCSV.splitLine}, lo stesso metodo
+ * usato dal tool di creazione del database.
+ * <p>
+ * I libri sono ordinati per titolo e ID, come nelle query di caricamento degli indici.
+ * Il catalogo viene caricato una sola volta per JVM.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public final class DatiCatalogo {
+    /** Numero di campi di una riga valida del file CSV. */
+    private static final int NUMERO_CAMPI = 9;
+
+    /**
+     * {@code LeggiFileCSV.splitLine(String)}: la classe è nel package di default del modulo
+     * {@code creazioneDB} e non può essere importata, ma il method handle costante viene
+     * compilato dal JIT come una chiamata diretta.
+     */
+    private static final MethodHandle SPLIT_LINE = metodoCreazioneDB("LeggiFileCSV", "splitLine",
+            MethodType.methodType(String[].class, String.class));
+
+    private static DatiCatalogo istanza;
+
+    /** Il file letto. */
+    public final Path file;
+    /** Le righe del file, nell'ordine originale. */
+    public final String[] righe;
+    /** Gli ID dei libri. */
+    public final long[] ids;
+    /** I titoli dei libri. */
+    public final String[] titoli;
+    /** I campi autori dei libri. */
+    public final String[] autori;
+    /** I campi categorie dei libri. */
+    public final String[] categorie;
+    /** Gli editori dei libri. */
+    public final String[] editori;
+    /** Gli anni di pubblicazione, {@code null} se assenti. */
+    public final Integer[] anni;
+    /** I libri completi, nello stesso ordine degli array. */
+    public final List<Libro> libri;
+
+    private DatiCatalogo(Path file, String[] righe, List<Libro> libri, Integer[] anni) {
+        this.file = file;
+        this.righe = righe;
+        this.libri = libri;
+        this.anni = anni;
+        int n = libri.size();
+        ids = new long[n];
+        titoli = new String[n];
+        autori = new String[n];
+        categorie = new String[n];
+        editori = new String[n];
+        for (int i = 0; i < n; i++) {
+            Libro l = libri.get(i);
+            ids[i] = l.id();
+            titoli[i] = l.titolo();
+            autori[i] = l.autori();
+            categorie[i] = l.categorie();
+            editori[i] = l.editore();
+        }
+    }
+
+    /**
+     * Restituisce il catalogo, leggendolo alla prima chiamata.
+     *
+     * @return il catalogo condiviso.
+     * @throws UncheckedIOException se il file non esiste o non può essere letto.
+     */
+    public static synchronized DatiCatalogo carica() {
+        if (istanza == null) {
+            istanza = leggi(trovaFile());
+        }
+        return istanza;
+    }
+
+    /**
+     * Estrae una parola lunga almeno {@code minimo} caratteri da un testo scelto a caso,
+     * in minuscolo, da usare come testo di una ricerca.
+     *
+     * @param testi  i testi tra cui scegliere, ad esempio {@link #titoli}.
+     * @param random il generatore di numeri casuali.
+     * @param minimo la lunghezza minima della parola.
+     * @return la parola estratta.
+     */
+    public static String parola(String[] testi, RandomGenerator random, int minimo) {
+        while (true) {
+            String testo = testi[random.nextInt(testi.length)];
+            if (testo == null) {
+                continue;
+            }
+            String[] parole = testo.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+            if (parole.length == 0) {
+                continue;
+            }
+            String p = parole[random.nextInt(parole.length)];
+            if (p.length() >= minimo) {
+                return p;
+            }
+        }
+    }
+
+    /**
+     * Restituisce le categorie più frequenti del catalogo. Il campo categorie di un libro può
+     * contenerne più d'una, separate da virgole.
+     *
+     * @param n il numero massimo di categorie da restituire.
+     * @return le categorie, dalla più frequente.
+     */
+    public List<String> categoriePiuFrequenti(int n) {
+        Map<String, Integer> conteggi = new HashMap<>();
+        for (String campo : categorie) {
+            if (campo == null) {
+                continue;
+            }
+            for (String parte : campo.split(",")) {
+                String categoria = parte.strip();
+                if (!categoria.isEmpty()) {
+                    conteggi.merge(categoria, 1, Integer::sum);
+                }
+            }
+        }
+        List<Map.Entry<String, Integer>> voci = new ArrayList<>(conteggi.entrySet());
+        voci.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        List<String> risultato = new ArrayList<>();
+        for (int i = 0; i < Math.min(n, voci.size()); i++) {
+            risultato.add(voci.get(i).getKey());
+        }
+        return risultato;
+    }
+
+    /**
+     * Divide una riga del file CSV con {@code LeggiFileCSV.splitLine}.
+     *
+     * @param riga la riga da dividere.
+     * @return i campi della riga.
+     */
+    public static String[] splitLine(String riga) {
+        try {
+            return (String[]) SPLIT_LINE.invokeExact(riga);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Cerca un metodo statico di una classe del package di default di {@code creazioneDB},
+     * anche se non è pubblico.
+     *
+     * @param classe il nome della classe.
+     * @param metodo il nome del metodo.
+     * @param tipo   il tipo del metodo.
+     * @return il method handle del metodo.
+     */
+    public static MethodHandle metodoCreazioneDB(String classe, String metodo, MethodType tipo) {
+        try {
+            Class<?> c = Class.forName(classe);
+            return MethodHandles.privateLookupIn(c, MethodHandles.lookup()).findStatic(c, metodo, tipo);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Metodo " + classe + "." + metodo + " non trovato", e);
+        }
+    }
+
+    private static Path trovaFile() {
+        String indicato = System.getProperty("bookrecommender.benchmark.csv");
+        if (indicato != null) {
+            return Path.of(indicato);
+        }
+        for (Path candidato : new Path[]{Path.of("Libri.dati.csv"), Path.of("..", "Libri.dati.csv")}) {
+            if (Files.isRegularFile(candidato)) {
+                return candidato;
+            }
+        }
+        throw new UncheckedIOException(new IOException(
+                "Libri.dati.csv non trovato: avviare i benchmark dalla radice del progetto o da benchmarkBR, "
+                        + "oppure impostare -Dbookrecommender.benchmark.csv=<percorso>"));
+    }
+
+    private static DatiCatalogo leggi(Path file) {
+        List<String> righe = new ArrayList<>();
+        List<Libro> libri = new ArrayList<>();
+        List<Integer> anni = new ArrayList<>();
+        try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String riga;
+            while ((riga = br.readLine()) != null) {
+                righe.add(riga);
+                String[] campi = splitLine(riga);
+                if (campi.length != NUMERO_CAMPI) {
+                    continue;
+                }
+                try {
+                    libri.add(new Libro(Long.parseLong(campi[0].trim()), campi[1].trim(), campi[2].trim(),
+                            campi[8].trim(), campi[3].trim(), campi[4].trim(), campi[5].trim(), campi[6].trim()));
+                    anni.add(anno(campi[8]));
+                } catch (NumberFormatException e) {
+                    // intestazione o riga non valida: ignorata come fa il tool di importazione
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Errore nella lettura di " + file, e);
+        }
+
+        Integer[] ordine = new Integer[libri.size()];
+        for (int i = 0; i < ordine.length; i++) {
+            ordine[i] = i;
+        }
+        Arrays.sort(ordine, Comparator.comparing((Integer i) -> libri.get(i).titolo().toLowerCase(Locale.ROOT))
+                .thenComparing(i -> libri.get(i).id()));
+        List<Libro> ordinati = new ArrayList<>(ordine.length);
+        Integer[] anniOrdinati = new Integer[ordine.length];
+        for (int i = 0; i < ordine.length; i++) {
+            ordinati.add(libri.get(ordine[i]));
+            anniOrdinati[i] = anni.get(ordine[i]);
+        }
+        return new DatiCatalogo(file, righe.toArray(new String[0]), List.copyOf(ordinati), anniOrdinati);
+    }
+
+    private static Integer anno(String testo) {
+        try {
+            return Integer.valueOf(testo.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package bookrecommender.benchmark;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Costruisce {@link java.sql.ResultSet} in memoria per i benchmark dei metodi che mappano
+ * le righe del database negli oggetti del dominio.
+ * <p>
+ * Si usa la {@link CachedRowSet} del JDK, disconnessa, così che il benchmark misuri il costo
+ * del mapping (accesso per nome di colonna, conversione e allocazione degli oggetti) senza
+ * dipendere da un database in esecuzione. Il costo dei metodi {@code getXxx} del driver
+ * PostgreSQL è diverso, ma dello stesso ordine: entrambi risolvono l'etichetta in un indice
+ * e convertono un valore già letto.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public final class RigheInMemoria {
+
+    private RigheInMemoria() {
+    }
+
+    /**
+     * Crea un result set con le colonne e le righe indicate, posizionato prima della prima riga.
+     *
+     * @param colonne i nomi delle colonne.
+     * @param tipi    i tipi SQL delle colonne, costanti di {@link Types}.
+     * @param righe   i valori di ogni riga, nell'ordine delle colonne.
+     * @return il result set.
+     * @throws SQLException se la costruzione del result set non riesce.
+     */
+    public static CachedRowSet crea(String[] colonne, int[] tipi, List<Object[]> righe) throws SQLException {
+        RowSetMetaDataImpl meta = new RowSetMetaDataImpl();
+        meta.setColumnCount(colonne.length);
+        for (int i = 0; i < colonne.length; i++) {
+            meta.setColumnName(i + 1, colonne[i]);
+            meta.setColumnLabel(i + 1, colonne[i]);
+            meta.setColumnType(i + 1, tipi[i]);
+            meta.setNullable(i + 1, RowSetMetaDataImpl.columnNullable);
+        }
+        CachedRowSet rs = RowSetProvider.newFactory().createCachedRowSet();
+        rs.setMetaData(meta);
+        for (Object[] riga : righe) {
+            rs.moveToInsertRow();
+            for (int i = 0; i < riga.length; i++) {
+                rs.updateObject(i + 1, riga[i]);
+            }
+            rs.insertRow();
+            rs.moveToCurrentRow();
+        }
+        rs.beforeFirst();
+        return rs;
+    }
+}
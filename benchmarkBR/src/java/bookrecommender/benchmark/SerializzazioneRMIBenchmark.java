@@ -0,0 +1,145 @@
+package bookrecommender.benchmark;
+
+import bookrecommender.condivisi.consigli.LibroConsigliato;
+import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
+import bookrecommender.condivisi.valutazioni.ValutazioneDettagliata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark della serializzazione delle liste restituite dai servizi RMI.
+ * <p>
+ * RMI serializza i risultati con la serializzazione standard di Java: questo benchmark misura
+ * la scrittura della lista ({@link #serializza()}) e il percorso completo scrittura più lettura
+ * ({@link #andataRitorno()}), che corrisponde al lavoro svolto da server e client per ogni
+ * risposta, esclusa la rete. Le liste sono costruite con i libri reali del catalogo, così che
+ * la lunghezza dei testi (soprattutto delle descrizioni) sia realistica.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializzazioneRMIBenchmark {
+
+    /** Tipo degli elementi della lista. */
+    public enum Tipo { LIBRO, LIBRO_CONSIGLIATO, VALUTAZIONE }
+
+    /** Numero di elementi della lista: una pagina di risultati e una risposta grande. */
+    @Param({"20", "500"})
+    public int dimensione;
+
+    /** Tipo degli elementi della lista. */
+    @Param({"LIBRO", "LIBRO_CONSIGLIATO", "VALUTAZIONE"})
+    public Tipo tipo;
+
+    private ArrayList<Serializable> lista;
+    private byte[] serializzata;
+
+    /**
+     * Costruisce la lista e la sua forma serializzata.
+     *
+     * @throws IOException se la serializzazione non riesce.
+     */
+    @Setup
+    public void prepara() throws IOException {
+        List<Libro> libri = DatiCatalogo.carica().libri;
+        int passo = libri.size() / dimensione;
+        lista = new ArrayList<>(dimensione);
+        for (int i = 0; i < dimensione; i++) {
+            Libro libro = libri.get(i * passo);
+            lista.add(switch (tipo) {
+                case LIBRO -> libro;
+                case LIBRO_CONSIGLIATO -> new LibroConsigliato(
+                        new LibroSintesi(libro.id(), libro.titolo(), libro.autori(), libro.anno()), 1 + i % 7);
+                case VALUTAZIONE -> valutazione(libro, i);
+            });
+        }
+        serializzata = scrivi(lista);
+    }
+
+    /**
+     * Serializza la lista.
+     *
+     * @return i byte prodotti.
+     * @throws IOException se la serializzazione non riesce.
+     */
+    @Benchmark
+    public byte[] serializza() throws IOException {
+        return scrivi(lista);
+    }
+
+    /**
+     * Deserializza la lista.
+     *
+     * @return la lista letta.
+     * @throws IOException            se la deserializzazione non riesce.
+     * @throws ClassNotFoundException se una classe della lista non è disponibile.
+     */
+    @Benchmark
+    public Object deserializza() throws IOException, ClassNotFoundException {
+        return leggi(serializzata);
+    }
+
+    /**
+     * Serializza la lista e la rilegge.
+     *
+     * @return la lista letta.
+     * @throws IOException            se la serializzazione non riesce.
+     * @throws ClassNotFoundException se una classe della lista non è disponibile.
+     */
+    @Benchmark
+    public Object andataRitorno() throws IOException, ClassNotFoundException {
+        return leggi(scrivi(lista));
+    }
+
+    private static byte[] scrivi(Object oggetto) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(oggetto);
+        }
+        return out.toByteArray();
+    }
+
+    private static Object leggi(byte[] dati) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(dati))) {
+            return ois.readObject();
+        }
+    }
+
+    private static ValutazioneDettagliata valutazione(Libro libro, int i) {
+        int voto = 1 + i % 5;
+        return new ValutazioneDettagliata("utente" + (i % 50), libro.id().intValue(), libro.titolo(), libro.autori(),
+                "Libreria " + (i % 10), voto, "Scorrevole e ben scritto", voto, "Trama solida",
+                voto, "Lo rileggerei", voto, "Idea non nuova", voto, "Edizione curata",
+                voto, "Consigliato a chi ama il genere, con qualche riserva sul finale.",
+                LocalDateTime.of(2024, 1 + i % 12, 1 + i % 28, 12, 0));
+    }
+}
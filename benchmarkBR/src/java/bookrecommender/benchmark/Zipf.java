@@ -0,0 +1,78 @@
+package bookrecommender.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generatore di posizioni con distribuzione di Zipf.
+ * <p>
+ * Le richieste reali si concentrano su pochi libri popolari: i benchmark delle cache e delle
+ * ricerche usano questa distribuzione invece di una uniforme, che sottostimerebbe i tassi di hit.
+ * Il rango {@code k} (da 0) viene estratto con probabilità proporzionale a {@code 1 / (k + 1)^s},
+ * tramite ricerca binaria sulla distribuzione cumulata precalcolata.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public final class Zipf {
+    private final double[] cumulata;
+    private final SplittableRandom random;
+
+    /**
+     * Crea il generatore.
+     *
+     * @param n         il numero di ranghi, almeno 1.
+     * @param esponente l'esponente della distribuzione; 0 dà una distribuzione uniforme.
+     * @param seme      il seme del generatore, per avere sequenze ripetibili tra le esecuzioni.
+     */
+    public Zipf(int n, double esponente, long seme) {
+        cumulata = new double[n];
+        double totale = 0;
+        for (int k = 0; k < n; k++) {
+            totale += 1.0 / Math.pow(k + 1, esponente);
+            cumulata[k] = totale;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulata[k] /= totale;
+        }
+        random = new SplittableRandom(seme);
+    }
+
+    /**
+     * Estrae un rango.
+     *
+     * @return un rango tra 0 e {@code n - 1}, con i ranghi bassi più probabili.
+     */
+    public int prossimo() {
+        return prossimo(random);
+    }
+
+    /**
+     * Estrae un rango usando il generatore indicato. La distribuzione precalcolata è immutabile,
+     * per cui più thread possono usare lo stesso oggetto, ciascuno con il proprio generatore.
+     *
+     * @param random il generatore di numeri casuali da usare.
+     * @return un rango tra 0 e {@code n - 1}, con i ranghi bassi più probabili.
+     */
+    public int prossimo(RandomGenerator random) {
+        int i = Arrays.binarySearch(cumulata, random.nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, cumulata.length - 1);
+    }
+
+    /**
+     * Estrae una sequenza di ranghi.
+     *
+     * @param lunghezza il numero di ranghi da estrarre.
+     * @return i ranghi estratti.
+     */
+    public int[] sequenza(int lunghezza) {
+        int[] ranghi = new int[lunghezza];
+        for (int i = 0; i < lunghezza; i++) {
+            ranghi[i] = prossimo();
+        }
+        return ranghi;
+    }
+}
@@ -0,0 +1,218 @@
+package bookrecommender.benchmark.carico;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * I parametri di un'esecuzione del generatore di carico, letti dalla riga di comando nella
+ * forma {@code --nome=valore}.
+ * <p>
+ * Se {@code tasso} è positivo il carico è aperto: le operazioni arrivano con un processo di
+ * Poisson di quel tasso, indipendentemente dai tempi di risposta, e {@code client} è ignorato.
+ * Altrimenti il carico è chiuso: {@code client} client eseguono ciascuno un'operazione dopo
+ * l'altra, con un tempo di pensiero medio di {@code pensieroMs} millisecondi.
+ *
+ * @param host                 l'host del registro RMI.
+ * @param porta                la porta del registro RMI.
+ * @param client               il numero di client del carico chiuso.
+ * @param tasso                le operazioni al secondo del carico aperto, 0 per il carico chiuso.
+ * @param massimoInCorso       il massimo di operazioni in corso nel carico aperto; gli arrivi oltre
+ *                             questo limite vengono scartati e conteggiati.
+ * @param pensieroMs           il tempo di pensiero medio tra due operazioni di un client, in millisecondi.
+ * @param riscaldamentoSecondi la durata del riscaldamento, escluso dalle statistiche.
+ * @param durataSecondi        la durata della misura.
+ * @param intervalloSecondi    l'intervallo tra due righe di avanzamento, 0 per non stamparle.
+ * @param popolazione          la popolazione di utenti sintetici.
+ * @param esponenteZipf        l'esponente della distribuzione di popolarità dei libri.
+ * @param seme                 il seme dei generatori di numeri casuali.
+ * @param mix                  il peso di ogni operazione; le operazioni assenti non vengono eseguite.
+ * @param timeoutMs            il timeout delle risposte RMI, in millisecondi.
+ * @param csv                  il file CSV a cui aggiungere i risultati, o {@code null}.
+ * @param catalogo             il file del catalogo da cui estrarre le ricerche, o {@code null} per
+ *                             cercare {@code Libri.dati.csv}.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public record ConfigurazioneCarico(String host, int porta, int client, double tasso, int massimoInCorso,
+                                   long pensieroMs, int riscaldamentoSecondi, int durataSecondi,
+                                   int intervalloSecondi, PopolazioneSintetica popolazione, double esponenteZipf,
+                                   long seme, Map<Operazione, Integer> mix, int timeoutMs, Path csv, Path catalogo) {
+
+    /** Descrizione delle opzioni, stampata quando la riga di comando non è valida. */
+    static final String UTILIZZO = """
+            Utilizzo: GeneratoreCarico [--opzione=valore ...]
+              --host=localhost          host del registro RMI
+              --porta=1099              porta del registro RMI
+              --client=16               client del carico chiuso
+              --tasso=0                 operazioni al secondo del carico aperto (0 = carico chiuso)
+              --massimo-in-corso=2000   operazioni in corso oltre cui il carico aperto scarta gli arrivi
+              --pensiero-ms=0           tempo di pensiero medio tra due operazioni di un client
+              --riscaldamento=10        secondi di riscaldamento, esclusi dalle statistiche
+              --durata=60               secondi di misura
+              --intervallo=10           secondi tra due righe di avanzamento (0 = nessuna)
+              --utenti=10000            utenti della popolazione sintetica
+              --prefisso=utente         prefisso degli ID degli utenti sintetici
+              --zipf=1.0                esponente della popolarità dei libri (0 = uniforme)
+              --seme=42                 seme dei generatori di numeri casuali
+              --mix=OPERAZIONE:peso,... operazioni da eseguire e relativi pesi (predefinito: tutte)
+              --timeout-ms=30000        timeout delle risposte RMI
+              --csv=<file>              file CSV a cui aggiungere i risultati
+              --catalogo=<file>         file dei libri da cui estrarre le ricerche (Libri.dati.csv)
+            Operazioni e pesi predefiniti: %s
+            """;
+
+    /**
+     * Verifica i parametri.
+     */
+    public ConfigurazioneCarico {
+        if (porta < 1 || porta > 65535) {
+            throw new IllegalArgumentException("Porta non valida: " + porta);
+        }
+        if (tasso < 0 || Double.isNaN(tasso)) {
+            throw new IllegalArgumentException("Tasso non valido: " + tasso);
+        }
+        if (tasso == 0 && client < 1) {
+            throw new IllegalArgumentException("Il carico chiuso richiede almeno un client: " + client);
+        }
+        verifica(massimoInCorso >= 1, "massimo-in-corso", massimoInCorso);
+        verifica(pensieroMs >= 0, "pensiero-ms", pensieroMs);
+        verifica(riscaldamentoSecondi >= 0, "riscaldamento", riscaldamentoSecondi);
+        verifica(durataSecondi >= 1, "durata", durataSecondi);
+        verifica(intervalloSecondi >= 0, "intervallo", intervalloSecondi);
+        verifica(esponenteZipf >= 0, "zipf", esponenteZipf);
+        verifica(timeoutMs >= 1, "timeout-ms", timeoutMs);
+        if (mix.isEmpty() || mix.values().stream().anyMatch(peso -> peso < 0)
+                || mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Il mix deve contenere almeno un'operazione con peso positivo: " + mix);
+        }
+        mix = Collections.unmodifiableMap(new EnumMap<>(mix));
+    }
+
+    /**
+     * Indica se il carico è aperto.
+     *
+     * @return {@code true} se le operazioni arrivano a tasso costante.
+     */
+    public boolean aperto() {
+        return tasso > 0;
+    }
+
+    /**
+     * Legge i parametri dalla riga di comando; i parametri non indicati hanno il valore predefinito.
+     *
+     * @param args gli argomenti della riga di comando.
+     * @return la configurazione.
+     * @throws IllegalArgumentException se un argomento non è valido.
+     */
+    public static ConfigurazioneCarico leggi(String[] args) {
+        Map<String, String> valori = new HashMap<>();
+        for (String arg : args) {
+            int uguale = arg.indexOf('=');
+            if (!arg.startsWith("--") || uguale < 0) {
+                throw new IllegalArgumentException("Argomento non valido: " + arg);
+            }
+            valori.put(arg.substring(2, uguale), arg.substring(uguale + 1));
+        }
+        Lettore l = new Lettore(valori);
+        ConfigurazioneCarico configurazione = new ConfigurazioneCarico(
+                l.testo("host", "localhost"),
+                l.intero("porta", 1099),
+                l.intero("client", 16),
+                l.decimale("tasso", 0),
+                l.intero("massimo-in-corso", 2000),
+                l.intero("pensiero-ms", 0),
+                l.intero("riscaldamento", 10),
+                l.intero("durata", 60),
+                l.intero("intervallo", 10),
+                new PopolazioneSintetica(l.testo("prefisso", PopolazioneSintetica.PREFISSO_DEFAULT), l.intero("utenti", 10_000)),
+                l.decimale("zipf", 1.0),
+                l.intero("seme", 42),
+                mix(l.testo("mix", null)),
+                l.intero("timeout-ms", 30_000),
+                l.percorso("csv"),
+                l.percorso("catalogo"));
+        if (!valori.isEmpty()) {
+            throw new IllegalArgumentException("Opzioni sconosciute: " + valori.keySet());
+        }
+        return configurazione;
+    }
+
+    /**
+     * Descrive le operazioni disponibili con il loro peso predefinito.
+     *
+     * @return l'elenco delle operazioni.
+     */
+    static String operazioniDisponibili() {
+        StringBuilder sb = new StringBuilder();
+        for (Operazione op : Operazione.values()) {
+            sb.append(sb.length() == 0 ? "" : ", ").append(op).append(':').append(op.pesoDefault());
+        }
+        return sb.toString();
+    }
+
+    private static void verifica(boolean valido, String opzione, Object valore) {
+        if (!valido) {
+            throw new IllegalArgumentException("Valore non valido per --" + opzione + ": " + valore);
+        }
+    }
+
+    private static Map<Operazione, Integer> mix(String testo) {
+        Map<Operazione, Integer> mix = new EnumMap<>(Operazione.class);
+        if (testo == null) {
+            for (Operazione op : Operazione.values()) {
+                mix.put(op, op.pesoDefault());
+            }
+            return mix;
+        }
+        for (String voce : testo.split(",")) {
+            String[] parti = voce.strip().split(":");
+            try {
+                Operazione op = Operazione.valueOf(parti[0].strip().toUpperCase(Locale.ROOT));
+                mix.put(op, parti.length > 1 ? Integer.parseInt(parti[1].strip()) : op.pesoDefault());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Voce del mix non valida: " + voce, e);
+            }
+        }
+        return mix;
+    }
+
+    /**
+     * Legge e rimuove i valori delle opzioni, così che alla fine restino solo quelle sconosciute.
+     */
+    private record Lettore(Map<String, String> valori) {
+        String testo(String nome, String predefinito) {
+            String valore = valori.remove(nome);
+            return valore != null ? valore : predefinito;
+        }
+
+        int intero(String nome, int predefinito) {
+            String valore = valori.remove(nome);
+            try {
+                return valore != null ? Integer.parseInt(valore.strip()) : predefinito;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valore non valido per --" + nome + ": " + valore, e);
+            }
+        }
+
+        double decimale(String nome, double predefinito) {
+            String valore = valori.remove(nome);
+            try {
+                return valore != null ? Double.parseDouble(valore.strip()) : predefinito;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valore non valido per --" + nome + ": " + valore, e);
+            }
+        }
+
+        Path percorso(String nome) {
+            String valore = valori.remove(nome);
+            return valore != null ? Path.of(valore) : null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package bookrecommender.benchmark.carico;
+
+import bookrecommender.benchmark.DatiCatalogo;
+import bookrecommender.benchmark.Zipf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+/**
+ * Ciò che serve alle {@link Operazione} per costruire le richieste: gli stub dei servizi,
+ * la popolazione di utenti e i dati del catalogo da cui estrarre testi e ID dei libri.
+ * <p>
+ * La popolarità dei libri segue una distribuzione di Zipf su un ordine casuale (ma ripetibile)
+ * del catalogo, così che pochi libri ricevano la maggior parte delle richieste di dettaglio
+ * e dei consigli, come accade con i client reali. È immutabile e condiviso da tutti i client:
+ * ogni client usa il proprio generatore di numeri casuali.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public final class ContestoCarico {
+    /** Numero di risultati per pagina, come nel client grafico. */
+    static final int PAGINA = 20;
+
+    private final ServiziRemoti servizi;
+    private final PopolazioneSintetica popolazione;
+    private final DatiCatalogo catalogo;
+    private final long[] libriPerPopolarita;
+    private final Zipf popolarita;
+    private final List<String> categorie;
+
+    /**
+     * Crea il contesto.
+     *
+     * @param servizi     gli stub dei servizi.
+     * @param popolazione la popolazione di utenti sintetici.
+     * @param catalogo    il catalogo da cui estrarre testi e ID.
+     * @param esponente   l'esponente della distribuzione di Zipf della popolarità dei libri.
+     * @param seme        il seme dell'ordine di popolarità dei libri.
+     */
+    public ContestoCarico(ServiziRemoti servizi, PopolazioneSintetica popolazione, DatiCatalogo catalogo,
+                          double esponente, long seme) {
+        this.servizi = servizi;
+        this.popolazione = popolazione;
+        this.catalogo = catalogo;
+        List<Long> ordine = new ArrayList<>(catalogo.ids.length);
+        for (long id : catalogo.ids) {
+            ordine.add(id);
+        }
+        Collections.shuffle(ordine, new Random(seme));
+        this.libriPerPopolarita = ordine.stream().mapToLong(Long::longValue).toArray();
+        this.popolarita = new Zipf(libriPerPopolarita.length, esponente, seme);
+        this.categorie = catalogo.categoriePiuFrequenti(100);
+    }
+
+    /**
+     * Restituisce gli stub dei servizi.
+     *
+     * @return i servizi.
+     */
+    public ServiziRemoti servizi() {
+        return servizi;
+    }
+
+    /**
+     * Restituisce la popolazione di utenti sintetici.
+     *
+     * @return la popolazione.
+     */
+    public PopolazioneSintetica popolazione() {
+        return popolazione;
+    }
+
+    /**
+     * Sceglie un libro secondo la distribuzione di popolarità.
+     *
+     * @param random il generatore di numeri casuali.
+     * @return l'ID del libro.
+     */
+    public long libro(RandomGenerator random) {
+        return libriPerPopolarita[popolarita.prossimo(random)];
+    }
+
+    /**
+     * Estrae una parola da un titolo del catalogo.
+     *
+     * @param random il generatore di numeri casuali.
+     * @param minimo la lunghezza minima della parola.
+     * @return la parola.
+     */
+    public String parolaTitolo(RandomGenerator random, int minimo) {
+        return DatiCatalogo.parola(catalogo.titoli, random, minimo);
+    }
+
+    /**
+     * Estrae una parola dal campo autori di un libro del catalogo.
+     *
+     * @param random il generatore di numeri casuali.
+     * @return la parola.
+     */
+    public String parolaAutore(RandomGenerator random) {
+        return DatiCatalogo.parola(catalogo.autori, random, 4);
+    }
+
+    /**
+     * Sceglie una delle categorie più frequenti del catalogo.
+     *
+     * @param random il generatore di numeri casuali.
+     * @return la categoria.
+     */
+    public String categoria(RandomGenerator random) {
+        return categorie.get(random.nextInt(categorie.size()));
+    }
+}
@@ -0,0 +1,409 @@
+package bookrecommender.benchmark.carico;
+
+import bookrecommender.benchmark.DatiCatalogo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generatore di carico per il server: esegue un mix configurabile di operazioni sui cinque
+ * servizi RMI, come farebbero molti client grafici contemporaneamente, e riporta throughput,
+ * percentili delle latenze e tassi di errore di ogni operazione.
+ * <p>
+ * Due modalità:
+ * <ul>
+ *     <li><b>carico chiuso</b> ({@code --client=N}): N client eseguono un'operazione dopo l'altra,
+ *     con un tempo di pensiero opzionale. Il throughput dipende dai tempi di risposta del server;
+ *     serve a trovare la capacità massima.</li>
+ *     <li><b>carico aperto</b> ({@code --tasso=R}): le operazioni arrivano con un processo di Poisson
+ *     di R operazioni al secondo, indipendentemente dalle risposte. La latenza è misurata dall'istante
+ *     di arrivo previsto, per cui include l'attesa dovuta a un server saturo (nessuna
+ *     <i>coordinated omission</i>); serve a misurare le latenze a un carico dato.</li>
+ * </ul>
+ * Ogni client, e nel carico aperto ogni operazione, gira in un thread virtuale se la JVM li
+ * supporta (Java 21 o successivo), altrimenti in un thread di piattaforma. Le statistiche escludono
+ * il periodo di riscaldamento, durante il quale il server compila il codice e riempie le cache.
+ * <p>
+ * Gli utenti sono scelti dalla {@link PopolazioneSintetica}; i testi delle ricerche e gli ID dei
+ * libri sono estratti da {@code Libri.dati.csv}, lo stesso file caricato nel database.
+ * <p>
+ * Uso (dalla cartella benchmarkBR, con il server avviato):
+ * <pre>
+ *   java -cp target/benchmarks.jar bookrecommender.benchmark.carico.GeneratoreCarico --client=50 --durata=120
+ *   java -cp target/benchmarks.jar bookrecommender.benchmark.carico.GeneratoreCarico --tasso=300 --mix=RICERCA_TITOLO:1
+ * </pre>
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public final class GeneratoreCarico {
+    /** Intestazione del file CSV dei risultati. */
+    static final String INTESTAZIONE_CSV =
+            "data,modalita,client,tasso,operazione,esecuzioni,op_al_secondo,rifiutate,errori,"
+                    + "media_ms,p50_ms,p90_ms,p99_ms,p999_ms,max_ms\n";
+    private static final String TOTALE = "TOTALE";
+
+    private final ConfigurazioneCarico configurazione;
+    private final ContestoCarico contesto;
+    private final Operazione[] operazioni;
+    private final int[] pesiCumulati;
+    private final Map<Operazione, StatisticheOperazione> statistiche = new EnumMap<>(Operazione.class);
+    private final StatisticheOperazione totale = new StatisticheOperazione();
+    private final AtomicInteger inCorso = new AtomicInteger();
+    private final LongAdder scartate = new LongAdder();
+    private volatile boolean attivo = true;
+    private String tipoThread;
+
+    /**
+     * Crea il generatore.
+     *
+     * @param configurazione i parametri dell'esecuzione.
+     * @param contesto       i servizi e i dati con cui costruire le richieste.
+     */
+    public GeneratoreCarico(ConfigurazioneCarico configurazione, ContestoCarico contesto) {
+        this.configurazione = configurazione;
+        this.contesto = contesto;
+        Map<Operazione, Integer> mix = configurazione.mix();
+        operazioni = mix.entrySet().stream().filter(e -> e.getValue() > 0).map(Map.Entry::getKey).toArray(Operazione[]::new);
+        pesiCumulati = new int[operazioni.length];
+        int somma = 0;
+        for (int i = 0; i < operazioni.length; i++) {
+            somma += mix.get(operazioni[i]);
+            pesiCumulati[i] = somma;
+            statistiche.put(operazioni[i], new StatisticheOperazione());
+        }
+    }
+
+    /**
+     * Punto di ingresso: legge la configurazione, cerca i servizi ed esegue il carico.
+     *
+     * @param args le opzioni, nella forma {@code --nome=valore}.
+     */
+    public static void main(String[] args) {
+        ConfigurazioneCarico configurazione;
+        try {
+            configurazione = ConfigurazioneCarico.leggi(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.printf(ConfigurazioneCarico.UTILIZZO, ConfigurazioneCarico.operazioniDisponibili());
+            System.exit(1);
+            return;
+        }
+        String timeout = String.valueOf(configurazione.timeoutMs());
+        System.setProperty("sun.rmi.transport.tcp.responseTimeout", timeout);
+        System.setProperty("sun.rmi.transport.connectionTimeout", timeout);
+        if (configurazione.catalogo() != null) {
+            System.setProperty("bookrecommender.benchmark.csv", configurazione.catalogo().toString());
+        }
+
+        ServiziRemoti servizi;
+        try {
+            servizi = ServiziRemoti.cerca(configurazione.host(), configurazione.porta());
+        } catch (RemoteException | NotBoundException e) {
+            System.out.printf("Impossibile trovare i servizi su %s:%d: %s%n",
+                    configurazione.host(), configurazione.porta(), e.getMessage());
+            System.exit(2);
+            return;
+        }
+        DatiCatalogo catalogo = DatiCatalogo.carica();
+        ContestoCarico contesto = new ContestoCarico(servizi, configurazione.popolazione(), catalogo,
+                configurazione.esponenteZipf(), configurazione.seme());
+        new GeneratoreCarico(configurazione, contesto).esegui();
+    }
+
+    /**
+     * Esegue il carico per il riscaldamento e la durata configurati, stampando l'avanzamento
+     * e, al termine, i risultati.
+     */
+    public void esegui() {
+        ExecutorService esecutore = creaEsecutore();
+        stampaIntestazione();
+
+        long inizio = System.nanoTime();
+        long fineRiscaldamento = inizio + TimeUnit.SECONDS.toNanos(configurazione.riscaldamentoSecondi());
+        long fine = fineRiscaldamento + TimeUnit.SECONDS.toNanos(configurazione.durataSecondi());
+        Thread arrivi = null;
+        if (configurazione.aperto()) {
+            arrivi = new Thread(() -> generaArrivi(esecutore, inizio), "carico-arrivi");
+            arrivi.setDaemon(true);
+            arrivi.start();
+        } else {
+            for (int i = 0; i < configurazione.client(); i++) {
+                SplittableRandom random = new SplittableRandom(configurazione.seme() + i);
+                esecutore.execute(() -> client(random));
+            }
+        }
+
+        Map<String, StatisticheOperazione.Istantanea> avvioMisura = null;
+        Map<String, StatisticheOperazione.Istantanea> ultimoIntervallo = istantanee();
+        long scartateAvvio = 0;
+        long intervallo = TimeUnit.SECONDS.toNanos(configurazione.intervalloSecondi());
+        long prossimoAvanzamento = intervallo > 0 ? inizio + intervallo : Long.MAX_VALUE;
+        long ultimoAvanzamento = inizio;
+        while (true) {
+            long prossimoEvento = Math.min(prossimoAvanzamento, avvioMisura == null ? fineRiscaldamento : fine);
+            attendiFinoA(prossimoEvento);
+            long adesso = System.nanoTime();
+            if (avvioMisura == null && adesso >= fineRiscaldamento) {
+                avvioMisura = istantanee();
+                scartateAvvio = scartate.sum();
+                if (configurazione.riscaldamentoSecondi() > 0) {
+                    System.out.println("Riscaldamento concluso, inizio della misura");
+                }
+            }
+            if (adesso >= prossimoAvanzamento) {
+                Map<String, StatisticheOperazione.Istantanea> correnti = istantanee();
+                stampaAvanzamento(correnti.get(TOTALE).meno(ultimoIntervallo.get(TOTALE)),
+                        (adesso - ultimoAvanzamento) / 1e9, (adesso - inizio) / 1e9);
+                ultimoIntervallo = correnti;
+                ultimoAvanzamento = adesso;
+                prossimoAvanzamento += intervallo;
+            }
+            if (avvioMisura != null && adesso >= fine) {
+                break;
+            }
+        }
+        attivo = false;
+        Map<String, StatisticheOperazione.Istantanea> fineMisura = istantanee();
+        long scartateMisura = scartate.sum() - scartateAvvio;
+        if (arrivi != null) {
+            arrivi.interrupt();
+        }
+        esecutore.shutdownNow();
+
+        stampaRisultati(avvioMisura, fineMisura, scartateMisura);
+        if (configurazione.csv() != null) {
+            scriviCsv(avvioMisura, fineMisura);
+        }
+    }
+
+    /**
+     * Ciclo di un client del carico chiuso.
+     */
+    private void client(SplittableRandom random) {
+        double pensieroMedio = TimeUnit.MILLISECONDS.toNanos(configurazione.pensieroMs());
+        while (attivo) {
+            long inizio = System.nanoTime();
+            esegui(scegli(random), random, inizio);
+            if (pensieroMedio > 0 && attivo) {
+                LockSupport.parkNanos((long) (-Math.log(1.0 - random.nextDouble()) * pensieroMedio));
+            }
+        }
+    }
+
+    /**
+     * Genera gli arrivi del carico aperto con intervalli esponenziali e li affida all'esecutore.
+     * Gli arrivi che troverebbero già {@code massimoInCorso} operazioni in corso vengono scartati.
+     */
+    private void generaArrivi(ExecutorService esecutore, long inizio) {
+        SplittableRandom random = new SplittableRandom(configurazione.seme());
+        double intervalloMedio = 1e9 / configurazione.tasso();
+        long previsto = inizio;
+        while (attivo) {
+            previsto += (long) (-Math.log(1.0 - random.nextDouble()) * intervalloMedio);
+            attendiFinoA(previsto);
+            if (!attivo) {
+                return;
+            }
+            if (inCorso.get() >= configurazione.massimoInCorso()) {
+                scartate.increment();
+                continue;
+            }
+            Operazione op = scegli(random);
+            long arrivo = previsto;
+            inCorso.incrementAndGet();
+            try {
+                esecutore.execute(() -> {
+                    try {
+                        esegui(op, ThreadLocalRandom.current(), arrivo);
+                    } finally {
+                        inCorso.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // esecutore chiuso al termine della misura
+                inCorso.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Esegue un'operazione e ne registra la latenza, misurata dall'istante indicato.
+     */
+    private void esegui(Operazione op, RandomGenerator random, long inizio) {
+        StatisticheOperazione s = statistiche.get(op);
+        try {
+            boolean riuscita = op.esegui(contesto, random);
+            long durata = System.nanoTime() - inizio;
+            s.registra(durata, riuscita);
+            totale.registra(durata, riuscita);
+        } catch (Exception e) {
+            if (!attivo) {
+                // interrotta dalla chiusura al termine della misura
+                return;
+            }
+            long durata = System.nanoTime() - inizio;
+            s.registraErrore(durata, e);
+            totale.registraErrore(durata, e);
+        }
+    }
+
+    private Operazione scegli(RandomGenerator random) {
+        int estratto = random.nextInt(pesiCumulati[pesiCumulati.length - 1]);
+        for (int i = 0; i < pesiCumulati.length; i++) {
+            if (estratto < pesiCumulati[i]) {
+                return operazioni[i];
+            }
+        }
+        return operazioni[operazioni.length - 1];
+    }
+
+    /**
+     * Crea l'esecutore dei client: un thread virtuale per attività se la JVM li supporta, altrimenti
+     * un pool di thread di piattaforma senza limite. Il metodo viene cercato per riflessione perché
+     * il progetto è compilato per Java 17.
+     */
+    private ExecutorService creaEsecutore() {
+        try {
+            ExecutorService virtuali = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            tipoThread = "thread virtuali";
+            return virtuali;
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            tipoThread = "thread di piattaforma";
+            AtomicInteger contatore = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "carico-client-" + contatore.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private Map<String, StatisticheOperazione.Istantanea> istantanee() {
+        Map<String, StatisticheOperazione.Istantanea> istantanee = new LinkedHashMap<>();
+        statistiche.forEach((op, s) -> istantanee.put(op.name(), s.istantanea()));
+        istantanee.put(TOTALE, totale.istantanea());
+        return istantanee;
+    }
+
+    private static void attendiFinoA(long istante) {
+        long attesa;
+        while ((attesa = istante - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(attesa);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    private void stampaIntestazione() {
+        PopolazioneSintetica popolazione = configurazione.popolazione();
+        if (configurazione.aperto()) {
+            System.out.printf(Locale.ROOT, "Carico aperto: %.1f op/s (arrivi di Poisson), al massimo %d operazioni in corso%n",
+                    configurazione.tasso(), configurazione.massimoInCorso());
+        } else {
+            System.out.printf("Carico chiuso: %d client, tempo di pensiero medio %d ms%n",
+                    configurazione.client(), configurazione.pensieroMs());
+        }
+        System.out.printf(Locale.ROOT, "Server %s:%d, %d utenti sintetici (%s), Zipf %.2f, %s%n",
+                configurazione.host(), configurazione.porta(), popolazione.dimensione(),
+                popolazione.userId(1) + "..." + popolazione.userId(popolazione.dimensione()),
+                configurazione.esponenteZipf(), tipoThread);
+        System.out.printf("Riscaldamento %d s, misura %d s, mix %s%n",
+                configurazione.riscaldamentoSecondi(), configurazione.durataSecondi(), configurazione.mix());
+    }
+
+    private void stampaAvanzamento(StatisticheOperazione.Istantanea intervallo, double secondi, double trascorsi) {
+        System.out.printf(Locale.ROOT, "[%5.0f s] %8.1f op/s, errori %5.2f%%, p50 %8.2f ms, p99 %8.2f ms, in corso %d, scartate %d%n",
+                trascorsi, intervallo.totale() / secondi, percentuale(intervallo.errori(), intervallo.totale()),
+                ms(intervallo.latenze().percentile(50)), ms(intervallo.latenze().percentile(99)),
+                configurazione.aperto() ? inCorso.get() : configurazione.client(), scartate.sum());
+    }
+
+    private void stampaRisultati(Map<String, StatisticheOperazione.Istantanea> avvio,
+                                 Map<String, StatisticheOperazione.Istantanea> fine, long scartateMisura) {
+        double secondi = configurazione.durataSecondi();
+        System.out.println();
+        System.out.printf("%-20s %10s %9s %9s %8s %9s %9s %9s %9s %9s %9s%n", "operazione", "esecuzioni", "op/s",
+                "rifiutate", "errori%", "media ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        fine.forEach((nome, istantanea) -> {
+            StatisticheOperazione.Istantanea s = istantanea.meno(avvio.get(nome));
+            System.out.printf(Locale.ROOT, "%-20s %10d %9.1f %9d %8.2f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    nome, s.totale(), s.totale() / secondi, s.rifiutate(), percentuale(s.errori(), s.totale()),
+                    s.latenze().media() / 1e6, ms(s.latenze().percentile(50)), ms(s.latenze().percentile(90)),
+                    ms(s.latenze().percentile(99)), ms(s.latenze().percentile(99.9)), ms(s.latenze().massimo()));
+        });
+        if (configurazione.aperto()) {
+            long arrivi = fine.get(TOTALE).meno(avvio.get(TOTALE)).totale() + scartateMisura;
+            System.out.printf(Locale.ROOT, "Arrivi: %.1f op/s, scartati perché oltre il limite delle operazioni in corso: %d%n",
+                    arrivi / secondi, scartateMisura);
+        }
+        statistiche.forEach((op, s) -> {
+            if (s.primoErrore() != null) {
+                System.out.printf("Primo errore di %s: %s%n", op, s.primoErrore());
+            }
+        });
+    }
+
+    /**
+     * Aggiunge i risultati al file CSV, scrivendo l'intestazione se il file è nuovo.
+     */
+    private void scriviCsv(Map<String, StatisticheOperazione.Istantanea> avvio,
+                           Map<String, StatisticheOperazione.Istantanea> fine) {
+        String data = LocalDateTime.now().withNano(0).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        double secondi = configurazione.durataSecondi();
+        try {
+            boolean nuovo = Files.notExists(configurazione.csv()) || Files.size(configurazione.csv()) == 0;
+            try (BufferedWriter out = Files.newBufferedWriter(configurazione.csv(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (nuovo) {
+                    out.write(INTESTAZIONE_CSV);
+                }
+                for (Map.Entry<String, StatisticheOperazione.Istantanea> e : fine.entrySet()) {
+                    StatisticheOperazione.Istantanea s = e.getValue().meno(avvio.get(e.getKey()));
+                    out.write(String.format(Locale.ROOT, "%s,%s,%d,%.1f,%s,%d,%.3f,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                            data, configurazione.aperto() ? "aperto" : "chiuso", configurazione.client(),
+                            configurazione.tasso(), e.getKey(), s.totale(), s.totale() / secondi, s.rifiutate(), s.errori(),
+                            s.latenze().media() / 1e6, ms(s.latenze().percentile(50)), ms(s.latenze().percentile(90)),
+                            ms(s.latenze().percentile(99)), ms(s.latenze().percentile(99.9)), ms(s.latenze().massimo())));
+                }
+            }
+            System.out.println("Risultati aggiunti a " + configurazione.csv());
+        } catch (IOException e) {
+            System.out.println("Impossibile scrivere i risultati in " + configurazione.csv() + ": " + e.getMessage());
+        }
+    }
+
+    private static double percentuale(long parte, long totale) {
+        return totale == 0 ? 0.0 : 100.0 * parte / totale;
+    }
+
+    private static double ms(long nanosecondi) {
+        return nanosecondi / 1e6;
+    }
+}
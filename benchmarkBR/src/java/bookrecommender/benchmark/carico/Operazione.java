@@ -0,0 +1,174 @@
+package bookrecommender.benchmark.carico;
+
+import bookrecommender.condivisi.libri.FiltriRicerca;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Le operazioni che il generatore di carico può eseguire, ciascuna corrispondente a un'azione
+ * di un utente del client grafico e quindi a una o più chiamate remote.
+ * <p>
+ * Il peso predefinito di ogni operazione riproduce un uso tipico dell'applicazione, dominato
+ * dalle ricerche e dalla consultazione dei libri; le scritture (valutazioni) sono poche.
+ * {@link #esegui(ContestoCarico, RandomGenerator)} restituisce {@code false} quando l'operazione
+ * non ha prodotto effetti: il server ha rifiutato la richiesta o l'utente non ha i dati
+ * necessari (ad esempio nessuna libreria).
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public enum Operazione {
+    /** Ricerca paginata per parola del titolo. */
+    RICERCA_TITOLO(25) {
+        @Override
+        boolean esegui(ContestoCarico c, RandomGenerator r) throws RemoteException {
+            c.servizi().libri().cercaLibro_Per_Titolo_Paginato(c.parolaTitolo(r, 4), 0, ContestoCarico.PAGINA);
+            return true;
+        }
+    },
+    /** Ricerca paginata per parola del campo autori. */
+    RICERCA_AUTORE(10) {
+        @Override
+        boolean esegui(ContestoCarico c, RandomGenerator r) throws RemoteException {
+            c.servizi().libri().cercaLibro_Per_Autore_Paginato(c.parolaAutore(r), 0, ContestoCarico.PAGINA);
+            return true;
+        }
+    },
+    /** Completamento di un prefisso di una-quattro lettere, come durante la digitazione. */
+    COMPLETAMENTO(10) {
+        @Override
+        boolean esegui(ContestoCarico c, RandomGenerator r) throws RemoteException {
+            String parola = c.parolaTitolo(r, 1);
+            c.servizi().libri().getCompletamenti(parola.substring(0, Math.min(parola.length(), 1 + r.nextInt(4))), 10);
+            return true;
+        }
+    },
+    /** Ricerca per categoria, con un intervallo di anni nella metà dei casi. */
+    RICERCA_FACCETTE(5) {
+        @Override
+        boolean esegui(ContestoCarico c, RandomGenerator r) throws RemoteException {
+            Integer da = r.nextBoolean() ? 1950 + r.nextInt(60) : null;
+            FiltriRicerca filtri = new FiltriRicerca(List.of(c.categoria(r)), null, da, da == null ? null : da + 10);
+            c.servizi().libri().cercaLibro_Per_Faccette(filtri, 0, ContestoCarico.PAGINA);
+            return true;
+        }
+    },
+    /** Apertura della scheda di un libro: dati del libro e riepilogo delle valutazioni. */
+    DETTAGLIO_LIBRO(15) {
+        @Override
+        boolean esegui(ContestoCarico c, RandomGenerator r) throws RemoteException {
+            int libro = (int) c.libro(r);
+            boolean trovato = c.servizi().libri().getTitoloLibroById(libro) != null;
+            c.servizi().valutazioni().getRiepilogoValutazioni(libro);
+            return trovato;
+        }
+    },
+    /** Consultazione delle librerie dell'utente e dei libri di una di esse. */
+    LIBRERIE(15) {
+        @Override
+        boolean esegui(ContestoCarico c, RandomGenerator r) throws RemoteException {
+            String utente = c.popolazione().scegli(r);
+            List<String> librerie = c.servizi().librerie().getLibrerieUtente(utente);
+            if (librerie == null || librerie.isEmpty()) {
+                return false;
+            }
+            c.servizi().librerie().getSintesiLibriInLibreria(utente, librerie.get(r.nextInt(librerie.size())));
+            return true;
+        }
+    },
+    /**
+     * Valutazione di un libro di una libreria dell'utente: nuova valutazione o aggiornamento
+     * di quella esistente.
+     */
+    VALUTAZIONE(5) {
+        @Override
+        boolean esegui(ContestoCarico c, RandomGenerator r) throws RemoteException {
+            String utente = c.popolazione().scegli(r);
+            List<String> librerie = c.servizi().librerie().getLibrerieUtente(utente);
+            if (librerie == null || librerie.isEmpty()) {
+                return false;
+            }
+            String libreria = librerie.get(r.nextInt(librerie.size()));
+            List<Long> libri = c.servizi().librerie().getLibriInLibreria(utente, libreria);
+            if (libri == null || libri.isEmpty()) {
+                return false;
+            }
+            int libro = libri.get(r.nextInt(libri.size())).intValue();
+            int[] p = new int[5];
+            int somma = 0;
+            for (int i = 0; i < p.length; i++) {
+                p[i] = 1 + r.nextInt(5);
+                somma += p[i];
+            }
+            double voto = Math.round(somma / (double) p.length);
+            if (c.servizi().valutazioni().isLibroGiaValutato(libro, utente)) {
+                return c.servizi().valutazioni().aggiornaValutazione(utente, libro,
+                        p[0], "", p[1], "", p[2], "", p[3], "", p[4], "", voto, "Valutazione aggiornata dal generatore di carico");
+            }
+            return c.servizi().valutazioni().salvaValutazione(utente, libro, libreria,
+                    p[0], "", p[1], "", p[2], "", p[3], "", p[4], "", voto, "Valutazione del generatore di carico");
+        }
+    },
+    /** Lettura dei libri più consigliati per un libro. */
+    CONSIGLI_LIBRO(10) {
+        @Override
+        boolean esegui(ContestoCarico c, RandomGenerator r) throws RemoteException {
+            c.servizi().consigli().getConsigliatiConConteggio(c.libro(r), 10);
+            return true;
+        }
+    },
+    /** Lettura dei suggerimenti personalizzati per l'utente. */
+    SUGGERIMENTI_UTENTE(2) {
+        @Override
+        boolean esegui(ContestoCarico c, RandomGenerator r) throws RemoteException {
+            c.servizi().consigli().getSuggerimentiPerUtente(c.popolazione().scegli(r), 10);
+            return true;
+        }
+    },
+    /** Elenco delle valutazioni dell'utente, con i dati dei libri e delle librerie. */
+    VALUTAZIONI_UTENTE(2) {
+        @Override
+        boolean esegui(ContestoCarico c, RandomGenerator r) throws RemoteException {
+            c.servizi().valutazioni().listValutazioniDettagliateByUser(c.popolazione().scegli(r));
+            return true;
+        }
+    },
+    /** Accesso di un utente con le credenziali della popolazione sintetica. */
+    ACCESSO(1) {
+        @Override
+        boolean esegui(ContestoCarico c, RandomGenerator r) throws RemoteException {
+            String utente = c.popolazione().scegli(r);
+            return c.servizi().utenti().authenticateUser(utente, c.popolazione().password(utente));
+        }
+    };
+
+    private final int pesoDefault;
+
+    Operazione(int pesoDefault) {
+        this.pesoDefault = pesoDefault;
+    }
+
+    /**
+     * Restituisce il peso dell'operazione nel carico predefinito.
+     *
+     * @return il peso.
+     */
+    public int pesoDefault() {
+        return pesoDefault;
+    }
+
+    /**
+     * Esegue l'operazione.
+     *
+     * @param c il contesto con i servizi e i dati.
+     * @param r il generatore di numeri casuali del client.
+     * @return {@code true} se l'operazione ha avuto effetto, {@code false} se è stata rifiutata
+     *         o l'utente non aveva i dati necessari.
+     * @throws RemoteException se la chiamata remota non riesce.
+     */
+    abstract boolean esegui(ContestoCarico c, RandomGenerator r) throws RemoteException;
+}
@@ -0,0 +1,65 @@
+package bookrecommender.benchmark.carico;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * La popolazione di utenti sintetici usata dal generatore di carico.
+ * <p>
+ * Gli utenti sono numerati da 1 a {@code dimensione}; l'ID è il prefisso seguito dal numero su
+ * sette cifre (ad esempio {@code utente0000042}) e la password coincide con l'ID. Sono le stesse
+ * convenzioni del generatore di dati sintetici di {@code creazioneDB}, così che il carico
+ * trovi nel database librerie, valutazioni e consigli dei propri utenti. Su un database senza
+ * utenti sintetici le operazioni che li richiedono restituiscono risultati vuoti.
+ *
+ * @param prefisso   il prefisso degli ID.
+ * @param dimensione il numero di utenti.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public record PopolazioneSintetica(String prefisso, int dimensione) {
+
+    /** Prefisso predefinito degli ID degli utenti sintetici. */
+    public static final String PREFISSO_DEFAULT = "utente";
+
+    /**
+     * Verifica i parametri della popolazione.
+     */
+    public PopolazioneSintetica {
+        if (dimensione < 1) {
+            throw new IllegalArgumentException("La popolazione deve contenere almeno un utente: " + dimensione);
+        }
+    }
+
+    /**
+     * Restituisce l'ID dell'utente con il numero indicato.
+     *
+     * @param numero il numero dell'utente, da 1 a {@code dimensione}.
+     * @return l'ID dell'utente.
+     */
+    public String userId(int numero) {
+        return String.format("%s%07d", prefisso, numero);
+    }
+
+    /**
+     * Restituisce la password di un utente sintetico.
+     *
+     * @param userId l'ID dell'utente.
+     * @return la password, uguale all'ID.
+     */
+    public String password(String userId) {
+        return userId;
+    }
+
+    /**
+     * Sceglie un utente a caso, con probabilità uniforme.
+     *
+     * @param random il generatore di numeri casuali.
+     * @return l'ID dell'utente scelto.
+     */
+    public String scegli(RandomGenerator random) {
+        return userId(1 + random.nextInt(dimensione));
+    }
+}
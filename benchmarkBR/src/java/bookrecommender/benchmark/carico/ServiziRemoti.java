@@ -0,0 +1,53 @@
+package bookrecommender.benchmark.carico;
+
+import bookrecommender.condivisi.consigli.ConsigliService;
+import bookrecommender.condivisi.librerie.LibrerieService;
+import bookrecommender.condivisi.libri.CercaLibriService;
+import bookrecommender.condivisi.utenti.UtentiService;
+import bookrecommender.condivisi.valutazioni.ValutazioneService;
+
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+
+/**
+ * Gli stub dei cinque servizi registrati da {@code ServerMain}.
+ * <p>
+ * Gli stub RMI sono thread-safe e riusano le connessioni verso il server, per cui un'unica
+ * istanza viene condivisa da tutti i client virtuali, come farebbero più finestre dello stesso
+ * client grafico.
+ *
+ * @param utenti      il servizio degli utenti.
+ * @param libri       il servizio di ricerca dei libri.
+ * @param librerie    il servizio delle librerie.
+ * @param valutazioni il servizio delle valutazioni.
+ * @param consigli    il servizio dei consigli.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public record ServiziRemoti(UtentiService utenti, CercaLibriService libri, LibrerieService librerie,
+                            ValutazioneService valutazioni, ConsigliService consigli) {
+
+    /**
+     * Cerca i servizi nel registro RMI indicato.
+     *
+     * @param host  l'host del registro.
+     * @param porta la porta del registro.
+     * @return gli stub dei servizi.
+     * @throws RemoteException   se il registro non è raggiungibile.
+     * @throws NotBoundException se uno dei servizi non è registrato.
+     */
+    public static ServiziRemoti cerca(String host, int porta) throws RemoteException, NotBoundException {
+        Registry registry = LocateRegistry.getRegistry(host, porta);
+        return new ServiziRemoti(
+                (UtentiService) registry.lookup("UtentiService"),
+                (CercaLibriService) registry.lookup(CercaLibriService.NAME),
+                (LibrerieService) registry.lookup("LibrerieService"),
+                (ValutazioneService) registry.lookup("ValutazioneService"),
+                (ConsigliService) registry.lookup(ConsigliService.NAME));
+    }
+}
@@ -0,0 +1,101 @@
+package bookrecommender.benchmark.carico;
+
+import bookrecommender.server.utili.IstogrammaLatenze;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latenze ed esiti delle esecuzioni di un'{@link Operazione}, aggiornati concorrentemente
+ * da tutti i client.
+ * <p>
+ * Le latenze sono registrate in un {@link IstogrammaLatenze}, lo stesso usato dal server per le
+ * metriche dei servizi, per cui i percentili del client e del server sono confrontabili. Le
+ * statistiche di un intervallo (il periodo di misura dopo il riscaldamento o un intervallo
+ * di avanzamento) si ottengono sottraendo due {@link Istantanea}.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+final class StatisticheOperazione {
+    private final IstogrammaLatenze latenze = new IstogrammaLatenze();
+    private final LongAdder rifiutate = new LongAdder();
+    private final LongAdder errori = new LongAdder();
+    private final AtomicReference<String> primoErrore = new AtomicReference<>();
+
+    /**
+     * Registra un'esecuzione conclusa, con o senza effetto.
+     *
+     * @param nanosecondi la latenza.
+     * @param riuscita    {@code false} se l'operazione è stata rifiutata.
+     */
+    void registra(long nanosecondi, boolean riuscita) {
+        latenze.registra(nanosecondi);
+        if (!riuscita) {
+            rifiutate.increment();
+        }
+    }
+
+    /**
+     * Registra un'esecuzione terminata con un'eccezione. Anche la sua latenza viene registrata:
+     * un timeout rimane visibile nei percentili.
+     *
+     * @param nanosecondi la latenza.
+     * @param errore      l'eccezione.
+     */
+    void registraErrore(long nanosecondi, Throwable errore) {
+        latenze.registra(nanosecondi);
+        errori.increment();
+        primoErrore.compareAndSet(null, errore.getClass().getSimpleName() + ": " + errore.getMessage());
+    }
+
+    /**
+     * Restituisce il messaggio del primo errore registrato.
+     *
+     * @return il messaggio, o {@code null} se non ci sono stati errori.
+     */
+    String primoErrore() {
+        return primoErrore.get();
+    }
+
+    /**
+     * Copia lo stato corrente.
+     *
+     * @return l'istantanea.
+     */
+    Istantanea istantanea() {
+        return new Istantanea(latenze.istantanea(), rifiutate.sum(), errori.sum());
+    }
+
+    /**
+     * Stato delle statistiche in un istante, o differenza tra due istanti.
+     *
+     * @param latenze   la distribuzione delle latenze di tutte le esecuzioni.
+     * @param rifiutate il numero di esecuzioni rifiutate.
+     * @param errori    il numero di esecuzioni terminate con un'eccezione.
+     */
+    record Istantanea(IstogrammaLatenze.Istantanea latenze, long rifiutate, long errori) {
+
+        /**
+         * Restituisce il numero di esecuzioni.
+         *
+         * @return il totale, compresi rifiuti ed errori.
+         */
+        long totale() {
+            return latenze.totale();
+        }
+
+        /**
+         * Restituisce le esecuzioni avvenute dopo un'istantanea precedente.
+         *
+         * @param precedente l'istantanea precedente.
+         * @return la differenza.
+         */
+        Istantanea meno(Istantanea precedente) {
+            return new Istantanea(latenze.meno(precedente.latenze),
+                    rifiutate - precedente.rifiutate, errori - precedente.errori);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package bookrecommender.server.consigli;
+
+import bookrecommender.benchmark.DatiCatalogo;
+import bookrecommender.benchmark.Zipf;
+import bookrecommender.condivisi.consigli.LibroConsigliato;
+import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark di {@link GrafoConsigli}, il grafo in memoria dei libri consigliati.
+ * <p>
+ * Il grafo viene riempito con {@code consigli} archi tra libri del catalogo scelti secondo
+ * Zipf, sia per il libro letto sia per quello consigliato, così che i libri popolari abbiano
+ * molti vicini come nei dati reali. Le letture seguono la stessa distribuzione.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GrafoConsigliBenchmark {
+    /** Numero di richieste precalcolate, potenza di due. */
+    private static final int RICHIESTE = 1 << 16;
+
+    /** Numero di consigli inseriti nel grafo prima delle misure. */
+    @Param({"500000"})
+    public int consigli;
+
+    private GrafoConsigli grafo;
+    private long[] letti;
+    private LibroSintesi[] consigliati;
+    private int prossima;
+
+    /**
+     * Riempie il grafo e prepara le richieste.
+     */
+    @Setup
+    public void prepara() {
+        List<Libro> libri = DatiCatalogo.carica().libri;
+        LibroSintesi[] sintesi = new LibroSintesi[libri.size()];
+        for (int i = 0; i < sintesi.length; i++) {
+            Libro l = libri.get(i);
+            sintesi[i] = new LibroSintesi(l.id(), l.titolo(), l.autori(), l.anno());
+        }
+        Zipf zipf = new Zipf(sintesi.length, 1.0, 42);
+        grafo = new GrafoConsigli(sintesi.length);
+        for (int i = 0; i < consigli; i++) {
+            grafo.aggiungi(sintesi[zipf.prossimo()].id(), sintesi[zipf.prossimo()]);
+        }
+        letti = new long[RICHIESTE];
+        consigliati = new LibroSintesi[RICHIESTE];
+        for (int i = 0; i < RICHIESTE; i++) {
+            letti[i] = sintesi[zipf.prossimo()].id();
+            consigliati[i] = sintesi[zipf.prossimo()];
+        }
+    }
+
+    /**
+     * Legge i dieci libri più consigliati per un libro.
+     *
+     * @return i libri consigliati.
+     */
+    @Benchmark
+    public List<LibroConsigliato> consigliati() {
+        int i = prossima;
+        prossima = (i + 1) & (RICHIESTE - 1);
+        return grafo.consigliati(letti[i], 10);
+    }
+
+    /**
+     * Registra un consiglio.
+     */
+    @Benchmark
+    public void aggiungi() {
+        int i = prossima;
+        prossima = (i + 1) & (RICHIESTE - 1);
+        grafo.aggiungi(letti[i], consigliati[i]);
+    }
+}
@@ -0,0 +1,141 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.benchmark.DatiCatalogo;
+import bookrecommender.benchmark.Zipf;
+import bookrecommender.condivisi.libri.Libro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark di {@link CacheLibriDAO} con richieste distribuite secondo Zipf sul catalogo.
+ * <p>
+ * Il DAO sottostante è simulato e restituisce i libri da una mappa in memoria, per cui i tempi
+ * misurano solo il lavoro della cache (ricerca, promozione tra i segmenti ed espulsione) più
+ * una lettura da mappa per ogni miss. Il tasso di hit raggiunto viene stampato al termine di
+ * ogni iterazione.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CacheLibriBenchmark {
+    /** Numero di richieste precalcolate, potenza di due. */
+    private static final int RICHIESTE = 1 << 16;
+    /** Numero di libri di una pagina richiesta con {@link CacheLibriDAO#getLibriByIds(List)}. */
+    private static final int PAGINA = 20;
+
+    /** Numero massimo di libri in cache. */
+    @Param({"1000", "10000"})
+    public int capacita;
+
+    private CacheLibriDAO cache;
+    private int[] ids;
+    private List<List<Long>> pagine;
+    private int prossima;
+
+    /**
+     * Prepara il DAO simulato e la sequenza delle richieste.
+     */
+    @Setup
+    public void prepara() {
+        DatiCatalogo dati = DatiCatalogo.carica();
+        Map<Long, Libro> perId = new HashMap<>(dati.libri.size() * 2);
+        for (Libro libro : dati.libri) {
+            perId.put(libro.id(), libro);
+        }
+        LibroDAO delegato = (LibroDAO) Proxy.newProxyInstance(LibroDAO.class.getClassLoader(),
+                new Class<?>[]{LibroDAO.class}, (proxy, metodo, argomenti) -> switch (metodo.getName()) {
+                    case "getLibroById" -> perId.get(((Integer) argomenti[0]).longValue());
+                    case "getLibriByIds" -> {
+                        List<Libro> trovati = new ArrayList<>();
+                        for (Object id : (List<?>) argomenti[0]) {
+                            Libro libro = perId.get((Long) id);
+                            if (libro != null) {
+                                trovati.add(libro);
+                            }
+                        }
+                        yield trovati;
+                    }
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+        cache = new CacheLibriDAO(delegato, capacita);
+
+        // rango di popolarità -> libro, in un ordine indipendente dal titolo
+        Zipf zipf = new Zipf(dati.ids.length, 1.0, 42);
+        List<Long> permutati = new ArrayList<>(dati.ids.length);
+        for (long id : dati.ids) {
+            permutati.add(id);
+        }
+        Collections.shuffle(permutati, new Random(42));
+        ids = new int[RICHIESTE];
+        pagine = new ArrayList<>(RICHIESTE);
+        for (int i = 0; i < RICHIESTE; i++) {
+            ids[i] = permutati.get(zipf.prossimo()).intValue();
+            List<Long> pagina = new ArrayList<>(PAGINA);
+            for (int j = 0; j < PAGINA; j++) {
+                pagina.add(permutati.get(zipf.prossimo()));
+            }
+            pagine.add(pagina);
+        }
+    }
+
+    /**
+     * Stampa il tasso di hit dell'iterazione appena conclusa.
+     */
+    @TearDown(Level.Iteration)
+    public void statistiche() {
+        CacheLibriDAO.Statistiche s = cache.getStatistiche();
+        System.out.printf("cache: %d/%d libri, tasso di hit %.1f%%%n", s.dimensione(), s.capacita(), s.tassoHit() * 100);
+    }
+
+    /**
+     * Legge un libro.
+     *
+     * @return il libro.
+     */
+    @Benchmark
+    public Libro getLibroById() {
+        int i = prossima;
+        prossima = (i + 1) & (RICHIESTE - 1);
+        return cache.getLibroById(ids[i]);
+    }
+
+    /**
+     * Legge una pagina di libri.
+     *
+     * @return i libri.
+     */
+    @Benchmark
+    public List<Libro> getLibriByIds() {
+        int i = prossima;
+        prossima = (i + 1) & (RICHIESTE - 1);
+        return cache.getLibriByIds(pagine.get(i));
+    }
+}
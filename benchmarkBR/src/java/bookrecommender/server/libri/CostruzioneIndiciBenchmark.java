@@ -0,0 +1,87 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.benchmark.DatiCatalogo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark della costruzione degli indici in memoria del catalogo, che avviene all'avvio del
+ * server dopo la lettura dei libri dal database.
+ * <p>
+ * Misura il tempo di una singola costruzione a partire dagli array già in memoria, quindi
+ * escluso il trasferimento dei dati dal database.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CostruzioneIndiciBenchmark {
+    private DatiCatalogo dati;
+    private int[] pesi;
+
+    /**
+     * Legge il catalogo.
+     */
+    @Setup
+    public void prepara() {
+        dati = DatiCatalogo.carica();
+        pesi = IndiciLibriBenchmark.pesi(dati.ids.length);
+    }
+
+    /**
+     * Costruisce l'indice di trigrammi.
+     *
+     * @return l'indice.
+     */
+    @Benchmark
+    public IndiceCatalogo catalogo() {
+        return IndiceCatalogo.costruisci(dati.ids, dati.titoli, dati.autori);
+    }
+
+    /**
+     * Costruisce l'indice per la ricerca approssimata.
+     *
+     * @return l'indice.
+     */
+    @Benchmark
+    public IndiceApprossimato approssimato() {
+        return IndiceApprossimato.costruisci(dati.ids, dati.titoli, dati.autori);
+    }
+
+    /**
+     * Costruisce l'indice dei completamenti.
+     *
+     * @return l'indice.
+     */
+    @Benchmark
+    public IndiceCompletamenti completamenti() {
+        return IndiceCompletamenti.costruisci(dati.titoli, dati.autori, pesi);
+    }
+
+    /**
+     * Costruisce l'indice delle faccette.
+     *
+     * @return l'indice.
+     */
+    @Benchmark
+    public IndiceFaccette faccette() {
+        return IndiceFaccette.costruisci(dati.ids, dati.categorie, dati.editori, dati.anni);
+    }
+}
@@ -0,0 +1,208 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.benchmark.DatiCatalogo;
+import bookrecommender.benchmark.Zipf;
+import bookrecommender.condivisi.libri.FiltriRicerca;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark delle ricerche sugli indici in memoria del catalogo.
+ * <p>
+ * Gli indici sono costruiti una volta con i libri di {@code Libri.dati.csv}; le stringhe
+ * cercate sono estratte dal catalogo con un seme fisso, così che ogni esecuzione usi le stesse
+ * query: parole dei titoli e degli autori per {@link IndiceCatalogo}, le stesse parole con un
+ * errore di battitura per {@link IndiceApprossimato}, prefissi di una-quattro lettere per
+ * {@link IndiceCompletamenti} e combinazioni delle categorie e degli editori più frequenti
+ * per {@link IndiceFaccette}. Ogni invocazione esegue la query successiva del proprio elenco.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IndiciLibriBenchmark {
+    /** Numero di query di ciascun elenco, potenza di due. */
+    private static final int QUERY = 1024;
+
+    private IndiceCatalogo catalogo;
+    private IndiceApprossimato approssimato;
+    private IndiceCompletamenti completamenti;
+    private IndiceFaccette faccette;
+
+    private String[] paroleTitoli;
+    private String[] paroleAutori;
+    private String[] refusi;
+    private String[] prefissi;
+    private FiltriRicerca[] filtri;
+    private int prossima;
+
+    /**
+     * Costruisce gli indici e gli elenchi delle query.
+     */
+    @Setup
+    public void prepara() {
+        DatiCatalogo dati = DatiCatalogo.carica();
+        catalogo = IndiceCatalogo.costruisci(dati.ids, dati.titoli, dati.autori);
+        approssimato = IndiceApprossimato.costruisci(dati.ids, dati.titoli, dati.autori);
+        completamenti = IndiceCompletamenti.costruisci(dati.titoli, dati.autori, pesi(dati.ids.length));
+        faccette = IndiceFaccette.costruisci(dati.ids, dati.categorie, dati.editori, dati.anni);
+
+        SplittableRandom random = new SplittableRandom(42);
+        paroleTitoli = new String[QUERY];
+        paroleAutori = new String[QUERY];
+        refusi = new String[QUERY];
+        prefissi = new String[QUERY];
+        for (int i = 0; i < QUERY; i++) {
+            paroleTitoli[i] = DatiCatalogo.parola(dati.titoli, random, 4);
+            paroleAutori[i] = DatiCatalogo.parola(dati.autori, random, 4);
+            refusi[i] = scambia(DatiCatalogo.parola(dati.titoli, random, 6), random);
+            String p = DatiCatalogo.parola(dati.titoli, random, 1);
+            prefissi[i] = p.substring(0, Math.min(p.length(), 1 + random.nextInt(4)));
+        }
+        filtri = filtri(dati, random);
+    }
+
+    /**
+     * Ricerca per sottostringa del titolo.
+     *
+     * @return gli ID trovati.
+     */
+    @Benchmark
+    public List<Long> catalogoPerTitolo() {
+        return catalogo.cercaPerTitolo(paroleTitoli[avanza()]);
+    }
+
+    /**
+     * Ricerca per sottostringa degli autori.
+     *
+     * @return gli ID trovati.
+     */
+    @Benchmark
+    public List<Long> catalogoPerAutore() {
+        return catalogo.cercaPerAutore(paroleAutori[avanza()]);
+    }
+
+    /**
+     * Ricerca approssimata di una parola del titolo con un errore di battitura.
+     *
+     * @return gli ID trovati.
+     */
+    @Benchmark
+    public List<Long> approssimataPerTitolo() {
+        return approssimato.cercaPerTitolo(refusi[avanza()]);
+    }
+
+    /**
+     * Completamento di un prefisso.
+     *
+     * @return i completamenti trovati.
+     */
+    @Benchmark
+    public Object completamento() {
+        return completamenti.completa(prefissi[avanza()], 10);
+    }
+
+    /**
+     * Ricerca per faccette, prima pagina con dieci valori per faccetta.
+     *
+     * @return il risultato della ricerca.
+     */
+    @Benchmark
+    public Object faccette() {
+        return faccette.cerca(filtri[avanza()], 0, 20, 10);
+    }
+
+    private int avanza() {
+        int i = prossima;
+        prossima = (i + 1) & (QUERY - 1);
+        return i;
+    }
+
+    /**
+     * Pesi dei libri per i completamenti: numero di valutazioni simulate con distribuzione di Zipf.
+     */
+    static int[] pesi(int n) {
+        int[] pesi = new int[n];
+        Zipf zipf = new Zipf(n, 1.0, 7);
+        for (int i = 0; i < n * 4; i++) {
+            pesi[zipf.prossimo()]++;
+        }
+        return pesi;
+    }
+
+    /** Scambia due lettere adiacenti in una posizione a caso. */
+    private static String scambia(String parola, SplittableRandom random) {
+        int i = random.nextInt(parola.length() - 1);
+        char[] c = parola.toCharArray();
+        char t = c[i];
+        c[i] = c[i + 1];
+        c[i + 1] = t;
+        return new String(c);
+    }
+
+    /**
+     * Combinazioni dei filtri: una categoria frequente, una categoria con un intervallo di anni,
+     * due categorie e un editore frequente.
+     */
+    private static FiltriRicerca[] filtri(DatiCatalogo dati, SplittableRandom random) {
+        List<String> categorie = piuFrequenti(dati.categorie, true);
+        List<String> editori = piuFrequenti(dati.editori, false);
+        FiltriRicerca[] filtri = new FiltriRicerca[QUERY];
+        for (int i = 0; i < QUERY; i++) {
+            String categoria = categorie.get(random.nextInt(categorie.size()));
+            filtri[i] = switch (i % 4) {
+                case 0 -> new FiltriRicerca(List.of(categoria), null, null, null);
+                case 1 -> {
+                    int da = 1950 + random.nextInt(60);
+                    yield new FiltriRicerca(List.of(categoria), null, da, da + 10);
+                }
+                case 2 -> new FiltriRicerca(List.of(categoria, categorie.get(random.nextInt(categorie.size()))),
+                        null, null, null);
+                default -> new FiltriRicerca(null, List.of(editori.get(random.nextInt(editori.size()))), null, null);
+            };
+        }
+        return filtri;
+    }
+
+    private static List<String> piuFrequenti(String[] campi, boolean categorie) {
+        Map<String, Integer> conteggi = new HashMap<>();
+        for (String campo : campi) {
+            if (categorie) {
+                for (String c : IndiceFaccette.dividiCategorie(campo)) {
+                    conteggi.merge(c, 1, Integer::sum);
+                }
+            } else if (campo != null && !campo.isBlank()) {
+                conteggi.merge(campo.strip(), 1, Integer::sum);
+            }
+        }
+        List<Map.Entry<String, Integer>> voci = new ArrayList<>(conteggi.entrySet());
+        voci.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        List<String> valori = new ArrayList<>();
+        for (int i = 0; i < Math.min(50, voci.size()); i++) {
+            valori.add(voci.get(i).getKey());
+        }
+        return valori;
+    }
+}
@@ -0,0 +1,122 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.benchmark.DatiCatalogo;
+import bookrecommender.benchmark.RigheInMemoria;
+import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark dei metodi di {@link JdbcCercaLibriDAO} che convertono le righe del database in
+ * {@link Libro} e {@link LibroSintesi}.
+ * <p>
+ * Ogni invocazione scorre un {@link ResultSet} in memoria di {@code righe} righe e le converte
+ * tutte, come fanno le ricerche del DAO. I metodi di conversione sono privati e vengono
+ * invocati tramite method handle costanti, che il JIT tratta come chiamate dirette.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapperLibriBenchmark {
+    private static final MethodHandle MAP_LIBRO = mapper("mapResultSetToLibro", Libro.class);
+    private static final MethodHandle MAP_SINTESI = mapper("mapResultSetToSintesi", LibroSintesi.class);
+
+    /** Numero di righe convertite per invocazione: una pagina di risultati e una ricerca ampia. */
+    @Param({"20", "1000"})
+    public int righe;
+
+    private final JdbcCercaLibriDAO dao = new JdbcCercaLibriDAO();
+    private ResultSet libri;
+
+    /**
+     * Costruisce il result set con le colonne della tabella {@code Libri}.
+     *
+     * @throws SQLException se la costruzione del result set non riesce.
+     */
+    @Setup
+    public void prepara() throws SQLException {
+        List<Libro> catalogo = DatiCatalogo.carica().libri;
+        List<Object[]> valori = new ArrayList<>(righe);
+        for (int i = 0; i < righe; i++) {
+            Libro l = catalogo.get(i * (catalogo.size() / righe));
+            valori.add(new Object[]{l.id(), l.titolo(), l.autori(), anno(l.anno()), l.descrizione(),
+                    l.categorie(), l.editore(), l.prezzo()});
+        }
+        libri = RigheInMemoria.crea(
+                new String[]{"id", "titolo", "autori", "anno", "descrizione", "categorie", "editore", "prezzo"},
+                new int[]{Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.SMALLINT, Types.VARCHAR,
+                        Types.VARCHAR, Types.VARCHAR, Types.VARCHAR},
+                valori);
+    }
+
+    /**
+     * Converte tutte le righe in {@link Libro}.
+     *
+     * @param bh il consumatore dei libri.
+     * @throws Throwable se la lettura del result set non riesce.
+     */
+    @Benchmark
+    public void mapResultSetToLibro(Blackhole bh) throws Throwable {
+        libri.beforeFirst();
+        while (libri.next()) {
+            bh.consume((Libro) MAP_LIBRO.invokeExact(dao, libri));
+        }
+    }
+
+    /**
+     * Converte tutte le righe in {@link LibroSintesi}.
+     *
+     * @param bh il consumatore delle sintesi.
+     * @throws Throwable se la lettura del result set non riesce.
+     */
+    @Benchmark
+    public void mapResultSetToSintesi(Blackhole bh) throws Throwable {
+        libri.beforeFirst();
+        while (libri.next()) {
+            bh.consume((LibroSintesi) MAP_SINTESI.invokeExact(dao, libri));
+        }
+    }
+
+    private static MethodHandle mapper(String nome, Class<?> risultato) {
+        try {
+            return MethodHandles.privateLookupIn(JdbcCercaLibriDAO.class, MethodHandles.lookup())
+                    .findVirtual(JdbcCercaLibriDAO.class, nome, MethodType.methodType(risultato, ResultSet.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static Short anno(String anno) {
+        Integer valore = JdbcCercaLibriDAO.annoNumerico(anno);
+        return valore == null ? null : valore.shortValue();
+    }
+}
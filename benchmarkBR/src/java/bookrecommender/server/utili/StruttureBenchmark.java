@@ -0,0 +1,174 @@
+package bookrecommender.server.utili;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark delle strutture dati di supporto usate dagli indici e dalle metriche del server.
+ * <p>
+ * Le bitmap coprono un universo pari alla dimensione del catalogo, con densità simili a quelle
+ * delle faccette: una categoria frequente (circa un terzo dei libri), una media (5%) e una
+ * rara (0,1%). Le durate registrate nell'istogramma e le chiavi della mappa sono precalcolate.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StruttureBenchmark {
+    private static final int UNIVERSO = 103_063;
+    /** Numero di valori precalcolati, potenza di due. */
+    private static final int VALORI = 1 << 16;
+
+    /** Query SQL del server, da normalizzare come fa il profilatore. */
+    private static final String[] SQL = {
+            "SELECT id, titolo, autori, anno FROM Libri WHERE LOWER(titolo) LIKE LOWER(?) ORDER BY titolo, id LIMIT ? OFFSET ?",
+            "SELECT * FROM Libri WHERE id IN (1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20)",
+            "INSERT INTO ValutazioniLibri (user_id, libro_id, libreria_id, stile_score) VALUES ('mario01', 42, 7, 5)",
+            """
+            SELECT l.id, l.titolo, COUNT(*) AS conteggio
+              FROM ConsigliLibri c
+              JOIN Libri l ON l.id = c.libro_consigliato_id
+             WHERE c.libro_letto_id = 1234
+             GROUP BY l.id, l.titolo
+             ORDER BY conteggio DESC
+            """
+    };
+
+    private BitmapCompressa frequente;
+    private BitmapCompressa media;
+    private BitmapCompressa rara;
+    private final IstogrammaLatenze istogramma = new IstogrammaLatenze();
+    private long[] durate;
+    private MappaLongInt mappa;
+    private long[] chiavi;
+    private int prossima;
+
+    /**
+     * Prepara le bitmap, le durate e la mappa.
+     */
+    @Setup
+    public void prepara() {
+        SplittableRandom random = new SplittableRandom(42);
+        frequente = bitmap(random, 0.33);
+        media = bitmap(random, 0.05);
+        rara = bitmap(random, 0.001);
+
+        durate = new long[VALORI];
+        for (int i = 0; i < VALORI; i++) {
+            // durate log-normali attorno a 1 ms, con una coda di qualche decina di millisecondi
+            durate[i] = (long) (1_000_000 * Math.exp(random.nextGaussian() * 1.2));
+        }
+
+        mappa = new MappaLongInt(UNIVERSO);
+        chiavi = new long[VALORI];
+        for (int i = 0; i < UNIVERSO; i++) {
+            mappa.put(i * 7919L + 1, i);
+        }
+        for (int i = 0; i < VALORI; i++) {
+            chiavi[i] = random.nextInt(UNIVERSO) * 7919L + 1;
+        }
+    }
+
+    /**
+     * Interseca una bitmap densa con una rara.
+     *
+     * @return l'intersezione.
+     */
+    @Benchmark
+    public BitmapCompressa intersezioneDensaRara() {
+        return frequente.intersezione(rara);
+    }
+
+    /**
+     * Interseca due bitmap dense.
+     *
+     * @return l'intersezione.
+     */
+    @Benchmark
+    public BitmapCompressa intersezioneDense() {
+        return frequente.intersezione(media);
+    }
+
+    /**
+     * Unisce due bitmap dense.
+     *
+     * @return l'unione.
+     */
+    @Benchmark
+    public BitmapCompressa unioneDense() {
+        return frequente.unione(media);
+    }
+
+    /**
+     * Registra una durata nell'istogramma.
+     */
+    @Benchmark
+    public void registraDurata() {
+        istogramma.registra(durate[avanza()]);
+    }
+
+    /**
+     * Calcola il 99° percentile dall'istantanea dell'istogramma, come fa il servizio di amministrazione.
+     *
+     * @return il percentile.
+     */
+    @Benchmark
+    public long percentile() {
+        return istogramma.istantanea().percentile(99.0);
+    }
+
+    /**
+     * Legge un valore dalla mappa.
+     *
+     * @return il valore.
+     */
+    @Benchmark
+    public int mappaGet() {
+        return mappa.get(chiavi[avanza()]);
+    }
+
+    /**
+     * Normalizza una query SQL.
+     *
+     * @return la query normalizzata.
+     */
+    @Benchmark
+    public String normalizzaSQL() {
+        return ProfilatoreSQL.normalizza(SQL[avanza() & (SQL.length - 1)]);
+    }
+
+    private int avanza() {
+        int i = prossima;
+        prossima = (i + 1) & (VALORI - 1);
+        return i;
+    }
+
+    private static BitmapCompressa bitmap(SplittableRandom random, double densita) {
+        int[] valori = new int[UNIVERSO];
+        int n = 0;
+        for (int i = 0; i < UNIVERSO; i++) {
+            if (random.nextDouble() < densita) {
+                valori[n++] = i;
+            }
+        }
+        return BitmapCompressa.daOrdinati(valori, n, UNIVERSO);
+    }
+}
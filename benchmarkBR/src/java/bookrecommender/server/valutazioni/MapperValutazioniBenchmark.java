@@ -0,0 +1,93 @@
+package bookrecommender.server.valutazioni;
+
+import bookrecommender.benchmark.RigheInMemoria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark di {@link AggregatiValutazioni#riepilogo(ResultSet, int)}, la conversione degli
+ * aggregati letti da {@code AggregatiValutazioni} nel riepilogo delle valutazioni di un libro.
+ * <p>
+ * La conversione delle valutazioni dettagliate è scritta direttamente nei metodi del DAO,
+ * insieme alla query, e non può essere misurata separatamente.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapperValutazioniBenchmark {
+
+    /** Numero di righe convertite per invocazione. */
+    @Param({"1000"})
+    public int righe;
+
+    private ResultSet aggregati;
+
+    /**
+     * Costruisce il result set con le colonne degli aggregati.
+     *
+     * @throws SQLException se la costruzione del result set non riesce.
+     */
+    @Setup
+    public void prepara() throws SQLException {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Object[]> valori = new ArrayList<>(righe);
+        for (int i = 0; i < righe; i++) {
+            Object[] riga = new Object[12];
+            int numero = random.nextInt(1, 1000);
+            riga[0] = numero;
+            for (int c = 1; c <= 6; c++) {
+                riga[c] = (long) numero * random.nextInt(1, 6);
+            }
+            for (int c = 7; c < riga.length; c++) {
+                riga[c] = random.nextInt(0, numero + 1);
+            }
+            valori.add(riga);
+        }
+        String[] colonne = AggregatiValutazioni.COLONNE.split(",\\s*");
+        int[] tipi = new int[colonne.length];
+        Arrays.fill(tipi, Types.INTEGER);
+        Arrays.fill(tipi, 1, 7, Types.BIGINT);
+        aggregati = RigheInMemoria.crea(colonne, tipi, valori);
+    }
+
+    /**
+     * Converte tutte le righe.
+     *
+     * @param bh il consumatore dei riepiloghi.
+     * @throws SQLException se la lettura del result set non riesce.
+     */
+    @Benchmark
+    public void leggiRiepiloghi(Blackhole bh) throws SQLException {
+        aggregati.beforeFirst();
+        while (aggregati.next()) {
+            bh.consume(AggregatiValutazioni.riepilogo(aggregati, aggregati.getRow()));
+        }
+    }
+}
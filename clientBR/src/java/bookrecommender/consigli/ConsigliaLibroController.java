@@ -6,6 +6,7 @@ import bookrecommender.BookRecommender;
 import bookrecommender.condivisi.consigli.ConsigliService;
 import bookrecommender.condivisi.libri.CercaLibriService;
 import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
 import bookrecommender.utenti.GestoreSessione;
 import bookrecommender.utili.ParticleAnimation;
 import javafx.application.Platform;
@@ -86,12 +87,12 @@ public class ConsigliaLibroController {
      * La ListView che visualizza i risultati della ricerca dei libri.
      */
     @FXML
-    private ListView<Libro> searchResultsView;
+    private ListView<LibroSintesi> searchResultsView;
     /**
      * La ListView che mostra i libri che l'utente ha selezionato per il consiglio.
      */
     @FXML
-    private ListView<Libro> selectedBooksView;
+    private ListView<LibroSintesi> selectedBooksView;
     /**
      * L'area di testo in cui l'utente può inserire un commento opzionale per i suoi consigli.
      */
@@ -133,10 +134,15 @@ public class ConsigliaLibroController {
      * Il numero massimo di libri che possono essere consigliati in una singola operazione.
      */
     private final int MAX_CONSIGLI = 3;
+    /**
+     * Il numero massimo di risultati mostrati dalla ricerca per titolo, che viene eseguita a ogni
+     * modifica del campo di ricerca.
+     */
+    private static final int MAX_RISULTATI_RICERCA = 50;
     /**
      * La lista osservabile dei libri selezionati per il consiglio, collegata alla {@code selectedBooksView}.
      */
-    private final ObservableList<Libro> selectedBooks = FXCollections.observableArrayList();
+    private final ObservableList<LibroSintesi> selectedBooks = FXCollections.observableArrayList();
 
     /**
      * Inizializza il controller.
@@ -205,7 +211,7 @@ public class ConsigliaLibroController {
 
         searchResultsView.setCellFactory(lv -> new ListCell<>() {
             @Override
-            protected void updateItem(Libro item, boolean empty) {
+            protected void updateItem(LibroSintesi item, boolean empty) {
                 super.updateItem(item, empty);
                 if (empty || item == null) {
                     setText(null);
@@ -223,7 +229,7 @@ public class ConsigliaLibroController {
 
         selectedBooksView.setCellFactory(lv -> new ListCell<>() {
              @Override
-            protected void updateItem(Libro item, boolean empty) {
+            protected void updateItem(LibroSintesi item, boolean empty) {
                 super.updateItem(item, empty);
                 if (empty || item == null) {
                     setText(null);
@@ -235,7 +241,7 @@ public class ConsigliaLibroController {
 
         selectedBooksView.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2) {
-                Libro selected = selectedBooksView.getSelectionModel().getSelectedItem();
+                LibroSintesi selected = selectedBooksView.getSelectionModel().getSelectedItem();
                 if (selected != null) {
                     selectedBooks.remove(selected);
                 }
@@ -267,7 +273,8 @@ public class ConsigliaLibroController {
      * <ol>
      *   <li>Se la query può essere convertita in {@link Long} viene invocata la ricerca per ID
      *       {@code cercaLibro_Per_Id};</li>
-     *   <li>altrimenti viene effettuata la ricerca per titolo {@code cercaLibro_Per_Titolo}.</li>
+     *   <li>altrimenti viene effettuata la ricerca paginata per titolo {@code cercaLibro_Per_Titolo_Paginato},
+     *       limitata ai primi {@code MAX_RISULTATI_RICERCA} risultati in forma di sintesi.</li>
      * </ol>
      *
      * Il risultato viene mappato in una {@link javafx.collections.ObservableList} e assegnato a
@@ -280,12 +287,14 @@ public class ConsigliaLibroController {
      */
     private void searchBooks(String query) {
         try {
-            List<Libro> results;
+            List<LibroSintesi> results;
             try {
                 Long id = Long.parseLong(query);
-                results = cercaLibriService.cercaLibro_Per_Id(id);
+                results = cercaLibriService.cercaLibro_Per_Id(id).stream()
+                        .map(LibroSintesi::di)
+                        .toList();
             } catch (NumberFormatException e) {
-                results = cercaLibriService.cercaLibro_Per_Titolo(query);
+                results = cercaLibriService.cercaLibro_Per_Titolo_Paginato(query, 0, MAX_RISULTATI_RICERCA).elementi();
             }
             searchResultsView.setItems(FXCollections.observableArrayList(results));
         } catch (Exception e) {
@@ -306,9 +315,9 @@ public class ConsigliaLibroController {
      * Effetti collaterali: modifica la collezione osservabile {@code selectedBooks} e pulisce la
      * selezione della {@code searchResultsView}.
      *
-     * @param book l'istanza di {@link Libro} da aggiungere; se null il metodo non ha effetto.
+     * @param book la sintesi ({@link LibroSintesi}) del libro da aggiungere; se null il metodo non ha effetto.
      */
-    private void addBookToSelection(Libro book) {
+    private void addBookToSelection(LibroSintesi book) {
         if (selectedBooks.size() >= MAX_CONSIGLI) {
             showInfo("Limite Raggiunto", "Puoi consigliare al massimo " + MAX_CONSIGLI + " libri.");
             return;
@@ -354,7 +363,7 @@ public class ConsigliaLibroController {
         suggestButton.setDisable(true);
 
         try {
-            for (Libro libroDaConsigliare : selectedBooks) {
+            for (LibroSintesi libroDaConsigliare : selectedBooks) {
                 consigliService.aggiungiConsiglio(userId, libreriaId, libroLetto.id(), libroDaConsigliare.id(), commento);
             }
             // Se il ciclo for termina senza eccezioni, l'operazione è riuscita
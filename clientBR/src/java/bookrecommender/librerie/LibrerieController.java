@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.ResourceBundle;
 import bookrecommender.condivisi.libri.CercaLibriService;
 import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
 
 /**
  * Controller per la schermata di gestione delle librerie personali dell'utente (librerie-view.fxml).
@@ -78,6 +79,8 @@ public class LibrerieController implements Initializable {
     //--- Services and State ---
     private ParticleAnimation particleAnimation;
     private LibrerieService librerieService;
+    /** Stub del servizio di ricerca libri, ottenuto alla prima richiesta (vedi {@link #getCercaLibriService()}). */
+    private CercaLibriService cercaLibriService;
     /** L'ID dell'utente attualmente loggato. */
     private String currentUserId;
     /** Il nome della libreria attualmente selezionata nella ListView. */
@@ -442,8 +445,8 @@ public class LibrerieController implements Initializable {
 
     /**
      * Carica la lista dei libri contenuti nella libreria selezionata.
-     * Recupera gli ID dei libri dal {@link LibrerieService} e poi i dettagli (titolo)
-     * dal {@link CercaLibriService}, popolando la {@link TableView}.
+     * Recupera dal {@link LibrerieService}, con un'unica chiamata, i libri della libreria
+     * già uniti ai dati del catalogo e popola la {@link TableView}.
      */
     private void loadLibriInLibreria(String nomeLibreria) {
         if (librerieService == null) {
@@ -453,28 +456,15 @@ public class LibrerieController implements Initializable {
 
         try {
             if (currentUserId != null) {
-                List<Long> libriIds = librerieService.getLibriInLibreria(currentUserId, nomeLibreria);
+                List<LibroSintesi> libri = librerieService.getSintesiLibriInLibreria(currentUserId, nomeLibreria);
                 libriList.clear();
-
-                CercaLibriService cercaLibriService = getCercaLibriService();
-                if (cercaLibriService != null) {
-                    for (Long id : libriIds) {
-                        Libro libro = cercaLibriService.getTitoloLibroById(id.intValue());
-                        if (libro != null) {
-                            libriList.add(new LibroRecord(
-                                libro.id(),
-                                libro.titolo() != null ? libro.titolo() : "N/D"
-                            ));
-                        } else {
-                            libriList.add(new LibroRecord(id, "Libro non trovato"));
-                        }
-                    }
-                } else {
-                    for (Long id : libriIds) {
-                        libriList.add(new LibroRecord(id, "Titolo " + id));
-                    }
+                for (LibroSintesi libro : libri) {
+                    libriList.add(new LibroRecord(
+                        libro.id(),
+                        libro.titolo() != null ? libro.titolo() : "N/D"
+                    ));
                 }
-                System.out.println("Caricati " + libriIds.size() + " libri dalla libreria: " + nomeLibreria);
+                System.out.println("Caricati " + libri.size() + " libri dalla libreria: " + nomeLibreria);
             } else {
                 showError("Errore", "Utente non autenticato");
             }
@@ -487,14 +477,19 @@ public class LibrerieController implements Initializable {
 
     /**
      * Recupera un'istanza del servizio {@link CercaLibriService} dal registro RMI.
-     * Questo metodo esegue un lookup ogni volta che viene chiamato.
+     * Il lookup viene eseguito solo alla prima chiamata riuscita; le chiamate successive
+     * riutilizzano lo stub già ottenuto.
      *
      * @return Un'istanza di {@link CercaLibriService} se trovato, altrimenti {@code null}.
      */
     public CercaLibriService getCercaLibriService() {
+        if (cercaLibriService != null) {
+            return cercaLibriService;
+        }
         try {
             Registry registry = LocateRegistry.getRegistry("localhost", 1099);
-            return (CercaLibriService) registry.lookup("CercaLibriService");
+            cercaLibriService = (CercaLibriService) registry.lookup("CercaLibriService");
+            return cercaLibriService;
         } catch (Exception e) {
             System.err.println("Errore nel recupero del servizio CercaLibriService: " + e.getMessage());
             return null;
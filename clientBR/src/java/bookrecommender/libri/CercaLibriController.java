@@ -1,7 +1,10 @@
 package bookrecommender.libri;
 
 import bookrecommender.condivisi.libri.CercaLibriService;
+import bookrecommender.condivisi.libri.Completamento;
 import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
+import bookrecommender.condivisi.libri.Pagina;
 import bookrecommender.utili.ParticleAnimation;
 import bookrecommender.utili.ViewsController;
 import javafx.beans.property.StringProperty;
@@ -41,6 +44,7 @@ import java.util.stream.Collectors;
  *         sul server.</li>
  *     <li>Gestire i casi in cui il servizio RMI non è disponibile, funzionando in una
  *         "modalità demo" con dati di fallback locali.</li>
+ *     <li>Proporre titoli e autori mentre l'utente digita (vedi {@link SuggerimentiRicerca}).</li>
  *     <li>Visualizzare i risultati della ricerca in una {@link TableView}.</li>
  *     <li>Gestire la navigazione, permettendo all'utente di tornare alla schermata precedente
  *         o di visualizzare i dettagli di un libro con un doppio click.</li>
@@ -57,8 +61,18 @@ public class CercaLibriController implements Initializable {
 
     private static final Logger logger = LogManager.getLogger(CercaLibriController.class);
 
+    /** Numero di risultati richiesti al server per ogni pagina delle ricerche per titolo e autore. */
+    private static final int DIMENSIONE_PAGINA = 100;
+
     private CercaLibriService cercaLibriService;
 
+    /** Ricerca paginata attualmente mostrata in tabella, o {@code null} se non ce ne sono. */
+    private RicercaPaginata ricercaCorrente;
+    /** Descrizione della ricerca paginata corrente, usata nei messaggi di stato. */
+    private String descrizioneRicercaCorrente;
+    /** Offset della prossima pagina da richiedere per la ricerca corrente. */
+    private int offsetSuccessivo;
+
    
     
     /** Gruppo che gestisce l'esclusività dei ToggleButton per la modalità di ricerca. */
@@ -99,6 +113,8 @@ public class CercaLibriController implements Initializable {
     @FXML private Label messageLabel;
     /** Pulsante per avviare la ricerca. */
     @FXML private Button searchButton;
+    /** Pulsante per caricare la pagina successiva dei risultati. */
+    @FXML private Button loadMoreButton;
 
     // Tabella per i risultati
     /** Tabella per visualizzare i risultati della ricerca. */
@@ -146,6 +162,7 @@ public class CercaLibriController implements Initializable {
         setupToggleListener();
         setupDemoData();
         setupTableClickHandler();
+        setupSuggerimenti();
 
         updateVisibleInputFields(); // Imposta la visibilità iniziale corretta
         if (messageLabel != null) {
@@ -216,6 +233,21 @@ public class CercaLibriController implements Initializable {
         });
     }
 
+    /**
+     * Collega ai campi di titolo e autore i suggerimenti del completamento automatico.
+     * Scegliendo un suggerimento nei campi di titolo e autore la ricerca parte subito; nella
+     * modalità autore e anno il testo viene solo copiato, perché manca ancora l'anno.
+     * In modalità demo i suggerimenti non sono disponibili.
+     */
+    private void setupSuggerimenti() {
+        if (cercaLibriService == null) {
+            return;
+        }
+        SuggerimentiRicerca.collega(titleField, Completamento.Tipo.TITOLO, cercaLibriService, testo -> onSearch());
+        SuggerimentiRicerca.collega(authorField, Completamento.Tipo.AUTORE, cercaLibriService, testo -> onSearch());
+        SuggerimentiRicerca.collega(authorYearAuthorField, Completamento.Tipo.AUTORE, cercaLibriService, testo -> authorYearField.requestFocus());
+    }
+
     /**
      * Popola la lista {@code demoData} con alcuni libri di esempio da utilizzare in modalità offline.
      */
@@ -266,6 +298,7 @@ public class CercaLibriController implements Initializable {
             return;
         }
 
+        terminaRicercaPaginata();
         try {
             if (selected == tbById)           { searchById(); }
             else if (selected == tbByTitle)   { searchByTitle(); }
@@ -329,12 +362,9 @@ public class CercaLibriController implements Initializable {
         if (titolo.isEmpty()) { showMessage("Il titolo non può essere vuoto."); return; }
 
         if (cercaLibriService != null) {
-            List<Libro> libri = cercaLibriService.cercaLibro_Per_Titolo(titolo);
-            List<BookRecord> results = libri.stream()
-                .map(this::mapLibroToRecord)
-                .collect(Collectors.toList());
-            resultsTable.setItems(FXCollections.observableArrayList(results));
-            showMessage(String.format("%d risultato/i trovato/i per titolo '%s'.", results.size(), titolo));
+            avviaRicercaPaginata(
+                offset -> cercaLibriService.cercaLibro_Per_Titolo_Paginato(titolo, offset, DIMENSIONE_PAGINA),
+                String.format("per titolo '%s'", titolo));
         } else {
             // Fallback Demo
             List<BookRecord> results = demoData.stream()
@@ -355,12 +385,9 @@ public class CercaLibriController implements Initializable {
         if (autore.isEmpty()) { showMessage("L\'autore non può essere vuoto."); return; }
 
         if (cercaLibriService != null) {
-            List<Libro> libri = cercaLibriService.cercaLibro_Per_Autore(autore);
-            List<BookRecord> results = libri.stream()
-                .map(this::mapLibroToRecord)
-                .collect(Collectors.toList());
-            resultsTable.setItems(FXCollections.observableArrayList(results));
-            showMessage(String.format("%d risultato/i trovato/i per autore '%s'.", results.size(), autore));
+            avviaRicercaPaginata(
+                offset -> cercaLibriService.cercaLibro_Per_Autore_Paginato(autore, offset, DIMENSIONE_PAGINA),
+                String.format("per autore '%s'", autore));
         } else {
             // Fallback Demo
             List<BookRecord> results = demoData.stream()
@@ -410,9 +437,27 @@ public class CercaLibriController implements Initializable {
         authorYearAuthorField.clear();
         authorYearField.clear();
         resultsTable.getItems().clear();
+        terminaRicercaPaginata();
         showMessage("");
     }
 
+    /**
+     * Gestisce l'evento di click sul pulsante "Carica altri", aggiungendo alla tabella
+     * la pagina successiva dei risultati della ricerca corrente.
+     */
+    @FXML
+    private void onLoadMore() {
+        if (ricercaCorrente == null) {
+            return;
+        }
+        try {
+            caricaPagina(offsetSuccessivo);
+        } catch (RemoteException re) {
+            logger.error("Errore di comunicazione remota durante il caricamento della pagina successiva.", re);
+            showAlert(Alert.AlertType.ERROR, "Errore Remoto", "Errore durante la comunicazione con il server.", re.getMessage());
+        }
+    }
+
     /**
      * Gestisce l'evento di click sul pulsante "Indietro".
      * Ferma l'animazione e naviga alla schermata precedente (Area Privata se loggato,
@@ -474,6 +519,62 @@ public class CercaLibriController implements Initializable {
         });
     }
 
+    /**
+     * Avvia una nuova ricerca paginata: svuota la tabella e carica la prima pagina.
+     *
+     * @param ricerca     La funzione che richiede al server la pagina con l'offset indicato.
+     * @param descrizione La descrizione della ricerca da mostrare nei messaggi di stato.
+     * @throws RemoteException se si verifica un errore di comunicazione RMI.
+     */
+    private void avviaRicercaPaginata(RicercaPaginata ricerca, String descrizione) throws RemoteException {
+        ricercaCorrente = ricerca;
+        descrizioneRicercaCorrente = descrizione;
+        resultsTable.setItems(FXCollections.observableArrayList());
+        caricaPagina(0);
+    }
+
+    /**
+     * Richiede al server la pagina con l'offset indicato, ne aggiunge i risultati alla tabella
+     * e mostra il pulsante "Carica altri" se esistono altri risultati.
+     *
+     * @param offset La posizione del primo risultato da richiedere.
+     * @throws RemoteException se si verifica un errore di comunicazione RMI.
+     */
+    private void caricaPagina(int offset) throws RemoteException {
+        Pagina<LibroSintesi> pagina = ricercaCorrente.pagina(offset);
+        pagina.elementi().stream()
+            .map(this::mapSintesiToRecord)
+            .forEach(resultsTable.getItems()::add);
+        offsetSuccessivo = pagina.offsetSuccessivo();
+        impostaCaricaAltri(pagina.haSuccessiva());
+        if (pagina.haSuccessiva()) {
+            showMessage(String.format("Mostrati %d di %d risultati %s.", resultsTable.getItems().size(), pagina.totale(), descrizioneRicercaCorrente));
+        } else {
+            showMessage(String.format("%d risultato/i trovato/i %s.", resultsTable.getItems().size(), descrizioneRicercaCorrente));
+        }
+    }
+
+    /**
+     * Dimentica la ricerca paginata corrente e nasconde il pulsante "Carica altri".
+     */
+    private void terminaRicercaPaginata() {
+        ricercaCorrente = null;
+        descrizioneRicercaCorrente = null;
+        offsetSuccessivo = 0;
+        impostaCaricaAltri(false);
+    }
+
+    /**
+     * Mostra o nasconde il pulsante "Carica altri".
+     * @param visibile {@code true} per mostrare il pulsante.
+     */
+    private void impostaCaricaAltri(boolean visibile) {
+        if (loadMoreButton != null) {
+            loadMoreButton.setVisible(visibile);
+            loadMoreButton.setManaged(visibile);
+        }
+    }
+
     /**
      * Aggiorna la tabella dei risultati e il messaggio di stato quando si usano i dati demo.
      * @param results La lista di {@link BookRecord} da mostrare.
@@ -498,6 +599,20 @@ public class CercaLibriController implements Initializable {
         return new BookRecord(id, titolo, autore, anno);
     }
 
+    /**
+     * Converte un oggetto {@link LibroSintesi} (dalle ricerche paginate) in un {@link BookRecord}.
+     * Gestisce i valori nulli impostando "N/D" (Non Disponibile).
+     * @param libro La sintesi del libro da mappare.
+     * @return Il BookRecord corrispondente.
+     */
+    private BookRecord mapSintesiToRecord(LibroSintesi libro) {
+        String id = String.valueOf(libro.id());
+        String titolo = libro.titolo() != null ? libro.titolo() : "N/D";
+        String autore = libro.autori() != null ? libro.autori() : "N/D";
+        String anno = libro.anno() != null ? libro.anno() : "N/D";
+        return new BookRecord(id, titolo, autore, anno);
+    }
+
     /**
      * Ottiene in modo sicuro il testo da un {@link TextField}, gestendo i casi null e trimmando gli spazi.
      * @param tf Il TextField da cui leggere.
@@ -542,6 +657,19 @@ public class CercaLibriController implements Initializable {
         return s != null && s.matches("\\d{4}");
     }
 
+    /**
+     * Funzione che richiede al server una pagina di risultati a partire da un offset.
+     */
+    @FunctionalInterface
+    private interface RicercaPaginata {
+        /**
+         * @param offset La posizione del primo risultato da richiedere.
+         * @return La pagina di risultati.
+         * @throws RemoteException se si verifica un errore di comunicazione RMI.
+         */
+        Pagina<LibroSintesi> pagina(int offset) throws RemoteException;
+    }
+
     // --- CLASSE INTERNA PER LA TABELLA (JavaFX Bean) ---
 
     /**
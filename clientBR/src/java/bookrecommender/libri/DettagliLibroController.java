@@ -1,9 +1,12 @@
 package bookrecommender.libri;
 
+import bookrecommender.condivisi.valutazioni.RiepilogoValutazioni;
 import bookrecommender.condivisi.valutazioni.ValutazioneService;
 import bookrecommender.condivisi.consigli.ConsigliService;
 import bookrecommender.condivisi.consigli.LibroConsigliato;
+import bookrecommender.condivisi.libri.CercaLibriService;
 import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
 import bookrecommender.utenti.GestoreSessione;
 import bookrecommender.utili.ParticleAnimation;
 import bookrecommender.utili.ViewsController;
@@ -79,6 +82,8 @@ public class DettagliLibroController implements Initializable {
     private Libro libroCorrente;
     /** Servizio RMI per recuperare le valutazioni. */
     private ValutazioneService valutazioneService;
+    /** Servizio RMI per recuperare i dettagli completi dei libri consigliati. */
+    private CercaLibriService cercaLibriService;
 
 
      // Campi per la media delle valutazioni
@@ -139,6 +144,7 @@ public class DettagliLibroController implements Initializable {
             Registry registry = LocateRegistry.getRegistry("localhost");
             consigliService = (ConsigliService) registry.lookup(ConsigliService.NAME);
              valutazioneService = (ValutazioneService) registry.lookup("ValutazioneService");
+            cercaLibriService = (CercaLibriService) registry.lookup(CercaLibriService.NAME);
         } catch (NotBoundException | RemoteException e) {
             showAlert(Alert.AlertType.ERROR, "Errore di Connessione", "Impossibile connettersi al servizio di consigli.", e.getMessage());
             consigliService = null;
@@ -157,7 +163,8 @@ public class DettagliLibroController implements Initializable {
 
     /**
      * Imposta un gestore di eventi per il doppio click sulla tabella dei suggerimenti.
-     * Se un utente fa doppio click su una riga, naviga alla vista dei dettagli del libro suggerito.
+     * Se un utente fa doppio click su una riga, recupera i dettagli completi del libro
+     * suggerito (la tabella contiene solo la sua sintesi) e naviga alla relativa vista.
      */
     private void setupTableClickHandler() {
         suggerimentiTable.setOnMouseClicked(event -> {
@@ -165,10 +172,19 @@ public class DettagliLibroController implements Initializable {
                 LibroConsigliatoRecord selectedRecord = suggerimentiTable.getSelectionModel().getSelectedItem();
                 if (selectedRecord != null) {
                     try {
+                        if (cercaLibriService == null) {
+                            showAlert(Alert.AlertType.WARNING, "Servizio non disponibile", "Impossibile recuperare i dettagli del libro.", "");
+                            return;
+                        }
+                        Libro libro = cercaLibriService.getTitoloLibroById(selectedRecord.getLibro().id().intValue());
+                        if (libro == null) {
+                            showAlert(Alert.AlertType.INFORMATION, "Informazione", "Libro non trovato", "Impossibile recuperare i dettagli per il libro selezionato.");
+                            return;
+                        }
                         if (particleAnimation != null) {
                             particleAnimation.stop();
                         }
-                        ViewsController.mostraDettagliLibro(selectedRecord.getLibro(), provenienza);
+                        ViewsController.mostraDettagliLibro(libro, provenienza);
                     } catch (Exception e) {
                         showAlert(Alert.AlertType.ERROR, "Errore di Navigazione", "Impossibile caricare la pagina del libro.", e.getMessage());
                     }
@@ -228,8 +244,8 @@ public class DettagliLibroController implements Initializable {
     
     /**
      * Carica e visualizza la media delle valutazioni di tutti gli utenti per il libro corrente.
-     * Recupera la media generale, il numero di valutazioni e le medie per ogni singolo criterio,
-     * quindi aggiorna la UI di conseguenza.
+     * Recupera con un'unica chiamata RMI il riepilogo delle valutazioni (media generale,
+     * numero di valutazioni e medie per ogni singolo criterio), quindi aggiorna la UI di conseguenza.
      */
     private void caricaMediaValutazioni() {
         if (libroCorrente == null || valutazioneService == null) {
@@ -237,19 +253,19 @@ public class DettagliLibroController implements Initializable {
         }
         
         try {
-            // Calcola la media generale
-            double media = valutazioneService.calcolaMediaValutazioni(libroCorrente.id().intValue());
-            int numeroValutazioni = valutazioneService.getNumeroValutazioni(libroCorrente.id().intValue());
+            RiepilogoValutazioni riepilogo = valutazioneService.getRiepilogoValutazioni(libroCorrente.id().intValue());
+            double media = riepilogo.mediaComplessiva();
             
             // Aggiorna i valori numerici generali
             lblMediaUtenti.setText(String.format("%.1f", media));
-            lblNumeroValutazioni.setText(String.format("(%d valutazioni)", numeroValutazioni));
+            lblNumeroValutazioni.setText(String.format("(%d valutazioni)", riepilogo.numeroValutazioni()));
             
             // Aggiorna le stelle generali
             aggiornaStelleMedia(media);
             
-            // Calcola e mostra le medie separate per ogni criterio
-            caricaMediePerCriterio();
+            // Mostra le medie separate per ogni criterio
+            aggiornaMediePerCriterio(riepilogo.mediaStile(), riepilogo.mediaContenuto(), riepilogo.mediaGradevolezza(),
+                    riepilogo.mediaOriginalita(), riepilogo.mediaEdizione());
             
         } catch (Exception e) {
             e.printStackTrace();
@@ -261,28 +277,6 @@ public class DettagliLibroController implements Initializable {
         }
     }
     
-    /**
-     * Recupera dal servizio RMI le medie di valutazione per ogni criterio specifico
-     * (stile, contenuto, etc.) e le passa al metodo che aggiorna la UI.
-     * Gestisce gli errori mostrando valori di default.
-     */
-    private void caricaMediePerCriterio() {
-        try {
-            double mediaStile = valutazioneService.calcolaMediaStile(libroCorrente.id().intValue());
-            double mediaContenuto = valutazioneService.calcolaMediaContenuto(libroCorrente.id().intValue());
-            double mediaGradevolezza = valutazioneService.calcolaMediaGradevolezza(libroCorrente.id().intValue());
-            double mediaOriginalita = valutazioneService.calcolaMediaOriginalita(libroCorrente.id().intValue());
-            double mediaEdizione = valutazioneService.calcolaMediaEdizione(libroCorrente.id().intValue());
-            
-            aggiornaMediePerCriterio(mediaStile, mediaContenuto, mediaGradevolezza, mediaOriginalita, mediaEdizione);
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            // In caso di errore, mostra valori di default
-            aggiornaMediePerCriterio(0.0, 0.0, 0.0, 0.0, 0.0);
-        }
-    }
-    
     /**
      * Aggiorna la UI con i valori delle medie per ogni criterio.
      * Imposta il testo delle etichette numeriche e chiama {@link #aggiornaStelleCriterio}
@@ -405,7 +399,7 @@ public class DettagliLibroController implements Initializable {
      * Incapsula un oggetto {@link LibroConsigliato} e fornisce metodi getter semplici per il data binding.
      */
     public static class LibroConsigliatoRecord {
-        private final Libro libro;
+        private final LibroSintesi libro;
         private final int numeroConsigli;
 
         public LibroConsigliatoRecord(LibroConsigliato libroConsigliato) {
@@ -413,8 +407,8 @@ public class DettagliLibroController implements Initializable {
             this.numeroConsigli = libroConsigliato.numeroConsigli();
         }
 
-        /** @return L'oggetto {@link Libro} completo del libro consigliato. */
-        public Libro getLibro() {
+        /** @return La sintesi ({@link LibroSintesi}) del libro consigliato. */
+        public LibroSintesi getLibro() {
             return libro;
         }
 
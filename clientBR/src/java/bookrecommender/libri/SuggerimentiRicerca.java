@@ -0,0 +1,157 @@
+package bookrecommender.libri;
+
+import bookrecommender.condivisi.libri.CercaLibriService;
+import bookrecommender.condivisi.libri.Completamento;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Mostra sotto un campo di testo i completamenti proposti dal server mentre l'utente digita.
+ * <p>
+ * Ad ogni modifica del testo viene riavviato un ritardo di {@link #RITARDO_MS} ms (debounce):
+ * solo quando l'utente smette di scrivere viene invocato
+ * {@link CercaLibriService#getCompletamenti(String, int)}. La chiamata RMI avviene su un thread
+ * in background, così da non bloccare l'interfaccia; le risposte arrivate dopo una nuova
+ * modifica del testo vengono scartate. Scegliendo un suggerimento, il testo viene copiato nel
+ * campo e viene invocata l'azione indicata (ad esempio l'avvio della ricerca).
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see CercaLibriController
+ * @version 1.0
+ */
+final class SuggerimentiRicerca {
+
+    private static final Logger logger = LogManager.getLogger(SuggerimentiRicerca.class);
+
+    /** Ritardo, in millisecondi, dall'ultimo tasto premuto alla richiesta dei completamenti. */
+    static final int RITARDO_MS = 150;
+    /** Numero di suggerimenti mostrati. */
+    private static final int NUMERO_SUGGERIMENTI = 8;
+    /** Lunghezza minima del testo per cui vengono chiesti i completamenti. */
+    private static final int LUNGHEZZA_MINIMA = 2;
+
+    /** Thread unico e daemon per le chiamate RMI, condiviso da tutti i campi. */
+    private static final ExecutorService esecutore = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "suggerimenti-ricerca");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TextField campo;
+    private final Completamento.Tipo tipo;
+    private final CercaLibriService servizio;
+    private final Consumer<String> azioneScelta;
+    private final ContextMenu menu = new ContextMenu();
+    private final PauseTransition attesa = new PauseTransition(Duration.millis(RITARDO_MS));
+
+    /** Numero dell'ultima richiesta inviata, per scartare le risposte superate. */
+    private long ultimaRichiesta;
+    /** Vero mentre il testo del campo viene impostato da un suggerimento scelto. */
+    private boolean sceltaInCorso;
+
+    private SuggerimentiRicerca(TextField campo, Completamento.Tipo tipo, CercaLibriService servizio, Consumer<String> azioneScelta) {
+        this.campo = campo;
+        this.tipo = tipo;
+        this.servizio = servizio;
+        this.azioneScelta = azioneScelta;
+    }
+
+    /**
+     * Collega i suggerimenti a un campo di testo.
+     *
+     * @param campo        il campo in cui l'utente digita.
+     * @param tipo         il tipo di completamenti da proporre (titoli o autori).
+     * @param servizio     il servizio remoto di ricerca.
+     * @param azioneScelta l'azione da eseguire quando l'utente sceglie un suggerimento,
+     *                     che riceve il testo scelto.
+     */
+    static void collega(TextField campo, Completamento.Tipo tipo, CercaLibriService servizio, Consumer<String> azioneScelta) {
+        SuggerimentiRicerca suggerimenti = new SuggerimentiRicerca(campo, tipo, servizio, azioneScelta);
+        suggerimenti.attesa.setOnFinished(e -> suggerimenti.richiedi());
+        campo.textProperty().addListener((obs, vecchio, nuovo) -> {
+            if (!suggerimenti.sceltaInCorso) {
+                suggerimenti.attesa.playFromStart();
+            }
+        });
+        campo.focusedProperty().addListener((obs, vecchio, attivo) -> {
+            if (!attivo) {
+                suggerimenti.attesa.stop();
+                suggerimenti.menu.hide();
+            }
+        });
+    }
+
+    /**
+     * Invia in background la richiesta dei completamenti per il testo corrente.
+     */
+    private void richiedi() {
+        String testo = campo.getText() == null ? "" : campo.getText().strip();
+        long richiesta = ++ultimaRichiesta;
+        if (testo.length() < LUNGHEZZA_MINIMA) {
+            menu.hide();
+            return;
+        }
+        esecutore.execute(() -> {
+            try {
+                List<Completamento> completamenti = servizio.getCompletamenti(testo, NUMERO_SUGGERIMENTI);
+                Platform.runLater(() -> {
+                    if (richiesta == ultimaRichiesta && campo.isFocused()) {
+                        mostra(completamenti);
+                    }
+                });
+            } catch (RemoteException e) {
+                logger.debug("Completamenti non disponibili per '{}': {}", testo, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Mostra i completamenti del tipo richiesto sotto il campo, o nasconde il menu se non ce ne sono.
+     */
+    private void mostra(List<Completamento> completamenti) {
+        menu.getItems().clear();
+        for (Completamento completamento : completamenti) {
+            if (completamento.tipo() != tipo) {
+                continue;
+            }
+            MenuItem voce = new MenuItem(completamento.testo());
+            voce.setMnemonicParsing(false);
+            voce.setOnAction(e -> scegli(completamento.testo()));
+            menu.getItems().add(voce);
+        }
+        if (menu.getItems().isEmpty()) {
+            menu.hide();
+        } else if (!menu.isShowing()) {
+            menu.show(campo, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    private void scegli(String testo) {
+        sceltaInCorso = true;
+        try {
+            campo.setText(testo);
+            campo.positionCaret(testo.length());
+        } finally {
+            sceltaInCorso = false;
+        }
+        ultimaRichiesta++;
+        menu.hide();
+        azioneScelta.accept(testo);
+    }
+}
@@ -0,0 +1,191 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Aggiornamento incrementale della tabella Libri a partire da una nuova versione del file CSV.
+ * <p>
+ * A differenza della creazione completa del database, non elimina né ricrea nulla: librerie,
+ * valutazioni e consigli degli utenti restano intatti e il server può restare in funzione.
+ * Il procedimento è:
+ * <ol>
+ *     <li>il CSV viene caricato con {@link CaricatoreCopyLibri} in una tabella temporanea
+ *         {@code libri_nuovi}, con le stesse colonne di Libri;</li>
+ *     <li>per ogni intervallo di {@value #ID_PER_BLOCCO} ID, in una transazione separata, i libri
+ *         nuovi o il cui contenuto è cambiato (confrontando l'hash MD5 della riga) vengono scritti
+ *         con {@code INSERT ... ON CONFLICT (id) DO UPDATE}; i libri identici non vengono toccati;</li>
+ *     <li>nello stesso blocco vengono eliminati i libri non più presenti nel CSV, tranne quelli
+ *         che compaiono in una libreria o in un consiglio di un utente, che vengono mantenuti.
+ *         Se qualche riga del CSV è stata scartata, nessun libro viene eliminato.</li>
+ * </ol>
+ * Al termine, se almeno un libro è stato inserito, modificato o eliminato, viene inviata la notifica
+ * {@code NOTIFY} {@value #CANALE_NOTIFICHE}: il server in funzione, che resta in ascolto sul canale,
+ * rilegge il catalogo e ricostruisce gli indici in memoria, senza bisogno di riavviarlo.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public class AggiornamentoCatalogo {
+
+    /** Ampiezza, in ID, dell'intervallo di libri aggiornato in una singola transazione. */
+    static final int ID_PER_BLOCCO = 10_000;
+
+    /** Canale su cui viene notificato al server che il catalogo è cambiato. */
+    static final String CANALE_NOTIFICHE = "catalogo_libri";
+
+    /** Tabella temporanea in cui viene caricato il nuovo CSV. */
+    static final String TABELLA_NUOVI = "libri_nuovi";
+
+    private static final String CREA_TABELLA_NUOVI =
+            "CREATE TEMP TABLE " + TABELLA_NUOVI + " (LIKE Libri INCLUDING DEFAULTS)";
+
+    private static final String INTERVALLO_ID =
+            "SELECT min(id), max(id) FROM (SELECT id FROM Libri UNION ALL SELECT id FROM " + TABELLA_NUOVI + ") t";
+
+    // L'hash della riga (ROW(...)::text distingue NULL dalla stringa vuota) evita di confrontare
+    // colonna per colonna e di riscrivere i libri invariati
+    private static final String HASH_NUOVO =
+            "md5(ROW(n.titolo, n.autori, n.anno, n.mese, n.descrizione, n.categorie, n.editore, n.prezzo)::text)";
+    private static final String HASH_ATTUALE =
+            "md5(ROW(l.titolo, l.autori, l.anno, l.mese, l.descrizione, l.categorie, l.editore, l.prezzo)::text)";
+
+    private static final String INSERISCI_O_AGGIORNA = """
+            INSERT INTO Libri (id, titolo, autori, anno, mese, descrizione, categorie, editore, prezzo)
+            SELECT n.id, n.titolo, n.autori, n.anno, n.mese, n.descrizione, n.categorie, n.editore, n.prezzo
+            FROM %s n
+            LEFT JOIN Libri l ON l.id = n.id
+            WHERE n.id BETWEEN ? AND ?
+              AND (l.id IS NULL OR %s <> %s)
+            ON CONFLICT (id) DO UPDATE SET
+              titolo = EXCLUDED.titolo,
+              autori = EXCLUDED.autori,
+              anno = EXCLUDED.anno,
+              mese = EXCLUDED.mese,
+              descrizione = EXCLUDED.descrizione,
+              categorie = EXCLUDED.categorie,
+              editore = EXCLUDED.editore,
+              prezzo = EXCLUDED.prezzo
+            RETURNING (xmax = 0) AS inserito
+            """.formatted(TABELLA_NUOVI, HASH_ATTUALE, HASH_NUOVO);
+
+    private static final String ELIMINA_RIMOSSI = """
+            DELETE FROM Libri l
+            WHERE l.id BETWEEN ? AND ?
+              AND NOT EXISTS (SELECT 1 FROM %s n WHERE n.id = l.id)
+              AND NOT EXISTS (SELECT 1 FROM Libreria_Libro ll WHERE ll.libro_id = l.id)
+              AND NOT EXISTS (SELECT 1 FROM ConsigliLibri c WHERE c.libro_consigliato_id = l.id)
+            """.formatted(TABELLA_NUOVI);
+
+    private static final String CONTA_MANTENUTI = """
+            SELECT count(*) FROM Libri l
+            WHERE NOT EXISTS (SELECT 1 FROM %s n WHERE n.id = l.id)
+            """.formatted(TABELLA_NUOVI);
+
+    private AggiornamentoCatalogo() {
+    }
+
+    /**
+     * Aggiorna la tabella Libri con il contenuto del file CSV.
+     *
+     * @param filePath   percorso del file CSV con il nuovo catalogo
+     * @param connection connessione al database esistente
+     * @param fileScarti percorso del file in cui scrivere le righe scartate
+     * @return {@code true} se l'aggiornamento è stato completato
+     */
+    public static boolean aggiornaDaCSV(String filePath, Connection connection, String fileScarti) {
+        long inizio = System.nanoTime();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("DROP TABLE IF EXISTS " + TABELLA_NUOVI);
+            stmt.executeUpdate(CREA_TABELLA_NUOVI);
+
+            CaricatoreCopyLibri.Esito esito = CaricatoreCopyLibri.caricaDaCSV(filePath, connection, fileScarti, TABELLA_NUOVI);
+            if (esito == null || esito.caricati() == 0) {
+                System.out.println("Nessun libro letto dal CSV: aggiornamento annullato per non svuotare il catalogo.");
+                return false;
+            }
+            long caricati = esito.caricati();
+            // Un libro scartato per un errore nel CSV non va eliminato dal catalogo
+            boolean eliminaRimossi = esito.scartati() == 0;
+            if (!eliminaRimossi) {
+                System.out.println("Il CSV contiene righe scartate: i libri assenti non verranno eliminati.");
+            }
+            stmt.executeUpdate("ALTER TABLE " + TABELLA_NUOVI + " ADD PRIMARY KEY (id)");
+            stmt.executeUpdate("ANALYZE " + TABELLA_NUOVI);
+
+            long minimo;
+            long massimo;
+            try (ResultSet rs = stmt.executeQuery(INTERVALLO_ID)) {
+                rs.next();
+                minimo = rs.getLong(1);
+                massimo = rs.getLong(2);
+            }
+
+            long inseriti = 0;
+            long aggiornati = 0;
+            long eliminati = 0;
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement scrivi = connection.prepareStatement(INSERISCI_O_AGGIORNA);
+                 PreparedStatement elimina = connection.prepareStatement(ELIMINA_RIMOSSI)) {
+                for (long da = minimo; da <= massimo; da += ID_PER_BLOCCO) {
+                    long a = Math.min(massimo, da + ID_PER_BLOCCO - 1);
+                    scrivi.setLong(1, da);
+                    scrivi.setLong(2, a);
+                    try (ResultSet rs = scrivi.executeQuery()) {
+                        while (rs.next()) {
+                            if (rs.getBoolean("inserito")) {
+                                inseriti++;
+                            } else {
+                                aggiornati++;
+                            }
+                        }
+                    }
+                    if (eliminaRimossi) {
+                        elimina.setLong(1, da);
+                        elimina.setLong(2, a);
+                        eliminati += elimina.executeUpdate();
+                    }
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+
+            long mantenuti;
+            try (ResultSet rs = stmt.executeQuery(CONTA_MANTENUTI)) {
+                rs.next();
+                mantenuti = rs.getLong(1);
+            }
+            stmt.executeUpdate("DROP TABLE " + TABELLA_NUOVI);
+            stmt.executeUpdate("ANALYZE Libri");
+            boolean modificato = inseriti + aggiornati + eliminati > 0;
+            if (modificato) {
+                stmt.execute("NOTIFY " + CANALE_NOTIFICHE);
+            }
+
+            System.out.printf("Catalogo aggiornato in %.1f s: %d libri inseriti, %d aggiornati, %d invariati, %d eliminati.%n",
+                    (System.nanoTime() - inizio) / 1e9, inseriti, aggiornati, caricati - inseriti - aggiornati, eliminati);
+            if (mantenuti > 0) {
+                System.out.println(mantenuti + " libri assenti dal CSV sono stati mantenuti"
+                        + (eliminaRimossi ? " perché presenti in librerie o consigli degli utenti." : "."));
+            }
+            if (modificato) {
+                System.out.println("Il server in funzione è stato avvisato e ricaricherà il catalogo.");
+            }
+            return true;
+
+        } catch (SQLException e) {
+            System.out.println("Errore durante l'aggiornamento del catalogo: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Conversione dei campi tipizzati della tabella Libri (anno, mese e prezzo) dal testo del CSV.
+ * <p>
+ * Nel CSV il prezzo, il mese e l'anno di pubblicazione sono i campi 6, 7 e 8. Il mese è
+ * scritto per esteso in inglese (es. {@code January}); sono accettati anche i nomi italiani
+ * e il numero del mese. Un campo vuoto diventa {@code null} (NULL nel database), mentre un
+ * valore non interpretabile solleva {@link IllegalArgumentException}, così che il chiamante
+ * possa scartare la riga.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public final class CampiLibro {
+
+    /** Indici dei campi tipizzati nel CSV dei libri. */
+    static final int CAMPO_PREZZO = 6;
+    static final int CAMPO_MESE = 7;
+    static final int CAMPO_ANNO = 8;
+
+    private static final Map<String, Short> MESI = Map.ofEntries(
+            Map.entry("january", (short) 1), Map.entry("gennaio", (short) 1),
+            Map.entry("february", (short) 2), Map.entry("febbraio", (short) 2),
+            Map.entry("march", (short) 3), Map.entry("marzo", (short) 3),
+            Map.entry("april", (short) 4), Map.entry("aprile", (short) 4),
+            Map.entry("may", (short) 5), Map.entry("maggio", (short) 5),
+            Map.entry("june", (short) 6), Map.entry("giugno", (short) 6),
+            Map.entry("july", (short) 7), Map.entry("luglio", (short) 7),
+            Map.entry("august", (short) 8), Map.entry("agosto", (short) 8),
+            Map.entry("september", (short) 9), Map.entry("settembre", (short) 9),
+            Map.entry("october", (short) 10), Map.entry("ottobre", (short) 10),
+            Map.entry("november", (short) 11), Map.entry("novembre", (short) 11),
+            Map.entry("december", (short) 12), Map.entry("dicembre", (short) 12));
+
+    /** Prezzo massimo rappresentabile dalla colonna NUMERIC(10,2). */
+    private static final BigDecimal PREZZO_MASSIMO = new BigDecimal("99999999.99");
+
+    private CampiLibro() {
+    }
+
+    /**
+     * Converte l'anno di pubblicazione.
+     *
+     * @param testo il testo del campo
+     * @return l'anno, o {@code null} se il campo è vuoto
+     * @throws IllegalArgumentException se il testo non è un anno valido
+     */
+    public static Short anno(String testo) {
+        String t = testo == null ? "" : testo.trim();
+        if (t.isEmpty()) {
+            return null;
+        }
+        try {
+            short anno = Short.parseShort(t);
+            if (anno >= 0) {
+                return anno;
+            }
+        } catch (NumberFormatException e) {
+            // gestito sotto
+        }
+        throw new IllegalArgumentException("anno non valido: " + t);
+    }
+
+    /**
+     * Converte il mese di pubblicazione, scritto per esteso o come numero.
+     *
+     * @param testo il testo del campo
+     * @return il mese (da 1 a 12), o {@code null} se il campo è vuoto
+     * @throws IllegalArgumentException se il testo non è un mese valido
+     */
+    public static Short mese(String testo) {
+        String t = testo == null ? "" : testo.trim().toLowerCase(Locale.ROOT);
+        if (t.isEmpty()) {
+            return null;
+        }
+        Short mese = MESI.get(t);
+        if (mese == null) {
+            try {
+                short numero = Short.parseShort(t);
+                if (numero >= 1 && numero <= 12) {
+                    mese = numero;
+                }
+            } catch (NumberFormatException e) {
+                // gestito sotto
+            }
+        }
+        if (mese == null) {
+            throw new IllegalArgumentException("mese non valido: " + testo.trim());
+        }
+        return mese;
+    }
+
+    /**
+     * Converte il prezzo.
+     *
+     * @param testo il testo del campo
+     * @return il prezzo, o {@code null} se il campo è vuoto
+     * @throws IllegalArgumentException se il testo non è un prezzo valido
+     */
+    public static BigDecimal prezzo(String testo) {
+        String t = testo == null ? "" : testo.trim();
+        if (t.isEmpty()) {
+            return null;
+        }
+        try {
+            BigDecimal prezzo = new BigDecimal(t);
+            if (prezzo.signum() >= 0 && prezzo.compareTo(PREZZO_MASSIMO) <= 0) {
+                return prezzo;
+            }
+        } catch (NumberFormatException e) {
+            // gestito sotto
+        }
+        throw new IllegalArgumentException("prezzo non valido: " + t);
+    }
+}
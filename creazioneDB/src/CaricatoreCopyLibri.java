@@ -0,0 +1,369 @@
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Caricamento della tabella Libri da file CSV tramite il comando COPY di PostgreSQL.
+ * <p>
+ * A differenza di {@link LeggiFileCSV#popolaDatabaseDaCSV(String, Connection)}, le righe non
+ * vengono accumulate in un unico batch JDBC: il file viene letto in streaming e inviato al
+ * server con {@code COPY Libri FROM STDIN} (API {@link CopyManager} del driver pgjdbc) a blocchi
+ * di {@value #RIGHE_PER_BLOCCO} righe, ognuno in una propria transazione. La memoria occupata
+ * dipende quindi dalla dimensione del blocco e non da quella del file, a parte gli ID già caricati,
+ * usati per scartare i duplicati prima che violino la chiave primaria: sono segnati in una bitmap
+ * indicizzata per ID (un bit per ID fino al massimo caricato, circa 13 KB per il catalogo attuale),
+ * e solo gli ID negativi o oltre {@value #MASSIMO_ID_BITMAP} finiscono in un insieme a parte.
+ * I record sono letti con {@link ParserCSVParallelo}, che analizza il file in parallelo e
+ * gestisce correttamente i campi quotati che contengono a capo.
+ * <p>
+ * Anno, mese e prezzo sono convertiti con {@link CampiLibro} nei tipi delle colonne; un campo vuoto
+ * diventa NULL. Le righe non valide (numero di campi errato, ID non numerico o duplicato, titolo
+ * mancante, anno, mese o prezzo non interpretabili, campi più lunghi delle colonne) sono scritte nel file degli scarti, precedute da una riga di
+ * commento con il numero del record e il motivo, invece di interrompere il caricamento. Se il COPY
+ * di un blocco fallisce comunque sul server, il blocco viene annullato e ricaricato riga per riga,
+ * così che solo le righe rifiutate dal database finiscano tra gli scarti.
+ * <p>
+ * Il caricamento andrebbe eseguito prima di creare gli indici secondari su Libri
+ * (vedi {@link CreateDatabaseAndTablesBR}), che altrimenti verrebbero aggiornati ad ogni riga.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public class CaricatoreCopyLibri {
+
+    /** Numero di righe inviate al server con un singolo COPY (e una singola transazione). */
+    static final int RIGHE_PER_BLOCCO = 10_000;
+
+    /** Intervallo, in righe, tra due messaggi di avanzamento. */
+    private static final int RIGHE_PER_AVANZAMENTO = 50_000;
+
+    private static final String COPY_LIBRI =
+            "COPY %s (id, titolo, autori, anno, mese, descrizione, categorie, editore, prezzo) FROM STDIN";
+
+    private static final String INSERT_LIBRO =
+            "INSERT INTO %s (id, titolo, autori, anno, mese, descrizione, categorie, editore, prezzo) " +
+            "VALUES (?, ?, ?, CAST(? AS SMALLINT), CAST(? AS SMALLINT), ?, ?, ?, CAST(? AS NUMERIC))";
+
+    /**
+     * Lunghezza massima delle colonne di testo di Libri, nell'ordine di {@link #COPY_LIBRI}
+     * (0 = illimitata o colonna numerica, già convertita da {@link CampiLibro}).
+     */
+    private static final int[] LUNGHEZZE_MASSIME = {0, 500, 500, 0, 0, 0, 500, 500, 0};
+
+    /** Limite (escluso) degli ID segnati nella bitmap degli ID caricati, che occupa al più 16 MB. */
+    static final int MASSIMO_ID_BITMAP = 1 << 27;
+
+    private final Connection connection;
+    private final PrintWriter scarti;
+    private final String copy;
+    private final String insert;
+    /** ID caricati tra 0 e {@link #MASSIMO_ID_BITMAP}, e gli altri ID caricati (di norma nessuno). */
+    private final BitSet idCaricati = new BitSet();
+    private final Set<Long> idCaricatiFuoriBitmap = new HashSet<>();
+
+    /** Record del blocco corrente: ID, campi nell'ordine di COPY, campi originali e numero del record. */
+    private final long[] idBlocco = new long[RIGHE_PER_BLOCCO];
+    private final String[][] campiBlocco = new String[RIGHE_PER_BLOCCO][];
+    private final String[][] recordBlocco = new String[RIGHE_PER_BLOCCO][];
+    private final long[] numeriRecordBlocco = new long[RIGHE_PER_BLOCCO];
+    private int nelBlocco;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 20);
+    private long caricati;
+    private long scartati;
+
+    private CaricatoreCopyLibri(Connection connection, PrintWriter scarti, String tabella) {
+        this.connection = connection;
+        this.scarti = scarti;
+        this.copy = COPY_LIBRI.formatted(tabella);
+        this.insert = INSERT_LIBRO.formatted(tabella);
+    }
+
+    /**
+     * Esito di un caricamento.
+     *
+     * @param caricati numero di libri caricati
+     * @param scartati numero di righe scartate
+     */
+    public record Esito(long caricati, long scartati) {
+    }
+
+    /**
+     * Carica il file CSV nella tabella Libri tramite COPY.
+     *
+     * @param filePath     percorso del file CSV da leggere
+     * @param connection   connessione al database
+     * @param fileScarti   percorso del file in cui scrivere le righe scartate
+     * @return numero di libri caricati con successo
+     */
+    public static long caricaDaCSV(String filePath, Connection connection, String fileScarti) {
+        Esito esito = caricaDaCSV(filePath, connection, fileScarti, "Libri");
+        return esito == null ? 0 : esito.caricati();
+    }
+
+    /**
+     * Carica il file CSV tramite COPY in una tabella con le stesse colonne di Libri.
+     *
+     * @param filePath     percorso del file CSV da leggere
+     * @param connection   connessione al database
+     * @param fileScarti   percorso del file in cui scrivere le righe scartate
+     * @param tabella      nome della tabella di destinazione
+     * @return l'esito del caricamento, o {@code null} se il caricamento è stato interrotto da un errore
+     */
+    public static Esito caricaDaCSV(String filePath, Connection connection, String fileScarti, String tabella) {
+        long inizio = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try (ParserCSVParallelo parser = new ParserCSVParallelo(Path.of(filePath), pool);
+             PrintWriter scarti = new PrintWriter(new BufferedWriter(
+                     Files.newBufferedWriter(Path.of(fileScarti), StandardCharsets.UTF_8)))) {
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            CaricatoreCopyLibri caricatore = new CaricatoreCopyLibri(connection, scarti, tabella);
+            try {
+                caricatore.leggi(parser, inizio);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+
+            double secondi = (System.nanoTime() - inizio) / 1e9;
+            System.out.printf("Caricati %d libri in %.1f s (%.0f righe/s), %d righe scartate%s.%n",
+                    caricatore.caricati, secondi, caricatore.caricati / Math.max(secondi, 1e-9),
+                    caricatore.scartati, caricatore.scartati > 0 ? " (vedi " + fileScarti + ")" : "");
+            return new Esito(caricatore.caricati, caricatore.scartati);
+
+        } catch (IOException e) {
+            System.err.println("Errore nella lettura del file CSV: " + e.getMessage());
+            e.printStackTrace();
+        } catch (SQLException e) {
+            System.err.println("Errore durante il caricamento nel database: " + e.getMessage());
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Caricamento interrotto.");
+        } finally {
+            pool.shutdown();
+        }
+        return null;
+    }
+
+    /**
+     * Legge i record del file, scarta quelli non validi e carica gli altri a blocchi.
+     */
+    private void leggi(ParserCSVParallelo parser, long inizio) throws IOException, SQLException, InterruptedException {
+        String[] fields;
+        long prossimoAvanzamento = RIGHE_PER_AVANZAMENTO;
+        while ((fields = parser.prossimo()) != null) {
+            long numeroRecord = parser.numeroRecord();
+            // Il primo record è l'header se il suo primo campo non è un ID
+            if (numeroRecord == 1 && !fields[0].trim().matches("\\d+")) {
+                continue;
+            }
+            if (fields.length != 9) {
+                scarta(numeroRecord, fields, "numero di campi errato (" + fields.length + ")");
+                continue;
+            }
+            long id;
+            try {
+                id = Long.parseLong(fields[0].trim());
+            } catch (NumberFormatException e) {
+                scarta(numeroRecord, fields, "ID non numerico");
+                continue;
+            }
+            // Stesso ordine delle colonne di COPY_LIBRI (l'ID è a parte); null = NULL
+            String[] campi;
+            try {
+                campi = new String[]{null, fields[1].trim(), fields[2].trim(),
+                        testo(CampiLibro.anno(fields[CampiLibro.CAMPO_ANNO])),
+                        testo(CampiLibro.mese(fields[CampiLibro.CAMPO_MESE])),
+                        fields[3].trim(), fields[4].trim(), fields[5].trim(),
+                        testo(CampiLibro.prezzo(fields[CampiLibro.CAMPO_PREZZO]))};
+            } catch (IllegalArgumentException e) {
+                scarta(numeroRecord, fields, e.getMessage());
+                continue;
+            }
+            String errore = valida(campi);
+            if (errore != null) {
+                scarta(numeroRecord, fields, errore);
+                continue;
+            }
+            if (!segnaCaricato(id)) {
+                scarta(numeroRecord, fields, "ID duplicato " + id);
+                continue;
+            }
+            idBlocco[nelBlocco] = id;
+            campiBlocco[nelBlocco] = campi;
+            recordBlocco[nelBlocco] = fields;
+            numeriRecordBlocco[nelBlocco++] = numeroRecord;
+            if (nelBlocco == RIGHE_PER_BLOCCO) {
+                caricaBlocco();
+            }
+            if (caricati >= prossimoAvanzamento) {
+                double secondi = (System.nanoTime() - inizio) / 1e9;
+                System.out.printf("  %d libri caricati (%.0f righe/s)%n", caricati, caricati / secondi);
+                prossimoAvanzamento += RIGHE_PER_AVANZAMENTO;
+            }
+        }
+        caricaBlocco();
+    }
+
+    private static String testo(Object valore) {
+        return valore == null ? null : valore.toString();
+    }
+
+    /**
+     * Controlla i vincoli della tabella Libri che farebbero fallire il COPY.
+     *
+     * @return il motivo dello scarto, o {@code null} se la riga è valida
+     */
+    static String valida(String[] campi) {
+        if (campi[1].isEmpty()) {
+            return "titolo mancante";
+        }
+        for (int i = 1; i < campi.length; i++) {
+            if (campi[i] == null) {
+                continue;
+            }
+            if (LUNGHEZZE_MASSIME[i] > 0 && campi[i].length() > LUNGHEZZE_MASSIME[i]) {
+                return "campo " + i + " più lungo di " + LUNGHEZZE_MASSIME[i] + " caratteri";
+            }
+            if (campi[i].indexOf('\0') >= 0) {
+                return "carattere NUL nel campo " + i;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Invia il blocco corrente con un COPY e lo conferma. Se il server lo rifiuta, lo ricarica riga per riga.
+     */
+    private void caricaBlocco() throws SQLException {
+        if (nelBlocco == 0) {
+            return;
+        }
+        buffer.reset();
+        for (int i = 0; i < nelBlocco; i++) {
+            codificaRiga(idBlocco[i], campiBlocco[i], buffer);
+        }
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        CopyIn copyIn = copyManager.copyIn(copy);
+        try {
+            copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+            copyIn.endCopy();
+            connection.commit();
+            caricati += nelBlocco;
+        } catch (SQLException e) {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+            connection.rollback();
+            System.err.println("COPY del blocco fallito (" + e.getMessage() + "), caricamento riga per riga...");
+            caricaRigaPerRiga();
+        }
+        nelBlocco = 0;
+    }
+
+    /**
+     * Segna un ID come caricato.
+     *
+     * @return {@code false} se l'ID era già stato caricato
+     */
+    private boolean segnaCaricato(long id) {
+        if (id < 0 || id >= MASSIMO_ID_BITMAP) {
+            return idCaricatiFuoriBitmap.add(id);
+        }
+        if (idCaricati.get((int) id)) {
+            return false;
+        }
+        idCaricati.set((int) id);
+        return true;
+    }
+
+    /** Annulla {@link #segnaCaricato(long)} per una riga rifiutata dal database. */
+    private void dimenticaCaricato(long id) {
+        if (id < 0 || id >= MASSIMO_ID_BITMAP) {
+            idCaricatiFuoriBitmap.remove(id);
+        } else {
+            idCaricati.clear((int) id);
+        }
+    }
+
+    /**
+     * Inserisce le righe del blocco una alla volta, scartando quelle rifiutate dal database.
+     */
+    private void caricaRigaPerRiga() throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(insert)) {
+            for (int i = 0; i < nelBlocco; i++) {
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    ps.setLong(1, idBlocco[i]);
+                    for (int c = 1; c < campiBlocco[i].length; c++) {
+                        ps.setString(c + 1, campiBlocco[i][c]);
+                    }
+                    ps.executeUpdate();
+                    connection.releaseSavepoint(savepoint);
+                    caricati++;
+                } catch (SQLException e) {
+                    connection.rollback(savepoint);
+                    dimenticaCaricato(idBlocco[i]);
+                    scarta(numeriRecordBlocco[i], recordBlocco[i], "rifiutato dal database: " + e.getMessage());
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    /**
+     * Scrive una riga nel formato testo di COPY: campi separati da tabulazione, con
+     * backslash, tabulazioni e a capo protetti da escape e {@code \N} per i campi {@code null}.
+     */
+    static void codificaRiga(long id, String[] campi, ByteArrayOutputStream out) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(id);
+        for (int i = 1; i < campi.length; i++) {
+            sb.append('\t');
+            String campo = campi[i];
+            if (campo == null) {
+                sb.append("\\N");
+                continue;
+            }
+            for (int j = 0; j < campo.length(); j++) {
+                char c = campo.charAt(j);
+                switch (c) {
+                    case '\\' -> sb.append("\\\\");
+                    case '\t' -> sb.append("\\t");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    default -> sb.append(c);
+                }
+            }
+        }
+        sb.append('\n');
+        out.writeBytes(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void scarta(long numeroRecord, String[] record, String motivo) {
+        scarti.println("# record " + numeroRecord + ": " + motivo);
+        scarti.println(ParserCSVParallelo.formatta(record));
+        scartati++;
+    }
+}
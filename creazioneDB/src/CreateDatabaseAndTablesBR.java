@@ -2,6 +2,7 @@
 import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
@@ -12,6 +13,27 @@ import java.util.List;
  * Uso:
  *   java -jar DBCreatorBR-1.0-jar-with-dependencies.jar <db_user> <db_password>
  *
+ * Per caricare i libri con il comando COPY (più veloce, le righe non valide finiscono nel file degli scarti):
+ *   java -jar DBCreatorBR-1.0-jar-with-dependencies.jar <db_user> <db_password> --copy [file_scarti]
+ *
+ * Per aggiornare il catalogo di un database esistente senza ricrearlo (librerie, valutazioni e
+ * consigli degli utenti restano intatti; vengono scritti solo i libri nuovi o modificati):
+ *   java -jar DBCreatorBR-1.0-jar-with-dependencies.jar <db_user> <db_password> --aggiorna [file_scarti]
+ * Il server può restare in funzione, ma va riavviato al termine perché carica gli indici del
+ * catalogo e la cache dei libri solo all'avvio.
+ *
+ * Per convertire un database creato con la vecchia struttura (anno e prezzo come testo) a quella
+ * attuale (anno SMALLINT, mese SMALLINT, prezzo NUMERIC), senza ricrearlo:
+ *   java -jar DBCreatorBR-1.0-jar-with-dependencies.jar <db_user> <db_password> --migra-schema
+ * Il mese non era salvato nella vecchia struttura: per popolarlo si esegue poi --aggiorna.
+ *
+ * Per ricalcolare da zero gli aggregati delle valutazioni di un database esistente (senza ricrearlo):
+ *   java -jar DBCreatorBR-1.0-jar-with-dependencies.jar <db_user> <db_password> --ricostruisci-aggregati
+ * L'opzione crea anche la tabella e il trigger che la aggiorna, se mancanti: va eseguita una volta sui
+ * database creati prima del trigger.
+ *
+ * Gli indici vengono creati dopo il caricamento dei libri, così da non doverli aggiornare ad ogni riga.
+ *
  * Nota: il comando di DROP/CREATE database richiede privilegi adeguati (tipicamente l'utente postgres
  * o un utente con permessi CREATE DATABASE).
  * @author Abou Aziz Sara Hesham Abdel Hamid 757004
@@ -49,11 +71,12 @@ public class CreateDatabaseAndTablesBR {
               id            BIGINT PRIMARY KEY,
               titolo        VARCHAR(500) NOT NULL,
               autori        VARCHAR(500),
-              anno          VARCHAR(256),
+              anno          SMALLINT,
+              mese          SMALLINT CHECK (mese BETWEEN 1 AND 12),
               descrizione   TEXT,
               categorie     VARCHAR(500),
               editore       VARCHAR(500),
-              prezzo        VARCHAR(256)
+              prezzo        NUMERIC(10,2) CHECK (prezzo >= 0)
             );
             """;
 
@@ -124,33 +147,197 @@ public class CreateDatabaseAndTablesBR {
     );
 """;
 
+  // Aggregati delle valutazioni per libro (conteggio, somme dei punteggi e distribuzione dei voti),
+  // aggiornati dal trigger su ValutazioniLibri nella stessa transazione delle valutazioni
+  static final String createAggregatiValutazioni = """
+    CREATE TABLE IF NOT EXISTS AggregatiValutazioni (
+      libro_id           BIGINT PRIMARY KEY REFERENCES Libri(id) ON DELETE CASCADE,
+      numero_valutazioni INT NOT NULL DEFAULT 0,
+      somma_stile        BIGINT NOT NULL DEFAULT 0,
+      somma_contenuto    BIGINT NOT NULL DEFAULT 0,
+      somma_gradimento   BIGINT NOT NULL DEFAULT 0,
+      somma_originalita  BIGINT NOT NULL DEFAULT 0,
+      somma_qualita      BIGINT NOT NULL DEFAULT 0,
+      somma_complessivo  BIGINT NOT NULL DEFAULT 0,
+      voti_1             INT NOT NULL DEFAULT 0,
+      voti_2             INT NOT NULL DEFAULT 0,
+      voti_3             INT NOT NULL DEFAULT 0,
+      voti_4             INT NOT NULL DEFAULT 0,
+      voti_5             INT NOT NULL DEFAULT 0
+    );
+""";
+
+  // Ricalcolo completo degli aggregati a partire da ValutazioniLibri
+  static final String ricalcolaAggregatiValutazioni = """
+    INSERT INTO AggregatiValutazioni (libro_id, numero_valutazioni,
+        somma_stile, somma_contenuto, somma_gradimento, somma_originalita, somma_qualita, somma_complessivo,
+        voti_1, voti_2, voti_3, voti_4, voti_5)
+    SELECT libro_id, COUNT(*),
+           SUM(stile_score), SUM(contenuto_score), SUM(gradimento_score),
+           SUM(originalita_score), SUM(qualita_score), SUM(voto_complessivo),
+           COUNT(*) FILTER (WHERE voto_complessivo = 1),
+           COUNT(*) FILTER (WHERE voto_complessivo = 2),
+           COUNT(*) FILTER (WHERE voto_complessivo = 3),
+           COUNT(*) FILTER (WHERE voto_complessivo = 4),
+           COUNT(*) FILTER (WHERE voto_complessivo = 5)
+    FROM ValutazioniLibri
+    GROUP BY libro_id;
+""";
+
+  // Mantiene AggregatiValutazioni allineata a ValutazioniLibri per ogni inserimento, modifica o
+  // eliminazione, comprese quelle a cascata da Librerie, Libreria_Libro e UtentiRegistrati
+  static final String createFunzioneAggregatiValutazioni = """
+    CREATE OR REPLACE FUNCTION aggiorna_aggregati_valutazioni() RETURNS trigger AS $$
+    BEGIN
+      IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        UPDATE AggregatiValutazioni SET
+            numero_valutazioni = numero_valutazioni - 1,
+            somma_stile = somma_stile - OLD.stile_score,
+            somma_contenuto = somma_contenuto - OLD.contenuto_score,
+            somma_gradimento = somma_gradimento - OLD.gradimento_score,
+            somma_originalita = somma_originalita - OLD.originalita_score,
+            somma_qualita = somma_qualita - OLD.qualita_score,
+            somma_complessivo = somma_complessivo - OLD.voto_complessivo,
+            voti_1 = voti_1 - (OLD.voto_complessivo = 1)::int,
+            voti_2 = voti_2 - (OLD.voto_complessivo = 2)::int,
+            voti_3 = voti_3 - (OLD.voto_complessivo = 3)::int,
+            voti_4 = voti_4 - (OLD.voto_complessivo = 4)::int,
+            voti_5 = voti_5 - (OLD.voto_complessivo = 5)::int
+        WHERE libro_id = OLD.libro_id;
+      END IF;
+      IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO AggregatiValutazioni (libro_id, numero_valutazioni,
+            somma_stile, somma_contenuto, somma_gradimento, somma_originalita, somma_qualita, somma_complessivo,
+            voti_1, voti_2, voti_3, voti_4, voti_5)
+        VALUES (NEW.libro_id, 1,
+            NEW.stile_score, NEW.contenuto_score, NEW.gradimento_score,
+            NEW.originalita_score, NEW.qualita_score, NEW.voto_complessivo,
+            (NEW.voto_complessivo = 1)::int, (NEW.voto_complessivo = 2)::int, (NEW.voto_complessivo = 3)::int,
+            (NEW.voto_complessivo = 4)::int, (NEW.voto_complessivo = 5)::int)
+        ON CONFLICT (libro_id) DO UPDATE SET
+            numero_valutazioni = AggregatiValutazioni.numero_valutazioni + 1,
+            somma_stile = AggregatiValutazioni.somma_stile + EXCLUDED.somma_stile,
+            somma_contenuto = AggregatiValutazioni.somma_contenuto + EXCLUDED.somma_contenuto,
+            somma_gradimento = AggregatiValutazioni.somma_gradimento + EXCLUDED.somma_gradimento,
+            somma_originalita = AggregatiValutazioni.somma_originalita + EXCLUDED.somma_originalita,
+            somma_qualita = AggregatiValutazioni.somma_qualita + EXCLUDED.somma_qualita,
+            somma_complessivo = AggregatiValutazioni.somma_complessivo + EXCLUDED.somma_complessivo,
+            voti_1 = AggregatiValutazioni.voti_1 + EXCLUDED.voti_1,
+            voti_2 = AggregatiValutazioni.voti_2 + EXCLUDED.voti_2,
+            voti_3 = AggregatiValutazioni.voti_3 + EXCLUDED.voti_3,
+            voti_4 = AggregatiValutazioni.voti_4 + EXCLUDED.voti_4,
+            voti_5 = AggregatiValutazioni.voti_5 + EXCLUDED.voti_5;
+      END IF;
+      RETURN NULL;
+    END;
+    $$ LANGUAGE plpgsql;
+""";
+
+  // Nome del trigger, usato anche per disattivarlo durante i caricamenti massivi
+  static final String TRIGGER_AGGREGATI_VALUTAZIONI = "trg_aggregati_valutazioni";
+
+  static final String createTriggerAggregatiValutazioni = """
+    DROP TRIGGER IF EXISTS %1$s ON ValutazioniLibri;
+    CREATE TRIGGER %1$s
+      AFTER INSERT OR DELETE
+         OR UPDATE OF libro_id, stile_score, contenuto_score, gradimento_score, originalita_score, qualita_score, voto_complessivo
+      ON ValutazioniLibri
+      FOR EACH ROW EXECUTE FUNCTION aggiorna_aggregati_valutazioni();
+""".formatted(TRIGGER_AGGREGATI_VALUTAZIONI);
+
     // SQL per creare gli indici per ottimizzare le query
     private static final String createIndexLibriTitolo = "CREATE INDEX idx_libri_titolo ON Libri(titolo);";
     private static final String createIndexLibriAutori = "CREATE INDEX idx_libri_autori ON Libri(autori);";
 
+    // Indici per le ricerche per intervallo di anno e di prezzo (usati anche da --migra-schema)
+    private static final String createIndexLibriAnno = "CREATE INDEX IF NOT EXISTS idx_libri_anno ON Libri(anno);";
+    private static final String createIndexLibriPrezzo = "CREATE INDEX IF NOT EXISTS idx_libri_prezzo ON Libri(prezzo);";
+
+    // Indici per le ricerche testuali: GIN a trigrammi (pg_trgm) per LIKE '%x%' e similarità sulle
+    // espressioni lower(titolo) e lower(autori) usate da JdbcCercaLibriDAO, e GIN sul tsvector per la
+    // ricerca full-text. L'espressione del tsvector deve coincidere con quella delle query del DAO.
+    private static final String createEstensioneTrigrammi = "CREATE EXTENSION IF NOT EXISTS pg_trgm;";
+    private static final String createIndexLibriTitoloTrigrammi =
+            "CREATE INDEX IF NOT EXISTS idx_libri_titolo_trgm ON Libri USING GIN (lower(titolo) gin_trgm_ops);";
+    private static final String createIndexLibriAutoriTrigrammi =
+            "CREATE INDEX IF NOT EXISTS idx_libri_autori_trgm ON Libri USING GIN (lower(autori) gin_trgm_ops);";
+    private static final String createIndexLibriTestoCompleto = """
+            CREATE INDEX IF NOT EXISTS idx_libri_testo_fts ON Libri USING GIN (
+              to_tsvector('english', coalesce(titolo, '') || ' ' || coalesce(autori, '') || ' ' || coalesce(descrizione, ''))
+            );
+            """;
+
+    // Conversione delle colonne di testo della vecchia struttura: i valori non numerici diventano NULL
+    private static final String migraSchemaLibri = """
+            ALTER TABLE Libri
+              ALTER COLUMN anno TYPE SMALLINT
+                USING CASE WHEN trim(anno) ~ '^[0-9]{1,4}$' THEN trim(anno)::smallint END,
+              ALTER COLUMN prezzo TYPE NUMERIC(10,2)
+                USING CASE WHEN trim(prezzo) ~ '^[0-9]{1,8}([.][0-9]+)?$' THEN trim(prezzo)::numeric END,
+              ADD COLUMN IF NOT EXISTS mese SMALLINT CHECK (mese BETWEEN 1 AND 12),
+              ADD CONSTRAINT libri_prezzo_check CHECK (prezzo >= 0);
+            """;
+
     // Indici per le tabelle di relazione, cruciali per le funzionalità di raccomandazione e analisi
     private static final String createIndexValutazioniLibroId = "CREATE INDEX idx_valutazioni_libro_id ON ValutazioniLibri(libro_id);";
     private static final String createIndexConsigliLibroLetto = "CREATE INDEX idx_consigli_libro_letto_id ON ConsigliLibri(libro_letto_id);";
     private static final String createIndexConsigliLibroConsigliato = "CREATE INDEX idx_consigli_libro_consigliato_id ON ConsigliLibri(libro_consigliato_id);";
 
 
+    // Opzione da riga di comando che ricalcola solo gli aggregati delle valutazioni, senza ricreare il database
+    static final String OPZIONE_RICOSTRUISCI_AGGREGATI = "--ricostruisci-aggregati";
+
+    // Opzione da riga di comando che carica i libri con COPY invece che con INSERT in batch
+    private static final String OPZIONE_COPY = "--copy";
+    private static final String FILE_SCARTI_DEFAULT = "Libri.scarti.csv";
+
+    // Opzione da riga di comando che aggiorna in modo incrementale i libri di un database esistente
+    private static final String OPZIONE_AGGIORNA = "--aggiorna";
+
+    // Opzione da riga di comando che converte anno e prezzo di un database esistente nei tipi numerici
+    private static final String OPZIONE_MIGRA_SCHEMA = "--migra-schema";
+
     public static void main(String[] args) {
         String LIBRI_FILE = "Libri.dati.csv";
       
-        if (args.length != 2) {
-            System.out.println("Utilizzo: java -jar DBCreatorBR-1.0-jar-with-dependencies.jar <user> <password>");
+        boolean soloAggregati = args.length == 3 && OPZIONE_RICOSTRUISCI_AGGREGATI.equals(args[2]);
+        boolean migraSchema = args.length == 3 && OPZIONE_MIGRA_SCHEMA.equals(args[2]);
+        boolean copy = (args.length == 3 || args.length == 4) && OPZIONE_COPY.equals(args[2]);
+        boolean aggiorna = (args.length == 3 || args.length == 4) && OPZIONE_AGGIORNA.equals(args[2]);
+        if (args.length != 2 && !soloAggregati && !copy && !aggiorna && !migraSchema) {
+            System.out.println("Utilizzo: java -jar DBCreatorBR-1.0-jar-with-dependencies.jar <user> <password> ["
+                    + OPZIONE_COPY + " [file_scarti] | " + OPZIONE_AGGIORNA + " [file_scarti] | "
+                    + OPZIONE_MIGRA_SCHEMA + " | " + OPZIONE_RICOSTRUISCI_AGGREGATI + "]");
             System.exit(1);
         }
         user = args[0];
         password = args[1];
 
+        if (soloAggregati) {
+            ricostruisciAggregatiValutazioni();
+            return;
+        }
+        if (migraSchema) {
+            migraSchemaLibri();
+            return;
+        }
+        if (aggiorna) {
+            updateLibriFromCSV(LIBRI_FILE, args.length == 4 ? args[3] : FILE_SCARTI_DEFAULT);
+            return;
+        }
+
         // Verifica preliminare della struttura del CSV
         System.out.println("Verifica struttura del file CSV...");
         
 
         createDatabase();
         createTables();
-        populateLibriFromCSV(LIBRI_FILE);
+        if (copy) {
+            populateLibriWithCopy(LIBRI_FILE, args.length == 4 ? args[3] : FILE_SCARTI_DEFAULT);
+        } else {
+            populateLibriFromCSV(LIBRI_FILE);
+        }
+        createIndexes();
     }
 
     /**
@@ -200,6 +387,7 @@ public class CreateDatabaseAndTablesBR {
 
         // Drop in ordine generico (CASCADE si occupa delle dipendenze, ma è buona pratica eseguire comunque)
         String dropTables = """
+                DROP TABLE IF EXISTS AggregatiValutazioni CASCADE;
                 DROP TABLE IF EXISTS ConsigliLibri CASCADE;
                 DROP TABLE IF EXISTS ValutazioniLibri CASCADE;
                 DROP TABLE IF EXISTS Libreria_Libro CASCADE;
@@ -212,26 +400,173 @@ public class CreateDatabaseAndTablesBR {
             stmt.executeUpdate(dropTables);
             System.out.println("Tabelle eliminate, se esistenti.");
 
-            // Crea tabelle nell'ordine corretto per le FK
-            stmt.executeUpdate(createUtentiRegistrati);
-            stmt.executeUpdate(createLibri);
-            stmt.executeUpdate(createLibrerie);
-            stmt.executeUpdate(createLibreriaLibro);
-            stmt.executeUpdate(createValutazioniLibri);
-            stmt.executeUpdate(createConsigliLibri);
-
+            creaTabelle(stmt);
             System.out.println("Tabelle create con successo nel database " + DB_NAME + "!");
+        } catch (SQLException e) {
+            System.out.println("Errore nella creazione delle tabelle: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBConnectionSingleton.closeConnectionQuietly();
+        }
+    }
+
+    /**
+     * Crea le tabelle nell'ordine corretto per le FK, insieme al trigger che aggiorna gli
+     * aggregati delle valutazioni.
+     *
+     * @param stmt lo statement della connessione al database
+     * @throws SQLException se la creazione di una tabella fallisce
+     */
+    static void creaTabelle(Statement stmt) throws SQLException {
+        stmt.executeUpdate(createUtentiRegistrati);
+        stmt.executeUpdate(createLibri);
+        stmt.executeUpdate(createLibrerie);
+        stmt.executeUpdate(createLibreriaLibro);
+        stmt.executeUpdate(createValutazioniLibri);
+        stmt.executeUpdate(createConsigliLibri);
+        stmt.executeUpdate(createAggregatiValutazioni);
+        stmt.executeUpdate(createFunzioneAggregatiValutazioni);
+        stmt.executeUpdate(createTriggerAggregatiValutazioni);
+    }
+
+    /**
+     * Crea gli indici secondari. Viene invocato dopo il caricamento dei libri:
+     * costruire un indice su dati già presenti costa meno che aggiornarlo ad ogni inserimento.
+     */
+    public static void createIndexes() {
+        try {
+            conn = DBConnectionSingleton.initialiseConnectionAndGet(DB_URL, user, password);
+        } catch (SQLException e) {
+            System.out.println("Errore nella connessione al database specifico: " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
 
+        try (Statement stmt = conn.createStatement()) {
             System.out.println("Creazione degli indici per ottimizzare le ricerche...");
             stmt.executeUpdate(createIndexLibriTitolo);
             stmt.executeUpdate(createIndexLibriAutori);
+            stmt.executeUpdate(createIndexLibriAnno);
+            stmt.executeUpdate(createIndexLibriPrezzo);
+            creaIndiciRicercaTestuale(stmt);
             stmt.executeUpdate(createIndexValutazioniLibroId);
             stmt.executeUpdate(createIndexConsigliLibroLetto);
             stmt.executeUpdate(createIndexConsigliLibroConsigliato);
+            stmt.executeUpdate("ANALYZE Libri");
             System.out.println("Indici creati con successo.");
         } catch (SQLException e) {
-            System.out.println("Errore nella creazione delle tabelle: " + e.getMessage());
+            System.out.println("Errore nella creazione degli indici: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBConnectionSingleton.closeConnectionQuietly();
+        }
+    }
+
+    /**
+     * Converte anno e prezzo della tabella Libri di un database esistente da testo ai tipi numerici,
+     * aggiunge la colonna mese e crea gli indici per le ricerche per intervallo. Gli anni e i prezzi
+     * non numerici diventano NULL. Se la tabella è già nella struttura attuale vengono solo
+     * verificati gli indici. Vengono creati anche gli indici per la ricerca testuale, se mancanti.
+     */
+    public static void migraSchemaLibri() {
+        try {
+            conn = DBConnectionSingleton.initialiseConnectionAndGet(DB_URL, user, password);
+        } catch (SQLException e) {
+            System.out.println("Errore nella connessione al database specifico: " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            boolean daMigrare;
+            try (ResultSet rs = stmt.executeQuery("""
+                    SELECT data_type FROM information_schema.columns
+                    WHERE table_schema = current_schema() AND table_name = 'libri' AND column_name = 'anno'
+                    """)) {
+                daMigrare = rs.next() && !"smallint".equals(rs.getString(1));
+            }
+            if (daMigrare) {
+                System.out.println("Conversione delle colonne anno e prezzo di Libri...");
+                stmt.executeUpdate(migraSchemaLibri);
+                try (ResultSet rs = stmt.executeQuery(
+                        "SELECT COUNT(*) FILTER (WHERE anno IS NULL), COUNT(*) FILTER (WHERE prezzo IS NULL) FROM Libri")) {
+                    rs.next();
+                    System.out.println("Libri senza anno: " + rs.getLong(1) + ", senza prezzo: " + rs.getLong(2) + ".");
+                }
+            } else {
+                System.out.println("La tabella Libri ha già la struttura attuale.");
+            }
+            stmt.executeUpdate(createIndexLibriAnno);
+            stmt.executeUpdate(createIndexLibriPrezzo);
+            stmt.executeUpdate("ANALYZE Libri");
+            conn.commit();
+            conn.setAutoCommit(true);
+            creaIndiciRicercaTestuale(stmt);
+            if (daMigrare) {
+                System.out.println("Struttura aggiornata. Per popolare il mese eseguire " + OPZIONE_AGGIORNA + ".");
+            }
+        } catch (SQLException e) {
+            System.out.println("Errore nella conversione della tabella Libri: " + e.getMessage());
             e.printStackTrace();
+            try {
+                conn.rollback();
+            } catch (SQLException ignored) { }
+        } finally {
+            DBConnectionSingleton.closeConnectionQuietly();
+        }
+    }
+
+    /**
+     * Crea gli indici a trigrammi e full-text su Libri. La creazione dell'estensione pg_trgm richiede
+     * privilegi che l'utente potrebbe non avere: in tal caso gli indici a trigrammi vengono saltati
+     * (le ricerche funzionano comunque, con una scansione della tabella) e si prosegue con gli altri.
+     * Deve essere invocato con la connessione in autocommit.
+     */
+    private static void creaIndiciRicercaTestuale(Statement stmt) {
+        try {
+            stmt.executeUpdate(createEstensioneTrigrammi);
+            stmt.executeUpdate(createIndexLibriTitoloTrigrammi);
+            stmt.executeUpdate(createIndexLibriAutoriTrigrammi);
+        } catch (SQLException e) {
+            System.out.println("Indici a trigrammi non creati (serve l'estensione pg_trgm): " + e.getMessage());
+        }
+        try {
+            stmt.executeUpdate(createIndexLibriTestoCompleto);
+        } catch (SQLException e) {
+            System.out.println("Indice full-text non creato: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ricalcola da zero la tabella AggregatiValutazioni a partire da ValutazioniLibri, creando
+     * prima tabella e trigger se mancanti. Svuotamento e ricalcolo avvengono in un'unica
+     * transazione, così che il server non veda mai la tabella vuota.
+     */
+    public static void ricostruisciAggregatiValutazioni() {
+        try {
+            conn = DBConnectionSingleton.initialiseConnectionAndGet(DB_URL, user, password);
+        } catch (SQLException e) {
+            System.out.println("Errore nella connessione al database specifico: " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            stmt.executeUpdate(createAggregatiValutazioni);
+            stmt.executeUpdate(createFunzioneAggregatiValutazioni);
+            stmt.executeUpdate(createTriggerAggregatiValutazioni);
+            stmt.executeUpdate("DELETE FROM AggregatiValutazioni");
+            int libri = stmt.executeUpdate(ricalcolaAggregatiValutazioni);
+            conn.commit();
+            System.out.println("Aggregati delle valutazioni ricalcolati per " + libri + " libri.");
+        } catch (SQLException e) {
+            System.out.println("Errore nel ricalcolo degli aggregati delle valutazioni: " + e.getMessage());
+            e.printStackTrace();
+            try {
+                conn.rollback();
+            } catch (SQLException ignored) { }
         } finally {
             DBConnectionSingleton.closeConnectionQuietly();
         }
@@ -287,4 +622,54 @@ public class CreateDatabaseAndTablesBR {
         }
     }
 
+    /**
+     * Aggiorna la tabella Libri di un database esistente con {@link AggiornamentoCatalogo},
+     * senza eliminare il database né le tabelle.
+     *
+     * @param csvPath    percorso del file CSV dei libri
+     * @param fileScarti percorso del file in cui scrivere le righe scartate
+     */
+    public static void updateLibriFromCSV(String csvPath, String fileScarti) {
+        try {
+            conn = DBConnectionSingleton.initialiseConnectionAndGet(DB_URL, user, password);
+        } catch (SQLException e) {
+            System.out.println("Errore nella connessione al database specifico: " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            AggiornamentoCatalogo.aggiornaDaCSV(csvPath, conn, fileScarti);
+        } finally {
+            DBConnectionSingleton.closeConnectionQuietly();
+        }
+    }
+
+    /**
+     * Popola la tabella Libri con {@link CaricatoreCopyLibri}, usando il comando COPY.
+     *
+     * @param csvPath    percorso del file CSV dei libri
+     * @param fileScarti percorso del file in cui scrivere le righe scartate
+     */
+    public static void populateLibriWithCopy(String csvPath, String fileScarti) {
+        try {
+            conn = DBConnectionSingleton.initialiseConnectionAndGet(DB_URL, user, password);
+        } catch (SQLException e) {
+            System.out.println("Errore nella connessione al database specifico: " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            long libriCaricati = CaricatoreCopyLibri.caricaDaCSV(csvPath, conn, fileScarti);
+            if (libriCaricati > 0) {
+                System.out.println("Tabella Libri popolata con COPY. Caricati " + libriCaricati + " libri.");
+            } else {
+                System.out.println("Nessun libro è stato caricato nel database.");
+            }
+        } finally {
+            DBConnectionSingleton.closeConnectionQuietly();
+        }
+    }
+
 }
@@ -0,0 +1,630 @@
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Genera una popolazione sintetica di utenti, librerie, valutazioni e consigli nel database dbBR,
+ * per misurare le prestazioni delle query su tabelle di dimensioni realistiche.
+ *
+ * Uso:
+ *   java -cp DBCreatorBR-1.0-jar-with-dependencies.jar GeneraDatiSintetici <db_user> <db_password> [utenti] [seme] [esponente_zipf] [--svuota]
+ *
+ * La tabella Libri deve essere già popolata (vedi {@link CreateDatabaseAndTablesBR}); le altre tabelle
+ * devono essere vuote, a meno di indicare {@value #OPZIONE_SVUOTA}, che le svuota prima della generazione.
+ * Gli utenti sono {@code utente0000001}, {@code utente0000002}, ... con password uguale all'ID, le stesse
+ * convenzioni del generatore di carico di benchmarkBR. Ogni utente ha da 1 a {@value #MASSIMO_LIBRERIE}
+ * librerie con in media {@value #LIBRI_MEDI_PER_LIBRERIA} libri ciascuna; circa metà dei libri è valutata
+ * e per un quarto l'utente dà da 1 a {@value #MASSIMO_CONSIGLI} consigli. Con il milione di utenti
+ * predefinito si ottengono circa 1,8 milioni di librerie, 20 milioni di righe in Libreria_Libro e 10 milioni
+ * ciascuna in ValutazioniLibri e ConsigliLibri.
+ * <p>
+ * La popolarità dei libri, sia letti che consigliati, segue una legge di Zipf: i libri sono ordinati a caso
+ * (con il seme) e il libro di rango k viene scelto con probabilità proporzionale a 1/k^esponente. I punteggi
+ * di una valutazione dipendono da una qualità propria di ogni libro, così che le medie per libro non siano
+ * tutte uguali. I dati rispettano i vincoli dello schema: un libro compare una sola volta tra le librerie
+ * di un utente (e quindi è valutato al più una volta), i punteggi sono tra 1 e 5, ogni valutazione e ogni
+ * consiglio riguardano un libro presente nella libreria e un libro non viene consigliato per sé stesso.
+ * <p>
+ * Le tabelle sono caricate con COPY nell'ordine delle chiavi esterne, a blocchi di {@value #RIGHE_PER_BLOCCO}
+ * righe, ognuno in una propria transazione. Invece di tenere in memoria la popolazione, i dati di ogni utente
+ * sono rigenerati a ogni tabella da un generatore pseudocasuale inizializzato con il seme e il numero
+ * dell'utente: la memoria occupata non dipende dal numero di utenti e, a parità di seme, il risultato è
+ * lo stesso. Al termine vengono aggiornati la sequenza di Librerie e gli aggregati delle valutazioni e
+ * vengono ricalcolate le statistiche del pianificatore (ANALYZE). Il server va riavviato, perché le cache
+ * e il grafo dei consigli vengono caricati all'avvio.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public class GeneraDatiSintetici {
+
+    private static final String DB_URL = "jdbc:postgresql://localhost:5432/dbBR";
+
+    /** Prefisso degli ID degli utenti, seguito dal numero su sette cifre. */
+    static final String PREFISSO_UTENTI = "utente";
+
+    // Opzione da riga di comando che svuota le tabelle degli utenti prima della generazione
+    private static final String OPZIONE_SVUOTA = "--svuota";
+
+    /** Numero di righe inviate al server con un singolo COPY (e una singola transazione). */
+    static final int RIGHE_PER_BLOCCO = 50_000;
+
+    private static final int UTENTI_DEFAULT = 1_000_000;
+    private static final long SEME_DEFAULT = 42;
+    private static final double ESPONENTE_DEFAULT = 1.0;
+
+    private static final int MASSIMO_LIBRERIE = 5;
+    /** Probabilità che un utente abbia una libreria in più (distribuzione geometrica). */
+    private static final double PROBABILITA_ALTRA_LIBRERIA = 0.45;
+    private static final int LIBRI_MEDI_PER_LIBRERIA = 12;
+    private static final int MASSIMO_LIBRI_PER_LIBRERIA = 200;
+    private static final double PROBABILITA_VALUTAZIONE = 0.5;
+    private static final double PROBABILITA_CONSIGLI = 0.25;
+    /** Consigli per libro letto, come il limite applicato dal server. */
+    private static final int MASSIMO_CONSIGLI = 3;
+    private static final double PROBABILITA_COMMENTO = 0.3;
+    /** Periodo, in secondi prima dell'avvio, in cui cadono le date generate (tre anni). */
+    private static final long FINESTRA_SECONDI = 3L * 365 * 24 * 3600;
+
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String[] NOMI = {
+            "Marco", "Giulia", "Luca", "Francesca", "Andrea", "Chiara", "Matteo", "Sara", "Alessandro", "Martina",
+            "Davide", "Elena", "Simone", "Valentina", "Federico", "Alessia", "Lorenzo", "Silvia", "Riccardo", "Laura"};
+    private static final String[] COGNOMI = {
+            "Rossi", "Russo", "Ferrari", "Esposito", "Bianchi", "Romano", "Colombo", "Ricci", "Marino", "Greco",
+            "Bruno", "Gallo", "Conti", "De Luca", "Mancini", "Costa", "Giordano", "Rizzo", "Lombardi", "Moretti"};
+    /** Nomi delle librerie di un utente, nell'ordine: distinti, come richiede il vincolo UNIQUE. */
+    private static final String[] NOMI_LIBRERIE = {"Preferiti", "Da leggere", "Letti", "Classici", "Vacanze"};
+    private static final String[] COMMENTI_VALUTAZIONE = {
+            "Molto coinvolgente", "Scorrevole e ben scritto", "Mi aspettavo di più", "Finale deludente",
+            "Da rileggere", "Personaggi ben costruiti", "Un po' lento all'inizio", "Consigliato"};
+    private static final String[] COMMENTI_CONSIGLIO = {
+            "Stesso autore", "Atmosfera simile", "Stesso genere", "Per chi ha apprezzato questo", "Più leggero"};
+
+    private static final String COPY_UTENTI =
+            "COPY UtentiRegistrati (user_id, password, nome, cognome, codice_fiscale, email) FROM STDIN";
+    private static final String COPY_LIBRERIE =
+            "COPY Librerie (libreria_id, user_id, nome_libreria, data_creazione) FROM STDIN";
+    private static final String COPY_LIBRERIA_LIBRO =
+            "COPY Libreria_Libro (libreria_id, libro_id, data_inserimento) FROM STDIN";
+    private static final String COPY_VALUTAZIONI =
+            "COPY ValutazioniLibri (user_id, libreria_id, libro_id, stile_score, contenuto_score, gradimento_score, "
+                    + "originalita_score, qualita_score, voto_complessivo, commento_finale, data_valutazione) FROM STDIN";
+    private static final String COPY_CONSIGLI =
+            "COPY ConsigliLibri (user_id, libreria_id, libro_letto_id, libro_consigliato_id, commento, data_consiglio) FROM STDIN";
+
+    private static final String[] TABELLE = {
+            "UtentiRegistrati", "Librerie", "Libreria_Libro", "ValutazioniLibri", "ConsigliLibri"};
+
+    private final Connection connection;
+    private final int utenti;
+    private final long seme;
+    private final PopolaritaZipf popolarita;
+    /** Istante di riferimento delle date generate, in secondi dall'epoca (UTC). */
+    private final long adesso = LocalDateTime.now().withNano(0).toEpochSecond(ZoneOffset.UTC);
+
+    private GeneraDatiSintetici(Connection connection, long[] libri, int utenti, long seme, double esponente) {
+        this.connection = connection;
+        this.utenti = utenti;
+        this.seme = seme;
+        this.popolarita = new PopolaritaZipf(libri, esponente, new SplittableRandom(seme));
+    }
+
+    public static void main(String[] args) throws SQLException {
+        List<String> argomenti = new ArrayList<>(Arrays.asList(args));
+        boolean svuota = argomenti.remove(OPZIONE_SVUOTA);
+        int utenti = UTENTI_DEFAULT;
+        long seme = SEME_DEFAULT;
+        double esponente = ESPONENTE_DEFAULT;
+        try {
+            if (argomenti.size() < 2 || argomenti.size() > 5) {
+                throw new IllegalArgumentException("numero di argomenti errato");
+            }
+            if (argomenti.size() > 2) {
+                utenti = Integer.parseInt(argomenti.get(2));
+            }
+            if (argomenti.size() > 3) {
+                seme = Long.parseLong(argomenti.get(3));
+            }
+            if (argomenti.size() > 4) {
+                esponente = Double.parseDouble(argomenti.get(4));
+            }
+            if (utenti <= 0 || !(esponente >= 0)) {
+                throw new IllegalArgumentException("numero di utenti o esponente non validi");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Utilizzo: GeneraDatiSintetici <user> <password> [utenti] [seme] [esponente_zipf] ["
+                    + OPZIONE_SVUOTA + "]");
+            System.exit(1);
+        }
+
+        try (Connection conn = DriverManager.getConnection(DB_URL, argomenti.get(0), argomenti.get(1))) {
+            long[] libri = leggiLibri(conn);
+            if (libri.length < 2) {
+                System.out.println("La tabella Libri contiene " + libri.length
+                        + " libri: creare prima il database con CreateDatabaseAndTablesBR.");
+                System.exit(1);
+            }
+            if (!preparaTabelle(conn, svuota)) {
+                System.exit(1);
+            }
+            System.out.printf(Locale.ROOT, "Generazione di %d utenti su %d libri (seme %d, esponente di Zipf %.2f)%n",
+                    utenti, libri.length, seme, esponente);
+            long inizio = System.nanoTime();
+            GeneraDatiSintetici generatore = new GeneraDatiSintetici(conn, libri, utenti, seme, esponente);
+            generatore.carica();
+            generatore.completa();
+            System.out.printf("Generazione completata in %.1f s.%n", (System.nanoTime() - inizio) / 1e9);
+        }
+    }
+
+    /**
+     * Restituisce l'ID dell'utente sintetico con il numero indicato.
+     *
+     * @param numero il numero dell'utente, da 1
+     * @return l'ID, ad esempio {@code utente0000042}
+     */
+    static String userId(int numero) {
+        return String.format("%s%07d", PREFISSO_UTENTI, numero);
+    }
+
+    /**
+     * Legge gli ID di tutti i libri del catalogo.
+     */
+    private static long[] leggiLibri(Connection conn) throws SQLException {
+        long[] ids = new long[1 << 16];
+        int n = 0;
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement("SELECT id FROM Libri ORDER BY id")) {
+            ps.setFetchSize(10_000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (n == ids.length) {
+                        ids = Arrays.copyOf(ids, n * 2);
+                    }
+                    ids[n++] = rs.getLong(1);
+                }
+            }
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        return Arrays.copyOf(ids, n);
+    }
+
+    /**
+     * Verifica che le tabelle da popolare siano vuote o, se richiesto, le svuota.
+     *
+     * @return {@code false} se le tabelle contengono dati e non è stato chiesto di svuotarle
+     */
+    private static boolean preparaTabelle(Connection conn, boolean svuota) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(CreateDatabaseAndTablesBR.createAggregatiValutazioni);
+            stmt.executeUpdate(CreateDatabaseAndTablesBR.createFunzioneAggregatiValutazioni);
+            stmt.executeUpdate(CreateDatabaseAndTablesBR.createTriggerAggregatiValutazioni);
+            if (svuota) {
+                stmt.executeUpdate("TRUNCATE " + String.join(", ", TABELLE) + ", AggregatiValutazioni RESTART IDENTITY");
+                System.out.println("Tabelle " + String.join(", ", TABELLE) + " svuotate.");
+                return true;
+            }
+            for (String tabella : TABELLE) {
+                try (ResultSet rs = stmt.executeQuery("SELECT EXISTS (SELECT 1 FROM " + tabella + ")")) {
+                    rs.next();
+                    if (rs.getBoolean(1)) {
+                        System.out.println("La tabella " + tabella + " non è vuota: usare " + OPZIONE_SVUOTA
+                                + " per cancellarne il contenuto prima della generazione.");
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Carica le tabelle nell'ordine delle chiavi esterne, rigenerando la popolazione per ognuna.
+     * Durante il caricamento il trigger degli aggregati su ValutazioniLibri è disattivato: aggiornare
+     * gli aggregati riga per riga renderebbe il COPY molto più lento, e vengono comunque ricalcolati
+     * da zero in {@link #completa()}. Se il caricamento si interrompe, i blocchi già confermati restano
+     * nel database e {@link #completa()} non viene eseguito: gli aggregati vengono allora ricalcolati
+     * prima di riattivare il trigger.
+     */
+    private void carica() throws SQLException {
+        impostaTriggerAggregati(false);
+        connection.setAutoCommit(false);
+        try {
+            caricaUtenti();
+            caricaLibrerie();
+            caricaLibreriaLibro();
+            caricaValutazioni();
+            caricaConsigli();
+        } catch (SQLException | RuntimeException e) {
+            riallineaAggregati(e);
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+            impostaTriggerAggregati(true);
+        }
+    }
+
+    /**
+     * Dopo un errore di caricamento ricalcola gli aggregati delle valutazioni già confermate. Se anche
+     * il ricalcolo fallisce, l'errore viene aggiunto a quello del caricamento e viene indicato come
+     * eseguirlo a mano.
+     */
+    private void riallineaAggregati(Exception errore) {
+        try {
+            connection.rollback();
+            ricalcolaAggregati();
+        } catch (SQLException e) {
+            errore.addSuppressed(e);
+            System.out.println("Impossibile ricalcolare gli aggregati delle valutazioni: " + e.getMessage()
+                    + ". Eseguire CreateDatabaseAndTablesBR con l'opzione "
+                    + CreateDatabaseAndTablesBR.OPZIONE_RICOSTRUISCI_AGGREGATI + " prima di avviare il server.");
+        }
+    }
+
+    private void impostaTriggerAggregati(boolean attivo) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE ValutazioniLibri " + (attivo ? "ENABLE" : "DISABLE") + " TRIGGER "
+                    + CreateDatabaseAndTablesBR.TRIGGER_AGGREGATI_VALUTAZIONI);
+        }
+    }
+
+    private void caricaUtenti() throws SQLException {
+        CopiaTabella copia = new CopiaTabella("UtentiRegistrati", COPY_UTENTI);
+        for (int numero = 1; numero <= utenti; numero++) {
+            UtenteSintetico u = genera(numero);
+            copia.riga(u.userId, u.userId, u.nome, u.cognome, u.codiceFiscale, u.userId + "@esempio.it");
+        }
+        copia.chiudi();
+    }
+
+    /**
+     * Gli ID delle librerie sono assegnati in ordine di utente, da 1, e ricalcolati allo stesso modo
+     * per le tabelle che vi fanno riferimento.
+     */
+    private void caricaLibrerie() throws SQLException {
+        CopiaTabella copia = new CopiaTabella("Librerie", COPY_LIBRERIE);
+        int libreriaId = 0;
+        for (int numero = 1; numero <= utenti; numero++) {
+            UtenteSintetico u = genera(numero);
+            for (LibreriaSintetica l : u.librerie) {
+                copia.riga(++libreriaId, u.userId, l.nome, data(l.creazione));
+            }
+        }
+        copia.chiudi();
+    }
+
+    private void caricaLibreriaLibro() throws SQLException {
+        CopiaTabella copia = new CopiaTabella("Libreria_Libro", COPY_LIBRERIA_LIBRO);
+        int libreriaId = 0;
+        for (int numero = 1; numero <= utenti; numero++) {
+            for (LibreriaSintetica l : genera(numero).librerie) {
+                libreriaId++;
+                for (int i = 0; i < l.libri.length; i++) {
+                    copia.riga(libreriaId, l.libri[i], data(l.inserimenti[i]));
+                }
+            }
+        }
+        copia.chiudi();
+    }
+
+    private void caricaValutazioni() throws SQLException {
+        CopiaTabella copia = new CopiaTabella("ValutazioniLibri", COPY_VALUTAZIONI);
+        int libreriaId = 0;
+        for (int numero = 1; numero <= utenti; numero++) {
+            UtenteSintetico u = genera(numero);
+            for (LibreriaSintetica l : u.librerie) {
+                libreriaId++;
+                for (int i = 0; i < l.libri.length; i++) {
+                    ValutazioneSintetica v = l.valutazioni[i];
+                    if (v != null) {
+                        copia.riga(u.userId, libreriaId, l.libri[i], v.punteggi[0], v.punteggi[1], v.punteggi[2],
+                                v.punteggi[3], v.punteggi[4], v.punteggi[5], v.commento, data(v.data));
+                    }
+                }
+            }
+        }
+        copia.chiudi();
+    }
+
+    private void caricaConsigli() throws SQLException {
+        CopiaTabella copia = new CopiaTabella("ConsigliLibri", COPY_CONSIGLI);
+        int libreriaId = 0;
+        for (int numero = 1; numero <= utenti; numero++) {
+            UtenteSintetico u = genera(numero);
+            for (LibreriaSintetica l : u.librerie) {
+                libreriaId++;
+                for (int i = 0; i < l.libri.length; i++) {
+                    ConsiglioSintetico[] consigli = l.consigli[i];
+                    for (int c = 0; consigli != null && c < consigli.length; c++) {
+                        copia.riga(u.userId, libreriaId, l.libri[i], consigli[c].libro, consigli[c].commento,
+                                data(consigli[c].data));
+                    }
+                }
+            }
+        }
+        copia.chiudi();
+    }
+
+    /**
+     * Allinea la sequenza di Librerie agli ID inseriti, ricalcola gli aggregati delle valutazioni
+     * e aggiorna le statistiche del pianificatore.
+     */
+    private void completa() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("SELECT setval(pg_get_serial_sequence('librerie', 'libreria_id'), "
+                    + "COALESCE(MAX(libreria_id), 0) + 1, false) FROM Librerie");
+        }
+        ricalcolaAggregati();
+        try (Statement stmt = connection.createStatement()) {
+            long inizio = System.nanoTime();
+            stmt.execute("ANALYZE " + String.join(", ", TABELLE) + ", AggregatiValutazioni");
+            System.out.printf("Statistiche aggiornate in %.1f s.%n", (System.nanoTime() - inizio) / 1e9);
+        }
+    }
+
+    /**
+     * Ricalcola da zero gli aggregati delle valutazioni in un'unica transazione.
+     */
+    private void ricalcolaAggregati() throws SQLException {
+        long inizio = System.nanoTime();
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("DELETE FROM AggregatiValutazioni");
+            int libri = stmt.executeUpdate(CreateDatabaseAndTablesBR.ricalcolaAggregatiValutazioni);
+            connection.commit();
+            System.out.printf("Aggregati delle valutazioni ricalcolati per %d libri in %.1f s.%n",
+                    libri, (System.nanoTime() - inizio) / 1e9);
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Genera i dati di un utente. Il generatore pseudocasuale dipende solo dal seme e dal numero
+     * dell'utente, per cui chiamate successive restituiscono gli stessi dati.
+     */
+    private UtenteSintetico genera(int numero) {
+        SplittableRandom r = new SplittableRandom(seme * 0x9E3779B97F4A7C15L + numero);
+        String userId = userId(numero);
+        String nome = NOMI[r.nextInt(NOMI.length)];
+        String cognome = COGNOMI[r.nextInt(COGNOMI.length)];
+        // 16 caratteri e univoco: "SNT" seguito dal numero dell'utente su 13 cifre
+        String codiceFiscale = String.format("SNT%013d", numero);
+        long registrazione = adesso - 1 - r.nextLong(FINESTRA_SECONDI);
+
+        int numeroLibrerie = 1;
+        while (numeroLibrerie < MASSIMO_LIBRERIE && r.nextDouble() < PROBABILITA_ALTRA_LIBRERIA) {
+            numeroLibrerie++;
+        }
+        Set<Long> posseduti = new HashSet<>();
+        LibreriaSintetica[] librerie = new LibreriaSintetica[numeroLibrerie];
+        for (int j = 0; j < numeroLibrerie; j++) {
+            long creazione = dopo(registrazione, r);
+            int richiesti = (int) Math.min(MASSIMO_LIBRI_PER_LIBRERIA,
+                    1 + Math.floor(-Math.log(1.0 - r.nextDouble()) * (LIBRI_MEDI_PER_LIBRERIA - 1)));
+            long[] libri = new long[richiesti];
+            int n = 0;
+            // un libro non può comparire due volte tra le librerie dell'utente
+            for (int tentativi = 0; n < richiesti && tentativi < 4 * richiesti; tentativi++) {
+                long libro = popolarita.estrai(r);
+                if (posseduti.add(libro)) {
+                    libri[n++] = libro;
+                }
+            }
+            libri = Arrays.copyOf(libri, n);
+
+            long[] inserimenti = new long[n];
+            ValutazioneSintetica[] valutazioni = new ValutazioneSintetica[n];
+            ConsiglioSintetico[][] consigli = new ConsiglioSintetico[n][];
+            for (int i = 0; i < n; i++) {
+                inserimenti[i] = dopo(creazione, r);
+                if (r.nextDouble() < PROBABILITA_VALUTAZIONE) {
+                    valutazioni[i] = valuta(libri[i], inserimenti[i], r);
+                }
+                if (r.nextDouble() < PROBABILITA_CONSIGLI) {
+                    consigli[i] = consiglia(libri[i], inserimenti[i], r);
+                }
+            }
+            librerie[j] = new LibreriaSintetica(NOMI_LIBRERIE[j], creazione, libri, inserimenti, valutazioni, consigli);
+        }
+        return new UtenteSintetico(userId, nome, cognome, codiceFiscale, librerie);
+    }
+
+    /**
+     * Genera i punteggi di una valutazione attorno alla qualità del libro: cinque punteggi
+     * e il voto complessivo, vicino alla loro media, tutti tra 1 e 5.
+     */
+    private ValutazioneSintetica valuta(long libro, long inserimento, SplittableRandom r) {
+        // qualità del libro tra 1,5 e 4,5, ricavata dall'ID
+        double qualita = 1.5 + 3.0 * (((libro * 0x9E3779B97F4A7C15L) >>> 11) * 0x1.0p-53);
+        int[] punteggi = new int[6];
+        double somma = 0;
+        for (int k = 0; k < 5; k++) {
+            punteggi[k] = punteggio(qualita + r.nextGaussian() * 0.9);
+            somma += punteggi[k];
+        }
+        punteggi[5] = punteggio(somma / 5 + r.nextGaussian() * 0.3);
+        String commento = r.nextDouble() < PROBABILITA_COMMENTO
+                ? COMMENTI_VALUTAZIONE[r.nextInt(COMMENTI_VALUTAZIONE.length)] : null;
+        return new ValutazioneSintetica(punteggi, commento, dopo(inserimento, r));
+    }
+
+    /**
+     * Genera da 1 a {@value #MASSIMO_CONSIGLI} consigli distinti per un libro letto, diversi dal libro stesso.
+     */
+    private ConsiglioSintetico[] consiglia(long letto, long inserimento, SplittableRandom r) {
+        int richiesti = 1 + r.nextInt(MASSIMO_CONSIGLI);
+        ConsiglioSintetico[] consigli = new ConsiglioSintetico[richiesti];
+        int n = 0;
+        for (int tentativi = 0; n < richiesti && tentativi < 4 * richiesti; tentativi++) {
+            long libro = popolarita.estrai(r);
+            boolean ripetuto = libro == letto;
+            for (int c = 0; c < n && !ripetuto; c++) {
+                ripetuto = consigli[c].libro == libro;
+            }
+            if (!ripetuto) {
+                String commento = r.nextDouble() < PROBABILITA_COMMENTO
+                        ? COMMENTI_CONSIGLIO[r.nextInt(COMMENTI_CONSIGLIO.length)] : null;
+                consigli[n++] = new ConsiglioSintetico(libro, commento, dopo(inserimento, r));
+            }
+        }
+        return n == 0 ? null : Arrays.copyOf(consigli, n);
+    }
+
+    private static int punteggio(double valore) {
+        return (int) Math.max(1, Math.min(5, Math.round(valore)));
+    }
+
+    /** Restituisce un istante casuale tra quello indicato e l'avvio del generatore. */
+    private long dopo(long istante, SplittableRandom r) {
+        return istante + r.nextLong(Math.max(1, adesso - istante));
+    }
+
+    private static String data(long secondi) {
+        return LocalDateTime.ofEpochSecond(secondi, 0, ZoneOffset.UTC).format(FORMATO_DATA);
+    }
+
+    private record UtenteSintetico(String userId, String nome, String cognome, String codiceFiscale,
+                                   LibreriaSintetica[] librerie) {
+    }
+
+    /** Una libreria con i suoi libri; valutazioni e consigli sono indicizzati come i libri ({@code null} = assenti). */
+    private record LibreriaSintetica(String nome, long creazione, long[] libri, long[] inserimenti,
+                                     ValutazioneSintetica[] valutazioni, ConsiglioSintetico[][] consigli) {
+    }
+
+    private record ValutazioneSintetica(int[] punteggi, String commento, long data) {
+    }
+
+    private record ConsiglioSintetico(long libro, String commento, long data) {
+    }
+
+    /**
+     * Estrazione dei libri con distribuzione di Zipf: i libri sono permutati a caso e quello in
+     * posizione k (da 1) ha peso 1/k^esponente. L'estrazione inverte la funzione di ripartizione
+     * con una ricerca binaria sui pesi cumulati.
+     */
+    static final class PopolaritaZipf {
+        private final long[] libri;
+        private final double[] cumulati;
+
+        PopolaritaZipf(long[] ids, double esponente, SplittableRandom random) {
+            libri = ids.clone();
+            for (int i = libri.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                long t = libri[i];
+                libri[i] = libri[j];
+                libri[j] = t;
+            }
+            cumulati = new double[libri.length];
+            double somma = 0;
+            for (int k = 0; k < libri.length; k++) {
+                somma += 1.0 / Math.pow(k + 1, esponente);
+                cumulati[k] = somma;
+            }
+        }
+
+        long estrai(SplittableRandom random) {
+            double u = random.nextDouble() * cumulati[cumulati.length - 1];
+            int k = Arrays.binarySearch(cumulati, u);
+            if (k < 0) {
+                k = -k - 1;
+            }
+            return libri[Math.min(k, libri.length - 1)];
+        }
+    }
+
+    /**
+     * Caricamento di una tabella con COPY a blocchi, ognuno confermato in una propria transazione.
+     * I valori sono generati da questa classe e non contengono tabulazioni, a capo o backslash,
+     * per cui vengono scritti nel formato testo di COPY senza escape; {@code null} diventa {@code \N}.
+     */
+    private final class CopiaTabella {
+        private final String tabella;
+        private final String copy;
+        private final StringBuilder blocco = new StringBuilder(1 << 22);
+        private final long inizio = System.nanoTime();
+        private int nelBlocco;
+        private long caricate;
+
+        CopiaTabella(String tabella, String copy) {
+            this.tabella = tabella;
+            this.copy = copy;
+        }
+
+        void riga(Object... campi) throws SQLException {
+            for (int i = 0; i < campi.length; i++) {
+                if (i > 0) {
+                    blocco.append('\t');
+                }
+                blocco.append(campi[i] == null ? "\\N" : campi[i]);
+            }
+            blocco.append('\n');
+            if (++nelBlocco == RIGHE_PER_BLOCCO) {
+                invia();
+            }
+        }
+
+        private void invia() throws SQLException {
+            if (nelBlocco == 0) {
+                return;
+            }
+            byte[] dati = blocco.toString().getBytes(StandardCharsets.UTF_8);
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            CopyIn copyIn = copyManager.copyIn(copy);
+            try {
+                copyIn.writeToCopy(dati, 0, dati.length);
+                copyIn.endCopy();
+                connection.commit();
+            } catch (SQLException e) {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+                connection.rollback();
+                throw e;
+            }
+            caricate += nelBlocco;
+            nelBlocco = 0;
+            blocco.setLength(0);
+            if (caricate % (20L * RIGHE_PER_BLOCCO) == 0) {
+                System.out.printf("  %s: %d righe%n", tabella, caricate);
+            }
+        }
+
+        /** Invia le righe rimaste e stampa il riepilogo della tabella. */
+        void chiudi() throws SQLException {
+            invia();
+            double secondi = (System.nanoTime() - inizio) / 1e9;
+            System.out.printf("%s: %d righe in %.1f s (%.0f righe/s)%n",
+                    tabella, caricate, secondi, caricate / Math.max(secondi, 1e-9));
+        }
+    }
+}
@@ -1,9 +1,11 @@
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,8 +21,13 @@ import java.util.List;
  */
 public class LeggiFileCSV {
 
+    /** Numero di righe accumulate nel batch JDBC prima di inviarlo al database. */
+    private static final int RIGHE_PER_BATCH = 1000;
+
     /**
      * Legge un file CSV e popola direttamente la tabella Libri nel database.
+     * Le righe sono inviate in batch di {@value #RIGHE_PER_BATCH}; per file grandi è preferibile
+     * {@link CaricatoreCopyLibri}, che usa il comando COPY.
      * 
      * @param filePath Percorso del file CSV da leggere
      * @param connection Connessione al database
@@ -34,8 +41,8 @@ public class LeggiFileCSV {
             boolean primaRiga = true; // Per saltare l'header se presente
             
             // Preparo la query SQL una sola volta
-            String sql = "INSERT INTO Libri (id, titolo, autori, anno, descrizione, categorie, editore, prezzo) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+            String sql = "INSERT INTO Libri (id, titolo, autori, anno, mese, descrizione, categorie, editore, prezzo) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
             
             try (PreparedStatement ps = connection.prepareStatement(sql)) {
                 
@@ -51,37 +58,43 @@ public class LeggiFileCSV {
                     if (fields.length == 9) {
                         try {
                             // Estraggo i campi direttamente
-                            int id = Integer.parseInt(fields[0].trim());
+                            long id = Long.parseLong(fields[0].trim());
                             String titolo = fields[1].trim();
                             String autori = fields[2].trim();
-                            String anno = fields[8].trim(); // Anno di pubblicazione
+                            Short anno = CampiLibro.anno(fields[CampiLibro.CAMPO_ANNO]); // Anno di pubblicazione
+                            Short mese = CampiLibro.mese(fields[CampiLibro.CAMPO_MESE]);
                             String descrizione = fields[3].trim();
                             String categorie = fields[4].trim();
                             String editore = fields[5].trim();
-                            String prezzo = fields[6].trim();
+                            BigDecimal prezzo = CampiLibro.prezzo(fields[CampiLibro.CAMPO_PREZZO]);
                             
-                            // Imposto i parametri della query
-                            ps.setInt(1, id);
+                            // Imposto i parametri della query (i campi numerici vuoti diventano NULL)
+                            ps.setLong(1, id);
                             ps.setString(2, titolo);
                             ps.setString(3, autori);
-                            ps.setString(4, anno);
-                            ps.setString(5, descrizione);
-                            ps.setString(6, categorie);
-                            ps.setString(7, editore);
-                            ps.setString(8, prezzo);
+                            ps.setObject(4, anno, Types.SMALLINT);
+                            ps.setObject(5, mese, Types.SMALLINT);
+                            ps.setString(6, descrizione);
+                            ps.setString(7, categorie);
+                            ps.setString(8, editore);
+                            ps.setObject(9, prezzo, Types.NUMERIC);
                             
                             ps.addBatch(); // Aggiungo al batch
                             libriInseriti++;
+                            if (libriInseriti % RIGHE_PER_BATCH == 0) {
+                                ps.executeBatch();
+                            }
                             
-                        } catch (NumberFormatException e) {
-                            System.err.println("Errore nel parsing dell'ID alla riga: " + line);
+                        } catch (IllegalArgumentException e) {
+                            // NumberFormatException per l'ID, IllegalArgumentException da CampiLibro
+                            System.err.println("Errore nel parsing della riga (" + e.getMessage() + "): " + line);
                         }
                     } else {
                         System.err.println("Riga con numero di campi errato (" + fields.length + "): " + line);
                     }
                 }
                 
-                // Eseguo tutti gli insert in batch
+                // Eseguo gli insert rimasti nell'ultimo batch
                 ps.executeBatch();
                 System.out.println("Inseriti " + libriInseriti + " libri nel database.");
                 
@@ -104,7 +117,7 @@ public class LeggiFileCSV {
      * @param line La riga di testo da dividere
      * @return Un array di stringhe contenente i campi estratti
      */
-    private static String[] splitLine(String line) {
+    static String[] splitLine(String line) {
         List<String> fields = new ArrayList<>();
         StringBuilder field = new StringBuilder();
         boolean virgolette = false;
@@ -0,0 +1,434 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parser CSV parallelo per l'importazione del catalogo.
+ * <p>
+ * Il file viene mappato in memoria ({@link FileChannel#map}) e diviso in blocchi di circa
+ * {@link #DIMENSIONE_BLOCCO_DEFAULT} byte che terminano sempre alla fine di un record. I blocchi
+ * sono analizzati in parallelo su un {@link ForkJoinPool} con un automa conforme a RFC 4180:
+ * campi tra virgolette con virgole e a capo al loro interno, virgolette raddoppiate ({@code ""}),
+ * righe terminate da {@code \n} o {@code \r\n}. Una virgoletta isolata all'interno di un campo
+ * non quotato (es. {@code 12" vinile}) è tenuta come carattere.
+ * <p>
+ * Per trovare i confini dei blocchi serve sapere se l'inizio di un segmento cade dentro un campo
+ * quotato, e la semplice parità delle virgolette non basta, perché le virgolette isolate non
+ * cambiano stato. Ogni segmento viene quindi percorso in parallelo con lo stesso automa ridotto
+ * alle virgolette (quattro stati, vedi {@link #STATO_QUOTATO}), calcolando lo stato finale per
+ * ciascuno dei possibili stati iniziali; componendo i risultati nell'ordine del file si ottiene
+ * lo stato esatto all'inizio di ogni segmento, e il confine è il primo a capo fuori dalle virgolette.
+ * <p>
+ * I record vengono consegnati al chiamante, nell'ordine del file, tramite una coda limitata:
+ * al massimo {@code capacitaCoda} blocchi sono in analisi e altrettanti in attesa di essere
+ * consumati, quindi la memoria occupata non dipende dalla dimensione del file.
+ * <p>
+ * Le righe vuote sono ignorate; un BOM UTF-8 all'inizio del file viene saltato.
+ * Il parser non è thread-safe: i record devono essere letti da un solo thread.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public final class ParserCSVParallelo implements AutoCloseable {
+
+    /** Dimensione indicativa, in byte, di un blocco analizzato da un singolo task. */
+    public static final int DIMENSIONE_BLOCCO_DEFAULT = 4 << 20;
+
+    private static final byte VIRGOLETTE = '"';
+    private static final byte VIRGOLA = ',';
+    private static final byte A_CAPO = '\n';
+    private static final byte RITORNO = '\r';
+
+    /** Stato dell'automa all'inizio di un campo non quotato. */
+    static final int STATO_INIZIO_CAMPO = 0;
+    /** Stato dell'automa dentro un campo non quotato, dopo almeno un carattere. */
+    static final int STATO_NEL_CAMPO = 1;
+    /** Stato dell'automa dentro un campo quotato. */
+    static final int STATO_QUOTATO = 2;
+    /** Stato dell'automa subito dopo una virgoletta che chiude un campo quotato. */
+    static final int STATO_DOPO_VIRGOLETTE = 3;
+
+    private static final int CLASSE_ALTRO = 0;
+    private static final int CLASSE_VIRGOLETTE = 1;
+    private static final int CLASSE_SEPARATORE = 2;
+
+    /**
+     * Transizioni dell'automa delle virgolette per ogni classe di byte, applicate insieme ai quattro
+     * stati iniziali: l'indice e il valore codificano, due bit per stato iniziale, lo stato corrente
+     * raggiunto da ciascuno. Così un segmento viene percorso una sola volta per tutti gli stati iniziali.
+     */
+    private static final byte[][] TRANSIZIONI = new byte[3][256];
+    /** Classe di ogni valore di byte per l'automa delle virgolette. */
+    private static final byte[] CLASSI = new byte[256];
+
+    static {
+        CLASSI[VIRGOLETTE] = CLASSE_VIRGOLETTE;
+        CLASSI[VIRGOLA] = CLASSE_SEPARATORE;
+        CLASSI[A_CAPO] = CLASSE_SEPARATORE;
+        for (int classe = 0; classe < 3; classe++) {
+            for (int stati = 0; stati < 256; stati++) {
+                int risultato = 0;
+                for (int k = 0; k < 4; k++) {
+                    risultato |= transizione((stati >> (2 * k)) & 3, classe) << (2 * k);
+                }
+                TRANSIZIONI[classe][stati] = (byte) risultato;
+            }
+        }
+    }
+
+    /** Codifica dei quattro stati iniziali, ciascuno nella propria coppia di bit. */
+    private static final int STATI_IDENTITA = STATO_INIZIO_CAMPO | STATO_NEL_CAMPO << 2
+            | STATO_QUOTATO << 4 | STATO_DOPO_VIRGOLETTE << 6;
+
+    /** Segnala al consumatore la fine dei blocchi. */
+    private static final List<String[]> FINE = new ArrayList<>();
+
+    private final FileChannel canale;
+    private final ForkJoinPool pool;
+    private final int dimensioneBlocco;
+    private final int capacitaCoda;
+    private final BlockingQueue<List<String[]>> coda;
+
+    private Thread coordinatore;
+    private volatile Throwable errore;
+    private List<String[]> bloccoCorrente = new ArrayList<>();
+    private int posizioneNelBlocco;
+    private long numeroRecord;
+    private boolean finito;
+
+    /**
+     * Apre il file con la dimensione dei blocchi predefinita e una coda di due blocchi per thread.
+     *
+     * @param file il file CSV
+     * @param pool il pool su cui analizzare i blocchi
+     * @throws IOException se il file non può essere aperto
+     */
+    public ParserCSVParallelo(Path file, ForkJoinPool pool) throws IOException {
+        this(file, pool, DIMENSIONE_BLOCCO_DEFAULT, 2 * pool.getParallelism());
+    }
+
+    /**
+     * Apre il file.
+     *
+     * @param file             il file CSV
+     * @param pool             il pool su cui analizzare i blocchi
+     * @param dimensioneBlocco dimensione indicativa di un blocco in byte
+     * @param capacitaCoda     numero massimo di blocchi analizzati in anticipo rispetto al consumatore
+     * @throws IOException se il file non può essere aperto
+     */
+    public ParserCSVParallelo(Path file, ForkJoinPool pool, int dimensioneBlocco, int capacitaCoda) throws IOException {
+        if (dimensioneBlocco <= 0 || capacitaCoda <= 0) {
+            throw new IllegalArgumentException("Dimensione del blocco e capacità della coda devono essere positive");
+        }
+        this.canale = FileChannel.open(file, StandardOpenOption.READ);
+        this.pool = pool;
+        this.dimensioneBlocco = dimensioneBlocco;
+        this.capacitaCoda = capacitaCoda;
+        this.coda = new ArrayBlockingQueue<>(capacitaCoda);
+    }
+
+    /**
+     * Restituisce il record successivo.
+     *
+     * @return i campi del record, o {@code null} se il file è terminato
+     * @throws IOException          in caso di errore di lettura del file
+     * @throws InterruptedException se il thread viene interrotto durante l'attesa
+     */
+    public String[] prossimo() throws IOException, InterruptedException {
+        if (coordinatore == null) {
+            coordinatore = new Thread(this::produci, "parser-csv");
+            coordinatore.setDaemon(true);
+            coordinatore.start();
+        }
+        while (!finito && posizioneNelBlocco == bloccoCorrente.size()) {
+            bloccoCorrente = coda.take();
+            posizioneNelBlocco = 0;
+            if (bloccoCorrente == FINE) {
+                finito = true;
+                if (errore != null) {
+                    throw errore instanceof IOException io ? io : new IOException(errore);
+                }
+            }
+        }
+        if (finito) {
+            return null;
+        }
+        numeroRecord++;
+        return bloccoCorrente.get(posizioneNelBlocco++);
+    }
+
+    /**
+     * Restituisce il numero progressivo (da 1) dell'ultimo record restituito da {@link #prossimo()}.
+     *
+     * @return il numero del record
+     */
+    public long numeroRecord() {
+        return numeroRecord;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (coordinatore != null) {
+            coordinatore.interrupt();
+        }
+        canale.close();
+    }
+
+    /**
+     * Ricompone i campi di un record in una riga CSV, mettendo tra virgolette i campi che lo richiedono.
+     *
+     * @param campi i campi del record
+     * @return la riga CSV, senza a capo finale
+     */
+    public static String formatta(String[] campi) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < campi.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            String campo = campi[i];
+            if (campo.indexOf(',') >= 0 || campo.indexOf('"') >= 0 || campo.indexOf('\n') >= 0 || campo.indexOf('\r') >= 0) {
+                sb.append('"').append(campo.replace("\"", "\"\"")).append('"');
+            } else {
+                sb.append(campo);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Corpo del thread coordinatore: calcola i confini dei blocchi, li fa analizzare dal pool
+     * e li mette in coda nell'ordine del file.
+     */
+    private void produci() {
+        try {
+            long dimensione = canale.size();
+            int segmenti = (int) Math.max(1, (dimensione + dimensioneBlocco - 1) / dimensioneBlocco);
+            // Lo stato finale dei segmenti viene calcolato in anticipo di al massimo capacitaCoda
+            // segmenti: così ogni segmento viene analizzato mentre è ancora nella cache del
+            // sistema operativo, anche quando il file è più grande della memoria
+            long inizio = inizioDati(dimensione);
+            ArrayDeque<ForkJoinTask<Integer>> statiFinali = new ArrayDeque<>();
+            int prossimoSegmento = 0;
+            while (prossimoSegmento < Math.min(segmenti, capacitaCoda)) {
+                statiFinali.add(percorriSegmento(prossimoSegmento++, inizio, dimensione));
+            }
+
+            ArrayDeque<ForkJoinTask<List<String[]>>> inCorso = new ArrayDeque<>();
+            long confine = inizio;
+            int stato = STATO_INIZIO_CAMPO;
+            for (int s = 1; s <= segmenti; s++) {
+                long prossimoConfine;
+                if (s == segmenti) {
+                    prossimoConfine = dimensione;
+                } else {
+                    // Con lo stato esatto all'inizio del segmento, il confine è il primo a capo
+                    // fuori dalle virgolette
+                    stato = (statiFinali.poll().join() >> (2 * stato)) & 3;
+                    if (prossimoSegmento < segmenti) {
+                        statiFinali.add(percorriSegmento(prossimoSegmento++, inizio, dimensione));
+                    }
+                    long inizioSegmento = (long) s * dimensioneBlocco;
+                    // Se il confine precedente ha già superato l'inizio del segmento (campo quotato
+                    // molto lungo), il contenuto passa al blocco successivo
+                    prossimoConfine = confine >= inizioSegmento
+                            ? confine
+                            : primoFineRecord(inizioSegmento, stato, dimensione);
+                }
+                if (prossimoConfine > confine) {
+                    long da = confine;
+                    long a = prossimoConfine;
+                    inCorso.add(pool.submit(() -> analizza(da, a)));
+                    if (inCorso.size() == capacitaCoda) {
+                        coda.put(inCorso.poll().join());
+                    }
+                    confine = prossimoConfine;
+                }
+            }
+            while (!inCorso.isEmpty()) {
+                coda.put(inCorso.poll().join());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException | RuntimeException e) {
+            errore = e;
+        }
+        try {
+            coda.put(FINE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Transizione dell'automa delle virgolette, con le stesse regole di {@link #analizza(long, long)}.
+     *
+     * @param stato  lo stato corrente
+     * @param classe la classe del byte letto
+     * @return lo stato successivo
+     */
+    private static int transizione(int stato, int classe) {
+        if (stato == STATO_QUOTATO) {
+            return classe == CLASSE_VIRGOLETTE ? STATO_DOPO_VIRGOLETTE : STATO_QUOTATO;
+        }
+        return switch (classe) {
+            // All'inizio del campo apre le virgolette, dopo una chiusura è una virgoletta raddoppiata,
+            // dentro un campo non quotato è un carattere
+            case CLASSE_VIRGOLETTE -> stato == STATO_NEL_CAMPO ? STATO_NEL_CAMPO : STATO_QUOTATO;
+            case CLASSE_SEPARATORE -> STATO_INIZIO_CAMPO;
+            default -> STATO_NEL_CAMPO;
+        };
+    }
+
+    private static int classe(byte b) {
+        return CLASSI[b & 0xFF];
+    }
+
+    /**
+     * Avvia sul pool il percorso del segmento con l'automa delle virgolette, saltando i byte che
+     * precedono {@code inizio} (il BOM). Il risultato indica, due bit per ciascuno stato iniziale
+     * possibile, lo stato alla fine del segmento.
+     */
+    private ForkJoinTask<Integer> percorriSegmento(int segmento, long inizio, long dimensione) {
+        return pool.submit(() -> {
+            long da = Math.max((long) segmento * dimensioneBlocco, inizio);
+            MappedByteBuffer buf;
+            try {
+                buf = mappa(da, Math.max(0, Math.min((long) (segmento + 1) * dimensioneBlocco, dimensione) - da));
+            } catch (IOException e) {
+                throw new IllegalStateException("Errore nella mappatura del file", e);
+            }
+            int stati = STATI_IDENTITA;
+            for (int i = 0, n = buf.limit(); i < n; i++) {
+                stati = TRANSIZIONI[CLASSI[buf.get(i) & 0xFF]][stati] & 0xFF;
+            }
+            return stati;
+        });
+    }
+
+    /** Restituisce 3 se il file inizia con un BOM UTF-8, altrimenti 0. */
+    private long inizioDati(long dimensione) throws IOException {
+        if (dimensione < 3) {
+            return 0;
+        }
+        MappedByteBuffer buf = mappa(0, 3);
+        return buf.get(0) == (byte) 0xEF && buf.get(1) == (byte) 0xBB && buf.get(2) == (byte) 0xBF ? 3 : 0;
+    }
+
+    /**
+     * Restituisce la posizione successiva al primo a capo fuori dalle virgolette a partire da
+     * {@code da}, dove l'automa si trova nello stato indicato, o la fine del file se non ce ne sono.
+     */
+    private long primoFineRecord(long da, int stato, long dimensione) throws IOException {
+        long posizione = da;
+        while (posizione < dimensione) {
+            MappedByteBuffer buf = mappa(posizione, Math.min(dimensioneBlocco, dimensione - posizione));
+            for (int i = 0, n = buf.limit(); i < n; i++) {
+                byte b = buf.get(i);
+                if (b == A_CAPO && stato != STATO_QUOTATO) {
+                    return posizione + i + 1;
+                }
+                stato = transizione(stato, classe(b));
+            }
+            posizione += buf.limit();
+        }
+        return dimensione;
+    }
+
+    private MappedByteBuffer mappa(long da, long lunghezza) throws IOException {
+        return canale.map(FileChannel.MapMode.READ_ONLY, da, lunghezza);
+    }
+
+    /**
+     * Analizza i record compresi tra {@code da} (inizio di un record) e {@code a} (fine di un record).
+     */
+    List<String[]> analizza(long da, long a) {
+        MappedByteBuffer buf;
+        try {
+            buf = mappa(da, a - da);
+        } catch (IOException e) {
+            throw new IllegalStateException("Errore nella mappatura del file", e);
+        }
+        List<String[]> record = new ArrayList<>();
+        List<String> campi = new ArrayList<>(16);
+        byte[] campo = new byte[256];
+        int lunghezza = 0;
+        boolean quotato = false;
+        // Vero subito dopo una virgoletta di chiusura (o la prima di una coppia "")
+        boolean dopoVirgolette = false;
+        boolean campoIniziato = false;
+
+        for (int i = 0, n = buf.limit(); i < n; i++) {
+            byte b = buf.get(i);
+            if (quotato) {
+                if (b == VIRGOLETTE) {
+                    quotato = false;
+                    dopoVirgolette = true;
+                    continue;
+                }
+            } else if (b == VIRGOLETTE) {
+                if (dopoVirgolette) {
+                    // Virgolette raddoppiate: una virgoletta letterale, si resta nel campo quotato
+                    quotato = true;
+                    dopoVirgolette = false;
+                } else if (!campoIniziato) {
+                    quotato = true;
+                    campoIniziato = true;
+                    continue;
+                }
+                // Altrimenti è una virgoletta isolata in un campo non quotato: viene tenuta come carattere
+            } else if (b == VIRGOLA) {
+                campi.add(new String(campo, 0, lunghezza, StandardCharsets.UTF_8));
+                lunghezza = 0;
+                dopoVirgolette = false;
+                campoIniziato = false;
+                continue;
+            } else if (b == A_CAPO || (b == RITORNO && i + 1 < n && buf.get(i + 1) == A_CAPO)) {
+                if (b == RITORNO) {
+                    i++;
+                }
+                chiudiRecord(record, campi, campo, lunghezza, campoIniziato);
+                lunghezza = 0;
+                dopoVirgolette = false;
+                campoIniziato = false;
+                continue;
+            } else {
+                dopoVirgolette = false;
+            }
+            if (lunghezza == campo.length) {
+                campo = Arrays.copyOf(campo, lunghezza * 2);
+            }
+            campo[lunghezza++] = b;
+            campoIniziato = true;
+        }
+        if (campoIniziato || !campi.isEmpty()) {
+            // Ultimo record senza a capo finale
+            chiudiRecord(record, campi, campo, lunghezza, campoIniziato);
+        }
+        return record;
+    }
+
+    private static void chiudiRecord(List<String[]> record, List<String> campi, byte[] campo, int lunghezza, boolean campoIniziato) {
+        if (campi.isEmpty() && !campoIniziato) {
+            return; // riga vuota
+        }
+        campi.add(new String(campo, 0, lunghezza, StandardCharsets.UTF_8));
+        record.add(campi.toArray(new String[0]));
+        campi.clear();
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Misura i tempi di lettura del file dei libri, senza database, per confrontare il parser
+ * riga per riga di {@link LeggiFileCSV} con {@link ParserCSVParallelo}.
+ *
+ * Uso:
+ *   java -cp DBCreatorBR-1.0-jar-with-dependencies.jar TempiImportCSV <file.csv> [ripetizioni] [thread]
+ *
+ * Per generare un file sintetico di N record a partire da Libri.dati.csv:
+ *   java -cp DBCreatorBR-1.0-jar-with-dependencies.jar TempiImportCSV --genera <origine.csv> <destinazione.csv> <N>
+ *
+ * Il file sintetico è deterministico (stessi parametri, stesso file): i record dell'origine sono
+ * ripetuti con ID progressivi e un record ogni {@value #OGNI_QUANTI_MULTIRIGA} ha una descrizione
+ * che contiene un a capo e delle virgolette raddoppiate, così da esercitare i campi quotati su più righe.
+ * Per ogni parser viene riportata la mediana delle ripetizioni (la prima è di riscaldamento).
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public class TempiImportCSV {
+
+    /** Frequenza dei record con descrizione su più righe nel file sintetico. */
+    static final int OGNI_QUANTI_MULTIRIGA = 100;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 4 && "--genera".equals(args[0])) {
+            genera(Path.of(args[1]), Path.of(args[2]), Long.parseLong(args[3]));
+            return;
+        }
+        if (args.length < 1 || args.length > 3) {
+            System.out.println("Utilizzo: TempiImportCSV <file.csv> [ripetizioni] [thread]");
+            System.out.println("          TempiImportCSV --genera <origine.csv> <destinazione.csv> <record>");
+            System.exit(1);
+        }
+        Path file = Path.of(args[0]);
+        int ripetizioni = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int thread = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        double megabyte = Files.size(file) / (1024.0 * 1024.0);
+
+        System.out.printf("File %s: %.1f MB, %d ripetizioni, %d thread, Java %s%n",
+                file, megabyte, ripetizioni, thread, System.getProperty("java.version"));
+        misura("riga per riga (LeggiFileCSV.splitLine)", ripetizioni, megabyte, () -> leggiRigaPerRiga(file));
+        ForkJoinPool pool = new ForkJoinPool(thread);
+        try {
+            misura("parallelo (ParserCSVParallelo)", ripetizioni, megabyte, () -> leggiInParallelo(file, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private interface Lettura {
+        long esegui() throws Exception;
+    }
+
+    private static void misura(String nome, int ripetizioni, double megabyte, Lettura lettura) throws Exception {
+        lettura.esegui(); // riscaldamento
+        long[] tempi = new long[ripetizioni];
+        long record = 0;
+        for (int r = 0; r < ripetizioni; r++) {
+            long inizio = System.nanoTime();
+            record = lettura.esegui();
+            tempi[r] = System.nanoTime() - inizio;
+        }
+        Arrays.sort(tempi);
+        double secondi = tempi[ripetizioni / 2] / 1e9;
+        System.out.printf("  %-40s %d record, mediana %.0f ms (min %.0f, max %.0f), %.0f record/s, %.1f MB/s%n",
+                nome, record, secondi * 1000, tempi[0] / 1e6, tempi[ripetizioni - 1] / 1e6,
+                record / secondi, megabyte / secondi);
+    }
+
+    /** Lettura come in {@link LeggiFileCSV}: una riga fisica per record. */
+    private static long leggiRigaPerRiga(Path file) throws IOException {
+        long record = 0;
+        try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (LeggiFileCSV.splitLine(line).length > 0) {
+                    record++;
+                }
+            }
+        }
+        return record;
+    }
+
+    private static long leggiInParallelo(Path file, ForkJoinPool pool) throws Exception {
+        long record = 0;
+        try (ParserCSVParallelo parser = new ParserCSVParallelo(file, pool)) {
+            while (parser.prossimo() != null) {
+                record++;
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Genera un file sintetico di {@code n} record ripetendo quelli dell'origine con ID progressivi.
+     */
+    static void genera(Path origine, Path destinazione, long n) throws Exception {
+        List<String[]> modelli = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try (ParserCSVParallelo parser = new ParserCSVParallelo(origine, pool)) {
+            String[] campi;
+            while ((campi = parser.prossimo()) != null) {
+                if (campi.length == 9 && campi[0].trim().matches("\\d+")) {
+                    modelli.add(campi);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (modelli.isEmpty()) {
+            throw new IllegalArgumentException("Nessun record valido in " + origine);
+        }
+        long inizio = System.nanoTime();
+        try (BufferedWriter out = Files.newBufferedWriter(destinazione, StandardCharsets.UTF_8)) {
+            for (long i = 0; i < n; i++) {
+                String[] campi = modelli.get((int) (i % modelli.size())).clone();
+                campi[0] = Long.toString(i + 1);
+                if ((i + 1) % OGNI_QUANTI_MULTIRIGA == 0) {
+                    campi[3] = campi[3] + "\nSeconda riga con \"virgolette\", e virgola.";
+                }
+                out.write(ParserCSVParallelo.formatta(campi));
+                out.write('\n');
+            }
+        }
+        System.out.printf("Generati %d record in %s (%.1f MB) in %.1f s%n", n, destinazione,
+                Files.size(destinazione) / (1024.0 * 1024.0), (System.nanoTime() - inizio) / 1e9);
+    }
+}
@@ -0,0 +1,177 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Misura i tempi delle ricerche testuali di JdbcCercaLibriDAO sul database dbBR, con e senza
+ * gli indici a trigrammi e full-text creati da {@link CreateDatabaseAndTablesBR}.
+ *
+ * Uso:
+ *   java -cp DBCreatorBR-1.0-jar-with-dependencies.jar TempiRicercaLibri <db_user> <db_password> [ripetizioni]
+ *
+ * Per ogni query viene riportata la mediana delle ripetizioni (la prima è di riscaldamento) in due modalità:
+ * "senza indici", con le scansioni tramite indice disabilitate nella transazione ({@code SET LOCAL
+ * enable_indexscan/enable_bitmapscan = off}), che riproduce il piano precedente agli indici GIN
+ * (scansione sequenziale della tabella); e "con indici", con il piano scelto dal database. Per la
+ * seconda viene stampato anche il nodo principale del piano (EXPLAIN), per verificare quale indice è usato.
+ * Le query sono le stesse del DAO, con la prima pagina di 20 risultati.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public class TempiRicercaLibri {
+
+    private static final String DB_URL = "jdbc:postgresql://localhost:5432/dbBR";
+    private static final int LIMITE = 20;
+
+    private static final String TSVECTOR_LIBRI =
+            "to_tsvector('english', coalesce(titolo, '') || ' ' || coalesce(autori, '') || ' ' || coalesce(descrizione, ''))";
+
+    /** Query da misurare: nome, SQL (con limite e offset come ultimi parametri) e valori dei parametri del criterio. */
+    private record Ricerca(String nome, String sql, String... parametri) {
+    }
+
+    private static final List<Ricerca> RICERCHE = List.of(
+            new Ricerca("titolo LIKE '%love%'",
+                    "SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale FROM Libri WHERE LOWER(titolo) LIKE LOWER(?) ORDER BY titolo, id LIMIT ? OFFSET ?",
+                    "%love%"),
+            new Ricerca("titolo LIKE '%xylophone%'",
+                    "SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale FROM Libri WHERE LOWER(titolo) LIKE LOWER(?) ORDER BY titolo, id LIMIT ? OFFSET ?",
+                    "%xylophone%"),
+            new Ricerca("autori LIKE '%king%'",
+                    "SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale FROM Libri WHERE LOWER(autori) LIKE LOWER(?) ORDER BY titolo, id LIMIT ? OFFSET ?",
+                    "%king%"),
+            new Ricerca("somiglianza 'harry poter'", """
+                    SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale FROM Libri
+                    WHERE LOWER(?) <% LOWER(titolo) OR LOWER(?) <% LOWER(autori)
+                    ORDER BY GREATEST(word_similarity(LOWER(?), LOWER(titolo)), word_similarity(LOWER(?), LOWER(autori))) DESC, titolo, id
+                    LIMIT ? OFFSET ?""",
+                    "harry poter", "harry poter", "harry poter", "harry poter"),
+            new Ricerca("full-text 'dragon magic'", """
+                    SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale
+                    FROM Libri, websearch_to_tsquery('english', ?) AS q
+                    WHERE %1$s @@ q
+                    ORDER BY ts_rank(%1$s, q) DESC, titolo, id
+                    LIMIT ? OFFSET ?""".formatted(TSVECTOR_LIBRI),
+                    "dragon magic"));
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 2 || args.length > 3) {
+            System.out.println("Utilizzo: TempiRicercaLibri <user> <password> [ripetizioni]");
+            System.exit(1);
+        }
+        int ripetizioni = args.length == 3 ? Integer.parseInt(args[2]) : 10;
+
+        try (Connection conn = DriverManager.getConnection(DB_URL, args[0], args[1])) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*), version() FROM Libri")) {
+                rs.next();
+                System.out.printf("%d libri, %s, %d ripetizioni%n", rs.getLong(1), rs.getString(2), ripetizioni);
+            }
+            conn.commit();
+            System.out.printf("%-30s %10s %16s %16s  %s%n", "ricerca", "risultati", "senza indici ms", "con indici ms", "piano con indici");
+            for (Ricerca ricerca : RICERCHE) {
+                try {
+                    long risultati = esegui(conn, ricerca, false);
+                    double senza = misura(conn, ricerca, false, ripetizioni);
+                    double con = misura(conn, ricerca, true, ripetizioni);
+                    System.out.printf("%-30s %10d %16.2f %16.2f  %s%n", ricerca.nome(), risultati, senza, con, piano(conn, ricerca));
+                } catch (SQLException e) {
+                    conn.rollback();
+                    System.out.printf("%-30s errore: %s%n", ricerca.nome(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Esegue la ricerca {@code ripetizioni + 1} volte e restituisce la mediana in millisecondi,
+     * scartando la prima esecuzione.
+     */
+    private static double misura(Connection conn, Ricerca ricerca, boolean conIndici, int ripetizioni) throws SQLException {
+        esegui(conn, ricerca, conIndici); // riscaldamento
+        long[] tempi = new long[ripetizioni];
+        for (int r = 0; r < ripetizioni; r++) {
+            long inizio = System.nanoTime();
+            esegui(conn, ricerca, conIndici);
+            tempi[r] = System.nanoTime() - inizio;
+        }
+        Arrays.sort(tempi);
+        return tempi[ripetizioni / 2] / 1e6;
+    }
+
+    /**
+     * Esegue la ricerca in una transazione e restituisce il numero totale dei risultati.
+     */
+    private static long esegui(Connection conn, Ricerca ricerca, boolean conIndici) throws SQLException {
+        long totale = 0;
+        try {
+            configura(conn, conIndici);
+            try (PreparedStatement ps = conn.prepareStatement(ricerca.sql())) {
+                int i = imposta(ps, ricerca);
+                ps.setInt(i, LIMITE);
+                ps.setInt(i + 1, 0);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        totale = rs.getLong("totale");
+                    }
+                }
+            }
+        } finally {
+            conn.rollback();
+        }
+        return totale;
+    }
+
+    /**
+     * Restituisce il nodo principale del piano che accede alla tabella Libri.
+     */
+    private static String piano(Connection conn, Ricerca ricerca) throws SQLException {
+        List<String> righe = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + ricerca.sql())) {
+            int i = imposta(ps, ricerca);
+            ps.setInt(i, LIMITE);
+            ps.setInt(i + 1, 0);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    righe.add(rs.getString(1).trim());
+                }
+            }
+        } finally {
+            conn.rollback();
+        }
+        for (String riga : righe) {
+            if (riga.contains(" on libri") || riga.contains("Index")) {
+                return riga.replaceFirst("^->\\s*", "").replaceFirst("\\s+\\(cost=.*$", "");
+            }
+        }
+        return righe.isEmpty() ? "" : righe.get(0);
+    }
+
+    private static void configura(Connection conn, boolean conIndici) throws SQLException {
+        if (!conIndici) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET LOCAL enable_indexscan = off");
+                stmt.execute("SET LOCAL enable_bitmapscan = off");
+                stmt.execute("SET LOCAL enable_indexonlyscan = off");
+            }
+        }
+    }
+
+    private static int imposta(PreparedStatement ps, Ricerca ricerca) throws SQLException {
+        for (int i = 0; i < ricerca.parametri().length; i++) {
+            ps.setString(i + 1, ricerca.parametri()[i]);
+        }
+        return ricerca.parametri().length + 1;
+    }
+}
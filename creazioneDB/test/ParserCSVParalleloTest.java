@@ -0,0 +1,162 @@
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica che {@link ParserCSVParallelo} restituisca gli stessi record qualunque sia la dimensione
+ * dei blocchi: ogni file viene letto con un unico blocco (analisi sequenziale) e con blocchi di ogni
+ * dimensione da 1 byte in su, così che i confini cadano in ogni punto, anche dentro i campi quotati.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+class ParserCSVParalleloTest {
+
+    private static ForkJoinPool pool;
+
+    @TempDir
+    Path cartella;
+
+    @BeforeAll
+    static void creaPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void chiudiPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void campiConACapoInterni() throws Exception {
+        verifica("id,titolo\n1,\"prima riga\nseconda riga\"\n2,\"a,b\n\nc\"\n3,fine\n",
+                new String[]{"id", "titolo"},
+                new String[]{"1", "prima riga\nseconda riga"},
+                new String[]{"2", "a,b\n\nc"},
+                new String[]{"3", "fine"});
+    }
+
+    @Test
+    void virgoletteRaddoppiate() throws Exception {
+        verifica("1,\"disse \"\"ciao\"\"\"\n2,\"\"\"\"\n3,\"\"\n",
+                new String[]{"1", "disse \"ciao\""},
+                new String[]{"2", "\""},
+                new String[]{"3", ""});
+    }
+
+    @Test
+    void virgolettaIsolataInCampoNonQuotato() throws Exception {
+        // Le virgolette isolate non aprono un campo quotato: i record successivi non devono cambiare
+        verifica("1,disco 12\" vinile,a\n2,\"quotato, con virgola\",b\n3,altro 7\" e 10\" ,c\n4,\"x\ny\",d\n",
+                new String[]{"1", "disco 12\" vinile", "a"},
+                new String[]{"2", "quotato, con virgola", "b"},
+                new String[]{"3", "altro 7\" e 10\" ", "c"},
+                new String[]{"4", "x\ny", "d"});
+    }
+
+    @Test
+    void testoDopoLaChiusuraDelleVirgolette() throws Exception {
+        verifica("1,\"abc\"def\"ghi\",x\n2,y\n",
+                new String[]{"1", "abcdef\"ghi\"", "x"},
+                new String[]{"2", "y"});
+    }
+
+    @Test
+    void confineDentroUnCampoQuotatoLungo() throws Exception {
+        String lungo = "a,\"b\"\"\n".repeat(200);
+        String csv = "1,\"" + lungo.replace("\"", "\"\"") + "\"\n2,breve\n3,\"" + lungo.replace("\"", "\"\"") + "\"";
+        verifica(csv,
+                new String[]{"1", lungo},
+                new String[]{"2", "breve"},
+                new String[]{"3", lungo});
+    }
+
+    @Test
+    void finiRigaWindowsRigheVuoteEBom() throws Exception {
+        verifica("\uFEFF\"a\",b\r\n\r\n1,\"x\r\ny\"\r\n2,z",
+                new String[]{"a", "b"},
+                new String[]{"1", "x\r\ny"},
+                new String[]{"2", "z"});
+    }
+
+    @Test
+    void fileCasualeUgualeAllAnalisiSequenziale() throws Exception {
+        SplittableRandom r = new SplittableRandom(7);
+        String alfabeto = "ab ,\"\n\r12";
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            csv.append(alfabeto.charAt(r.nextInt(alfabeto.length())));
+        }
+        Path file = scrivi(csv.toString());
+        List<String[]> attesi = leggi(file, Integer.MAX_VALUE);
+        for (int blocco : new int[]{1, 2, 3, 5, 8, 13, 64, 257}) {
+            assertRecord(attesi, leggi(file, blocco), "blocchi da " + blocco + " byte");
+        }
+    }
+
+    @Test
+    void formattaEAnalisiSonoInverse() throws Exception {
+        String[][] record = {
+                {"semplice", "con, virgola", "con \"virgolette\""},
+                {"a capo\ninterno", "", "ritorno\r"}};
+        StringBuilder csv = new StringBuilder();
+        for (String[] campi : record) {
+            csv.append(ParserCSVParallelo.formatta(campi)).append('\n');
+        }
+        verifica(csv.toString(), record);
+    }
+
+    /**
+     * Legge il CSV con un unico blocco e con blocchi di ogni dimensione fino alla lunghezza del file,
+     * e confronta i record con quelli attesi.
+     */
+    private void verifica(String csv, String[]... attesi) throws Exception {
+        Path file = scrivi(csv);
+        List<String[]> sequenziale = leggi(file, Integer.MAX_VALUE);
+        assertRecord(List.of(attesi), sequenziale, "analisi sequenziale");
+        int lunghezza = csv.getBytes(StandardCharsets.UTF_8).length;
+        for (int blocco = 1; blocco <= lunghezza; blocco++) {
+            assertRecord(sequenziale, leggi(file, blocco), "blocchi da " + blocco + " byte");
+        }
+    }
+
+    private static void assertRecord(List<String[]> attesi, List<String[]> letti, String caso) {
+        assertEquals(attesi.size(), letti.size(), caso + ": numero di record");
+        for (int i = 0; i < attesi.size(); i++) {
+            assertArrayEquals(attesi.get(i), letti.get(i), caso + ": record " + (i + 1));
+        }
+    }
+
+    private Path scrivi(String csv) throws IOException {
+        Path file = Files.createTempFile(cartella, "libri", ".csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String[]> leggi(Path file, int dimensioneBlocco) throws Exception {
+        List<String[]> record = new ArrayList<>();
+        try (ParserCSVParallelo parser = new ParserCSVParallelo(file, pool, dimensioneBlocco, 3)) {
+            String[] campi;
+            while ((campi = parser.prossimo()) != null) {
+                record.add(campi);
+            }
+        }
+        return record;
+    }
+}
@@ -0,0 +1,225 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Verifica che il trigger su ValutazioniLibri mantenga AggregatiValutazioni allineata per ogni
+ * modifica delle valutazioni, comprese le eliminazioni a cascata da Librerie, Libreria_Libro e
+ * UtentiRegistrati.
+ *
+ * Il test richiede un server PostgreSQL e viene saltato se non è indicato:
+ *   mvn test -Dbookrecommender.test.db.url=jdbc:postgresql://localhost:5432/postgres
+ *            -Dbookrecommender.test.db.utente=... -Dbookrecommender.test.db.password=...
+ * Le tabelle sono create con {@link CreateDatabaseAndTablesBR#creaTabelle(Statement)} in uno schema
+ * temporaneo, eliminato al termine di ogni test.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+class TriggerAggregatiValutazioniTest {
+
+    private static final String SCHEMA = "test_aggregati_valutazioni";
+
+    private Connection conn;
+    private int libreriaAnna;
+    private int libreriaBruno;
+
+    @BeforeEach
+    void preparaDatabase() throws SQLException {
+        String url = System.getProperty("bookrecommender.test.db.url");
+        assumeTrue(url != null, "database di test non indicato (bookrecommender.test.db.url)");
+        conn = DriverManager.getConnection(url, System.getProperty("bookrecommender.test.db.utente"),
+                System.getProperty("bookrecommender.test.db.password"));
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            stmt.executeUpdate("CREATE SCHEMA " + SCHEMA);
+            stmt.executeUpdate("SET search_path TO " + SCHEMA);
+            CreateDatabaseAndTablesBR.creaTabelle(stmt);
+
+            stmt.executeUpdate("""
+                    INSERT INTO UtentiRegistrati (user_id, password, nome, cognome, codice_fiscale, email) VALUES
+                      ('anna', 'anna', 'Anna', 'Rossi', 'RSSNNA80A41H501A', 'anna@esempio.it'),
+                      ('bruno', 'bruno', 'Bruno', 'Bianchi', 'BNCBRN80A01H501B', 'bruno@esempio.it')
+                    """);
+            stmt.executeUpdate("INSERT INTO Libri (id, titolo) VALUES (1, 'Primo'), (2, 'Secondo')");
+        }
+        libreriaAnna = creaLibreria("anna", 1, 2);
+        libreriaBruno = creaLibreria("bruno", 1);
+        valuta("anna", libreriaAnna, 1, 5);
+        valuta("anna", libreriaAnna, 2, 3);
+        valuta("bruno", libreriaBruno, 1, 2);
+    }
+
+    @AfterEach
+    void eliminaSchema() throws SQLException {
+        if (conn == null) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        } finally {
+            conn.close();
+        }
+    }
+
+    @Test
+    void inserimentoAggiornaGliAggregati() throws SQLException {
+        // numero, somma dei complessivi e voti da 1 a 5
+        assertArrayEquals(new long[]{2, 7, 0, 1, 0, 0, 1}, aggregati(1));
+        assertArrayEquals(new long[]{1, 3, 0, 0, 1, 0, 0}, aggregati(2));
+        verificaAllineati();
+    }
+
+    @Test
+    void eliminazioneLibreriaTogliePunteggiDagliAggregati() throws SQLException {
+        esegui("DELETE FROM Librerie WHERE libreria_id = " + libreriaAnna);
+
+        assertArrayEquals(new long[]{1, 2, 0, 1, 0, 0, 0}, aggregati(1));
+        assertArrayEquals(new long[]{0, 0, 0, 0, 0, 0, 0}, aggregati(2));
+        verificaAllineati();
+    }
+
+    @Test
+    void eliminazioneLibroDallaLibreriaTogliePunteggiDagliAggregati() throws SQLException {
+        esegui("DELETE FROM Libreria_Libro WHERE libreria_id = " + libreriaBruno + " AND libro_id = 1");
+
+        assertArrayEquals(new long[]{1, 5, 0, 0, 0, 0, 1}, aggregati(1));
+        verificaAllineati();
+    }
+
+    @Test
+    void eliminazioneUtenteTogliePunteggiDagliAggregati() throws SQLException {
+        esegui("DELETE FROM UtentiRegistrati WHERE user_id = 'anna'");
+
+        assertArrayEquals(new long[]{1, 2, 0, 1, 0, 0, 0}, aggregati(1));
+        assertArrayEquals(new long[]{0, 0, 0, 0, 0, 0, 0}, aggregati(2));
+        verificaAllineati();
+    }
+
+    @Test
+    void modificaPunteggiSostituisceQuelliPrecedenti() throws SQLException {
+        esegui("""
+                UPDATE ValutazioniLibri SET stile_score = 1, contenuto_score = 1, gradimento_score = 1,
+                    originalita_score = 1, qualita_score = 1, voto_complessivo = 1
+                WHERE user_id = 'anna' AND libro_id = 1""");
+
+        assertArrayEquals(new long[]{2, 3, 1, 1, 0, 0, 0}, aggregati(1));
+        verificaAllineati();
+    }
+
+    @Test
+    void modificaNoteNonCambiaGliAggregati() throws SQLException {
+        esegui("UPDATE ValutazioniLibri SET commento_finale = 'Riletto' WHERE user_id = 'anna'");
+
+        assertArrayEquals(new long[]{2, 7, 0, 1, 0, 0, 1}, aggregati(1));
+        verificaAllineati();
+    }
+
+    private int creaLibreria(String userId, long... libri) throws SQLException {
+        int libreriaId;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO Librerie (user_id, nome_libreria) VALUES (?, 'Letti') RETURNING libreria_id")) {
+            ps.setString(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                libreriaId = rs.getInt(1);
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO Libreria_Libro (libreria_id, libro_id) VALUES (?, ?)")) {
+            for (long libro : libri) {
+                ps.setInt(1, libreriaId);
+                ps.setLong(2, libro);
+                ps.executeUpdate();
+            }
+        }
+        return libreriaId;
+    }
+
+    /** Inserisce una valutazione con tutti i punteggi uguali al voto indicato. */
+    private void valuta(String userId, int libreriaId, long libroId, int voto) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+                INSERT INTO ValutazioniLibri (user_id, libreria_id, libro_id, stile_score, contenuto_score,
+                    gradimento_score, originalita_score, qualita_score, voto_complessivo)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)""")) {
+            ps.setString(1, userId);
+            ps.setInt(2, libreriaId);
+            ps.setLong(3, libroId);
+            for (int i = 4; i <= 9; i++) {
+                ps.setInt(i, voto);
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    private void esegui(String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+
+    /**
+     * Restituisce numero di valutazioni, somma dei voti complessivi e voti da 1 a 5 di un libro
+     * (tutti zero se il libro non ha una riga negli aggregati).
+     */
+    private long[] aggregati(long libroId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+                SELECT numero_valutazioni, somma_complessivo, voti_1, voti_2, voti_3, voti_4, voti_5
+                FROM AggregatiValutazioni WHERE libro_id = ?""")) {
+            ps.setLong(1, libroId);
+            try (ResultSet rs = ps.executeQuery()) {
+                long[] valori = new long[7];
+                if (rs.next()) {
+                    for (int i = 0; i < valori.length; i++) {
+                        valori[i] = rs.getLong(i + 1);
+                    }
+                }
+                return valori;
+            }
+        }
+    }
+
+    /**
+     * Confronta tutte le colonne degli aggregati con quelle ricalcolate da zero da ValutazioniLibri.
+     */
+    private void verificaAllineati() throws SQLException {
+        String differenze = """
+                SELECT COUNT(*) FROM (
+                  (SELECT libro_id, numero_valutazioni, somma_stile, somma_contenuto, somma_gradimento,
+                          somma_originalita, somma_qualita, somma_complessivo, voti_1, voti_2, voti_3, voti_4, voti_5
+                   FROM AggregatiValutazioni WHERE numero_valutazioni > 0
+                   EXCEPT
+                   SELECT * FROM ricalcolati)
+                  UNION ALL
+                  (SELECT * FROM ricalcolati
+                   EXCEPT
+                   SELECT libro_id, numero_valutazioni, somma_stile, somma_contenuto, somma_gradimento,
+                          somma_originalita, somma_qualita, somma_complessivo, voti_1, voti_2, voti_3, voti_4, voti_5
+                   FROM AggregatiValutazioni WHERE numero_valutazioni > 0)
+                ) d""";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TEMP TABLE ricalcolati (LIKE AggregatiValutazioni)");
+            stmt.executeUpdate(CreateDatabaseAndTablesBR.ricalcolaAggregatiValutazioni
+                    .replace("INSERT INTO AggregatiValutazioni", "INSERT INTO ricalcolati"));
+            try (ResultSet rs = stmt.executeQuery(differenze)) {
+                rs.next();
+                assertEquals(0, rs.getLong(1), "AggregatiValutazioni non coincide con il ricalcolo da ValutazioniLibri");
+            } finally {
+                stmt.executeUpdate("DROP TABLE ricalcolati");
+            }
+        }
+    }
+}
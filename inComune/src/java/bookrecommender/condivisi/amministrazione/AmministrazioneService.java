@@ -0,0 +1,78 @@
+package bookrecommender.condivisi.amministrazione;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * Interfaccia remota in sola lettura per il monitoraggio del server.
+ * <p>
+ * Espone le metriche raccolte dal server sulle chiamate ai servizi remoti: per ogni metodo
+ * il numero di chiamate e di errori, le chiamate in corso e la distribuzione delle durate.
+ * Espone inoltre i tempi di esecuzione delle istruzioni SQL e di acquisizione delle
+ * connessioni dal pool.
+ * Nessun metodo modifica lo stato del server, quindi il servizio può essere interrogato
+ * periodicamente da strumenti di monitoraggio senza effetti sulle altre funzionalità.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see bookrecommender.server.amministrazione.AmministrazioneServiceImpl
+ * @see MetricaMetodo
+ * @see StatisticaSQL
+ * @version 1.0
+ */
+public interface AmministrazioneService extends Remote {
+
+    /**
+     * Nome pubblico con cui questo servizio viene registrato e cercato nel registro RMI.
+     */
+    String NAME = "AmministrazioneService";
+
+    /**
+     * Restituisce le metriche di tutti i metodi dei servizi remoti.
+     *
+     * @return una {@link List} di {@link MetricaMetodo}, ordinata per servizio e metodo.
+     *         La lista è vuota se la raccolta delle metriche è disabilitata.
+     * @throws RemoteException se si verifica un errore di comunicazione.
+     */
+    List<MetricaMetodo> getMetriche() throws RemoteException;
+
+    /**
+     * Restituisce le metriche dei metodi di un servizio remoto.
+     *
+     * @param servizio il nome con cui il servizio è registrato (es. {@code "CercaLibriService"}).
+     * @return una {@link List} di {@link MetricaMetodo}, ordinata per metodo; vuota se il servizio
+     *         non esiste o non è strumentato.
+     * @throws RemoteException se si verifica un errore di comunicazione.
+     */
+    List<MetricaMetodo> getMetriche(String servizio) throws RemoteException;
+
+    /**
+     * Restituisce il tempo trascorso dall'avvio della raccolta delle metriche.
+     *
+     * @return i secondi di attività del server.
+     * @throws RemoteException se si verifica un errore di comunicazione.
+     */
+    long getSecondiAttivita() throws RemoteException;
+
+    /**
+     * Restituisce le statistiche delle istruzioni SQL eseguite dal server, dalla più costosa.
+     *
+     * @param limite il numero massimo di istruzioni da restituire.
+     * @return una {@link List} di {@link StatisticaSQL}, ordinata per tempo totale decrescente.
+     *         La lista è vuota se la misura delle istruzioni SQL è disabilitata.
+     * @throws RemoteException se si verifica un errore di comunicazione.
+     * @throws IllegalArgumentException se il limite non è positivo.
+     */
+    List<StatisticaSQL> getStatisticheSQL(int limite) throws RemoteException;
+
+    /**
+     * Restituisce la distribuzione dei tempi di attesa per ottenere una connessione dal pool.
+     *
+     * @return i tempi di acquisizione delle connessioni dall'avvio.
+     * @throws RemoteException se si verifica un errore di comunicazione.
+     */
+    DistribuzioneDurate getAcquisizioneConnessioni() throws RemoteException;
+}
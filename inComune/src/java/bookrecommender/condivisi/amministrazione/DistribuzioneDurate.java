@@ -0,0 +1,30 @@
+package bookrecommender.condivisi.amministrazione;
+
+import java.io.Serializable;
+
+/**
+ * Rappresenta la distribuzione di un insieme di durate misurate sul server.
+ * <p>
+ * Questo record è un Data Transfer Object (DTO) immutabile restituito da
+ * {@link AmministrazioneService}. Le durate sono espresse in millisecondi; i percentili hanno
+ * un errore relativo inferiore al 2%.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @param conteggio Il numero di durate misurate.
+ * @param totaleMs  La somma delle durate.
+ * @param mediaMs   La durata media.
+ * @param p50Ms     La mediana delle durate.
+ * @param p90Ms     Il 90° percentile delle durate.
+ * @param p99Ms     Il 99° percentile delle durate.
+ * @param massimoMs La durata massima.
+ * @see StatisticaSQL
+ * @version 1.0
+ */
+public record DistribuzioneDurate(long conteggio, double totaleMs, double mediaMs, double p50Ms, double p90Ms,
+                                  double p99Ms, double massimoMs) implements Serializable {
+    /** Campo per il controllo della versione durante la serializzazione. */
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,47 @@
+package bookrecommender.condivisi.amministrazione;
+
+import java.io.Serializable;
+
+/**
+ * Rappresenta le metriche di un metodo di un servizio remoto, misurate dall'avvio del server.
+ * <p>
+ * Questo record è un Data Transfer Object (DTO) immutabile restituito da
+ * {@link AmministrazioneService}. Le durate sono espresse in millisecondi e misurate sul server,
+ * dall'ingresso nell'implementazione del servizio fino alla sua risposta: non comprendono
+ * quindi la rete e la serializzazione RMI. I percentili hanno un errore relativo inferiore al 2%.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @param servizio          Il nome con cui il servizio è registrato nel registro RMI.
+ * @param metodo            Il nome del metodo, seguito dai tipi dei parametri se è sovraccaricato.
+ * @param chiamate          Il numero di chiamate concluse.
+ * @param errori            Il numero di chiamate concluse con un'eccezione.
+ * @param inCorso           Il numero di chiamate in esecuzione al momento della lettura.
+ * @param massimoInCorso    Il numero massimo di chiamate eseguite contemporaneamente.
+ * @param chiamateAlSecondo Il numero medio di chiamate al secondo dall'avvio.
+ * @param mediaMs           La durata media.
+ * @param p50Ms             La mediana delle durate.
+ * @param p90Ms             Il 90° percentile delle durate.
+ * @param p99Ms             Il 99° percentile delle durate.
+ * @param p999Ms            Il 99,9° percentile delle durate.
+ * @param massimoMs         La durata massima.
+ * @see AmministrazioneService
+ * @version 1.0
+ */
+public record MetricaMetodo(String servizio, String metodo, long chiamate, long errori, int inCorso,
+                            int massimoInCorso, double chiamateAlSecondo, double mediaMs, double p50Ms,
+                            double p90Ms, double p99Ms, double p999Ms, double massimoMs) implements Serializable {
+    /** Campo per il controllo della versione durante la serializzazione. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Restituisce la frazione di chiamate concluse con un errore.
+     *
+     * @return il rapporto tra errori e chiamate, 0 se non ci sono state chiamate.
+     */
+    public double tassoErrori() {
+        return chiamate == 0 ? 0.0 : (double) errori / chiamate;
+    }
+}
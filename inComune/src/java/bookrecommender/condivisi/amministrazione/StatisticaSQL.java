@@ -0,0 +1,27 @@
+package bookrecommender.condivisi.amministrazione;
+
+import java.io.Serializable;
+
+/**
+ * Rappresenta le statistiche di esecuzione di un'istruzione SQL del server.
+ * <p>
+ * Questo record è un Data Transfer Object (DTO) immutabile restituito da
+ * {@link AmministrazioneService#getStatisticheSQL(int)}. Le esecuzioni sono aggregate per testo
+ * SQL normalizzato: spazi compattati e costanti sostituite da {@code ?}. La durata di
+ * un'esecuzione comprende la lettura delle righe restituite.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @param sql    Il testo SQL normalizzato.
+ * @param errori Il numero di esecuzioni terminate con un errore.
+ * @param righe  Il numero totale di righe lette o modificate.
+ * @param durate La distribuzione delle durate delle esecuzioni.
+ * @see AmministrazioneService
+ * @version 1.0
+ */
+public record StatisticaSQL(String sql, long errori, long righe, DistribuzioneDurate durate) implements Serializable {
+    /** Campo per il controllo della versione durante la serializzazione. */
+    private static final long serialVersionUID = 1L;
+}
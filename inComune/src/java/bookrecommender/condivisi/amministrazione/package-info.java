@@ -0,0 +1,18 @@
+/**
+ * Fornisce le classi e le interfacce condivise per il monitoraggio del server.
+ * <p>
+ * Questo package contiene il servizio remoto (RMI) in sola lettura con cui gli strumenti
+ * di amministrazione leggono le metriche del server, e i relativi DTO:
+ * <ul>
+ *     <li>{@link bookrecommender.condivisi.amministrazione.AmministrazioneService}: L'interfaccia RMI
+ *         che espone le metriche delle chiamate ai servizi remoti.</li>
+ *     <li>{@link bookrecommender.condivisi.amministrazione.MetricaMetodo}: Il DTO con il numero di
+ *         chiamate, gli errori, le chiamate in corso e i percentili delle durate di un metodo.</li>
+ *     <li>{@link bookrecommender.condivisi.amministrazione.StatisticaSQL}: Il DTO con le esecuzioni,
+ *         gli errori, le righe e le durate di un'istruzione SQL.</li>
+ *     <li>{@link bookrecommender.condivisi.amministrazione.DistribuzioneDurate}: Il DTO con il conteggio,
+ *         la media e i percentili di un insieme di durate.</li>
+ * </ul>
+ * Tutte le classi sono serializzabili per consentirne il trasferimento tramite RMI.
+ */
+package bookrecommender.condivisi.amministrazione;
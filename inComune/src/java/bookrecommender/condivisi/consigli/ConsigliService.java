@@ -86,6 +86,43 @@ public interface ConsigliService extends Remote {
      */
     List<LibroConsigliato> getConsigliatiConConteggio(long libroLettoId) throws RemoteException;
 
+    /**
+     * Recupera i libri più consigliati per un dato libro letto, aggregando i dati da tutte
+     * le librerie, fino a un numero massimo di risultati.
+     *
+     * @param libroLettoId L'ID del libro per cui si cercano i consigli.
+     * @param limite Il numero massimo di libri da restituire (deve essere positivo).
+     * @return Una {@link List} di al più {@code limite} {@link LibroConsigliato}, ordinata in modo
+     *         decrescente per numero di consigli. La lista può essere vuota.
+     * @throws RemoteException Se si verifica un errore di comunicazione o un'eccezione sul server.
+     */
+    List<LibroConsigliato> getConsigliatiConConteggio(long libroLettoId, int limite) throws RemoteException;
+
+    /**
+     * Recupera i libri suggeriti per un dato libro dal motore di raccomandazione del server,
+     * calcolati da quali libri compaiono insieme nelle librerie degli utenti e da come sono
+     * stati valutati ("chi ha questo libro ha anche...").
+     *
+     * @param libroId L'ID del libro di partenza.
+     * @param limite Il numero massimo di suggerimenti da restituire (deve essere positivo).
+     * @return Una {@link List} di {@link LibroSuggerito} ordinata per punteggio decrescente.
+     *         La lista è vuota se non ci sono suggerimenti o se il modello non è ancora pronto.
+     * @throws RemoteException Se si verifica un errore di comunicazione o un'eccezione sul server.
+     */
+    List<LibroSuggerito> getSuggerimentiPerLibro(long libroId, int limite) throws RemoteException;
+
+    /**
+     * Recupera i libri suggeriti per un utente, combinando i suggerimenti dei libri presenti
+     * nelle sue librerie. I libri che l'utente possiede già sono esclusi.
+     *
+     * @param userId L'ID dell'utente.
+     * @param limite Il numero massimo di suggerimenti da restituire (deve essere positivo).
+     * @return Una {@link List} di {@link LibroSuggerito} ordinata per punteggio decrescente.
+     *         La lista è vuota se non ci sono suggerimenti o se il modello non è ancora pronto.
+     * @throws RemoteException Se si verifica un errore di comunicazione o un'eccezione sul server.
+     */
+    List<LibroSuggerito> getSuggerimentiPerUtente(String userId, int limite) throws RemoteException;
+
     /**
      * Recupera tutti i consigli (in forma base) che un dato utente ha fornito.
      *
@@ -130,4 +167,17 @@ public interface ConsigliService extends Remote {
      * @throws RemoteException Se si verifica un errore di comunicazione o un'eccezione sul server.
      */
     List<ConsiglioDettagliato> listConsigliDettagliatiByUser(String userId) throws RemoteException;
-}
\ No newline at end of file
+
+    /**
+     * Recupera i libri più simili per contenuto a un dato libro, confrontandone autori,
+     * descrizione e categorie (similarità TF-IDF).
+     *
+     * @param libroId L'ID del libro di partenza.
+     * @param limite Il numero massimo di libri da restituire (deve essere positivo).
+     * @return Una {@link List} di {@link LibroSuggerito} ordinata per similarità decrescente,
+     *         con la similarità del coseno come punteggio. La lista è vuota se non ci sono
+     *         libri simili o se l'indice non è ancora pronto.
+     * @throws RemoteException Se si verifica un errore di comunicazione o un'eccezione sul server.
+     */
+    List<LibroSuggerito> getLibriSimili(long libroId, int limite) throws RemoteException;
+}
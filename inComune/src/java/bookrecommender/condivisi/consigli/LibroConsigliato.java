@@ -1,16 +1,21 @@
 package bookrecommender.condivisi.consigli;
 
-import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
 import java.io.Serial;
 import java.io.Serializable;
 
 /**
- * Rappresenta un libro consigliato, abbinando un oggetto {@link Libro}
+ * Rappresenta un libro consigliato, abbinando la sintesi del libro ({@link LibroSintesi})
  * al numero di volte in cui è stato suggerito.
  * <p>
  * Questo record è un Data Transfer Object (DTO) immutabile, utilizzato per
  * trasferire dal server al client una lista di libri consigliati, tipicamente
- * ordinata per popolarità (numero di consigli).
+ * ordinata per popolarità (numero di consigli) e, a parità, per ID del libro.
+ * I dettagli completi del libro vengono richiesti separatamente quando l'utente lo apre.
+ * <p>
+ * In origine il record conteneva il {@link bookrecommender.condivisi.libri.Libro}
+ * completo: la forma serializzata non è compatibile, per cui il {@code serialVersionUID}
+ * è stato incrementato e client e server devono essere aggiornati insieme.
  *
  * @author Abou Aziz Sara Hesham Abdel Hamid 757004
  * @author Ben Mahjoub Ali 759560
@@ -24,7 +29,7 @@ import java.io.Serializable;
  * @see bookrecommender.libri.DettagliLibroController
  * @version 1.0
  */
-public record LibroConsigliato(Libro libro, int numeroConsigli) implements Serializable {
+public record LibroConsigliato(LibroSintesi libro, int numeroConsigli) implements Serializable {
     @Serial
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 }
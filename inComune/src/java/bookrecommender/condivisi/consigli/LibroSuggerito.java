@@ -0,0 +1,29 @@
+package bookrecommender.condivisi.consigli;
+
+import bookrecommender.condivisi.libri.LibroSintesi;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Rappresenta un libro suggerito dal motore di raccomandazione del server, abbinando la
+ * sintesi del libro ({@link LibroSintesi}) al punteggio con cui è stato selezionato.
+ * <p>
+ * A differenza di {@link LibroConsigliato}, che riporta i consigli dati esplicitamente dagli
+ * utenti, un suggerimento è calcolato dal server (es. "chi ha questo libro nelle proprie
+ * librerie ha anche..."). Il punteggio serve solo a ordinare i suggerimenti: valori più alti
+ * indicano una maggiore affinità, ma la sua scala dipende dal tipo di suggerimento.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @param libro Il libro suggerito.
+ * @param punteggio Il punteggio di affinità del suggerimento.
+ * @see ConsigliService#getSuggerimentiPerLibro(long, int)
+ * @see ConsigliService#getSuggerimentiPerUtente(String, int)
+ * @version 1.0
+ */
+public record LibroSuggerito(LibroSintesi libro, double punteggio) implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+}
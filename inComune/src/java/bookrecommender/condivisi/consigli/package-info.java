@@ -14,6 +14,8 @@
  *     <li>{@link bookrecommender.condivisi.consigli.LibroConsigliato}: Un DTO utilizzato
  *         per aggregare i dati, mostrando un libro e il numero di volte che è stato
  *         consigliato.</li>
+ *     <li>{@link bookrecommender.condivisi.consigli.LibroSuggerito}: Un DTO che rappresenta
+ *         un libro suggerito dal motore di raccomandazione del server, con il relativo punteggio.</li>
  *     <li>{@link bookrecommender.condivisi.consigli.ConsiglioDettagliato}: Un DTO che
  *         arricchisce un consiglio con informazioni aggiuntive (come i titoli dei libri)
  *         per una visualizzazione più chiara lato client.</li>
@@ -1,5 +1,7 @@
 package bookrecommender.condivisi.librerie;
 
+import bookrecommender.condivisi.libri.LibroSintesi;
+
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.util.List;
@@ -67,6 +69,16 @@ public interface LibrerieService extends Remote {
      * @throws RemoteException in caso di errore di comunicazione RMI
      */
     List<Long> getLibriInLibreria(String userId, String nomeLibreria) throws RemoteException;
+
+    /**
+     * Ottiene i libri di una libreria specifica già uniti ai dati del catalogo,
+     * con un'unica chiamata remota e un'unica query
+     * @param userId ID dell'utente
+     * @param nomeLibreria nome della libreria
+     * @return lista delle sintesi dei libri nella libreria, in ordine di inserimento
+     * @throws RemoteException in caso di errore di comunicazione RMI
+     */
+    List<LibroSintesi> getSintesiLibriInLibreria(String userId, String nomeLibreria) throws RemoteException;
     
     /**
      * Elimina una libreria completa
@@ -1,5 +1,6 @@
 package bookrecommender.condivisi.libri;
 
+import java.math.BigDecimal;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.util.List;
@@ -31,6 +32,18 @@ public interface CercaLibriService extends Remote {
      */
     String NAME = "CercaLibriService";
 
+    /**
+     * Numero massimo di elementi che può essere richiesto in una singola pagina
+     * dalle varianti paginate dei metodi di ricerca.
+     */
+    int LIMITE_MASSIMO_PAGINA = 500;
+
+    /**
+     * Numero massimo di completamenti per tipo che può essere richiesto a
+     * {@link #getCompletamenti(String, int)}.
+     */
+    int LIMITE_MASSIMO_COMPLETAMENTI = 20;
+
     /**
      * Cerca i libri il cui titolo contiene la stringa specificata.
      * La ricerca è tipicamente case-insensitive e basata su corrispondenze parziali.
@@ -42,6 +55,22 @@ public interface CercaLibriService extends Remote {
      */
     List<Libro> cercaLibro_Per_Titolo(String titolo) throws RemoteException;
 
+    /**
+     * Variante paginata di {@link #cercaLibro_Per_Titolo(String)}.
+     * <p>
+     * I risultati sono ordinati per titolo; solo gli elementi della pagina richiesta vengono
+     * trasferiti al client, in forma di sintesi. Con {@code offset} pari a zero restituisce i primi {@code limite}
+     * risultati (top-K).
+     *
+     * @param titolo Il testo da cercare nel titolo dei libri.
+     * @param offset La posizione del primo risultato da restituire (a partire da zero).
+     * @param limite Il numero massimo di risultati da restituire, tra 1 e {@link #LIMITE_MASSIMO_PAGINA}.
+     * @return Una {@link Pagina} di oggetti {@link LibroSintesi} con il numero totale dei risultati.
+     * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota
+     *                         o se i parametri di paginazione non sono validi.
+     */
+    Pagina<LibroSintesi> cercaLibro_Per_Titolo_Paginato(String titolo, int offset, int limite) throws RemoteException;
+
     /**
      * Cerca i libri il cui nome dell'autore contiene la stringa specificata.
      * La ricerca è tipicamente case-insensitive e basata su corrispondenze parziali.
@@ -53,6 +82,106 @@ public interface CercaLibriService extends Remote {
      */
     List<Libro> cercaLibro_Per_Autore(String autore) throws RemoteException;
 
+    /**
+     * Variante paginata di {@link #cercaLibro_Per_Autore(String)}.
+     * <p>
+     * I risultati sono ordinati per titolo; solo gli elementi della pagina richiesta vengono
+     * trasferiti al client, in forma di sintesi. Con {@code offset} pari a zero restituisce i primi {@code limite}
+     * risultati (top-K).
+     *
+     * @param autore Il testo da cercare nel nome dell'autore.
+     * @param offset La posizione del primo risultato da restituire (a partire da zero).
+     * @param limite Il numero massimo di risultati da restituire, tra 1 e {@link #LIMITE_MASSIMO_PAGINA}.
+     * @return Una {@link Pagina} di oggetti {@link LibroSintesi} con il numero totale dei risultati.
+     * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota
+     *                         o se i parametri di paginazione non sono validi.
+     */
+    Pagina<LibroSintesi> cercaLibro_Per_Autore_Paginato(String autore, int offset, int limite) throws RemoteException;
+
+    /**
+     * Restituisce i completamenti del testo digitato dall'utente, per proporre titoli e autori
+     * mentre scrive.
+     * <p>
+     * Un completamento corrisponde se una delle sue parole inizia con il testo indicato
+     * (senza distinzione tra maiuscole e minuscole). Il servizio risponde da un indice in
+     * memoria ed è pensato per essere invocato ad ogni tasto, con un breve ritardo
+     * (debounce) lato client.
+     *
+     * @param prefisso Il testo digitato.
+     * @param limite   Il numero massimo di completamenti per ciascun tipo, tra 1 e {@link #LIMITE_MASSIMO_COMPLETAMENTI}.
+     * @return Al più {@code limite} titoli seguiti da al più {@code limite} autori, ciascun gruppo
+     *         in ordine di rilevanza. Restituisce una lista vuota se il testo è vuoto.
+     * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota
+     *                         o se il limite non è valido.
+     */
+    List<Completamento> getCompletamenti(String prefisso, int limite) throws RemoteException;
+
+    /**
+     * Cerca i libri il cui titolo o autore è simile al testo indicato, tollerando errori di battitura.
+     * <p>
+     * La somiglianza è misurata sui trigrammi del testo: i risultati sono ordinati dal più simile
+     * al meno simile e solo gli elementi della pagina richiesta vengono trasferiti al client,
+     * in forma di sintesi.
+     *
+     * @param testo  Il testo da cercare nel titolo o nel nome dell'autore.
+     * @param offset La posizione del primo risultato da restituire (a partire da zero).
+     * @param limite Il numero massimo di risultati da restituire, tra 1 e {@link #LIMITE_MASSIMO_PAGINA}.
+     * @return Una {@link Pagina} di oggetti {@link LibroSintesi} con il numero totale dei risultati.
+     * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota
+     *                         o se i parametri di paginazione non sono validi.
+     */
+    Pagina<LibroSintesi> cercaLibro_Per_Similarita(String testo, int offset, int limite) throws RemoteException;
+
+    /**
+     * Cerca i libri il cui titolo contiene, in qualsiasi ordine, parole simili a quelle indicate.
+     * <p>
+     * A differenza di {@link #cercaLibro_Per_Titolo_Paginato(String, int, int)}, che cerca il
+     * testo esatto, ogni parola può differire da quella del titolo per qualche lettera (una per
+     * parole di 4-7 caratteri, due per parole più lunghe); maiuscole, accenti e punteggiatura
+     * sono ignorati. I risultati sono ordinati dal più simile al meno simile.
+     *
+     * @param titolo Le parole da cercare nel titolo.
+     * @param offset La posizione del primo risultato da restituire (a partire da zero).
+     * @param limite Il numero massimo di risultati da restituire, tra 1 e {@link #LIMITE_MASSIMO_PAGINA}.
+     * @return Una {@link Pagina} di oggetti {@link LibroSintesi} con il numero totale dei risultati.
+     * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota
+     *                         o se i parametri di paginazione non sono validi.
+     */
+    Pagina<LibroSintesi> cercaLibro_Per_Titolo_Approssimato(String titolo, int offset, int limite) throws RemoteException;
+
+    /**
+     * Cerca i libri il cui autore corrisponde, in modo approssimato, alle parole indicate.
+     * <p>
+     * Il nome può essere scritto in qualsiasi ordine e con qualche errore di battitura: ad esempio
+     * {@code "larry colton"} e {@code "lary colten"} trovano i libri di {@code "By Colton, Larry"}.
+     * I risultati sono ordinati dal più simile al meno simile.
+     *
+     * @param autore Le parole da cercare nel nome dell'autore.
+     * @param offset La posizione del primo risultato da restituire (a partire da zero).
+     * @param limite Il numero massimo di risultati da restituire, tra 1 e {@link #LIMITE_MASSIMO_PAGINA}.
+     * @return Una {@link Pagina} di oggetti {@link LibroSintesi} con il numero totale dei risultati.
+     * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota
+     *                         o se i parametri di paginazione non sono validi.
+     */
+    Pagina<LibroSintesi> cercaLibro_Per_Autore_Approssimato(String autore, int offset, int limite) throws RemoteException;
+
+    /**
+     * Cerca i libri che contengono le parole indicate nel titolo, negli autori o nella descrizione.
+     * <p>
+     * Il testo segue la sintassi dei motori di ricerca web (parole, frasi tra virgolette,
+     * {@code or}, {@code -parola} per escludere) e le parole sono confrontate nella loro forma
+     * base (es. {@code dragons} trova anche {@code dragon}). I risultati sono ordinati per
+     * pertinenza; solo gli elementi della pagina richiesta vengono trasferiti al client.
+     *
+     * @param testo  Le parole da cercare.
+     * @param offset La posizione del primo risultato da restituire (a partire da zero).
+     * @param limite Il numero massimo di risultati da restituire, tra 1 e {@link #LIMITE_MASSIMO_PAGINA}.
+     * @return Una {@link Pagina} di oggetti {@link LibroSintesi} con il numero totale dei risultati.
+     * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota
+     *                         o se i parametri di paginazione non sono validi.
+     */
+    Pagina<LibroSintesi> cercaLibro_Per_Testo(String testo, int offset, int limite) throws RemoteException;
+
     /**
      * Cerca i libri che corrispondono sia al nome dell'autore (ricerca parziale)
      * sia all'anno di pubblicazione esatto.
@@ -65,6 +194,64 @@ public interface CercaLibriService extends Remote {
      */
     List<Libro> cercaLibro_Per_Autore_e_Anno(String Autore, String Anno) throws RemoteException;    
 
+    /**
+     * Cerca i libri pubblicati in un intervallo di anni, estremi inclusi.
+     * <p>
+     * I risultati sono ordinati per anno e poi per titolo; solo gli elementi della pagina richiesta
+     * vengono trasferiti al client, in forma di sintesi. I libri senza anno di pubblicazione
+     * non compaiono nei risultati.
+     *
+     * @param annoMin Il primo anno dell'intervallo.
+     * @param annoMax L'ultimo anno dell'intervallo, non minore di {@code annoMin}.
+     * @param offset  La posizione del primo risultato da restituire (a partire da zero).
+     * @param limite  Il numero massimo di risultati da restituire, tra 1 e {@link #LIMITE_MASSIMO_PAGINA}.
+     * @return Una {@link Pagina} di oggetti {@link LibroSintesi} con il numero totale dei risultati.
+     * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota
+     *                         o se l'intervallo o i parametri di paginazione non sono validi.
+     */
+    Pagina<LibroSintesi> cercaLibro_Per_Intervallo_Anni(int annoMin, int annoMax, int offset, int limite) throws RemoteException;
+
+    /**
+     * Cerca i libri con prezzo compreso in un intervallo, estremi inclusi.
+     * <p>
+     * I risultati sono ordinati per prezzo e poi per titolo; solo gli elementi della pagina richiesta
+     * vengono trasferiti al client, in forma di sintesi. I libri senza prezzo non compaiono nei risultati.
+     *
+     * @param prezzoMin Il prezzo minimo, non negativo.
+     * @param prezzoMax Il prezzo massimo, non minore di {@code prezzoMin}.
+     * @param offset    La posizione del primo risultato da restituire (a partire da zero).
+     * @param limite    Il numero massimo di risultati da restituire, tra 1 e {@link #LIMITE_MASSIMO_PAGINA}.
+     * @return Una {@link Pagina} di oggetti {@link LibroSintesi} con il numero totale dei risultati.
+     * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota
+     *                         o se l'intervallo o i parametri di paginazione non sono validi.
+     */
+    Pagina<LibroSintesi> cercaLibro_Per_Intervallo_Prezzo(BigDecimal prezzoMin, BigDecimal prezzoMax, int offset, int limite) throws RemoteException;
+
+    /**
+     * Numero massimo di valori restituiti per le faccette categoria ed editore di una
+     * ricerca per faccette.
+     */
+    int NUMERO_VALORI_FACCETTA = 20;
+
+    /**
+     * Cerca i libri che soddisfano una combinazione di filtri su categoria, editore e anno di
+     * pubblicazione e restituisce, insieme alla pagina richiesta, i conteggi di ciascuna faccetta.
+     * <p>
+     * I risultati sono ordinati per titolo; solo gli elementi della pagina richiesta vengono
+     * trasferiti al client, in forma di sintesi. Per le faccette categoria ed editore vengono
+     * restituiti al più {@link #NUMERO_VALORI_FACCETTA} valori, i più frequenti; per gli anni
+     * tutti quelli con almeno un libro. Con filtri vuoti la ricerca comprende l'intero catalogo.
+     *
+     * @param filtri I filtri da applicare.
+     * @param offset La posizione del primo risultato da restituire (a partire da zero).
+     * @param limite Il numero massimo di risultati da restituire, tra 1 e {@link #LIMITE_MASSIMO_PAGINA}.
+     * @return Un {@link RisultatoFaccettato} con la pagina dei risultati e i conteggi delle faccette.
+     * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota,
+     *                         se i filtri o i parametri di paginazione non sono validi o se la
+     *                         ricerca per faccette non è disponibile sul server.
+     */
+    RisultatoFaccettato cercaLibro_Per_Faccette(FiltriRicerca filtri, int offset, int limite) throws RemoteException;
+
     /**
      * Recupera un singolo libro tramite il suo identificativo univoco (ID).
      *
@@ -82,6 +269,29 @@ public interface CercaLibriService extends Remote {
      * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota.
      */
     List<Libro> cercaLibro_Per_Id(Long id) throws RemoteException;
+
+    /**
+     * Recupera con un'unica chiamata remota tutti i libri con gli ID specificati.
+     * <p>
+     * Sostituisce una sequenza di chiamate a {@link #getTitoloLibroById(int)}: il server
+     * esegue una sola query sul database, indipendentemente dal numero di ID.
+     *
+     * @param ids Gli ID dei libri da recuperare.
+     * @return Una {@link List} di oggetti {@link Libro} nello stesso ordine degli ID forniti;
+     *         gli ID a cui non corrisponde alcun libro vengono ignorati.
+     * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota.
+     */
+    List<Libro> getLibriByIds(List<Long> ids) throws RemoteException;
+
+    /**
+     * Recupera con un'unica chiamata remota la sintesi di tutti i libri con gli ID specificati.
+     *
+     * @param ids Gli ID dei libri da recuperare.
+     * @return Una {@link List} di oggetti {@link LibroSintesi} nello stesso ordine degli ID forniti;
+     *         gli ID a cui non corrisponde alcun libro vengono ignorati.
+     * @throws RemoteException Se si verifica un errore di comunicazione durante la chiamata remota.
+     */
+    List<LibroSintesi> getSintesiLibriByIds(List<Long> ids) throws RemoteException;
    
 }
 
@@ -0,0 +1,36 @@
+package bookrecommender.condivisi.libri;
+
+import java.io.Serializable;
+
+/**
+ * Rappresenta un completamento proposto mentre l'utente digita nel campo di ricerca.
+ * <p>
+ * Questo record è un Data Transfer Object (DTO) immutabile restituito da
+ * {@link CercaLibriService#getCompletamenti(String, int)}: contiene il testo da proporre,
+ * che può essere un titolo o il nome di un autore, e il suo peso (numero di libri e di
+ * valutazioni che lo riguardano), utile al client per ordinare o evidenziare i suggerimenti.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @param testo Il titolo o il nome dell'autore proposto.
+ * @param tipo  Indica se il completamento è un titolo o un autore.
+ * @param peso  Il numero di libri e di valutazioni associati al completamento.
+ * @see CercaLibriService
+ * @version 1.0
+ */
+public record Completamento(String testo, Tipo tipo, int peso) implements Serializable {
+    /** Campo per il controllo della versione durante la serializzazione. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Il campo del libro a cui si riferisce un completamento.
+     */
+    public enum Tipo {
+        /** Il completamento è il titolo di un libro. */
+        TITOLO,
+        /** Il completamento è il nome di un autore. */
+        AUTORE
+    }
+}
@@ -0,0 +1,39 @@
+package bookrecommender.condivisi.libri;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Rappresenta i filtri di una ricerca per faccette nel catalogo.
+ * <p>
+ * Questo record è un Data Transfer Object (DTO) immutabile passato a
+ * {@link CercaLibriService#cercaLibro_Per_Faccette(FiltriRicerca, int, int)}. Ogni filtro
+ * è facoltativo: un elenco {@code null} o vuoto, o un estremo {@code null}, non restringe la
+ * ricerca. All'interno dello stesso filtro i valori sono alternativi (un libro deve avere
+ * almeno una delle categorie indicate), mentre filtri diversi devono essere soddisfatti
+ * tutti. Categorie ed editori sono confrontati senza distinguere maiuscole e minuscole.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @param categorie Le categorie ammesse, o {@code null} per non filtrare per categoria.
+ * @param editori   Gli editori ammessi, o {@code null} per non filtrare per editore.
+ * @param annoMin   Il primo anno di pubblicazione ammesso, o {@code null} se non c'è limite inferiore.
+ * @param annoMax   L'ultimo anno di pubblicazione ammesso, o {@code null} se non c'è limite superiore.
+ * @see RisultatoFaccettato
+ * @version 1.0
+ */
+public record FiltriRicerca(List<String> categorie, List<String> editori, Integer annoMin, Integer annoMax) implements Serializable {
+    /** Campo per il controllo della versione durante la serializzazione. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Indica se è impostato un filtro sull'anno di pubblicazione.
+     *
+     * @return {@code true} se almeno uno dei due estremi non è {@code null}.
+     */
+    public boolean filtraAnno() {
+        return annoMin != null || annoMax != null;
+    }
+}
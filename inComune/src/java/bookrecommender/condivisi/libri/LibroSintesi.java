@@ -0,0 +1,39 @@
+package bookrecommender.condivisi.libri;
+
+import java.io.Serializable;
+
+/**
+ * Rappresenta la sintesi di un libro, con i soli dati mostrati negli elenchi.
+ * <p>
+ * Questo record è un Data Transfer Object (DTO) immutabile utilizzato dalle viste a elenco
+ * (risultati di ricerca, contenuto delle librerie, libri consigliati), che mostrano solo
+ * identificativo, titolo, autori e anno. Rispetto a {@link Libro} non contiene la descrizione,
+ * le categorie, l'editore e il prezzo, per cui riduce sensibilmente i dati letti dal database
+ * e serializzati tramite RMI. I dettagli completi si ottengono su richiesta tramite
+ * {@link CercaLibriService#getTitoloLibroById(int)} quando l'utente apre un libro.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @param id     L'identificativo univoco del libro.
+ * @param titolo Il titolo del libro.
+ * @param autori Il nome dell'autore o degli autori del libro.
+ * @param anno   L'anno di pubblicazione del libro.
+ * @see Libro
+ * @version 1.0
+ */
+public record LibroSintesi(Long id, String titolo, String autori, String anno) implements Serializable {
+    /** Campo per il controllo della versione durante la serializzazione. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Crea la sintesi di un libro completo.
+     *
+     * @param libro il libro di cui creare la sintesi.
+     * @return la sintesi corrispondente.
+     */
+    public static LibroSintesi di(Libro libro) {
+        return new LibroSintesi(libro.id(), libro.titolo(), libro.autori(), libro.anno());
+    }
+}
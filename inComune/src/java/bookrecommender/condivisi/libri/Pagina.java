@@ -0,0 +1,49 @@
+package bookrecommender.condivisi.libri;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Rappresenta una pagina di risultati di una ricerca.
+ * <p>
+ * Questo record è un Data Transfer Object (DTO) immutabile restituito dalle varianti
+ * paginate dei metodi di ricerca di {@link CercaLibriService}. Invece di trasferire
+ * tramite RMI l'intero insieme dei risultati, il server restituisce solo gli elementi
+ * richiesti insieme al numero totale dei risultati, così che il client possa mostrare
+ * il conteggio e caricare le pagine successive su richiesta.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @param <T>      Il tipo degli elementi della pagina.
+ * @param elementi Gli elementi della pagina, al massimo {@code limite}.
+ * @param offset   La posizione, nell'insieme completo dei risultati, del primo elemento della pagina.
+ * @param limite   Il numero massimo di elementi richiesto per la pagina.
+ * @param totale   Il numero totale dei risultati della ricerca. Se la pagina richiesta è oltre
+ *                 la fine dei risultati il totale può non essere noto: in tal caso vale {@code offset}.
+ * @see CercaLibriService
+ * @version 1.0
+ */
+public record Pagina<T extends Serializable>(List<T> elementi, int offset, int limite, long totale) implements Serializable {
+    /** Campo per il controllo della versione durante la serializzazione. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Indica se esistono altri risultati dopo questa pagina.
+     *
+     * @return {@code true} se l'offset della pagina successiva è inferiore al totale.
+     */
+    public boolean haSuccessiva() {
+        return offset + elementi.size() < totale;
+    }
+
+    /**
+     * Restituisce l'offset da usare per richiedere la pagina successiva.
+     *
+     * @return la posizione del primo elemento della pagina successiva.
+     */
+    public int offsetSuccessivo() {
+        return offset + elementi.size();
+    }
+}
@@ -0,0 +1,32 @@
+package bookrecommender.condivisi.libri;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Rappresenta il risultato di una ricerca per faccette: una pagina di libri e i conteggi
+ * delle faccette categoria, editore e anno.
+ * <p>
+ * Questo record è un Data Transfer Object (DTO) immutabile restituito da
+ * {@link CercaLibriService#cercaLibro_Per_Faccette(FiltriRicerca, int, int)}. I conteggi di
+ * ciascuna faccetta sono calcolati applicando i filtri delle <em>altre</em> faccette: in questo
+ * modo indicano quanti risultati si otterrebbero aggiungendo o sostituendo un valore, anche
+ * per i valori della faccetta già filtrata.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @param pagina    La pagina dei libri che soddisfano tutti i filtri, con il numero totale dei risultati.
+ * @param categorie Le categorie più frequenti, in ordine di conteggio decrescente.
+ * @param editori   Gli editori più frequenti, in ordine di conteggio decrescente.
+ * @param anni      Gli anni di pubblicazione con almeno un libro, in ordine crescente.
+ * @see FiltriRicerca
+ * @see ValoreFaccetta
+ * @version 1.0
+ */
+public record RisultatoFaccettato(Pagina<LibroSintesi> pagina, List<ValoreFaccetta> categorie,
+                                  List<ValoreFaccetta> editori, List<ValoreFaccetta> anni) implements Serializable {
+    /** Campo per il controllo della versione durante la serializzazione. */
+    private static final long serialVersionUID = 1L;
+}
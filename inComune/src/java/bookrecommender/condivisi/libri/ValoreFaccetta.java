@@ -0,0 +1,24 @@
+package bookrecommender.condivisi.libri;
+
+import java.io.Serializable;
+
+/**
+ * Rappresenta un valore di una faccetta con il numero di libri che lo possiedono.
+ * <p>
+ * Questo record è un Data Transfer Object (DTO) immutabile contenuto in
+ * {@link RisultatoFaccettato}: il client lo usa per mostrare, accanto ai risultati, i valori
+ * con cui l'utente può restringere o allargare la ricerca (ad esempio {@code "Fiction (1520)"}).
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @param valore    La categoria, l'editore o l'anno.
+ * @param conteggio Il numero di libri con questo valore che soddisfano gli altri filtri della ricerca.
+ * @see RisultatoFaccettato
+ * @version 1.0
+ */
+public record ValoreFaccetta(String valore, int conteggio) implements Serializable {
+    /** Campo per il controllo della versione durante la serializzazione. */
+    private static final long serialVersionUID = 1L;
+}
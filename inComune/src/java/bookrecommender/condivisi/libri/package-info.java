@@ -11,6 +11,16 @@
  *     <li>{@link bookrecommender.condivisi.libri.Libro}: Il Data Transfer Object (DTO),
  *         implementato come record, che rappresenta un libro e tutte le sue
  *         informazioni anagrafiche.</li>
+ *     <li>{@link bookrecommender.condivisi.libri.LibroSintesi}: Il DTO con i soli dati
+ *         di un libro mostrati negli elenchi (ID, titolo, autori, anno).</li>
+ *     <li>{@link bookrecommender.condivisi.libri.Pagina}: Il DTO che rappresenta una
+ *         pagina di risultati restituita dalle ricerche paginate.</li>
+ *     <li>{@link bookrecommender.condivisi.libri.Completamento}: Il DTO che rappresenta un
+ *         titolo o un autore proposto mentre l'utente digita.</li>
+ *     <li>{@link bookrecommender.condivisi.libri.FiltriRicerca},
+ *         {@link bookrecommender.condivisi.libri.RisultatoFaccettato} e
+ *         {@link bookrecommender.condivisi.libri.ValoreFaccetta}: I DTO della ricerca per
+ *         faccette (categoria, editore e anno) con i relativi conteggi.</li>
  * </ul>
  * Le classi in questo package sono progettate per essere serializzabili e utilizzate
  * in un'architettura distribuita.
@@ -0,0 +1,119 @@
+package bookrecommender.condivisi.valutazioni;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Rappresenta il riepilogo delle valutazioni ricevute da un libro.
+ * <p>
+ * Questo record è un Data Transfer Object (DTO) immutabile che raccoglie in un solo oggetto
+ * tutti i dati aggregati mostrati nella schermata di dettaglio di un libro: il numero di
+ * valutazioni, la media complessiva, la media di ciascuno dei cinque criteri e la
+ * distribuzione dei voti complessivi. Permette al client di ottenere queste informazioni
+ * con una singola chiamata remota invece di una chiamata per ogni valore.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @param libroId             L'identificativo del libro a cui si riferisce il riepilogo.
+ * @param numeroValutazioni   Il numero totale di valutazioni ricevute dal libro.
+ * @param mediaComplessiva    La media dei voti complessivi, {@code 0} se non ci sono valutazioni.
+ * @param mediaStile          La media dei punteggi per il criterio "Stile di scrittura".
+ * @param mediaContenuto      La media dei punteggi per il criterio "Contenuto e trama".
+ * @param mediaGradevolezza   La media dei punteggi per il criterio "Gradevolezza di lettura".
+ * @param mediaOriginalita    La media dei punteggi per il criterio "Originalità e creatività".
+ * @param mediaEdizione       La media dei punteggi per il criterio "Qualità dell'edizione".
+ * @param istogramma          Il numero di valutazioni per ciascun voto complessivo: l'elemento
+ *                            di indice {@code i} conta i voti pari a {@code i + 1} (da 1 a 5).
+ * @see ValutazioneService#getRiepilogoValutazioni(int)
+ * @version 1.0
+ */
+public record RiepilogoValutazioni(
+    int libroId,
+    int numeroValutazioni,
+    double mediaComplessiva,
+    double mediaStile,
+    double mediaContenuto,
+    double mediaGradevolezza,
+    double mediaOriginalita,
+    double mediaEdizione,
+    int[] istogramma
+) implements Serializable {
+    /** Campo per il controllo della versione durante la serializzazione. */
+    private static final long serialVersionUID = 1L;
+
+    /** Numero di valori possibili per un voto (da 1 a 5). */
+    public static final int NUMERO_VOTI = 5;
+
+    /**
+     * Costruttore compatto: verifica la dimensione dell'istogramma e ne memorizza una copia,
+     * così che il record resti immutabile.
+     *
+     * @throws IllegalArgumentException se l'istogramma non ha {@link #NUMERO_VOTI} elementi.
+     */
+    public RiepilogoValutazioni {
+        if (istogramma == null || istogramma.length != NUMERO_VOTI) {
+            throw new IllegalArgumentException("L'istogramma deve avere " + NUMERO_VOTI + " elementi");
+        }
+        istogramma = istogramma.clone();
+    }
+
+    /**
+     * Crea il riepilogo di un libro che non ha ancora ricevuto valutazioni.
+     *
+     * @param libroId l'identificativo del libro.
+     * @return un riepilogo con conteggi e medie a zero.
+     */
+    public static RiepilogoValutazioni vuoto(int libroId) {
+        return new RiepilogoValutazioni(libroId, 0, 0, 0, 0, 0, 0, 0, new int[NUMERO_VOTI]);
+    }
+
+    /**
+     * Restituisce una copia della distribuzione dei voti complessivi.
+     *
+     * @return un array di {@link #NUMERO_VOTI} elementi, indicizzato da {@code voto - 1}.
+     */
+    @Override
+    public int[] istogramma() {
+        return istogramma.clone();
+    }
+
+    /**
+     * Restituisce il numero di valutazioni con il voto complessivo indicato.
+     *
+     * @param voto il voto, da 1 a 5.
+     * @return il numero di valutazioni con quel voto.
+     */
+    public int conteggioVoto(int voto) {
+        return istogramma[voto - 1];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RiepilogoValutazioni r
+            && libroId == r.libroId
+            && numeroValutazioni == r.numeroValutazioni
+            && Double.compare(mediaComplessiva, r.mediaComplessiva) == 0
+            && Double.compare(mediaStile, r.mediaStile) == 0
+            && Double.compare(mediaContenuto, r.mediaContenuto) == 0
+            && Double.compare(mediaGradevolezza, r.mediaGradevolezza) == 0
+            && Double.compare(mediaOriginalita, r.mediaOriginalita) == 0
+            && Double.compare(mediaEdizione, r.mediaEdizione) == 0
+            && Arrays.equals(istogramma, r.istogramma);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = Integer.hashCode(libroId);
+        h = 31 * h + numeroValutazioni;
+        h = 31 * h + Double.hashCode(mediaComplessiva);
+        return 31 * h + Arrays.hashCode(istogramma);
+    }
+
+    @Override
+    public String toString() {
+        return "RiepilogoValutazioni[libroId=" + libroId + ", numeroValutazioni=" + numeroValutazioni
+            + ", mediaComplessiva=" + mediaComplessiva + ", istogramma=" + Arrays.toString(istogramma) + "]";
+    }
+}
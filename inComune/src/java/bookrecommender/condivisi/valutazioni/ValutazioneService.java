@@ -148,6 +148,19 @@ public interface ValutazioneService extends Remote {
      */
     double calcolaMediaEdizione(int libroId) throws RemoteException;
 
+    /**
+     * Recupera in un'unica chiamata il riepilogo delle valutazioni di un libro: numero di
+     * valutazioni, media complessiva, media di ciascun criterio e distribuzione dei voti.
+     * <p>
+     * Sostituisce le chiamate separate a {@link #calcolaMediaValutazioni(int)},
+     * {@link #getNumeroValutazioni(int)} e ai metodi {@code calcolaMedia*} per criterio.
+     *
+     * @param libroId L'ID del libro.
+     * @return Il {@link RiepilogoValutazioni} del libro; se non ci sono valutazioni conteggi e medie valgono 0.
+     * @throws RemoteException Se si verifica un errore di comunicazione o un'eccezione sul server.
+     */
+    RiepilogoValutazioni getRiepilogoValutazioni(int libroId) throws RemoteException;
+
     /**
      * Recupera tutte le valutazioni effettuate da un utente, arricchite con dettagli
      * aggiuntivi (es. titolo e autore del libro) per una facile visualizzazione nell'interfaccia utente.
@@ -13,6 +13,8 @@
  *     <li>{@link bookrecommender.condivisi.valutazioni.ValutazioneDettagliata}: Un DTO arricchito
  *         con i punteggi specifici (stile, contenuto, etc.) e le note testuali,
  *         ideale per le interfacce di modifica e visualizzazione dettagliata.</li>
+ *     <li>{@link bookrecommender.condivisi.valutazioni.RiepilogoValutazioni}: Il riepilogo
+ *         aggregato delle valutazioni di un libro (conteggio, medie e distribuzione dei voti).</li>
  * </ul>
  * Tutte le classi di dati sono serializzabili per il trasferimento tramite RMI.
  */
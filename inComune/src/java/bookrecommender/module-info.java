@@ -7,5 +7,6 @@ module inComune {
     exports bookrecommender.condivisi.librerie;
     exports bookrecommender.condivisi.valutazioni;
     exports bookrecommender.condivisi.consigli;
+    exports bookrecommender.condivisi.amministrazione;
     
 }
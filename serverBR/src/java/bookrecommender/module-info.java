@@ -2,7 +2,9 @@ module serverBR {
     requires inComune;
     requires java.rmi;
     requires java.sql;
+    requires jdk.jfr;
     requires org.apache.logging.log4j;
+    requires org.postgresql.jdbc;
 
     exports bookrecommender.server.utenti;
     exports bookrecommender.server.utili;
@@ -10,4 +12,6 @@ module serverBR {
     exports bookrecommender.server.libri;
     exports bookrecommender.server.valutazioni;
     exports bookrecommender.server.consigli;
+    exports bookrecommender.server.raccomandazioni;
+    exports bookrecommender.server.amministrazione;
 }
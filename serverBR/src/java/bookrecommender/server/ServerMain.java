@@ -5,12 +5,18 @@ import bookrecommender.condivisi.valutazioni.ValutazioneService;
 import bookrecommender.condivisi.libri.CercaLibriService;
 import bookrecommender.condivisi.librerie.LibrerieService;
 import bookrecommender.condivisi.consigli.ConsigliService;
+import bookrecommender.condivisi.amministrazione.AmministrazioneService;
 import bookrecommender.server.utenti.UtentiServiceImpl;
 import bookrecommender.server.valutazioni.ValutazioneServiceImpl;
+import bookrecommender.server.libri.AscoltatoreCatalogo;
+import bookrecommender.server.libri.CatalogoLibri;
 import bookrecommender.server.libri.CercaLibriServiceImpl;
 import bookrecommender.server.librerie.LibrerieServiceImpl;
 import bookrecommender.server.consigli.ConsigliServiceImpl;
-
+import bookrecommender.server.amministrazione.AmministrazioneServiceImpl;
+import bookrecommender.server.amministrazione.EsportatoreMetriche;
+import bookrecommender.server.amministrazione.RegistroMetriche;
+import bookrecommender.server.amministrazione.ServizioStrumentato;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -18,6 +24,8 @@ import org.apache.logging.log4j.Logger;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
@@ -57,13 +65,18 @@ public class ServerMain {
      * Logger per la registrazione degli eventi e degli errori del server.
      */
     private static final Logger logger = LogManager.getLogger(ServerMain.class);
+    /**
+     * Registro delle metriche delle chiamate ai servizi remoti, letto dal servizio di amministrazione.
+     */
+    private static final RegistroMetriche metriche = new RegistroMetriche();
 
     /**
      * Metodo principale (entry point) che avvia il server.
      * <p>
      * Esegue la sequenza di avvio:
      * <ol>
-     *     <li>Inizializza la connessione al database tramite {@link #createDBConnection()}.</li>
+     *     <li>Inizializza la connessione al database tramite {@link #createDBConnection()}
+     *         e registra uno shutdown hook che chiude il pool di connessioni alla terminazione.</li>
      *     <li>Crea il registro RMI e vi registra i servizi tramite {@link #createRMIRegistry()}.</li>
      * </ol>
      * Una volta avviato, il server rimane in attesa di richieste fino alla sua
@@ -78,6 +91,8 @@ public class ServerMain {
         
         try {
             createDBConnection();
+            Runtime.getRuntime().addShutdownHook(new Thread(
+                    bookrecommender.server.utili.DBConnectionSingleton::shutdown, "shutdown-db"));
             createRMIRegistry();
             logger.info("Server avviato con successo. In attesa di richieste...");
             
@@ -171,7 +186,18 @@ public class ServerMain {
      *     <li>{@link LibrerieService} con il nome "LibrerieService"</li>
      *     <li>{@link ValutazioneService} con il nome "ValutazioneService"</li>
      *     <li>{@link ConsigliService} con il nome definito in {@link ConsigliService#NAME}</li>
+     *     <li>{@link AmministrazioneService} con il nome definito in {@link AmministrazioneService#NAME}</li>
      * </ul>
+     * Ogni servizio, tranne quello di amministrazione, viene registrato attraverso
+     * {@link #strumenta(Class, String, Remote)}, che ne misura le chiamate; le metriche sono
+     * esportate periodicamente da un {@link EsportatoreMetriche}.
+     * </p>
+     * <p>
+     * Prima di creare i servizi il catalogo dei libri viene letto una sola volta con
+     * {@link #caricaCatalogo()}; da questa lettura i servizi di ricerca e dei consigli costruiscono
+     * i propri indici in memoria. Se la proprietà {@code bookrecommender.catalogo.notifiche} non è
+     * impostata a {@code false}, un {@link AscoltatoreCatalogo} fa ricostruire gli indici quando il
+     * catalogo viene modificato da DBCreatorBR.
      * </p>
      * @throws RuntimeException se non è possibile creare o registrare i servizi RMI a causa di
      *         un errore di comunicazione remota o un altro problema imprevisto.
@@ -197,32 +223,43 @@ public class ServerMain {
             
             // Crea e registra il servizio UtentiService
             UtentiService utentiService = new UtentiServiceImpl();
-            reg.rebind("UtentiService", utentiService);
+            reg.rebind("UtentiService", strumenta(UtentiService.class, "UtentiService", utentiService));
             
             // Crea e registra il servizio CercaLibriService
-            CercaLibriService cercaLibriService = new CercaLibriServiceImpl();
-            reg.rebind("CercaLibriService", cercaLibriService);
+            // Il catalogo viene letto una sola volta e condiviso da tutti gli indici in memoria
+            CatalogoLibri catalogo = caricaCatalogo();
+            CercaLibriServiceImpl cercaLibriService = new CercaLibriServiceImpl(catalogo);
+            reg.rebind("CercaLibriService", strumenta(CercaLibriService.class, "CercaLibriService", cercaLibriService));
 
             // Crea e registra il servizio LibrerieService
             LibrerieService librerieService = new LibrerieServiceImpl();
-            reg.rebind("LibrerieService", librerieService);
+            reg.rebind("LibrerieService", strumenta(LibrerieService.class, "LibrerieService", librerieService));
 
              // Crea e registra il servizio ValutazioneService
             ValutazioneService valutazioneService = new ValutazioneServiceImpl();
-            reg.rebind("ValutazioneService", valutazioneService);
+            reg.rebind("ValutazioneService", strumenta(ValutazioneService.class, "ValutazioneService", valutazioneService));
 
             // Crea e registra il servizio ConsigliService
-            ConsigliService consigliService = new ConsigliServiceImpl();
-            reg.rebind(ConsigliService.NAME, consigliService);
+            ConsigliService consigliService = new ConsigliServiceImpl(catalogo);
+            reg.rebind(ConsigliService.NAME, strumenta(ConsigliService.class, ConsigliService.NAME, consigliService));
+
+            // Crea e registra il servizio di amministrazione (non strumentato)
+            AmministrazioneService amministrazioneService = new AmministrazioneServiceImpl(metriche);
+            reg.rebind(AmministrazioneService.NAME, amministrazioneService);
+            avviaEsportazioneMetriche(cercaLibriService);
+            if (Boolean.parseBoolean(System.getProperty("bookrecommender.catalogo.notifiche", "true"))) {
+                AscoltatoreCatalogo.avvia();
+            }
             
             logger.info("Servizio UtentiService registrato nel registro RMI");
             logger.info("Servizio CercaLibriService registrato nel registro RMI");
             logger.info("Servizio LibrerieService registrato nel registro RMI");
             logger.info("Servizio ValutazioneService registrato nel registro RMI");
             logger.info("Servizio ConsigliService registrato nel registro RMI");
+            logger.info("Servizio AmministrazioneService registrato nel registro RMI");
 
 
-            System.out.println("Servizi RMI registrati: UtentiService, CercaLibriService, LibrerieService, ValutazioneService, ConsigliService");
+            System.out.println("Servizi RMI registrati: UtentiService, CercaLibriService, LibrerieService, ValutazioneService, ConsigliService, AmministrazioneService");
             
         } catch (RemoteException e) {
             logger.error("Errore durante la creazione del registro RMI.", e);
@@ -234,4 +271,58 @@ public class ServerMain {
             throw new RuntimeException("Errore imprevisto durante la creazione del registro RMI", e);
         }
     }
+
+    /**
+     * Legge dal database il catalogo dei libri da cui i servizi costruiscono gli indici in memoria.
+     *
+     * @return il catalogo letto, o {@code null} se la lettura fallisce: in tal caso i servizi
+     *         usano solo il database.
+     */
+    private static CatalogoLibri caricaCatalogo() {
+        try (Connection conn = bookrecommender.server.utili.DBConnectionSingleton.openNewConnection()) {
+            return CatalogoLibri.carica(conn);
+        } catch (SQLException e) {
+            logger.warn("Impossibile leggere il catalogo dei libri, gli indici in memoria non saranno disponibili: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Avvolge un servizio remoto con la strumentazione delle metriche.
+     * <p>
+     * Se la proprietà di sistema {@code bookrecommender.metriche} è impostata a {@code false}
+     * il servizio viene restituito invariato e il servizio di amministrazione non riporta metriche.
+     * </p>
+     *
+     * @param interfaccia l'interfaccia remota del servizio.
+     * @param nome        il nome con cui il servizio è registrato.
+     * @param servizio    l'implementazione del servizio.
+     * @param <T>         il tipo dell'interfaccia remota.
+     * @return l'oggetto da registrare nel registro RMI.
+     * @throws RemoteException se l'esportazione del servizio strumentato fallisce.
+     */
+    private static <T extends Remote> T strumenta(Class<T> interfaccia, String nome, T servizio) throws RemoteException {
+        if (!Boolean.parseBoolean(System.getProperty("bookrecommender.metriche", "true"))) {
+            return servizio;
+        }
+        return ServizioStrumentato.strumenta(interfaccia, nome, servizio, metriche);
+    }
+
+    /**
+     * Avvia l'esportazione periodica delle metriche nel log ogni
+     * {@code bookrecommender.metriche.intervallo.secondi} secondi (60 per default; un valore non
+     * positivo la disabilita) e, se è impostata la proprietà {@code bookrecommender.metriche.csv},
+     * anche nel file CSV indicato. Nel log sono riportate anche le statistiche della cache dei libri.
+     *
+     * @param cercaLibriService il servizio di ricerca, da cui leggere le statistiche della cache dei libri.
+     */
+    private static void avviaEsportazioneMetriche(CercaLibriServiceImpl cercaLibriService) {
+        if (!Boolean.parseBoolean(System.getProperty("bookrecommender.metriche", "true"))) {
+            return;
+        }
+        String csv = System.getProperty("bookrecommender.metriche.csv");
+        new EsportatoreMetriche(metriche, csv == null || csv.isBlank() ? null : Path.of(csv),
+                cercaLibriService::getStatisticheCache)
+                .avvia(Long.getLong("bookrecommender.metriche.intervallo.secondi", 60L));
+    }
 }
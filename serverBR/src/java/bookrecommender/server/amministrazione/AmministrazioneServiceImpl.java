@@ -0,0 +1,114 @@
+package bookrecommender.server.amministrazione;
+
+import bookrecommender.condivisi.amministrazione.AmministrazioneService;
+import bookrecommender.condivisi.amministrazione.DistribuzioneDurate;
+import bookrecommender.condivisi.amministrazione.MetricaMetodo;
+import bookrecommender.condivisi.amministrazione.StatisticaSQL;
+import bookrecommender.server.utili.IstogrammaLatenze;
+import bookrecommender.server.utili.ProfilatoreSQL;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementazione concreta del servizio RMI {@link AmministrazioneService}.
+ * <p>
+ * Legge le metriche raccolte in un {@link RegistroMetriche} dai servizi strumentati con
+ * {@link ServizioStrumentato} e le statistiche SQL di {@link ProfilatoreSQL}. Il servizio è in sola lettura e non viene a sua volta strumentato,
+ * così che le interrogazioni di monitoraggio non alterino le metriche che restituiscono.
+ * <p>
+ * Questa implementazione è thread-safe.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see AmministrazioneService
+ * @see RegistroMetriche
+ * @version 1.0
+ */
+public class AmministrazioneServiceImpl extends UnicastRemoteObject implements AmministrazioneService {
+
+    /** Campo per il controllo della versione durante la serializzazione. */
+    private static final long serialVersionUID = 1L;
+    /** Registro da cui vengono lette le metriche dei servizi strumentati. */
+    private final RegistroMetriche registro;
+
+    /**
+     * Costruisce il servizio sul registro delle metriche indicato.
+     *
+     * @param registro il registro da cui leggere le metriche.
+     * @throws RemoteException se si verifica un errore durante l'esportazione dell'oggetto remoto.
+     */
+    public AmministrazioneServiceImpl(RegistroMetriche registro) throws RemoteException {
+        super();
+        this.registro = registro;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione restituisce un'istantanea dei contatori del {@link RegistroMetriche}.
+     */
+    @Override
+    public List<MetricaMetodo> getMetriche() throws RemoteException {
+        return registro.leggi();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione restituisce un'istantanea dei contatori del {@link RegistroMetriche}
+     * relativi al solo servizio indicato.
+     */
+    @Override
+    public List<MetricaMetodo> getMetriche(String servizio) throws RemoteException {
+        return registro.leggi(servizio);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione misura il tempo dalla creazione del {@link RegistroMetriche}.
+     */
+    @Override
+    public long getSecondiAttivita() throws RemoteException {
+        return (long) registro.secondiAttivita();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione converte le statistiche raccolte da {@link ProfilatoreSQL},
+     * già ordinate per tempo totale decrescente, nei DTO condivisi.
+     */
+    @Override
+    public List<StatisticaSQL> getStatisticheSQL(int limite) throws RemoteException {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Il limite deve essere positivo.");
+        }
+        List<ProfilatoreSQL.Statistica> statistiche = ProfilatoreSQL.getStatistiche();
+        List<StatisticaSQL> risultato = new ArrayList<>(Math.min(limite, statistiche.size()));
+        for (ProfilatoreSQL.Statistica s : statistiche.subList(0, Math.min(limite, statistiche.size()))) {
+            risultato.add(new StatisticaSQL(s.sql(), s.errori(), s.righe(), distribuzione(s.durate())));
+        }
+        return risultato;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione legge i tempi di acquisizione misurati da {@link ProfilatoreSQL}.
+     */
+    @Override
+    public DistribuzioneDurate getAcquisizioneConnessioni() throws RemoteException {
+        return distribuzione(ProfilatoreSQL.getAcquisizioni());
+    }
+
+    private static DistribuzioneDurate distribuzione(IstogrammaLatenze.Istantanea d) {
+        return new DistribuzioneDurate(d.totale(), MetricheMetodo.ms(d.somma()), d.media() / 1_000_000.0,
+                MetricheMetodo.ms(d.percentile(50)), MetricheMetodo.ms(d.percentile(90)),
+                MetricheMetodo.ms(d.percentile(99)), MetricheMetodo.ms(d.massimo()));
+    }
+}
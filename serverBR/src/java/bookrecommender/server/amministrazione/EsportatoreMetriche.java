@@ -0,0 +1,183 @@
+package bookrecommender.server.amministrazione;
+
+import bookrecommender.server.libri.CacheLibriDAO;
+import bookrecommender.server.utili.IstogrammaLatenze;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Scrive periodicamente le metriche dei servizi remoti nel log e, se richiesto, in un file CSV.
+ * <p>
+ * Ad ogni esecuzione vengono riportate le chiamate avvenute dall'esecuzione precedente:
+ * numero di chiamate e throughput, errori, chiamate in corso e percentili delle durate
+ * dell'intervallo (ottenuti sottraendo le istantanee degli istogrammi). I metodi senza chiamate
+ * nell'intervallo sono omessi. Il file CSV, se indicato, viene aperto in aggiunta e riceve
+ * l'intestazione solo quando è vuoto, così da poter essere caricato in un foglio di calcolo
+ * o confrontato tra più esecuzioni del server.
+ * <p>
+ * Se è indicata la cache dei libri, nel log vengono riportati anche hit, miss, tasso di hit,
+ * espulsioni e invalidazioni dell'intervallo, insieme all'occupazione corrente della cache.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see RegistroMetriche
+ * @version 1.0
+ */
+public final class EsportatoreMetriche {
+    private static final Logger logger = LogManager.getLogger(EsportatoreMetriche.class);
+
+    /** Intestazione del file CSV. */
+    static final String INTESTAZIONE_CSV =
+            "istante,servizio,metodo,chiamate,errori,in_corso,chiamate_al_secondo,media_ms,p50_ms,p90_ms,p99_ms,max_ms";
+
+    private final RegistroMetriche registro;
+    private final Path fileCsv;
+    private final Supplier<CacheLibriDAO.Statistiche> cacheLibri;
+    private final Map<MetricheMetodo, Precedente> precedenti = new HashMap<>();
+    private CacheLibriDAO.Statistiche cachePrecedente;
+    private long ultimaEsecuzione;
+
+    /** Stato di un metodo all'esecuzione precedente. */
+    private record Precedente(IstogrammaLatenze.Istantanea durate, long errori) {
+    }
+
+    /**
+     * Crea un esportatore per il registro indicato.
+     *
+     * @param registro   il registro delle metriche.
+     * @param fileCsv    il file CSV in cui aggiungere le righe, o {@code null} per scrivere solo nel log.
+     * @param cacheLibri fornisce le statistiche della cache dei libri ({@code null} se la cache è
+     *                   disabilitata), o {@code null} per non riportarle.
+     */
+    public EsportatoreMetriche(RegistroMetriche registro, Path fileCsv, Supplier<CacheLibriDAO.Statistiche> cacheLibri) {
+        this.registro = registro;
+        this.fileCsv = fileCsv;
+        this.cacheLibri = cacheLibri;
+        this.ultimaEsecuzione = registro.avvio();
+    }
+
+    /**
+     * Pianifica l'esportazione periodica su un thread daemon.
+     *
+     * @param secondi l'intervallo tra due esportazioni; un valore non positivo non pianifica nulla.
+     */
+    public void avvia(long secondi) {
+        if (secondi <= 0) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "esporta-metriche");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::esporta, secondi, secondi, TimeUnit.SECONDS);
+        logger.info("Esportazione delle metriche ogni {} s{}", secondi, fileCsv != null ? " in " + fileCsv : "");
+    }
+
+    /**
+     * Esporta le metriche dell'intervallo trascorso dall'esecuzione precedente.
+     * Un errore di scrittura del file CSV, o un'eccezione non controllata durante l'esportazione,
+     * viene registrato nel log e non interrompe le esecuzioni successive: un'eccezione uscita da
+     * un'attività di {@link ScheduledExecutorService#scheduleAtFixedRate} ne annullerebbe le
+     * esecuzioni successive senza alcun messaggio.
+     */
+    synchronized void esporta() {
+        try {
+            esportaIntervallo();
+        } catch (RuntimeException e) {
+            logger.warn("Errore durante l'esportazione delle metriche: " + e.getMessage(), e);
+        }
+    }
+
+    private void esportaIntervallo() {
+        long adesso = System.nanoTime();
+        double secondi = Math.max(1e-9, (adesso - ultimaEsecuzione) / 1e9);
+        ultimaEsecuzione = adesso;
+        String istante = Instant.now().toString();
+
+        StringBuilder csv = new StringBuilder();
+        for (MetricheMetodo m : registro.metodi()) {
+            IstogrammaLatenze.Istantanea durate = m.istantanea();
+            long errori = m.errori();
+            Precedente p = precedenti.put(m, new Precedente(durate, errori));
+            IstogrammaLatenze.Istantanea intervallo = p == null ? durate : durate.meno(p.durate());
+            long erroriIntervallo = p == null ? errori : errori - p.errori();
+            if (intervallo.totale() == 0) {
+                continue;
+            }
+            double media = MetricheMetodo.ms(Math.round(intervallo.media()));
+            double p50 = MetricheMetodo.ms(intervallo.percentile(50));
+            double p90 = MetricheMetodo.ms(intervallo.percentile(90));
+            double p99 = MetricheMetodo.ms(intervallo.percentile(99));
+            double max = MetricheMetodo.ms(intervallo.massimo());
+            double throughput = intervallo.totale() / secondi;
+            logger.info(String.format(Locale.ROOT,
+                    "%s.%s: %d chiamate (%.1f/s), %d errori, %d in corso, media %.2f ms, p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    m.servizio(), m.metodo(), intervallo.totale(), throughput, erroriIntervallo, m.inCorso(),
+                    media, p50, p90, p99, max));
+            if (fileCsv != null) {
+                csv.append(String.format(Locale.ROOT, "%s,%s,\"%s\",%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                        istante, m.servizio(), m.metodo(), intervallo.totale(), erroriIntervallo, m.inCorso(),
+                        throughput, media, p50, p90, p99, max));
+            }
+        }
+        if (fileCsv != null && csv.length() > 0) {
+            scriviCsv(csv);
+        }
+        if (cacheLibri != null) {
+            esportaCacheLibri();
+        }
+    }
+
+    /** Riporta nel log le statistiche della cache dei libri dell'intervallo, se ci sono state richieste. */
+    private void esportaCacheLibri() {
+        CacheLibriDAO.Statistiche attuali = cacheLibri.get();
+        if (attuali == null) {
+            return;
+        }
+        CacheLibriDAO.Statistiche p = cachePrecedente;
+        cachePrecedente = attuali;
+        CacheLibriDAO.Statistiche intervallo = p == null ? attuali : new CacheLibriDAO.Statistiche(
+                attuali.hit() - p.hit(), attuali.miss() - p.miss(), attuali.espulsioni() - p.espulsioni(),
+                attuali.invalidazioni() - p.invalidazioni(), attuali.dimensione(), attuali.capacita());
+        if (intervallo.hit() + intervallo.miss() == 0) {
+            return;
+        }
+        logger.info(String.format(Locale.ROOT,
+                "Cache dei libri: %d hit, %d miss (tasso di hit %.1f%%), %d espulsioni, %d invalidazioni, %d/%d libri",
+                intervallo.hit(), intervallo.miss(), intervallo.tassoHit() * 100, intervallo.espulsioni(),
+                intervallo.invalidazioni(), intervallo.dimensione(), intervallo.capacita()));
+    }
+
+    private void scriviCsv(CharSequence righe) {
+        try {
+            boolean nuovo = Files.notExists(fileCsv) || Files.size(fileCsv) == 0;
+            try (BufferedWriter out = Files.newBufferedWriter(fileCsv, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (nuovo) {
+                    out.write(INTESTAZIONE_CSV);
+                    out.newLine();
+                }
+                out.append(righe);
+            }
+        } catch (IOException e) {
+            logger.warn("Impossibile scrivere le metriche nel file " + fileCsv, e);
+        }
+    }
+}
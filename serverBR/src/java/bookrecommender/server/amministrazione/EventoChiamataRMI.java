@@ -0,0 +1,50 @@
+package bookrecommender.server.amministrazione;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento di Java Flight Recorder emesso da {@link ServizioStrumentato} per ogni chiamata a un
+ * servizio remoto, con il tempo speso sul database dal thread che l'ha servita. In una
+ * registrazione gli eventi {@code bookrecommender.QuerySQL} dello stesso thread compresi nella
+ * durata della chiamata sono le istruzioni SQL che essa ha eseguito.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see ServizioStrumentato
+ * @see bookrecommender.server.utili.ProfilatoreSQL
+ * @version 1.0
+ */
+@Name("bookrecommender.ChiamataRMI")
+@Label("Chiamata RMI")
+@Category({"BookRecommender", "RMI"})
+@Description("Chiamata a un metodo di un servizio remoto")
+@StackTrace(false)
+final class EventoChiamataRMI extends jdk.jfr.Event {
+    @Label("Servizio")
+    String servizio;
+
+    @Label("Metodo")
+    String metodo;
+
+    @Label("Errore")
+    boolean errore;
+
+    @Label("Tempo SQL")
+    @Description("Tempo di esecuzione e lettura delle istruzioni SQL")
+    @Timespan(Timespan.NANOSECONDS)
+    long tempoSql;
+
+    @Label("Attesa connessioni")
+    @Description("Tempo di attesa per ottenere connessioni dal pool")
+    @Timespan(Timespan.NANOSECONDS)
+    long tempoAcquisizione;
+
+    @Label("Istruzioni SQL")
+    long istruzioniSql;
+}
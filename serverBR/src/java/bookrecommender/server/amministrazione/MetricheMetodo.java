@@ -0,0 +1,100 @@
+package bookrecommender.server.amministrazione;
+
+import bookrecommender.condivisi.amministrazione.MetricaMetodo;
+import bookrecommender.server.utili.IstogrammaLatenze;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contatori di un singolo metodo di un servizio remoto.
+ * <p>
+ * Ogni chiamata è delimitata da {@link #inizio()} e {@link #fine(long, boolean)}, che aggiornano
+ * senza lock il numero di chiamate in corso, i contatori e l'{@link IstogrammaLatenze} delle durate.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+final class MetricheMetodo {
+    private static final double NANOSECONDI_PER_MS = 1_000_000.0;
+
+    private final String servizio;
+    private final String metodo;
+    private final LongAdder errori = new LongAdder();
+    private final AtomicInteger inCorso = new AtomicInteger();
+    private final AtomicInteger massimoInCorso = new AtomicInteger();
+    private final IstogrammaLatenze durate = new IstogrammaLatenze();
+
+    MetricheMetodo(String servizio, String metodo) {
+        this.servizio = servizio;
+        this.metodo = metodo;
+    }
+
+    String servizio() {
+        return servizio;
+    }
+
+    String metodo() {
+        return metodo;
+    }
+
+    /**
+     * Segnala l'inizio di una chiamata.
+     *
+     * @return l'istante di inizio, da passare a {@link #fine(long, boolean)}.
+     */
+    long inizio() {
+        int n = inCorso.incrementAndGet();
+        int massimo = massimoInCorso.get();
+        while (n > massimo && !massimoInCorso.compareAndSet(massimo, n)) {
+            massimo = massimoInCorso.get();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Segnala la fine di una chiamata e ne registra la durata.
+     *
+     * @param inizio l'istante restituito da {@link #inizio()}.
+     * @param errore {@code true} se la chiamata è terminata con un'eccezione.
+     */
+    void fine(long inizio, boolean errore) {
+        durate.registra(System.nanoTime() - inizio);
+        if (errore) {
+            errori.increment();
+        }
+        inCorso.decrementAndGet();
+    }
+
+    int inCorso() {
+        return inCorso.get();
+    }
+
+    long errori() {
+        return errori.sum();
+    }
+
+    IstogrammaLatenze.Istantanea istantanea() {
+        return durate.istantanea();
+    }
+
+    /**
+     * Converte i contatori nel DTO esposto dal servizio di amministrazione.
+     *
+     * @param secondiAttivita i secondi trascorsi dall'avvio, per il calcolo del throughput.
+     * @return le metriche del metodo.
+     */
+    MetricaMetodo leggi(double secondiAttivita) {
+        IstogrammaLatenze.Istantanea d = durate.istantanea();
+        return new MetricaMetodo(servizio, metodo, d.totale(), errori.sum(), inCorso.get(),
+                massimoInCorso.get(), secondiAttivita > 0 ? d.totale() / secondiAttivita : 0.0,
+                d.media() / NANOSECONDI_PER_MS, ms(d.percentile(50)), ms(d.percentile(90)),
+                ms(d.percentile(99)), ms(d.percentile(99.9)), ms(d.massimo()));
+    }
+
+    static double ms(long nanosecondi) {
+        return nanosecondi / NANOSECONDI_PER_MS;
+    }
+}
@@ -0,0 +1,98 @@
+package bookrecommender.server.amministrazione;
+
+import bookrecommender.condivisi.amministrazione.MetricaMetodo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Raccolta delle metriche dei metodi di tutti i servizi remoti del server.
+ * <p>
+ * I contatori di ogni metodo vengono creati da {@link ServizioStrumentato} quando un servizio
+ * viene strumentato, e letti dal servizio di amministrazione e da {@link EsportatoreMetriche}.
+ * Le metriche sono ordinate per servizio e per metodo.
+ * <p>
+ * Questa classe è thread-safe.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see ServizioStrumentato
+ * @see AmministrazioneServiceImpl
+ * @version 1.0
+ */
+public final class RegistroMetriche {
+    private final Map<String, Map<String, MetricheMetodo>> servizi = new ConcurrentSkipListMap<>();
+    private final long avvio = System.nanoTime();
+
+    /**
+     * Restituisce i contatori di un metodo, creandoli se non esistono.
+     *
+     * @param servizio il nome del servizio.
+     * @param metodo   il nome del metodo.
+     * @return i contatori del metodo.
+     */
+    MetricheMetodo metodo(String servizio, String metodo) {
+        return servizi.computeIfAbsent(servizio, s -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(metodo, m -> new MetricheMetodo(servizio, m));
+    }
+
+    /**
+     * Restituisce i contatori di tutti i metodi, ordinati per servizio e per metodo.
+     *
+     * @return i contatori registrati.
+     */
+    List<MetricheMetodo> metodi() {
+        List<MetricheMetodo> tutti = new ArrayList<>();
+        for (Map<String, MetricheMetodo> metodi : servizi.values()) {
+            tutti.addAll(metodi.values());
+        }
+        return tutti;
+    }
+
+    /**
+     * Restituisce le metriche di tutti i metodi.
+     *
+     * @return le metriche, ordinate per servizio e per metodo.
+     */
+    public List<MetricaMetodo> leggi() {
+        return converti(metodi());
+    }
+
+    /**
+     * Restituisce le metriche dei metodi di un servizio.
+     *
+     * @param servizio il nome del servizio.
+     * @return le metriche ordinate per metodo; vuota se il servizio non è registrato.
+     */
+    public List<MetricaMetodo> leggi(String servizio) {
+        Map<String, MetricheMetodo> metodi = servizio == null ? null : servizi.get(servizio);
+        return metodi == null ? List.of() : converti(metodi.values());
+    }
+
+    /**
+     * Restituisce il tempo trascorso dalla creazione del registro.
+     *
+     * @return i secondi di attività.
+     */
+    public double secondiAttivita() {
+        return (System.nanoTime() - avvio) / 1e9;
+    }
+
+    /** Restituisce l'istante di creazione del registro, secondo {@link System#nanoTime()}. */
+    long avvio() {
+        return avvio;
+    }
+
+    private List<MetricaMetodo> converti(Collection<MetricheMetodo> metodi) {
+        double secondi = secondiAttivita();
+        List<MetricaMetodo> risultato = new ArrayList<>(metodi.size());
+        for (MetricheMetodo m : metodi) {
+            risultato.add(m.leggi(secondi));
+        }
+        return risultato;
+    }
+}
@@ -0,0 +1,145 @@
+package bookrecommender.server.amministrazione;
+
+import bookrecommender.server.utili.ProfilatoreSQL;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.NoSuchObjectException;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Strumentazione dei servizi remoti: misura ogni chiamata prima di delegarla all'implementazione.
+ * <p>
+ * {@link #strumenta(Class, String, Remote, RegistroMetriche)} crea un proxy dinamico che implementa
+ * l'interfaccia remota del servizio e lo esporta al posto dell'implementazione originale, che
+ * viene rimossa dal runtime RMI. Per ogni metodo dell'interfaccia il proxy aggiorna i contatori
+ * in {@link RegistroMetriche}: chiamate, errori (qualunque eccezione lanciata dall'implementazione),
+ * chiamate in corso e durata. L'associazione tra metodo e contatori è calcolata una sola volta,
+ * quindi il costo per chiamata è limitato a due letture dell'orologio e ad alcuni incrementi atomici.
+ * Ogni chiamata emette inoltre un evento JFR ({@link EventoChiamataRMI}) con il tempo speso sul
+ * database, misurato da {@link ProfilatoreSQL} sul thread che serve la chiamata.
+ * <p>
+ * Le implementazioni dei servizi non vengono modificate: le eccezioni sono rilanciate
+ * invariate e i client ricevono lo stesso stub che riceverebbero dall'implementazione.
+ * <p>
+ * Il runtime RMI conserva gli oggetti esportati solo tramite riferimenti deboli finché nessun
+ * client remoto ne detiene lo stub, e un registro creato nello stesso processo con
+ * {@link java.rmi.registry.LocateRegistry#createRegistry(int)} memorizza soltanto lo stub.
+ * Per questo ogni proxy esportato resta referenziato da questa classe: altrimenti, dopo una
+ * garbage collection, proxy e servizio verrebbero raccolti e ogni chiamata fallirebbe con
+ * {@link NoSuchObjectException}.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see RegistroMetriche
+ * @version 1.0
+ */
+public final class ServizioStrumentato implements InvocationHandler {
+    /** Proxy esportati, trattenuti per tutta la vita del server (vedi la descrizione della classe). */
+    private static final Set<Remote> esportati = ConcurrentHashMap.newKeySet();
+
+    private final Object servizio;
+    private final Map<Method, MetricheMetodo> metriche;
+
+    private ServizioStrumentato(Object servizio, Map<Method, MetricheMetodo> metriche) {
+        this.servizio = servizio;
+        this.metriche = metriche;
+    }
+
+    /**
+     * Avvolge un servizio remoto con la strumentazione e ne esporta il proxy.
+     * <p>
+     * Se il servizio era già esportato (come le sottoclassi di {@link UnicastRemoteObject}),
+     * l'esportazione originale viene rimossa: da quel momento il servizio è raggiungibile
+     * soltanto tramite lo stub restituito. Il proxy esportato viene trattenuto da questa classe,
+     * così che resti raggiungibile anche se il registro RMI ne conserva solo lo stub.
+     *
+     * @param interfaccia l'interfaccia remota del servizio.
+     * @param nome        il nome del servizio nelle metriche, di norma quello del registro RMI.
+     * @param servizio    l'implementazione del servizio.
+     * @param registro    il registro in cui raccogliere le metriche.
+     * @param <T>         il tipo dell'interfaccia remota.
+     * @return lo stub del proxy esportato, da registrare nel registro RMI.
+     * @throws RemoteException se l'esportazione del proxy fallisce.
+     */
+    public static <T extends Remote> T strumenta(Class<T> interfaccia, String nome, T servizio,
+                                                 RegistroMetriche registro) throws RemoteException {
+        Map<String, Integer> occorrenze = new HashMap<>();
+        for (Method m : interfaccia.getMethods()) {
+            occorrenze.merge(m.getName(), 1, Integer::sum);
+        }
+        Map<Method, MetricheMetodo> metriche = new HashMap<>();
+        for (Method m : interfaccia.getMethods()) {
+            metriche.put(m, registro.metodo(nome, occorrenze.get(m.getName()) > 1 ? firma(m) : m.getName()));
+        }
+
+        T proxy = interfaccia.cast(Proxy.newProxyInstance(interfaccia.getClassLoader(),
+                new Class<?>[]{interfaccia}, new ServizioStrumentato(servizio, metriche)));
+        T stub = interfaccia.cast(UnicastRemoteObject.exportObject(proxy, 0));
+        esportati.add(proxy);
+        try {
+            UnicastRemoteObject.unexportObject(servizio, true);
+        } catch (NoSuchObjectException e) {
+            // il servizio non era esportato: nulla da rimuovere
+        }
+        return stub;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        MetricheMetodo m = metriche.get(method);
+        if (m == null) {
+            // equals, hashCode e toString di Object
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> "ServizioStrumentato[" + servizio + "]";
+            };
+        }
+        ProfilatoreSQL.TempoThread db = ProfilatoreSQL.tempoThread();
+        long sqlInizio = db.nanosSql();
+        long acquisizioneInizio = db.nanosAcquisizione();
+        long istruzioniInizio = db.esecuzioni();
+        EventoChiamataRMI evento = new EventoChiamataRMI();
+        evento.begin();
+        long inizio = m.inizio();
+        boolean errore = true;
+        try {
+            Object risultato = method.invoke(servizio, args);
+            errore = false;
+            return risultato;
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            m.fine(inizio, errore);
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.servizio = m.servizio();
+                evento.metodo = m.metodo();
+                evento.errore = errore;
+                evento.tempoSql = db.nanosSql() - sqlInizio;
+                evento.tempoAcquisizione = db.nanosAcquisizione() - acquisizioneInizio;
+                evento.istruzioniSql = db.esecuzioni() - istruzioniInizio;
+                evento.commit();
+            }
+        }
+    }
+
+    private static String firma(Method m) {
+        StringJoiner parametri = new StringJoiner(",", m.getName() + "(", ")");
+        for (Class<?> tipo : m.getParameterTypes()) {
+            parametri.add(tipo.getSimpleName());
+        }
+        return parametri.toString();
+    }
+}
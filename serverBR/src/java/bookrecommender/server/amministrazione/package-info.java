@@ -0,0 +1,20 @@
+/**
+ * Fornisce la strumentazione dei servizi remoti e il servizio di amministrazione del server.
+ * <p>
+ * Le classi principali sono:
+ * <ul>
+ *     <li>{@link bookrecommender.server.amministrazione.ServizioStrumentato}: Il proxy dinamico
+ *         registrato nel registro RMI al posto di ogni servizio, che misura ogni chiamata
+ *         prima di delegarla all'implementazione ed emette un evento JFR ({@code EventoChiamataRMI})
+ *         con il tempo speso sul database.</li>
+ *     <li>{@link bookrecommender.server.amministrazione.RegistroMetriche}: La raccolta dei contatori
+ *         (chiamate, errori, chiamate in corso, istogramma delle durate) di ogni metodo.</li>
+ *     <li>{@link bookrecommender.server.amministrazione.EsportatoreMetriche}: L'esportazione
+ *         periodica delle metriche nel log e in un file CSV, insieme alle statistiche della cache
+ *         dei libri.</li>
+ *     <li>{@link bookrecommender.server.amministrazione.AmministrazioneServiceImpl}: L'implementazione
+ *         del servizio RMI in sola lettura
+ *         {@link bookrecommender.condivisi.amministrazione.AmministrazioneService}.</li>
+ * </ul>
+ */
+package bookrecommender.server.amministrazione;
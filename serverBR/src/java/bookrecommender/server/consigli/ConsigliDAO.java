@@ -101,8 +101,17 @@ public interface ConsigliDAO {
      * @param libreriaId L'ID della libreria del consiglio.
      * @param libroLettoId L'ID del libro letto del consiglio.
      * @param libroConsigliatoId L'ID del libro consigliato.
+     * @return {@code true} se il consiglio esisteva ed è stato eliminato, {@code false} altrimenti.
      */
-    void delete(String userId, int libreriaId, long libroLettoId, long libroConsigliatoId);
+    boolean delete(String userId, int libreriaId, long libroLettoId, long libroConsigliatoId);
+
+    /**
+     * Recupera la sintesi (ID, titolo, autori, anno) di un libro.
+     *
+     * @param libroId L'ID del libro.
+     * @return La {@link bookrecommender.condivisi.libri.LibroSintesi} del libro, o {@code null} se il libro non esiste.
+     */
+    bookrecommender.condivisi.libri.LibroSintesi findSintesiLibro(long libroId);
 
     /**
      * Recupera tutti i consigli che un dato utente ha fornito, arricchiti con
@@ -4,10 +4,25 @@ import bookrecommender.condivisi.consigli.ConsigliService;
 import bookrecommender.condivisi.consigli.Consiglio;
 import bookrecommender.condivisi.consigli.ConsiglioDettagliato;
 import bookrecommender.condivisi.consigli.LibroConsigliato;
+import bookrecommender.condivisi.consigli.LibroSuggerito;
 import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
+import bookrecommender.server.libri.CatalogoLibri;
+import bookrecommender.server.libri.EventiCatalogo;
+import bookrecommender.server.raccomandazioni.MotoreRaccomandazioni;
+import bookrecommender.server.utili.DBConnectionSingleton;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -28,7 +43,21 @@ import org.apache.logging.log4j.Logger;
  *         (es. {@link IllegalArgumentException}, {@link IllegalStateException}).</li>
  *     <li>Loggare le operazioni per scopi di monitoraggio e debug.</li>
  * </ul>
- * Questa implementazione è stateless e thread-safe.
+ * I libri consigliati con conteggio, aggregati da tutte le librerie, sono serviti da un
+ * {@link GrafoConsigli} in memoria, caricato all'avvio e aggiornato ad ogni aggiunta o
+ * eliminazione di un consiglio. Il grafo viene inoltre ricaricato periodicamente dal database
+ * (ogni {@code bookrecommender.grafo.consigli.ricarica.minuti} minuti, 15 per default) per
+ * recepire i consigli eliminati a cascata, e quando il catalogo viene riletto dopo una modifica
+ * esterna. Le aggiunte e le eliminazioni fatte durante il
+ * ricaricamento e non comprese nello snapshot letto vengono riapplicate al nuovo grafo prima di
+ * sostituirlo a quello corrente. Impostando la proprietà di sistema
+ * {@code bookrecommender.grafo.consigli} a {@code false} tutte le letture sono eseguite sul database.
+ * <p>
+ * I suggerimenti calcolati ("chi ha questo libro ha anche...") sono delegati a un
+ * {@link MotoreRaccomandazioni}, il cui modello viene costruito in background all'avvio;
+ * la proprietà {@code bookrecommender.raccomandazioni} impostata a {@code false} lo disabilita.
+ * <p>
+ * Questa implementazione è thread-safe.
  * @author Abou Aziz Sara Hesham Abdel Hamid 757004
  * @author Ben Mahjoub Ali 759560
  * @author Hidri Mohamed Taha 756235
@@ -48,6 +77,20 @@ public class ConsigliServiceImpl extends UnicastRemoteObject implements Consigli
     private static final int MAX_CONSIGLI = 3;
     /** Istanza del Data Access Object per interagire con la persistenza dei consigli. */
     private final ConsigliDAO consigliDAO;
+    /** Grafo in memoria dei consigli, o {@code null} se disabilitato o non caricato. */
+    private volatile GrafoConsigli grafo;
+    /**
+     * Condiviso dalle scritture dei consigli (dal database fino al grafo), esclusivo per fissare
+     * lo snapshot di un ricaricamento: ogni scrittura è così compresa nello snapshot oppure
+     * registrata tra le modifiche da riapplicare.
+     */
+    private final ReentrantReadWriteLock lockScritture = new ReentrantReadWriteLock();
+    /** Protegge il grafo corrente e le modifiche registrate durante un ricaricamento. */
+    private final ReentrantLock lockGrafo = new ReentrantLock();
+    /** Modifiche al grafo successive allo snapshot del ricaricamento in corso, o {@code null}. */
+    private List<ModificaGrafo> modificheDuranteRicarica;
+    /** Motore di raccomandazione per i suggerimenti calcolati, o {@code null} se disabilitato. */
+    private final MotoreRaccomandazioni motore;
 
     /**
      * Costruisce e inizializza il servizio di gestione dei consigli.
@@ -56,15 +99,153 @@ public class ConsigliServiceImpl extends UnicastRemoteObject implements Consigli
      * esportare l'oggetto e renderlo disponibile per le chiamate remote. Inizializza
      * inoltre l'implementazione del DAO ({@link JdbcConsigliDAO}) che verrà utilizzata
      * per interagire con il database.
+     * <p>
+     * Il grafo dei consigli e l'indice dei contenuti prendono i dati dei libri dal catalogo letto
+     * una sola volta all'avvio e condiviso con gli altri servizi.
      *
+     * @param catalogo i libri letti dal database all'avvio, o {@code null} se la lettura è fallita.
      * @throws RemoteException se si verifica un errore durante l'esportazione dell'oggetto RMI.
      */
-    public ConsigliServiceImpl() throws RemoteException {
+    public ConsigliServiceImpl(CatalogoLibri catalogo) throws RemoteException {
         super();
         this.consigliDAO = new JdbcConsigliDAO();
+        if (Boolean.parseBoolean(System.getProperty("bookrecommender.grafo.consigli", "true"))) {
+            this.grafo = caricaGrafo(catalogo);
+            pianificaRicaricamento();
+        }
+        if (Boolean.parseBoolean(System.getProperty("bookrecommender.raccomandazioni", "true"))) {
+            this.motore = new MotoreRaccomandazioni();
+            this.motore.avvia(catalogo);
+        } else {
+            this.motore = null;
+        }
         logger.info("ConsigliService implementation created.");
     }
 
+    /**
+     * Carica il grafo dei consigli dal database.
+     *
+     * @param catalogo i libri letti all'avvio, da cui prendere le sintesi dei libri consigliati,
+     *                 o {@code null} per leggerle dal database.
+     * @return il grafo caricato, o {@code null} se il caricamento fallisce: in tal caso
+     *         le letture sono eseguite sul database.
+     */
+    private static GrafoConsigli caricaGrafo(CatalogoLibri catalogo) {
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            return catalogo == null ? GrafoConsigli.carica(conn) : GrafoConsigli.carica(conn, catalogo);
+        } catch (SQLException e) {
+            logger.warn("Impossibile caricare il grafo dei consigli, verrà usato il database: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Pianifica il ricaricamento periodico del grafo su un thread daemon. Un valore
+     * non positivo della proprietà {@code bookrecommender.grafo.consigli.ricarica.minuti}
+     * disabilita il ricaricamento periodico. Il grafo viene inoltre ricaricato, sullo stesso
+     * thread, quando il catalogo viene riletto dal database, così da recepire i libri modificati
+     * o eliminati.
+     */
+    private void pianificaRicaricamento() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ricarica-grafo-consigli");
+            t.setDaemon(true);
+            return t;
+        });
+        EventiCatalogo.registraCatalogoRicaricato(catalogo -> scheduler.execute(this::ricaricaGrafo));
+        long minuti = Long.getLong("bookrecommender.grafo.consigli.ricarica.minuti", 15L);
+        if (minuti > 0) {
+            scheduler.scheduleWithFixedDelay(this::ricaricaGrafo, minuti, minuti, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Modifica incrementale del grafo, applicata al grafo corrente e, durante un ricaricamento,
+     * riapplicata al grafo nuovo.
+     */
+    @FunctionalInterface
+    private interface ModificaGrafo {
+        void applica(GrafoConsigli g);
+    }
+
+    /**
+     * Ricarica il grafo dal database e lo sostituisce a quello corrente.
+     * <p>
+     * Il grafo è letto in una transazione {@code REPEATABLE READ}, il cui snapshot viene fissato
+     * mentre nessuna scrittura di consigli è in corso. Le modifiche applicate dopo quel momento
+     * non sono nello snapshot: vengono registrate e riapplicate al grafo nuovo, sotto lo stesso
+     * lock che le applica al grafo corrente, prima della sostituzione. Se il caricamento fallisce
+     * resta in uso il grafo corrente.
+     */
+    private void ricaricaGrafo() {
+        List<ModificaGrafo> modifiche = new ArrayList<>();
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                lockScritture.writeLock().lock();
+                try {
+                    // La prima istruzione della transazione fissa lo snapshot
+                    try (Statement st = conn.createStatement()) {
+                        st.execute("SELECT 1");
+                    }
+                    impostaModificheDuranteRicarica(modifiche);
+                } finally {
+                    lockScritture.writeLock().unlock();
+                }
+                GrafoConsigli nuovo = GrafoConsigli.carica(conn);
+                conn.commit();
+                lockGrafo.lock();
+                try {
+                    for (ModificaGrafo m : modifiche) {
+                        m.applica(nuovo);
+                    }
+                    grafo = nuovo;
+                    modificheDuranteRicarica = null;
+                } finally {
+                    lockGrafo.unlock();
+                }
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                impostaModificheDuranteRicarica(null);
+                conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("Impossibile ricaricare il grafo dei consigli, resta in uso quello corrente: " + e.getMessage(), e);
+        }
+    }
+
+    private void impostaModificheDuranteRicarica(List<ModificaGrafo> modifiche) {
+        lockGrafo.lock();
+        try {
+            modificheDuranteRicarica = modifiche;
+        } finally {
+            lockGrafo.unlock();
+        }
+    }
+
+    /**
+     * Applica una modifica al grafo corrente e la registra se è in corso un ricaricamento.
+     * Va chiamato dopo aver scritto la modifica sul database, con {@link #lockScritture} in lettura.
+     */
+    private void applicaAlGrafo(ModificaGrafo modifica) {
+        lockGrafo.lock();
+        try {
+            GrafoConsigli g = grafo;
+            if (g != null) {
+                modifica.applica(g);
+            }
+            if (modificheDuranteRicarica != null) {
+                modificheDuranteRicarica.add(modifica);
+            }
+        } finally {
+            lockGrafo.unlock();
+        }
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -99,12 +280,39 @@ public class ConsigliServiceImpl extends UnicastRemoteObject implements Consigli
             throw new IllegalStateException("Limite massimo di " + MAX_CONSIGLI + " consigli raggiunto per questo libro.");
         }
 
+        lockScritture.readLock().lock();
         try {
-            consigliDAO.add(userId, libreriaId, libroLettoId, libroConsigliatoId, commento);
+            try {
+                consigliDAO.add(userId, libreriaId, libroLettoId, libroConsigliatoId, commento);
+            } catch (Exception e) {
+                logger.error("Error while adding consiglio in service", e);
+                throw new RemoteException("Errore del server durante l'aggiunta del consiglio.", e);
+            }
             logger.info("Consiglio added successfully.");
+            aggiungiAlGrafo(libroLettoId, libroConsigliatoId);
+        } finally {
+            lockScritture.readLock().unlock();
+        }
+    }
+
+    /**
+     * Aggiunge al grafo un consiglio già salvato nel database. Il consiglio è ormai confermato,
+     * quindi un errore nella lettura della sintesi del libro non viene segnalato al client: viene
+     * registrato nel log e il consiglio entra nel grafo al successivo ricaricamento.
+     */
+    private void aggiungiAlGrafo(long libroLettoId, long libroConsigliatoId) {
+        GrafoConsigli g = grafo;
+        if (g == null) {
+            return;
+        }
+        try {
+            LibroSintesi sintesi = g.getSintesi(libroConsigliatoId);
+            LibroSintesi consigliato = sintesi != null ? sintesi : consigliDAO.findSintesiLibro(libroConsigliatoId);
+            if (consigliato != null) {
+                applicaAlGrafo(gc -> gc.aggiungi(libroLettoId, consigliato));
+            }
         } catch (Exception e) {
-            logger.error("Error while adding consiglio in service", e);
-            throw new RemoteException("Errore del server durante l'aggiunta del consiglio.", e);
+            logger.warn("Consiglio salvato ma non aggiunto al grafo, sarà visibile dopo il ricaricamento: " + e.getMessage(), e);
         }
     }
 
@@ -177,17 +385,35 @@ public class ConsigliServiceImpl extends UnicastRemoteObject implements Consigli
     /**
      * {@inheritDoc}
      * <p>
-     * Questa implementazione valida il parametro e delega la chiamata al metodo
+     * Questa implementazione valida il parametro e legge i consigli dal {@link GrafoConsigli}
+     * in memoria; se il grafo non è disponibile delega la chiamata al metodo
      * {@link ConsigliDAO#findConsigliatiConConteggio(long)}.
      */
      @Override
     public List<LibroConsigliato> getConsigliatiConConteggio(long libroLettoId) throws RemoteException {
-        logger.debug("Getting consigliati con conteggio for libroLettoId={}", libroLettoId);
-        if (libroLettoId <= 0) {
-            throw new IllegalArgumentException("ID libro non valido.");
+        return getConsigliatiConConteggio(libroLettoId, Integer.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione valida i parametri e legge i primi {@code limite} consigli dal
+     * {@link GrafoConsigli} in memoria; se il grafo non è disponibile delega la chiamata al
+     * metodo {@link ConsigliDAO#findConsigliatiConConteggio(long)}.
+     */
+    @Override
+    public List<LibroConsigliato> getConsigliatiConConteggio(long libroLettoId, int limite) throws RemoteException {
+        logger.debug("Getting consigliati con conteggio for libroLettoId={}, limite={}", libroLettoId, limite);
+        if (libroLettoId <= 0 || limite <= 0) {
+            throw new IllegalArgumentException("ID libro o limite non validi.");
         }
         try {
-            return consigliDAO.findConsigliatiConConteggio(libroLettoId);
+            GrafoConsigli g = grafo;
+            if (g != null) {
+                return g.consigliati(libroLettoId, limite);
+            }
+            List<LibroConsigliato> libri = consigliDAO.findConsigliatiConConteggio(libroLettoId);
+            return libri.size() > limite ? new ArrayList<>(libri.subList(0, limite)) : libri;
         } catch (Exception e) {
             logger.error("Error while getting consigliati con conteggio in service", e);
             throw new RemoteException("Errore del server durante il recupero dei consigli con conteggio.", e);
@@ -246,11 +472,16 @@ public class ConsigliServiceImpl extends UnicastRemoteObject implements Consigli
         if (userId == null || userId.isBlank() || libreriaId <= 0 || libroLettoId <= 0 || libroConsigliatoId <= 0) {
             throw new IllegalArgumentException("Parametri non validi.");
         }
+        lockScritture.readLock().lock();
         try {
-            consigliDAO.delete(userId, libreriaId, libroLettoId, libroConsigliatoId);
+            if (consigliDAO.delete(userId, libreriaId, libroLettoId, libroConsigliatoId)) {
+                applicaAlGrafo(gc -> gc.rimuovi(libroLettoId, libroConsigliatoId));
+            }
         } catch (Exception e) {
             logger.error("Error while deleting consiglio", e);
             throw new RemoteException("Errore del server durante l'eliminazione del consiglio.", e);
+        } finally {
+            lockScritture.readLock().unlock();
         }
     }
 
@@ -273,4 +504,71 @@ public class ConsigliServiceImpl extends UnicastRemoteObject implements Consigli
             throw new RemoteException("Errore del server durante il recupero dei consigli dettagliati dell'utente.", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione valida i parametri e delega il calcolo al {@link MotoreRaccomandazioni}.
+     */
+    @Override
+    public List<LibroSuggerito> getSuggerimentiPerLibro(long libroId, int limite) throws RemoteException {
+        logger.debug("Getting suggerimenti for libroId={}, limite={}", libroId, limite);
+        if (libroId <= 0 || limite <= 0) {
+            throw new IllegalArgumentException("ID libro o limite non validi.");
+        }
+        if (motore == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return motore.suggerimentiPerLibro(libroId, limite);
+        } catch (Exception e) {
+            logger.error("Error while getting suggerimenti per libro", e);
+            throw new RemoteException("Errore del server durante il calcolo dei suggerimenti.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione valida i parametri e delega il calcolo al {@link MotoreRaccomandazioni}.
+     */
+    @Override
+    public List<LibroSuggerito> getSuggerimentiPerUtente(String userId, int limite) throws RemoteException {
+        logger.debug("Getting suggerimenti for userId={}, limite={}", userId, limite);
+        if (userId == null || userId.isBlank() || limite <= 0) {
+            throw new IllegalArgumentException("ID utente o limite non validi.");
+        }
+        if (motore == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return motore.suggerimentiPerUtente(userId, limite);
+        } catch (Exception e) {
+            logger.error("Error while getting suggerimenti per utente", e);
+            throw new RemoteException("Errore del server durante il calcolo dei suggerimenti.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione valida i parametri e delega la ricerca all'indice dei contenuti
+     * del {@link MotoreRaccomandazioni}.
+     */
+    @Override
+    public List<LibroSuggerito> getLibriSimili(long libroId, int limite) throws RemoteException {
+        logger.debug("Getting libri simili for libroId={}, limite={}", libroId, limite);
+        if (libroId <= 0 || limite <= 0) {
+            throw new IllegalArgumentException("ID libro o limite non validi.");
+        }
+        if (motore == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return motore.libriSimili(libroId, limite);
+        } catch (Exception e) {
+            logger.error("Error while getting libri simili", e);
+            throw new RemoteException("Errore del server durante la ricerca dei libri simili.", e);
+        }
+    }
+}
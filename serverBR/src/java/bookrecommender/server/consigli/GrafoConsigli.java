@@ -0,0 +1,370 @@
+package bookrecommender.server.consigli;
+
+import bookrecommender.condivisi.consigli.LibroConsigliato;
+import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
+import bookrecommender.server.libri.CatalogoLibri;
+import bookrecommender.server.libri.JdbcCercaLibriDAO;
+import bookrecommender.server.utili.MappaLongInt;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Grafo in memoria dei consigli: per ogni libro letto conserva i libri consigliati dagli
+ * utenti insieme al numero di volte in cui ciascuno è stato consigliato.
+ * <p>
+ * Il grafo viene costruito all'avvio da {@code ConsigliLibri} con
+ * {@link #carica(Connection, CatalogoLibri)}, ricaricato con {@link #carica(Connection)}, e consente di rispondere a {@link ConsigliServiceImpl#getConsigliatiConConteggio(long)} senza
+ * eseguire ad ogni richiesta la query aggregata con {@code JOIN} e {@code GROUP BY} sulla
+ * tabella {@code Libri}. L'ordinamento dei risultati è lo stesso della query
+ * (numero di consigli decrescente); a parità di conteggio i libri sono ordinati per ID.
+ * <p>
+ * Struttura interna:
+ * <ul>
+ *     <li>gli ID dei libri sono mappati su indici densi {@code 0..n-1} tramite una {@link MappaLongInt},
+ *         e un array riporta l'ID di ogni indice;</li>
+ *     <li>per ogni nodo gli archi uscenti sono memorizzati in due array paralleli di {@code int}
+ *         (indice del libro consigliato e conteggio), che crescono per raddoppio;</li>
+ *     <li>per i soli libri consigliati viene conservata la {@link LibroSintesi} restituita al client.</li>
+ * </ul>
+ * Il grafo è aggiornato in modo incrementale da {@link ConsigliServiceImpl} quando un consiglio
+ * viene aggiunto o eliminato. I consigli rimossi indirettamente dal database (es. per
+ * l'eliminazione a cascata di una libreria) vengono recepiti al successivo ricaricamento.
+ * <p>
+ * La classe è thread-safe: le letture condividono un read lock, gli aggiornamenti usano il write lock.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see ConsigliServiceImpl
+ * @see LibroConsigliato
+ * @version 1.0
+ */
+public final class GrafoConsigli {
+    private static final Logger logger = LogManager.getLogger(GrafoConsigli.class);
+
+    /** Sintesi dei libri che compaiono almeno una volta come consigliati. */
+    private static final String SELECT_SINTESI_CONSIGLIATI = """
+        SELECT l.id, l.titolo, l.autori, l.anno
+        FROM Libri l
+        WHERE l.id IN (SELECT libro_consigliato_id FROM ConsigliLibri)
+        ORDER BY l.id
+        """;
+
+    /** Archi del grafo: coppie (libro letto, libro consigliato) con il relativo conteggio. */
+    private static final String SELECT_ARCHI = """
+        SELECT libro_letto_id, libro_consigliato_id, COUNT(*) AS conteggio
+        FROM ConsigliLibri
+        GROUP BY libro_letto_id, libro_consigliato_id
+        """;
+
+    private static final int[] VUOTO = new int[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final MappaLongInt indici;
+    private long[] idDiIndice;
+    private LibroSintesi[] sintesi;
+    private int[][] vicini;
+    private int[][] conteggi;
+    private int[] gradi;
+    private int numeroNodi;
+    private long numeroArchi;
+
+    /**
+     * Crea un grafo vuoto.
+     *
+     * @param capacitaAttesa il numero di libri che si prevede di inserire.
+     */
+    public GrafoConsigli(int capacitaAttesa) {
+        int capacita = Math.max(16, capacitaAttesa);
+        this.indici = new MappaLongInt(capacita);
+        this.idDiIndice = new long[capacita];
+        this.sintesi = new LibroSintesi[capacita];
+        this.vicini = new int[capacita][];
+        this.conteggi = new int[capacita][];
+        this.gradi = new int[capacita];
+    }
+
+    /**
+     * Costruisce il grafo leggendo tutti i consigli dal database.
+     * <p>
+     * Sintesi e archi sono letti con due query: se i consigli possono cambiare durante il
+     * caricamento, il chiamante deve eseguirle in una transazione {@code REPEATABLE READ},
+     * così che entrambe vedano lo stesso stato del database.
+     *
+     * @param conn la connessione da utilizzare.
+     * @return il grafo costruito.
+     * @throws SQLException in caso di errore di accesso al database.
+     */
+    public static GrafoConsigli carica(Connection conn) throws SQLException {
+        long inizio = System.nanoTime();
+        GrafoConsigli grafo = new GrafoConsigli(1024);
+        // Prima le sintesi, così che i libri consigliati abbiano indici densi contigui
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_SINTESI_CONSIGLIATI);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int nodo = grafo.nodo(rs.getLong("id"));
+                grafo.sintesi[nodo] = new LibroSintesi(
+                        rs.getLong("id"), rs.getString("titolo"), rs.getString("autori"), rs.getString("anno"));
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_ARCHI);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int da = grafo.nodo(rs.getLong("libro_letto_id"));
+                int a = grafo.nodo(rs.getLong("libro_consigliato_id"));
+                grafo.incrementa(da, a, rs.getInt("conteggio"));
+            }
+        }
+        logger.info("Grafo dei consigli caricato: {} libri, {} archi in {} ms",
+                grafo.numeroNodi, grafo.numeroArchi, (System.nanoTime() - inizio) / 1_000_000);
+        return grafo;
+    }
+
+    /**
+     * Costruisce il grafo leggendo dal database i soli archi e prendendo le sintesi dei libri
+     * consigliati dal catalogo letto all'avvio, senza rileggere la tabella {@code Libri}.
+     * Le sintesi dei libri assenti dal catalogo (creati dopo la sua lettura) sono lette per ID.
+     *
+     * @param conn     la connessione da utilizzare.
+     * @param catalogo i libri letti dal database all'avvio.
+     * @return il grafo costruito.
+     * @throws SQLException in caso di errore di accesso al database.
+     */
+    public static GrafoConsigli carica(Connection conn, CatalogoLibri catalogo) throws SQLException {
+        long inizio = System.nanoTime();
+        GrafoConsigli grafo = new GrafoConsigli(1024);
+        Set<Long> mancanti = new LinkedHashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_ARCHI);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int da = grafo.nodo(rs.getLong("libro_letto_id"));
+                long consigliato = rs.getLong("libro_consigliato_id");
+                int a = grafo.nodo(consigliato);
+                if (grafo.sintesi[a] == null) {
+                    int posizione = catalogo.posizione(consigliato);
+                    if (posizione == MappaLongInt.ASSENTE) {
+                        mancanti.add(consigliato);
+                    } else {
+                        Libro libro = catalogo.libro(posizione);
+                        grafo.sintesi[a] = new LibroSintesi(libro.id(), libro.titolo(), libro.autori(), libro.anno());
+                    }
+                }
+                grafo.incrementa(da, a, rs.getInt("conteggio"));
+            }
+        }
+        if (!mancanti.isEmpty()) {
+            for (LibroSintesi libro : new JdbcCercaLibriDAO().getSintesiByIds(conn, new ArrayList<>(mancanti))) {
+                grafo.sintesi[grafo.indici.get(libro.id())] = libro;
+            }
+        }
+        logger.info("Grafo dei consigli caricato: {} libri, {} archi in {} ms",
+                grafo.numeroNodi, grafo.numeroArchi, (System.nanoTime() - inizio) / 1_000_000);
+        return grafo;
+    }
+
+    /**
+     * Registra un nuovo consiglio.
+     *
+     * @param libroLettoId     l'ID del libro letto.
+     * @param libroConsigliato la sintesi del libro consigliato.
+     */
+    public void aggiungi(long libroLettoId, LibroSintesi libroConsigliato) {
+        lock.writeLock().lock();
+        try {
+            int da = nodo(libroLettoId);
+            int a = nodo(libroConsigliato.id());
+            sintesi[a] = libroConsigliato;
+            incrementa(da, a, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rimuove un consiglio. Se il conteggio della coppia scende a zero, l'arco viene eliminato.
+     *
+     * @param libroLettoId       l'ID del libro letto.
+     * @param libroConsigliatoId l'ID del libro consigliato.
+     */
+    public void rimuovi(long libroLettoId, long libroConsigliatoId) {
+        lock.writeLock().lock();
+        try {
+            int da = indici.get(libroLettoId);
+            int a = indici.get(libroConsigliatoId);
+            if (da == MappaLongInt.ASSENTE || a == MappaLongInt.ASSENTE) {
+                return;
+            }
+            int[] v = vicini[da];
+            int[] c = conteggi[da];
+            for (int i = 0; i < gradi[da]; i++) {
+                if (v[i] == a) {
+                    if (--c[i] <= 0) {
+                        int ultimo = --gradi[da];
+                        v[i] = v[ultimo];
+                        c[i] = c[ultimo];
+                        numeroArchi--;
+                    }
+                    return;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Restituisce la sintesi di un libro consigliato, se presente nel grafo.
+     *
+     * @param libroId l'ID del libro.
+     * @return la sintesi del libro, o {@code null} se il libro non è mai stato consigliato.
+     */
+    public LibroSintesi getSintesi(long libroId) {
+        lock.readLock().lock();
+        try {
+            int nodo = indici.get(libroId);
+            return nodo == MappaLongInt.ASSENTE ? null : sintesi[nodo];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restituisce i libri consigliati per un libro letto, ordinati per numero di consigli decrescente.
+     *
+     * @param libroLettoId l'ID del libro letto.
+     * @param limite       il numero massimo di libri da restituire.
+     * @return la lista dei libri consigliati con il relativo conteggio; vuota se non ci sono consigli.
+     */
+    public List<LibroConsigliato> consigliati(long libroLettoId, int limite) {
+        lock.readLock().lock();
+        try {
+            int da = indici.get(libroLettoId);
+            if (da == MappaLongInt.ASSENTE || gradi[da] == 0 || limite <= 0) {
+                return new ArrayList<>();
+            }
+            int grado = gradi[da];
+            // Chiave di ordinamento: conteggio nei 32 bit alti e posizione dell'arco nei bassi;
+            // l'ordine crescente delle chiavi, letto al contrario, dà il conteggio decrescente
+            long[] chiavi = new long[grado];
+            for (int i = 0; i < grado; i++) {
+                chiavi[i] = ((long) conteggi[da][i] << 32) | i;
+            }
+            Arrays.sort(chiavi);
+            int n = Math.min(limite, grado);
+            List<LibroConsigliato> risultato = new ArrayList<>(n);
+            // A parità di conteggio i libri vanno in ordine di ID, che non coincide con l'ordine
+            // degli indici densi per i libri aggiunti dopo il caricamento: ogni gruppo di archi con
+            // lo stesso conteggio viene ordinato per ID, fino a raggiungere il limite
+            for (int fine = grado; risultato.size() < n; ) {
+                int conteggio = (int) (chiavi[fine - 1] >>> 32);
+                int inizio = fine - 1;
+                while (inizio > 0 && (int) (chiavi[inizio - 1] >>> 32) == conteggio) {
+                    inizio--;
+                }
+                long[] ids = new long[fine - inizio];
+                for (int i = inizio; i < fine; i++) {
+                    ids[i - inizio] = idDiIndice[vicini[da][(int) chiavi[i]]];
+                }
+                Arrays.sort(ids);
+                for (int i = 0; i < ids.length && risultato.size() < n; i++) {
+                    risultato.add(new LibroConsigliato(sintesi[indici.get(ids[i])], conteggio));
+                }
+                fine = inizio;
+            }
+            return risultato;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restituisce il numero di libri presenti nel grafo (letti o consigliati).
+     *
+     * @return il numero di nodi.
+     */
+    public int numeroLibri() {
+        lock.readLock().lock();
+        try {
+            return numeroNodi;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restituisce il numero di coppie distinte (libro letto, libro consigliato).
+     *
+     * @return il numero di archi.
+     */
+    public long numeroArchi() {
+        lock.readLock().lock();
+        try {
+            return numeroArchi;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restituisce l'indice denso del libro, aggiungendo il nodo se non esiste.
+     */
+    private int nodo(long libroId) {
+        int nodo = indici.getOrAssegna(libroId);
+        if (nodo == numeroNodi) {
+            if (nodo == gradi.length) {
+                int capacita = gradi.length * 2;
+                idDiIndice = Arrays.copyOf(idDiIndice, capacita);
+                sintesi = Arrays.copyOf(sintesi, capacita);
+                vicini = Arrays.copyOf(vicini, capacita);
+                conteggi = Arrays.copyOf(conteggi, capacita);
+                gradi = Arrays.copyOf(gradi, capacita);
+            }
+            idDiIndice[nodo] = libroId;
+            vicini[nodo] = VUOTO;
+            conteggi[nodo] = VUOTO;
+            numeroNodi++;
+        }
+        return nodo;
+    }
+
+    /**
+     * Somma {@code delta} al conteggio dell'arco {@code da -> a}, creandolo se non esiste.
+     */
+    private void incrementa(int da, int a, int delta) {
+        int grado = gradi[da];
+        int[] v = vicini[da];
+        for (int i = 0; i < grado; i++) {
+            if (v[i] == a) {
+                conteggi[da][i] += delta;
+                return;
+            }
+        }
+        if (grado == v.length) {
+            int capacita = Math.max(4, grado * 2);
+            vicini[da] = v = Arrays.copyOf(v, capacita);
+            conteggi[da] = Arrays.copyOf(conteggi[da], capacita);
+        }
+        v[grado] = a;
+        conteggi[da][grado] = delta;
+        gradi[da] = grado + 1;
+        numeroArchi++;
+    }
+
+    @Override
+    public String toString() {
+        return "GrafoConsigli[libri=" + numeroLibri() + ", archi=" + numeroArchi() + "]";
+    }
+}
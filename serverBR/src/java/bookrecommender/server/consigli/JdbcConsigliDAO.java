@@ -4,6 +4,7 @@ import bookrecommender.condivisi.consigli.Consiglio;
 import bookrecommender.condivisi.consigli.ConsiglioDettagliato;
 import bookrecommender.condivisi.consigli.LibroConsigliato;
 import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
 import bookrecommender.server.utili.DBConnectionSingleton;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -55,22 +56,22 @@ public class JdbcConsigliDAO implements ConsigliDAO {
 
     /** Query per trovare i libri consigliati con il conteggio delle raccomandazioni, per una specifica libreria. */
     private static final String FIND_CONSIGLIATI_CON_CONTEGGIO = """
-        SELECT l.id, l.titolo, l.autori, l.anno, l.descrizione, l.categorie, l.editore, l.prezzo, COUNT(cl.libro_consigliato_id) as conteggio
+        SELECT l.id, l.titolo, l.autori, l.anno, COUNT(cl.libro_consigliato_id) as conteggio
         FROM ConsigliLibri cl
         JOIN Libri l ON cl.libro_consigliato_id = l.id
         WHERE cl.libreria_id = ? AND cl.libro_letto_id = ?
-        GROUP BY l.id, l.titolo, l.autori, l.anno, l.descrizione, l.categorie, l.editore, l.prezzo
-        ORDER BY conteggio DESC
+        GROUP BY l.id, l.titolo, l.autori, l.anno
+        ORDER BY conteggio DESC, l.id
         """;
 
     /** Query per trovare i libri consigliati con il conteggio delle raccomandazioni, aggregando da tutte le librerie. */
     private static final String FIND_CONSIGLIATI_CON_CONTEGGIO_ALL = """
-        SELECT l.id, l.titolo, l.autori, l.anno, l.descrizione, l.categorie, l.editore, l.prezzo, COUNT(cl.libro_consigliato_id) as conteggio
+        SELECT l.id, l.titolo, l.autori, l.anno, COUNT(cl.libro_consigliato_id) as conteggio
         FROM ConsigliLibri cl
         JOIN Libri l ON cl.libro_consigliato_id = l.id
         WHERE cl.libro_letto_id = ?
-        GROUP BY l.id, l.titolo, l.autori, l.anno, l.descrizione, l.categorie, l.editore, l.prezzo
-        ORDER BY conteggio DESC
+        GROUP BY l.id, l.titolo, l.autori, l.anno
+        ORDER BY conteggio DESC, l.id
         """;
 
     /** Query per trovare tutti i consigli (in forma base) dati da un utente. */
@@ -94,6 +95,9 @@ public class JdbcConsigliDAO implements ConsigliDAO {
         WHERE user_id = ? AND libreria_id = ? AND libro_letto_id = ? AND libro_consigliato_id = ?
         """;
 
+    /** Query per recuperare la sintesi di un libro. */
+    private static final String FIND_SINTESI_LIBRO = "SELECT id, titolo, autori, anno FROM Libri WHERE id = ?";
+
     /** Query per trovare tutti i consigli di un utente, arricchiti con dettagli testuali. */
     private static final String FIND_DETTAGLIATI_BY_USER = """
         SELECT cl.user_id, cl.libreria_id, l.nome_libreria as nome_libreria,
@@ -210,15 +214,11 @@ public class JdbcConsigliDAO implements ConsigliDAO {
             pstmt.setLong(2, libroLettoId);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                Libro libro = new Libro(
+                LibroSintesi libro = new LibroSintesi(
                     rs.getLong("id"),
                     rs.getString("titolo"),
                     rs.getString("autori"),
-                    rs.getString("anno"),
-                    rs.getString("descrizione"),
-                    rs.getString("categorie"),
-                    rs.getString("editore"),
-                    rs.getString("prezzo")
+                    rs.getString("anno")
                 );
                 libri.add(new LibroConsigliato(libro, rs.getInt("conteggio")));
             }
@@ -245,15 +245,11 @@ public class JdbcConsigliDAO implements ConsigliDAO {
             pstmt.setLong(1, libroLettoId);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                Libro libro = new Libro(
+                LibroSintesi libro = new LibroSintesi(
                     rs.getLong("id"),
                     rs.getString("titolo"),
                     rs.getString("autori"),
-                    rs.getString("anno"),
-                    rs.getString("descrizione"),
-                    rs.getString("categorie"),
-                    rs.getString("editore"),
-                    rs.getString("prezzo")
+                    rs.getString("anno")
                 );
                 libri.add(new LibroConsigliato(libro, rs.getInt("conteggio")));
             }
@@ -328,7 +324,7 @@ public class JdbcConsigliDAO implements ConsigliDAO {
      * @throws RuntimeException se si verifica una {@link SQLException} durante l'accesso al database.
      */
     @Override
-    public void delete(String userId, int libreriaId, long libroLettoId, long libroConsigliatoId) {
+    public boolean delete(String userId, int libreriaId, long libroLettoId, long libroConsigliatoId) {
         logger.info("Deleting consiglio: userId={}, libreriaId={}, libroLettoId={}, libroConsigliatoId={}", userId, libreriaId, libroLettoId, libroConsigliatoId);
         try (Connection conn = DBConnectionSingleton.openNewConnection();
              PreparedStatement pstmt = conn.prepareStatement(DELETE_CONSIGLIO)) {
@@ -336,7 +332,7 @@ public class JdbcConsigliDAO implements ConsigliDAO {
             pstmt.setInt(2, libreriaId);
             pstmt.setLong(3, libroLettoId);
             pstmt.setLong(4, libroConsigliatoId);
-            pstmt.executeUpdate();
+            return pstmt.executeUpdate() > 0;
         } catch (SQLException e) {
             logger.error("Error deleting consiglio", e);
             throw new RuntimeException(e);
@@ -385,4 +381,33 @@ public class JdbcConsigliDAO implements ConsigliDAO {
         }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Esegue una query per chiave primaria sulla tabella {@code Libri}.
+     *
+     * @throws RuntimeException se si verifica una {@link SQLException} durante l'accesso al database.
+     */
+    @Override
+    public LibroSintesi findSintesiLibro(long libroId) {
+        logger.debug("Finding sintesi libro: {}", libroId);
+        try (Connection conn = DBConnectionSingleton.openNewConnection();
+             PreparedStatement pstmt = conn.prepareStatement(FIND_SINTESI_LIBRO)) {
+            pstmt.setLong(1, libroId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return new LibroSintesi(
+                    rs.getLong("id"),
+                    rs.getString("titolo"),
+                    rs.getString("autori"),
+                    rs.getString("anno")
+                );
+            }
+            return null;
+        } catch (SQLException e) {
+            logger.error("Error finding sintesi libro", e);
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -13,6 +13,9 @@
  *         il contratto per l'accesso ai dati (Data Access Object).</li>
  *     <li>{@link bookrecommender.server.consigli.JdbcConsigliDAO}: L'implementazione
  *         concreta del DAO che utilizza JDBC per interagire con il database.</li>
+ *     <li>{@link bookrecommender.server.consigli.GrafoConsigli}: Il grafo in memoria dei consigli
+ *         (libro letto, libro consigliato, conteggio), usato dal service per rispondere senza
+ *         interrogare il database.</li>
  * </ul>
  * Il service layer è esposto ai client tramite RMI, mentre il DAO layer astrae la persistenza.
  */
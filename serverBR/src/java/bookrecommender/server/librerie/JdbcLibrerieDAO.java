@@ -1,6 +1,7 @@
 package bookrecommender.server.librerie;
 
 import bookrecommender.condivisi.librerie.Libreria;
+import bookrecommender.condivisi.libri.LibroSintesi;
 import bookrecommender.server.utili.DBConnectionSingleton;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -72,6 +73,12 @@ public class JdbcLibrerieDAO implements LibrerieDAO {
     private static final String SELECT_LIBRI_IN_LIBRERIA =
         "SELECT libro_id FROM Libreria_Libro WHERE libreria_id = ? ORDER BY data_inserimento";
 
+    private static final String SELECT_SINTESI_LIBRI_IN_LIBRERIA =
+        "SELECT l.id, l.titolo, l.autori, l.anno FROM Librerie lb " +
+        "JOIN Libreria_Libro ll ON ll.libreria_id = lb.libreria_id " +
+        "JOIN Libri l ON l.id = ll.libro_id " +
+        "WHERE lb.user_id = ? AND lb.nome_libreria = ? ORDER BY ll.data_inserimento";
+
     private static final String CHECK_LIBRO_IN_LIBRERIA =
         "SELECT COUNT(*) FROM Libreria_Libro WHERE libreria_id = ? AND libro_id = ?";
 
@@ -286,6 +293,24 @@ public class JdbcLibrerieDAO implements LibrerieDAO {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione gestisce autonomamente la connessione al database.
+     * Apre una nuova connessione, esegue la ricerca delegando al metodo
+     * {@link #getSintesiLibriInLibreria(Connection, String, String)}, e chiude la connessione.
+     * In caso di errore, logga l'eccezione e restituisce una lista vuota.
+     */
+    @Override
+    public List<LibroSintesi> getSintesiLibriInLibreria(String userId, String nomeLibreria) {
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            return getSintesiLibriInLibreria(conn, userId, nomeLibreria);
+        } catch (SQLException e) {
+            logger.error("Errore durante il recupero dei libri della libreria '{}' dell'utente: {}", nomeLibreria, userId, e);
+            return new ArrayList<>();
+        }
+    }
+
     // -------------------------------------------------
     // API "transaction-aware" (ricevono Connection)
     // -------------------------------------------------
@@ -558,6 +583,37 @@ public class JdbcLibrerieDAO implements LibrerieDAO {
         return libriIds;
     }
 
+    /**
+     * Recupera la sintesi dei libri contenuti in una libreria utilizzando una connessione esistente.
+     * <p>
+     * La libreria è identificata da proprietario e nome; i dati dei libri sono ottenuti con un
+     * JOIN su {@code Libri}, per cui basta una sola query invece di una per ogni libro.
+     *
+     * @param conn la connessione al database da utilizzare.
+     * @param userId l'ID dell'utente proprietario.
+     * @param nomeLibreria il nome della libreria.
+     * @return una {@link List} di {@link LibroSintesi} in ordine di inserimento.
+     * @throws SQLException se si verifica un errore di accesso al database.
+     */
+    public List<LibroSintesi> getSintesiLibriInLibreria(Connection conn, String userId, String nomeLibreria) throws SQLException {
+        List<LibroSintesi> libri = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(SELECT_SINTESI_LIBRI_IN_LIBRERIA)) {
+            stmt.setString(1, userId);
+            stmt.setString(2, nomeLibreria);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    libri.add(new LibroSintesi(
+                        rs.getLong("id"),
+                        rs.getString("titolo"),
+                        rs.getString("autori"),
+                        rs.getString("anno")
+                    ));
+                }
+            }
+        }
+        return libri;
+    }
+
     // -------------------------------------------------
     // Metodo helper per il mapping
     // -------------------------------------------------
@@ -1,6 +1,7 @@
 package bookrecommender.server.librerie;
 
 import bookrecommender.condivisi.librerie.Libreria;
+import bookrecommender.condivisi.libri.LibroSintesi;
 import java.util.List;
 
 /**
@@ -100,4 +101,13 @@ public interface LibrerieDAO {
      * @return Una lista di {@link Long} rappresentanti gli ID dei libri.
      */
     List<Long> getLibriIdsInLibreria(int libreriaId);
-}
\ No newline at end of file
+
+    /**
+     * Recupera la sintesi dei libri contenuti in una libreria, identificata dal suo proprietario
+     * e dal suo nome, unendo {@code Libreria_Libro} e {@code Libri} in un'unica query.
+     * @param userId L'ID dell'utente proprietario.
+     * @param nomeLibreria Il nome della libreria.
+     * @return Una lista di {@link LibroSintesi} in ordine di inserimento, vuota se la libreria non esiste.
+     */
+    List<LibroSintesi> getSintesiLibriInLibreria(String userId, String nomeLibreria);
+}
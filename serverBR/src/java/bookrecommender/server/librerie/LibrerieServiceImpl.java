@@ -2,6 +2,7 @@ package bookrecommender.server.librerie;
 
 import bookrecommender.condivisi.librerie.LibrerieService;
 import bookrecommender.condivisi.librerie.Libreria;
+import bookrecommender.condivisi.libri.LibroSintesi;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -228,6 +229,31 @@ public class LibrerieServiceImpl extends UnicastRemoteObject implements Librerie
         }
     }
     
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione delega a {@link LibrerieDAO#getSintesiLibriInLibreria(String, String)},
+     * che risolve la libreria e ne unisce i libri al catalogo con un'unica query.
+     * In caso di errore o se la libreria non viene trovata, logga e restituisce una lista vuota.
+     */
+    @Override
+    public List<LibroSintesi> getSintesiLibriInLibreria(String userId, String nomeLibreria) throws RemoteException {
+        try {
+            if (userId == null || nomeLibreria == null) {
+                logger.warn("Parametri null per recupero libri in libreria");
+                return List.of();
+            }
+
+            List<LibroSintesi> libri = librerieDAO.getSintesiLibriInLibreria(userId, nomeLibreria);
+            logger.info("Recuperati {} libri dalla libreria '{}' dell'utente: {}", libri.size(), nomeLibreria, userId);
+            return libri;
+
+        } catch (Exception e) {
+            logger.error("Errore durante il recupero dei libri dalla libreria '{}' dell'utente: {}", nomeLibreria, userId, e);
+            return List.of();
+        }
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -0,0 +1,103 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.server.utili.DBConnectionSingleton;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Thread daemon che riceve dal database le notifiche di modifica del catalogo e fa ricostruire
+ * le strutture in memoria che ne derivano.
+ * <p>
+ * Gli indici del catalogo, dei completamenti, delle faccette, della ricerca approssimata e dei
+ * contenuti sono costruiti all'avvio e poi aggiornati solo con i libri creati tramite il server.
+ * L'aggiornamento incrementale di DBCreatorBR ({@code --aggiorna}) modifica invece la tabella
+ * {@code Libri} direttamente e, al termine, esegue {@code NOTIFY} sul canale {@value #CANALE}.
+ * Questa classe tiene aperta una connessione dedicata, esterna al pool, in {@code LISTEN} sul
+ * canale: alla ricezione di una notifica rilegge il {@link CatalogoLibri} e lo passa agli
+ * ascoltatori registrati in {@link EventiCatalogo}. Le notifiche ricevute insieme causano un
+ * solo ricaricamento.
+ * <p>
+ * Se la connessione cade, viene riaperta dopo {@value #ATTESA_RICONNESSIONE_MS} ms; le
+ * notifiche inviate nel frattempo vanno perse. Se la lettura del catalogo fallisce restano
+ * in uso le strutture correnti.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see EventiCatalogo
+ * @see CatalogoLibri
+ * @version 1.0
+ */
+public final class AscoltatoreCatalogo implements Runnable {
+    private static final Logger logger = LogManager.getLogger(AscoltatoreCatalogo.class);
+
+    /** Canale delle notifiche, lo stesso usato da DBCreatorBR. */
+    static final String CANALE = "catalogo_libri";
+    /** Attesa massima di una notifica prima di riprovare, per accorgersi di un'interruzione. */
+    private static final int ATTESA_NOTIFICHE_MS = 10_000;
+    /** Attesa prima di riaprire la connessione dopo un errore. */
+    private static final long ATTESA_RICONNESSIONE_MS = 30_000;
+
+    private AscoltatoreCatalogo() {
+    }
+
+    /**
+     * Avvia l'ascolto delle notifiche su un thread daemon.
+     */
+    public static void avvia() {
+        Thread t = new Thread(new AscoltatoreCatalogo(), "ascolto-catalogo");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try (Connection conn = DBConnectionSingleton.openDedicatedConnection()) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + CANALE);
+                }
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                logger.info("In ascolto delle modifiche al catalogo sul canale {}", CANALE);
+                while (!Thread.currentThread().isInterrupted()) {
+                    PGNotification[] notifiche = pg.getNotifications(ATTESA_NOTIFICHE_MS);
+                    if (notifiche != null && notifiche.length > 0) {
+                        ricarica();
+                    }
+                }
+            } catch (SQLException e) {
+                logger.warn("Ascolto delle modifiche al catalogo interrotto, nuovo tentativo tra "
+                        + ATTESA_RICONNESSIONE_MS / 1000 + " s: " + e.getMessage());
+                try {
+                    Thread.sleep(ATTESA_RICONNESSIONE_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Rilegge il catalogo e lo notifica agli ascoltatori. In caso di errore le strutture in
+     * memoria non vengono toccate.
+     */
+    private static void ricarica() {
+        logger.info("Il catalogo è stato modificato, ricaricamento in corso");
+        long inizio = System.nanoTime();
+        CatalogoLibri catalogo;
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            catalogo = CatalogoLibri.carica(conn);
+        } catch (SQLException e) {
+            logger.warn("Impossibile rileggere il catalogo, restano in uso gli indici correnti: " + e.getMessage(), e);
+            return;
+        }
+        EventiCatalogo.catalogoRicaricato(catalogo);
+        logger.info("Catalogo ricaricato: {} libri in {} ms", catalogo.size(), (System.nanoTime() - inizio) / 1_000_000);
+    }
+}
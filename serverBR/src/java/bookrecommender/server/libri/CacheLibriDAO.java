@@ -0,0 +1,416 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
+import bookrecommender.condivisi.libri.Pagina;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementazione di {@link LibroDAO} che mantiene in memoria i libri letti per ID.
+ * <p>
+ * I client richiedono di continuo gli stessi libri popolari tramite
+ * {@link bookrecommender.condivisi.libri.CercaLibriService#getTitoloLibroById(int)} e metodi
+ * analoghi, e ogni richiesta costava una connessione e una query. Questa classe è un decoratore
+ * read-through: {@link #getLibroById(int)}, {@link #cercaLibroPerId(Long)} e
+ * {@link #getLibriByIds(List)} rispondono dalla cache e chiedono al DAO sottostante solo i libri
+ * mancanti (con un'unica query per più ID). Tutte le altre operazioni sono delegate.
+ * <p>
+ * La cache ha un numero massimo di libri ed è divisa in due segmenti LRU (Segmented LRU): i
+ * libri letti per la prima volta entrano nel segmento di prova e passano nel segmento protetto
+ * solo se vengono richiesti di nuovo. Il segmento protetto occupa al più il
+ * {@code 100 - }{@value #PERCENTUALE_PROVA}% della capacità e il segmento di prova usa lo spazio
+ * restante. Una lettura occasionale di molti libri diversi (ad esempio una lista lunga) scorre
+ * quindi nel segmento di prova senza espellere i libri richiesti spesso.
+ * <p>
+ * Il server non modifica né elimina libri: i libri in cache restano validi finché il catalogo
+ * non viene cambiato da un processo esterno, come l'aggiornamento incrementale di
+ * {@code creazioneDB}. In quel caso il catalogo viene riletto (vedi {@link AscoltatoreCatalogo})
+ * e la cache viene svuotata con {@link #svuota()}. I libri creati tramite il server non
+ * richiedono invalidazioni, perché la cache non memorizza gli ID assenti.
+ * <p>
+ * La classe è thread-safe: i due segmenti sono protetti da un unico lock, tenuto solo per le
+ * operazioni sulle mappe e mai durante gli accessi al database.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see LibroDAO
+ * @version 1.0
+ */
+public class CacheLibriDAO implements LibroDAO {
+    private static final Logger logger = LogManager.getLogger(CacheLibriDAO.class);
+
+    /** Percentuale della capacità riservata al segmento di prova. */
+    static final int PERCENTUALE_PROVA = 20;
+
+    private final LibroDAO delegato;
+    private final int capacita;
+    /** Spazio sempre riservato al segmento di prova; il segmento protetto usa il resto. */
+    private final int capacitaProva;
+    /** Libri richiesti una sola volta dall'ultimo ingresso, in ordine di accesso. */
+    private final LinkedHashMap<Long, Libro> prova = new LinkedHashMap<>(16, 0.75f, true);
+    /** Libri richiesti più volte, in ordine di accesso. */
+    private final LinkedHashMap<Long, Libro> protetti = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Incrementato a ogni svuotamento: un libro letto dal database viene inserito solo se
+     * la cache non è stata svuotata durante la lettura.
+     */
+    private long versione;
+
+    private final LongAdder hit = new LongAdder();
+    private final LongAdder miss = new LongAdder();
+    private final LongAdder espulsioni = new LongAdder();
+    private final LongAdder invalidazioni = new LongAdder();
+
+    /**
+     * Istantanea delle statistiche della cache.
+     *
+     * @param hit           libri restituiti dalla cache.
+     * @param miss          libri richiesti al DAO sottostante.
+     * @param espulsioni    libri rimossi per fare spazio.
+     * @param invalidazioni libri rimossi perché il catalogo è stato ricaricato.
+     * @param dimensione    libri attualmente in cache.
+     * @param capacita      numero massimo di libri in cache.
+     */
+    public record Statistiche(long hit, long miss, long espulsioni, long invalidazioni, int dimensione, int capacita) {
+        /**
+         * Restituisce la frazione delle richieste servite dalla cache.
+         *
+         * @return il tasso di hit, tra 0 e 1; 0 se non ci sono state richieste.
+         */
+        public double tassoHit() {
+            long totale = hit + miss;
+            return totale == 0 ? 0.0 : (double) hit / totale;
+        }
+    }
+
+    /**
+     * Crea la cache.
+     *
+     * @param delegato il DAO a cui chiedere i libri mancanti e delegare le altre operazioni.
+     * @param capacita il numero massimo di libri mantenuti in memoria, almeno 1.
+     */
+    public CacheLibriDAO(LibroDAO delegato, int capacita) {
+        if (capacita < 1) {
+            throw new IllegalArgumentException("Capacità della cache non valida: " + capacita);
+        }
+        this.delegato = delegato;
+        this.capacita = capacita;
+        this.capacitaProva = Math.max(1, capacita * PERCENTUALE_PROVA / 100);
+    }
+
+    /**
+     * Carica in cache i primi libri del catalogo, in ordine di ID, fino a riempirla.
+     * I libri precaricati occupano prima il segmento protetto e poi quello di prova.
+     *
+     * @param catalogo i libri letti dal database all'avvio.
+     * @return il numero di libri caricati.
+     */
+    public int precarica(CatalogoLibri catalogo) {
+        long inizio = System.nanoTime();
+        long[] ids = new long[catalogo.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = catalogo.libro(i).id();
+        }
+        Arrays.sort(ids);
+        int caricati = Math.min(capacita, ids.length);
+        synchronized (this) {
+            for (int i = 0; i < caricati; i++) {
+                Libro libro = catalogo.libro(catalogo.posizione(ids[i]));
+                Map<Long, Libro> segmento = protetti.size() < capacita - capacitaProva ? protetti : prova;
+                segmento.put(libro.id(), libro);
+            }
+        }
+        logger.info("Cache dei libri precaricata con {} libri in {} ms", caricati, (System.nanoTime() - inizio) / 1_000_000);
+        return caricati;
+    }
+
+    /**
+     * Rimuove tutti i libri dalla cache, così che le prossime richieste li rileggano dal
+     * database. Le letture in corso non inseriscono i libri letti prima dello svuotamento.
+     *
+     * @return il numero di libri rimossi.
+     */
+    public synchronized int svuota() {
+        versione++;
+        int rimossi = prova.size() + protetti.size();
+        prova.clear();
+        protetti.clear();
+        invalidazioni.add(rimossi);
+        return rimossi;
+    }
+
+    /**
+     * Restituisce un'istantanea delle statistiche correnti della cache.
+     *
+     * @return le statistiche della cache.
+     */
+    public Statistiche getStatistiche() {
+        int dimensione;
+        synchronized (this) {
+            dimensione = prova.size() + protetti.size();
+        }
+        return new Statistiche(hit.sum(), miss.sum(), espulsioni.sum(), invalidazioni.sum(), dimensione, capacita);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Libro creaLibro(String titolo, String autore, String descrizione, String categoria, String year, String price) {
+        return delegato.creaLibro(titolo, autore, descrizione, categoria, year, price);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Il libro viene cercato prima nella cache.
+     */
+    @Override
+    public Libro getLibroById(int id) {
+        Libro libro = leggi(id);
+        if (libro != null) {
+            return libro;
+        }
+        long versioneLettura = versioneCorrente();
+        libro = delegato.getLibroById(id);
+        if (libro != null) {
+            inserisci(libro, versioneLettura);
+        }
+        return libro;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Il libro viene cercato prima nella cache.
+     */
+    @Override
+    public List<Libro> cercaLibroPerId(Long id) {
+        if (id == null) {
+            return delegato.cercaLibroPerId(null);
+        }
+        Libro libro = leggi(id);
+        if (libro != null) {
+            List<Libro> risultato = new ArrayList<>(1);
+            risultato.add(libro);
+            return risultato;
+        }
+        long versioneLettura = versioneCorrente();
+        List<Libro> risultato = delegato.cercaLibroPerId(id);
+        for (Libro letto : risultato) {
+            inserisci(letto, versioneLettura);
+        }
+        return risultato;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * I libri presenti in cache non vengono richiesti al DAO sottostante; quelli mancanti
+     * vengono letti con un'unica chiamata.
+     */
+    @Override
+    public List<Libro> getLibriByIds(List<Long> ids) {
+        Map<Long, Libro> trovati = new HashMap<>(ids.size() * 2);
+        Set<Long> mancanti = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id == null || trovati.containsKey(id) || mancanti.contains(id)) {
+                continue;
+            }
+            Libro libro = leggi(id);
+            if (libro != null) {
+                trovati.put(id, libro);
+            } else {
+                mancanti.add(id);
+            }
+        }
+        if (!mancanti.isEmpty()) {
+            long versioneLettura = versioneCorrente();
+            for (Libro libro : delegato.getLibriByIds(new ArrayList<>(mancanti))) {
+                trovati.put(libro.id(), libro);
+                inserisci(libro, versioneLettura);
+            }
+        }
+        List<Libro> risultato = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Libro libro = trovati.get(id);
+            if (libro != null) {
+                risultato.add(libro);
+            }
+        }
+        return risultato;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Libro> cercaLibriPerTitolo(String titolo) {
+        return delegato.cercaLibriPerTitolo(titolo);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerTitolo(String titolo, int offset, int limite) {
+        return delegato.cercaLibriPerTitolo(titolo, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Libro> cercaLibriPerAutore(String autore) {
+        return delegato.cercaLibriPerAutore(autore);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerAutore(String autore, int offset, int limite) {
+        return delegato.cercaLibriPerAutore(autore, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerSimilarita(String testo, int offset, int limite) {
+        return delegato.cercaLibriPerSimilarita(testo, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerSimilaritaTitolo(String titolo, int offset, int limite) {
+        return delegato.cercaLibriPerSimilaritaTitolo(titolo, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerSimilaritaAutore(String autore, int offset, int limite) {
+        return delegato.cercaLibriPerSimilaritaAutore(autore, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerTesto(String testo, int offset, int limite) {
+        return delegato.cercaLibriPerTesto(testo, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Libro> cercaLibriPerAutoreEAnno(String autore, String anno) {
+        return delegato.cercaLibriPerAutoreEAnno(autore, anno);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerIntervalloAnni(int annoMin, int annoMax, int offset, int limite) {
+        return delegato.cercaLibriPerIntervalloAnni(annoMin, annoMax, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerIntervalloPrezzo(BigDecimal prezzoMin, BigDecimal prezzoMax, int offset, int limite) {
+        return delegato.cercaLibriPerIntervalloPrezzo(prezzoMin, prezzoMax, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<LibroSintesi> getSintesiByIds(List<Long> ids) {
+        return delegato.getSintesiByIds(ids);
+    }
+
+    /**
+     * Cerca un libro nella cache aggiornando le statistiche; un libro trovato nel segmento di
+     * prova passa in quello protetto.
+     */
+    private Libro leggi(long id) {
+        Libro libro;
+        synchronized (this) {
+            libro = protetti.get(id);
+            if (libro == null) {
+                libro = prova.remove(id);
+                if (libro != null) {
+                    promuovi(id, libro);
+                }
+            }
+        }
+        if (libro != null) {
+            hit.increment();
+        } else {
+            miss.increment();
+        }
+        return libro;
+    }
+
+    private synchronized long versioneCorrente() {
+        return versione;
+    }
+
+    /**
+     * Inserisce nel segmento di prova un libro letto dal database, a meno che la cache sia
+     * stata svuotata durante la lettura.
+     */
+    private synchronized void inserisci(Libro libro, long versioneLettura) {
+        if (versioneLettura != versione || protetti.containsKey(libro.id())) {
+            return;
+        }
+        prova.put(libro.id(), libro);
+        espelliOltre(prova, capacita - protetti.size());
+    }
+
+    /**
+     * Sposta un libro nel segmento protetto; se questo è pieno, il suo libro meno recente torna
+     * nel segmento di prova.
+     */
+    private void promuovi(long id, Libro libro) {
+        protetti.put(id, libro);
+        if (protetti.size() > capacita - capacitaProva) {
+            Iterator<Map.Entry<Long, Libro>> it = protetti.entrySet().iterator();
+            Map.Entry<Long, Libro> retrocesso = it.next();
+            it.remove();
+            prova.put(retrocesso.getKey(), retrocesso.getValue());
+            espelliOltre(prova, capacita - protetti.size());
+        }
+    }
+
+    private void espelliOltre(LinkedHashMap<Long, Libro> segmento, int massimo) {
+        Iterator<Map.Entry<Long, Libro>> it = segmento.entrySet().iterator();
+        while (segmento.size() > massimo && it.hasNext()) {
+            it.next();
+            it.remove();
+            espulsioni.increment();
+        }
+    }
+}
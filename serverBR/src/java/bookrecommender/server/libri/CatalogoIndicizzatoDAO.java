@@ -0,0 +1,247 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
+import bookrecommender.condivisi.libri.Pagina;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementazione di {@link LibroDAO} che risponde alle ricerche per titolo e per autore
+ * tramite un {@link IndiceCatalogo} in memoria.
+ * <p>
+ * La classe è un decoratore di {@link JdbcCercaLibriDAO}: l'indice individua gli ID dei libri
+ * corrispondenti (già ordinati per titolo) e i record completi vengono poi recuperati con
+ * un'unica query per chiave primaria ({@link JdbcCercaLibriDAO#getLibriByIds(List)}), evitando
+ * la scansione completa della tabella {@code Libri} richiesta dalle query {@code LIKE '%x%'}.
+ * Tutte le altre operazioni sono delegate al DAO JDBC.
+ * <p>
+ * Quando un libro viene creato tramite {@link #creaLibro}, viene aggiunto anche all'indice,
+ * così da essere subito trovabile dalle ricerche successive. Quando il catalogo viene modificato
+ * dall'esterno del server, l'indice viene sostituito con {@link #sostituisciIndice(IndiceCatalogo)}.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see IndiceCatalogo
+ * @see JdbcCercaLibriDAO
+ * @version 1.0
+ */
+public class CatalogoIndicizzatoDAO implements LibroDAO {
+    private static final Logger logger = LogManager.getLogger(CatalogoIndicizzatoDAO.class);
+
+    private final JdbcCercaLibriDAO delegato;
+    private volatile IndiceCatalogo indice;
+
+    /**
+     * Crea il DAO indicizzato.
+     *
+     * @param delegato il DAO JDBC a cui delegare il recupero dei record e le altre operazioni.
+     * @param indice   l'indice del catalogo già caricato.
+     */
+    public CatalogoIndicizzatoDAO(JdbcCercaLibriDAO delegato, IndiceCatalogo indice) {
+        this.delegato = delegato;
+        this.indice = indice;
+    }
+
+    /**
+     * Sostituisce l'indice con uno costruito da un catalogo riletto dal database.
+     * <p>
+     * Le ricerche in corso terminano sull'indice precedente. Un libro creato mentre il nuovo
+     * indice viene costruito può non comparirvi fino al ricaricamento successivo.
+     *
+     * @param nuovo il nuovo indice.
+     */
+    public void sostituisciIndice(IndiceCatalogo nuovo) {
+        this.indice = nuovo;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Se la creazione va a buon fine, il nuovo libro viene aggiunto all'indice.
+     */
+    @Override
+    public Libro creaLibro(String titolo, String autore, String descrizione, String categoria, String year, String price) {
+        Libro libro = delegato.creaLibro(titolo, autore, descrizione, categoria, year, price);
+        if (libro != null) {
+            indice.aggiungi(libro.id(), libro.titolo(), libro.autori());
+            logger.debug("Libro {} aggiunto all'indice del catalogo", libro.id());
+        }
+        return libro;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Libro getLibroById(int id) {
+        return delegato.getLibroById(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Gli ID corrispondenti sono individuati dall'indice in memoria.
+     */
+    @Override
+    public List<Libro> cercaLibriPerTitolo(String titolo) {
+        List<Long> ids = indice.cercaPerTitolo(titolo);
+        logger.info("Trovati {} libri per titolo '{}' nell'indice", ids.size(), titolo);
+        return delegato.getLibriByIds(ids);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Gli ID corrispondenti sono individuati dall'indice in memoria.
+     */
+    @Override
+    public List<Libro> cercaLibriPerAutore(String autore) {
+        List<Long> ids = indice.cercaPerAutore(autore);
+        logger.info("Trovati {} libri per autore '{}' nell'indice", ids.size(), autore);
+        return delegato.getLibriByIds(ids);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Dall'indice si ricava il numero esatto dei risultati; solo la sintesi dei libri
+     * della pagina richiesta viene recuperata dal database.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerTitolo(String titolo, int offset, int limite) {
+        return pagina(indice.cercaPerTitolo(titolo, offset, limite), offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Dall'indice si ricava il numero esatto dei risultati; solo la sintesi dei libri
+     * della pagina richiesta viene recuperata dal database.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerAutore(String autore, int offset, int limite) {
+        return pagina(indice.cercaPerAutore(autore, offset, limite), offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * La ricerca è delegata al DAO JDBC, che usa gli indici a trigrammi del database.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerSimilarita(String testo, int offset, int limite) {
+        return delegato.cercaLibriPerSimilarita(testo, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * La ricerca è delegata al DAO JDBC, che usa gli indici a trigrammi del database.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerSimilaritaTitolo(String titolo, int offset, int limite) {
+        return delegato.cercaLibriPerSimilaritaTitolo(titolo, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * La ricerca è delegata al DAO JDBC, che usa gli indici a trigrammi del database.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerSimilaritaAutore(String autore, int offset, int limite) {
+        return delegato.cercaLibriPerSimilaritaAutore(autore, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * La ricerca è delegata al DAO JDBC, che usa l'indice full-text del database.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerTesto(String testo, int offset, int limite) {
+        return delegato.cercaLibriPerTesto(testo, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * I libri dell'autore sono individuati dall'indice in memoria; il filtro
+     * sull'anno (match esatto, numerico) viene applicato ai record recuperati.
+     */
+    @Override
+    public List<Libro> cercaLibriPerAutoreEAnno(String autore, String anno) {
+        List<Libro> libri = new ArrayList<>();
+        Integer annoCercato = JdbcCercaLibriDAO.annoNumerico(anno);
+        if (annoCercato == null) {
+            logger.info("Anno '{}' non numerico: nessun libro per autore '{}'", anno, autore);
+            return libri;
+        }
+        // La colonna anno è SMALLINT: il database la restituisce senza spazi né zeri iniziali
+        String annoTesto = annoCercato.toString();
+        for (Libro libro : delegato.getLibriByIds(indice.cercaPerAutore(autore))) {
+            if (annoTesto.equals(libro.anno())) {
+                libri.add(libro);
+            }
+        }
+        logger.info("Trovati {} libri per autore '{}' e anno '{}' nell'indice", libri.size(), autore, anno);
+        return libri;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * La ricerca è delegata al DAO JDBC, che usa l'indice B-tree sulla colonna {@code anno}.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerIntervalloAnni(int annoMin, int annoMax, int offset, int limite) {
+        return delegato.cercaLibriPerIntervalloAnni(annoMin, annoMax, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * La ricerca è delegata al DAO JDBC, che usa l'indice B-tree sulla colonna {@code prezzo}.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerIntervalloPrezzo(BigDecimal prezzoMin, BigDecimal prezzoMax, int offset, int limite) {
+        return delegato.cercaLibriPerIntervalloPrezzo(prezzoMin, prezzoMax, offset, limite);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Libro> cercaLibroPerId(Long id) {
+        return delegato.cercaLibroPerId(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Libro> getLibriByIds(List<Long> ids) {
+        return delegato.getLibriByIds(ids);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<LibroSintesi> getSintesiByIds(List<Long> ids) {
+        return delegato.getSintesiByIds(ids);
+    }
+
+    /**
+     * Recupera la sintesi dei libri della pagina trovata nell'indice.
+     */
+    private Pagina<LibroSintesi> pagina(IndiceCatalogo.Risultato risultato, int offset, int limite) {
+        return new Pagina<>(delegato.getSintesiByIds(risultato.ids()), offset, limite, risultato.totale());
+    }
+}
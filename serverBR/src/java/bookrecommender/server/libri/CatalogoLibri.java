@@ -0,0 +1,179 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.server.utili.MappaLongInt;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Copia in memoria della tabella {@code Libri}, letta con un'unica scansione e usata per
+ * costruire tutte le strutture in memoria derivate dal catalogo.
+ * <p>
+ * All'avvio del server gli indici del catalogo, dei completamenti, delle faccette, della ricerca
+ * approssimata e dei contenuti, il grafo dei consigli e la cache dei libri leggevano ciascuno
+ * la tabella per conto proprio. Con questa classe la tabella viene letta una sola volta e ogni
+ * struttura viene costruita a partire dalla copia; al termine dell'avvio la copia non è più
+ * referenziata e viene liberata.
+ * <p>
+ * I libri sono letti con {@code ORDER BY titolo, id} e la posizione di un libro in questo ordine
+ * è il suo numero di documento negli indici che restituiscono i risultati per titolo
+ * ({@link IndiceCatalogo}, {@link IndiceFaccette}), così che l'ordine coincida con quello delle
+ * query paginate di {@link JdbcCercaLibriDAO}, secondo la collation del database. Per ogni libro
+ * viene letto anche il numero di valutazioni, usato come peso dei completamenti.
+ * <p>
+ * La classe è immutabile.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see IndiceCatalogo
+ * @version 1.0
+ */
+public final class CatalogoLibri {
+    private static final Logger logger = LogManager.getLogger(CatalogoLibri.class);
+
+    private static final String VERIFICA_AGGREGATI = "SELECT to_regclass('aggregativalutazioni') IS NOT NULL";
+
+    private static final String QUERY_CARICA = """
+            SELECT l.id, l.titolo, l.autori, l.anno, l.descrizione, l.categorie, l.editore, l.prezzo,
+                   COALESCE(a.numero_valutazioni, 0) AS valutazioni
+            FROM Libri l LEFT JOIN AggregatiValutazioni a ON a.libro_id = l.id
+            ORDER BY l.titolo, l.id""";
+
+    // Sui database creati prima della tabella degli aggregati il peso dei completamenti è uniforme
+    private static final String QUERY_CARICA_SENZA_AGGREGATI = """
+            SELECT l.id, l.titolo, l.autori, l.anno, l.descrizione, l.categorie, l.editore, l.prezzo,
+                   0 AS valutazioni
+            FROM Libri l
+            ORDER BY l.titolo, l.id""";
+
+    /** Numero di righe lette per ogni round-trip durante il caricamento. */
+    private static final int FETCH_SIZE = 5_000;
+
+    private final Libro[] libri;
+    private final int[] valutazioni;
+    private final MappaLongInt posizioni;
+
+    private CatalogoLibri(Libro[] libri, int[] valutazioni) {
+        this.libri = libri;
+        this.valutazioni = valutazioni;
+        this.posizioni = new MappaLongInt(Math.max(16, libri.length));
+        for (int i = 0; i < libri.length; i++) {
+            posizioni.put(libri[i].id(), i);
+        }
+    }
+
+    /**
+     * Legge dal database tutti i libri, con il rispettivo numero di valutazioni.
+     * <p>
+     * La lettura avviene in streaming (cursore lato server con fetch size limitata) all'interno
+     * di una transazione in sola lettura, che viene chiusa al termine.
+     *
+     * @param conn la connessione al database da utilizzare.
+     * @return il catalogo letto.
+     * @throws SQLException se si verifica un errore di accesso al database.
+     */
+    public static CatalogoLibri carica(Connection conn) throws SQLException {
+        long inizio = System.nanoTime();
+        List<Libro> libri = new ArrayList<>();
+        int[] valutazioni = new int[1024];
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            boolean aggregati;
+            try (PreparedStatement stmt = conn.prepareStatement(VERIFICA_AGGREGATI);
+                 ResultSet rs = stmt.executeQuery()) {
+                aggregati = rs.next() && rs.getBoolean(1);
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(aggregati ? QUERY_CARICA : QUERY_CARICA_SENZA_AGGREGATI)) {
+                stmt.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (libri.size() == valutazioni.length) {
+                            valutazioni = Arrays.copyOf(valutazioni, valutazioni.length * 2);
+                        }
+                        valutazioni[libri.size()] = rs.getInt("valutazioni");
+                        libri.add(new Libro(
+                                rs.getLong("id"),
+                                rs.getString("titolo"),
+                                rs.getString("autori"),
+                                rs.getString("anno"),
+                                rs.getString("descrizione"),
+                                rs.getString("categorie"),
+                                rs.getString("editore"),
+                                rs.getString("prezzo")));
+                    }
+                }
+            }
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        CatalogoLibri catalogo = new CatalogoLibri(libri.toArray(new Libro[0]), Arrays.copyOf(valutazioni, libri.size()));
+        logger.info("Catalogo letto: {} libri in {} ms", catalogo.size(), (System.nanoTime() - inizio) / 1_000_000);
+        return catalogo;
+    }
+
+    /**
+     * Costruisce il catalogo da libri già in memoria, nell'ordine in cui devono essere restituiti.
+     *
+     * @param libri       i libri.
+     * @param valutazioni il numero di valutazioni di ciascun libro, nello stesso ordine.
+     * @return il catalogo costruito.
+     */
+    static CatalogoLibri di(Libro[] libri, int[] valutazioni) {
+        if (libri.length != valutazioni.length) {
+            throw new IllegalArgumentException("Libri e valutazioni hanno lunghezze diverse");
+        }
+        return new CatalogoLibri(libri.clone(), valutazioni.clone());
+    }
+
+    /**
+     * Restituisce il numero di libri del catalogo.
+     *
+     * @return il numero di libri.
+     */
+    public int size() {
+        return libri.length;
+    }
+
+    /**
+     * Restituisce il libro in una posizione del catalogo.
+     *
+     * @param posizione la posizione, da 0 a {@link #size()} escluso, in ordine di titolo e ID.
+     * @return il libro.
+     */
+    public Libro libro(int posizione) {
+        return libri[posizione];
+    }
+
+    /**
+     * Restituisce il numero di valutazioni del libro in una posizione del catalogo.
+     *
+     * @param posizione la posizione del libro.
+     * @return il numero di valutazioni, 0 se gli aggregati non sono disponibili.
+     */
+    public int valutazioni(int posizione) {
+        return valutazioni[posizione];
+    }
+
+    /**
+     * Restituisce la posizione di un libro nel catalogo.
+     *
+     * @param id l'ID del libro.
+     * @return la posizione, o {@link MappaLongInt#ASSENTE} se il libro non è nel catalogo.
+     */
+    public int posizione(long id) {
+        return posizioni.get(id);
+    }
+}
@@ -1,12 +1,19 @@
 package bookrecommender.server.libri;
 
+import bookrecommender.condivisi.libri.Completamento;
+import bookrecommender.condivisi.libri.FiltriRicerca;
 import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
 import bookrecommender.condivisi.libri.CercaLibriService;
+import bookrecommender.condivisi.libri.Pagina;
+import bookrecommender.condivisi.libri.RisultatoFaccettato;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.math.BigDecimal;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -23,8 +30,9 @@ import java.util.List;
  *         per notificarle al client remoto.</li>
  *     <li>Loggare le operazioni di ricerca per scopi di monitoraggio e debug.</li>
  * </ul>
- * Questa implementazione è stateless e thread-safe, poiché si affida a un DAO stateless che gestisce
- * le connessioni al database per ogni singola operazione.
+ * Questa implementazione è thread-safe: si affida a un DAO stateless che gestisce le connessioni
+ * al database per ogni singola operazione, eventualmente affiancato da un {@link IndiceCatalogo}
+ * in memoria per le ricerche per titolo e autore (vedi {@link CatalogoIndicizzatoDAO}).
  * @author Abou Aziz Sara Hesham Abdel Hamid 757004
  * @author Ben Mahjoub Ali 759560
  * @author Hidri Mohamed Taha 756235
@@ -38,6 +46,14 @@ import java.util.List;
 public class CercaLibriServiceImpl extends UnicastRemoteObject implements CercaLibriService {
     private static final Logger logger = LogManager.getLogger(CercaLibriServiceImpl.class);
     private final LibroDAO libroDAO;
+    /** DAO indicizzato avvolto da {@link #libroDAO}, o {@code null} se l'indice del catalogo è disabilitato o non caricato. */
+    private final CatalogoIndicizzatoDAO catalogoIndicizzato;
+    /** Indice dei completamenti di titoli e autori, o {@code null} se disabilitato o non caricato. */
+    private volatile IndiceCompletamenti completamenti;
+    /** Indice bitmap per la ricerca per faccette, o {@code null} se disabilitato o non caricato. */
+    private volatile IndiceFaccette faccette;
+    /** Indice della ricerca approssimata su titoli e autori, o {@code null} se disabilitato o non caricato. */
+    private volatile IndiceApprossimato approssimato;
 
     /**
      * Costruisce e inizializza il servizio di ricerca libri.
@@ -46,13 +62,226 @@ public class CercaLibriServiceImpl extends UnicastRemoteObject implements CercaL
      * esportare l'oggetto e renderlo disponibile per le chiamate remote. Inizializza
      * inoltre l'implementazione del DAO ({@link JdbcCercaLibriDAO}) che verrà utilizzata
      * per interagire con il database.
+     * <p>
+     * Gli indici in memoria e la cache sono costruiti dal catalogo letto una sola volta
+     * all'avvio e condiviso con gli altri servizi. Se il catalogo non è disponibile le ricerche
+     * usano solo il database. Quando il catalogo viene riletto (vedi {@link AscoltatoreCatalogo})
+     * gli indici vengono ricostruiti.
      *
+     * @param catalogo i libri letti dal database all'avvio, o {@code null} se la lettura è fallita.
      * @throws RemoteException se si verifica un errore durante l'esportazione dell'oggetto RMI.
      */
-    public CercaLibriServiceImpl() throws RemoteException {
+    public CercaLibriServiceImpl(CatalogoLibri catalogo) throws RemoteException {
         super();
-        this.libroDAO = new JdbcCercaLibriDAO(); // DAO stateless: sicuro per concorrenza
-        logger.info("CercaLibriServiceImpl inizializzato con DAO stateless");
+        JdbcCercaLibriDAO jdbc = new JdbcCercaLibriDAO(); // DAO stateless: sicuro per concorrenza
+        this.catalogoIndicizzato = creaDAOCatalogo(jdbc, catalogo);
+        this.libroDAO = creaDAO(catalogoIndicizzato != null ? catalogoIndicizzato : jdbc, catalogo);
+        this.completamenti = creaIndiceCompletamenti(catalogo);
+        this.faccette = creaIndiceFaccette(catalogo);
+        this.approssimato = creaIndiceApprossimato(catalogo);
+        registraAscoltatori();
+    }
+
+    /**
+     * Registra in {@link EventiCatalogo} l'aggiunta agli indici dei libri creati e la
+     * ricostruzione degli indici quando il catalogo viene riletto dal database.
+     */
+    private void registraAscoltatori() {
+        EventiCatalogo.registraLibroCreato(libro -> {
+            IndiceCompletamenti indice = completamenti;
+            if (indice != null) {
+                indice.aggiungi(libro.titolo(), libro.autori());
+            }
+        });
+        EventiCatalogo.registraLibroCreato(libro -> {
+            IndiceFaccette indice = faccette;
+            if (indice != null) {
+                indice.aggiungi(libro);
+            }
+        });
+        EventiCatalogo.registraLibroCreato(libro -> {
+            IndiceApprossimato indice = approssimato;
+            if (indice != null) {
+                indice.aggiungi(libro.id(), libro.titolo(), libro.autori());
+            }
+        });
+        EventiCatalogo.registraCatalogoRicaricato(this::ricostruisciIndici);
+    }
+
+    /**
+     * Ricostruisce gli indici in memoria da un catalogo riletto dal database e li sostituisce a
+     * quelli correnti; le ricerche in corso terminano sugli indici precedenti. L'indice del
+     * catalogo viene sostituito solo se era stato costruito all'avvio. Un libro creato durante la
+     * ricostruzione può non comparire nei nuovi indici fino al ricaricamento successivo.
+     *
+     * @param catalogo il catalogo riletto.
+     */
+    private void ricostruisciIndici(CatalogoLibri catalogo) {
+        if (catalogoIndicizzato != null) {
+            catalogoIndicizzato.sostituisciIndice(IndiceCatalogo.costruisci(catalogo));
+        }
+        IndiceCompletamenti nuoviCompletamenti = creaIndiceCompletamenti(catalogo);
+        if (nuoviCompletamenti != null) {
+            completamenti = nuoviCompletamenti;
+        }
+        IndiceFaccette nuoveFaccette = creaIndiceFaccette(catalogo);
+        if (nuoveFaccette != null) {
+            faccette = nuoveFaccette;
+        }
+        IndiceApprossimato nuovoApprossimato = creaIndiceApprossimato(catalogo);
+        if (nuovoApprossimato != null) {
+            approssimato = nuovoApprossimato;
+        }
+    }
+
+    /**
+     * Avvolge il DAO in una cache, se abilitata.
+     * <p>
+     * Il DAO viene avvolto da una {@link CacheLibriDAO} di
+     * {@code bookrecommender.cache.libri} libri (predefinito 20000, 0 per disabilitarla),
+     * svuotata quando il catalogo viene riletto dal database (vedi {@link EventiCatalogo}) e
+     * precaricata all'avvio, e a ogni ricaricamento, se
+     * {@code bookrecommender.cache.libri.precarica} è {@code true}.
+     *
+     * @param dao      il DAO indicizzato, o quello JDBC.
+     * @param catalogo i libri letti all'avvio, o {@code null}.
+     * @return il DAO da utilizzare.
+     */
+    private static LibroDAO creaDAO(LibroDAO dao, CatalogoLibri catalogo) {
+        int capacita = Integer.getInteger("bookrecommender.cache.libri", 20_000);
+        if (capacita <= 0) {
+            logger.info("Cache dei libri disabilitata");
+            return dao;
+        }
+        CacheLibriDAO cache = new CacheLibriDAO(dao, capacita);
+        boolean precarica = Boolean.getBoolean("bookrecommender.cache.libri.precarica");
+        EventiCatalogo.registraCatalogoRicaricato(ricaricato -> {
+            int rimossi = cache.svuota();
+            logger.info("Catalogo ricaricato: rimossi {} libri dalla cache", rimossi);
+            if (precarica) {
+                cache.precarica(ricaricato);
+            }
+        });
+        if (catalogo != null && precarica) {
+            cache.precarica(catalogo);
+        }
+        logger.info("Cache dei libri attiva (capacità {} libri)", capacita);
+        return cache;
+    }
+
+    /**
+     * Crea il DAO indicizzato, a meno che la proprietà di sistema {@code bookrecommender.indice.catalogo}
+     * sia impostata a {@code false}: in tal caso, o se il catalogo non è disponibile, le ricerche per
+     * titolo e autore usano le sole query SQL.
+     *
+     * @return il DAO indicizzato, o {@code null}.
+     */
+    private static CatalogoIndicizzatoDAO creaDAOCatalogo(JdbcCercaLibriDAO jdbc, CatalogoLibri catalogo) {
+        if (!Boolean.parseBoolean(System.getProperty("bookrecommender.indice.catalogo", "true"))) {
+            logger.info("CercaLibriServiceImpl inizializzato con DAO stateless");
+            return null;
+        }
+        if (catalogo == null) {
+            logger.warn("Catalogo non disponibile, le ricerche useranno solo il database");
+            return null;
+        }
+        IndiceCatalogo indice = IndiceCatalogo.costruisci(catalogo);
+        logger.info("CercaLibriServiceImpl inizializzato con indice del catalogo ({} libri)", indice.size());
+        return new CatalogoIndicizzatoDAO(jdbc, indice);
+    }
+
+    /**
+     * Restituisce le statistiche della cache dei libri, riportate periodicamente nel log da
+     * {@link bookrecommender.server.amministrazione.EsportatoreMetriche}.
+     *
+     * @return le statistiche, o {@code null} se la cache è disabilitata.
+     */
+    public CacheLibriDAO.Statistiche getStatisticheCache() {
+        return libroDAO instanceof CacheLibriDAO cache ? cache.getStatistiche() : null;
+    }
+
+    /**
+     * Costruisce l'indice dei completamenti, a meno che la proprietà di sistema
+     * {@code bookrecommender.completamenti} sia impostata a {@code false}. Se il catalogo non è disponibile,
+     * il servizio funziona senza completamenti.
+     *
+     * @param catalogo i libri letti all'avvio, o {@code null}.
+     * @return l'indice costruito, o {@code null}.
+     */
+    private static IndiceCompletamenti creaIndiceCompletamenti(CatalogoLibri catalogo) {
+        if (!Boolean.parseBoolean(System.getProperty("bookrecommender.completamenti", "true"))) {
+            logger.info("Completamento automatico disabilitato");
+            return null;
+        }
+        if (catalogo == null) {
+            logger.warn("Catalogo non disponibile, il completamento automatico non sarà disponibile");
+            return null;
+        }
+        return IndiceCompletamenti.costruisci(catalogo);
+    }
+
+    /**
+     * Costruisce l'indice delle faccette, a meno che la proprietà di sistema
+     * {@code bookrecommender.faccette} sia impostata a {@code false}. Se il catalogo non è
+     * disponibile, la ricerca per faccette non è disponibile.
+     *
+     * @param catalogo i libri letti all'avvio, o {@code null}.
+     * @return l'indice costruito, o {@code null}.
+     */
+    private static IndiceFaccette creaIndiceFaccette(CatalogoLibri catalogo) {
+        if (!Boolean.parseBoolean(System.getProperty("bookrecommender.faccette", "true"))) {
+            logger.info("Ricerca per faccette disabilitata");
+            return null;
+        }
+        if (catalogo == null) {
+            logger.warn("Catalogo non disponibile, la ricerca per faccette non sarà disponibile");
+            return null;
+        }
+        return IndiceFaccette.costruisci(catalogo);
+    }
+
+    /**
+     * Costruisce l'indice della ricerca approssimata, a meno che la proprietà di sistema
+     * {@code bookrecommender.ricerca.approssimata} sia impostata a {@code false}. Se il catalogo non è
+     * disponibile, le ricerche approssimate usano la somiglianza per trigrammi del database.
+     *
+     * @param catalogo i libri letti all'avvio, o {@code null}.
+     * @return l'indice costruito, o {@code null}.
+     */
+    private static IndiceApprossimato creaIndiceApprossimato(CatalogoLibri catalogo) {
+        if (!Boolean.parseBoolean(System.getProperty("bookrecommender.ricerca.approssimata", "true"))) {
+            logger.info("Indice della ricerca approssimata disabilitato");
+            return null;
+        }
+        if (catalogo == null) {
+            logger.warn("Catalogo non disponibile, le ricerche approssimate useranno il database");
+            return null;
+        }
+        return IndiceApprossimato.costruisci(catalogo);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione risponde dall'{@link IndiceCompletamenti} in memoria, senza accedere
+     * al database. Se l'indice non è disponibile restituisce una lista vuota.
+     */
+    @Override
+    public List<Completamento> getCompletamenti(String prefisso, int limite) throws RemoteException {
+        if (limite < 1 || limite > LIMITE_MASSIMO_COMPLETAMENTI) {
+            throw new RemoteException("Limite dei completamenti non valido: " + limite);
+        }
+        if (completamenti == null || prefisso == null) {
+            return new ArrayList<>();
+        }
+        try {
+            List<Completamento> risultati = completamenti.completa(prefisso, limite);
+            logger.debug("{} completamenti per '{}'", risultati.size(), prefisso);
+            return risultati;
+        } catch (Exception e) {
+            logger.error("Errore durante il calcolo dei completamenti per: " + prefisso, e);
+            throw new RemoteException("Errore durante il calcolo dei completamenti", e);
+        }
     }
 
     /**
@@ -78,9 +307,122 @@ public class CercaLibriServiceImpl extends UnicastRemoteObject implements CercaL
     /**
      * {@inheritDoc}
      * <p>
-     * Questa implementazione delega la ricerca al metodo {@link LibroDAO#getLibroById(int)}.
-     * Qualsiasi eccezione sollevata dal layer di persistenza viene catturata, loggata e
-     * incapsulata in una {@link RemoteException}.
+     * Questa implementazione valida i parametri di paginazione e delega la ricerca al metodo
+     * {@link LibroDAO#cercaLibriPerTitolo(String, int, int)}.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibro_Per_Titolo_Paginato(String titolo, int offset, int limite) throws RemoteException {
+        validaPaginazione(offset, limite);
+        try {
+            logger.info("Ricerca paginata libri per titolo: {} (offset {}, limite {})", titolo, offset, limite);
+            return libroDAO.cercaLibriPerTitolo(titolo, offset, limite);
+        } catch (Exception e) {
+            logger.error("Errore durante la ricerca paginata per titolo: " + titolo, e);
+            throw new RemoteException("Errore durante la ricerca paginata per titolo", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione valida i parametri di paginazione e delega la ricerca al metodo
+     * {@link LibroDAO#cercaLibriPerSimilarita(String, int, int)}.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibro_Per_Similarita(String testo, int offset, int limite) throws RemoteException {
+        validaPaginazione(offset, limite);
+        try {
+            logger.info("Ricerca paginata libri simili a: {} (offset {}, limite {})", testo, offset, limite);
+            return libroDAO.cercaLibriPerSimilarita(testo, offset, limite);
+        } catch (Exception e) {
+            logger.error("Errore durante la ricerca per somiglianza: " + testo, e);
+            throw new RemoteException("Errore durante la ricerca per somiglianza", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione ordina i libri con l'{@link IndiceApprossimato} in memoria e legge
+     * dal database solo la sintesi dei libri della pagina. Se l'indice non è disponibile, delega
+     * a {@link LibroDAO#cercaLibriPerSimilaritaTitolo(String, int, int)}.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibro_Per_Titolo_Approssimato(String titolo, int offset, int limite) throws RemoteException {
+        validaPaginazione(offset, limite);
+        try {
+            logger.info("Ricerca approssimata libri per titolo: {} (offset {}, limite {})", titolo, offset, limite);
+            if (approssimato == null) {
+                return libroDAO.cercaLibriPerSimilaritaTitolo(titolo, offset, limite);
+            }
+            return paginaDiIds(approssimato.cercaPerTitolo(titolo), offset, limite);
+        } catch (Exception e) {
+            logger.error("Errore durante la ricerca approssimata per titolo: " + titolo, e);
+            throw new RemoteException("Errore durante la ricerca approssimata per titolo", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione ordina i libri con l'{@link IndiceApprossimato} in memoria e legge
+     * dal database solo la sintesi dei libri della pagina. Se l'indice non è disponibile, delega
+     * a {@link LibroDAO#cercaLibriPerSimilaritaAutore(String, int, int)}.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibro_Per_Autore_Approssimato(String autore, int offset, int limite) throws RemoteException {
+        validaPaginazione(offset, limite);
+        try {
+            logger.info("Ricerca approssimata libri per autore: {} (offset {}, limite {})", autore, offset, limite);
+            if (approssimato == null) {
+                return libroDAO.cercaLibriPerSimilaritaAutore(autore, offset, limite);
+            }
+            return paginaDiIds(approssimato.cercaPerAutore(autore), offset, limite);
+        } catch (Exception e) {
+            logger.error("Errore durante la ricerca approssimata per autore: " + autore, e);
+            throw new RemoteException("Errore durante la ricerca approssimata per autore", e);
+        }
+    }
+
+    /**
+     * Costruisce una pagina di sintesi a partire dall'elenco ordinato di tutti gli ID trovati,
+     * leggendo dal database solo quelli della pagina richiesta. La fine della pagina è calcolata
+     * in {@code long}, così che un offset vicino a {@link Integer#MAX_VALUE} non causi overflow.
+     * Offset e limite sono già stati validati dal chiamante con {@link #validaPaginazione(int, int)}.
+     */
+    private Pagina<LibroSintesi> paginaDiIds(List<Long> ids, int offset, int limite) {
+        int inizio = Math.min(offset, ids.size());
+        int fine = (int) Math.min((long) offset + limite, ids.size());
+        List<Long> pagina = ids.subList(inizio, fine);
+        List<LibroSintesi> libri = pagina.isEmpty() ? new ArrayList<>() : libroDAO.getSintesiByIds(new ArrayList<>(pagina));
+        logger.info("Trovati {} libri", ids.size());
+        return new Pagina<>(libri, offset, limite, ids.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione valida i parametri di paginazione e delega la ricerca al metodo
+     * {@link LibroDAO#cercaLibriPerTesto(String, int, int)}.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibro_Per_Testo(String testo, int offset, int limite) throws RemoteException {
+        validaPaginazione(offset, limite);
+        try {
+            logger.info("Ricerca paginata full-text: {} (offset {}, limite {})", testo, offset, limite);
+            return libroDAO.cercaLibriPerTesto(testo, offset, limite);
+        } catch (Exception e) {
+            logger.error("Errore durante la ricerca full-text: " + testo, e);
+            throw new RemoteException("Errore durante la ricerca full-text", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione delega la ricerca al metodo {@link LibroDAO#getLibroById(int)},
+     * servito dalla {@link CacheLibriDAO} se attiva. Qualsiasi eccezione sollevata dal layer
+     * di persistenza viene catturata, loggata e incapsulata in una {@link RemoteException}.
      */
     @Override
     public Libro getTitoloLibroById(int id) throws RemoteException {
@@ -116,6 +458,24 @@ public class CercaLibriServiceImpl extends UnicastRemoteObject implements CercaL
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione valida i parametri di paginazione e delega la ricerca al metodo
+     * {@link LibroDAO#cercaLibriPerAutore(String, int, int)}.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibro_Per_Autore_Paginato(String autore, int offset, int limite) throws RemoteException {
+        validaPaginazione(offset, limite);
+        try {
+            logger.info("Ricerca paginata libri per autore: {} (offset {}, limite {})", autore, offset, limite);
+            return libroDAO.cercaLibriPerAutore(autore, offset, limite);
+        } catch (Exception e) {
+            logger.error("Errore durante la ricerca paginata per autore: " + autore, e);
+            throw new RemoteException("Errore durante la ricerca paginata per autore", e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -136,6 +496,80 @@ public class CercaLibriServiceImpl extends UnicastRemoteObject implements CercaL
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione valida l'intervallo e i parametri di paginazione e delega la ricerca
+     * al metodo {@link LibroDAO#cercaLibriPerIntervalloAnni(int, int, int, int)}.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibro_Per_Intervallo_Anni(int annoMin, int annoMax, int offset, int limite) throws RemoteException {
+        validaPaginazione(offset, limite);
+        if (annoMin > annoMax) {
+            throw new RemoteException("Intervallo di anni non valido: " + annoMin + "-" + annoMax);
+        }
+        try {
+            logger.info("Ricerca paginata libri per anni {}-{} (offset {}, limite {})", annoMin, annoMax, offset, limite);
+            return libroDAO.cercaLibriPerIntervalloAnni(annoMin, annoMax, offset, limite);
+        } catch (Exception e) {
+            logger.error("Errore durante la ricerca per anni: " + annoMin + "-" + annoMax, e);
+            throw new RemoteException("Errore durante la ricerca per intervallo di anni", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione valida l'intervallo e i parametri di paginazione e delega la ricerca
+     * al metodo {@link LibroDAO#cercaLibriPerIntervalloPrezzo(BigDecimal, BigDecimal, int, int)}.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibro_Per_Intervallo_Prezzo(BigDecimal prezzoMin, BigDecimal prezzoMax, int offset, int limite) throws RemoteException {
+        validaPaginazione(offset, limite);
+        if (prezzoMin == null || prezzoMax == null || prezzoMin.signum() < 0 || prezzoMin.compareTo(prezzoMax) > 0) {
+            throw new RemoteException("Intervallo di prezzo non valido: " + prezzoMin + "-" + prezzoMax);
+        }
+        try {
+            logger.info("Ricerca paginata libri per prezzo {}-{} (offset {}, limite {})", prezzoMin, prezzoMax, offset, limite);
+            return libroDAO.cercaLibriPerIntervalloPrezzo(prezzoMin, prezzoMax, offset, limite);
+        } catch (Exception e) {
+            logger.error("Errore durante la ricerca per prezzo: " + prezzoMin + "-" + prezzoMax, e);
+            throw new RemoteException("Errore durante la ricerca per intervallo di prezzo", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione calcola i risultati e i conteggi dall'{@link IndiceFaccette} in
+     * memoria e legge dal database solo la sintesi dei libri della pagina, tramite
+     * {@link LibroDAO#getSintesiByIds(List)}.
+     */
+    @Override
+    public RisultatoFaccettato cercaLibro_Per_Faccette(FiltriRicerca filtri, int offset, int limite) throws RemoteException {
+        validaPaginazione(offset, limite);
+        if (filtri == null) {
+            throw new RemoteException("I filtri non possono essere null");
+        }
+        if (filtri.annoMin() != null && filtri.annoMax() != null && filtri.annoMin() > filtri.annoMax()) {
+            throw new RemoteException("Intervallo di anni non valido: " + filtri.annoMin() + "-" + filtri.annoMax());
+        }
+        if (faccette == null) {
+            throw new RemoteException("La ricerca per faccette non è disponibile");
+        }
+        try {
+            logger.info("Ricerca per faccette {} (offset {}, limite {})", filtri, offset, limite);
+            IndiceFaccette.Risultato risultato = faccette.cerca(filtri, offset, limite, NUMERO_VALORI_FACCETTA);
+            List<LibroSintesi> libri = libroDAO.getSintesiByIds(risultato.ids());
+            logger.info("Trovati {} libri per faccette", risultato.totale());
+            return new RisultatoFaccettato(new Pagina<>(libri, offset, limite, risultato.totale()),
+                    risultato.categorie(), risultato.editori(), risultato.anni());
+        } catch (Exception e) {
+            logger.error("Errore durante la ricerca per faccette: " + filtri, e);
+            throw new RemoteException("Errore durante la ricerca per faccette", e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -155,4 +589,62 @@ public class CercaLibriServiceImpl extends UnicastRemoteObject implements CercaL
             throw new RemoteException("Errore durante la ricerca per ID", e);
         }
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione delega la ricerca al metodo {@link LibroDAO#getLibriByIds(List)}.
+     * Qualsiasi eccezione sollevata dal layer di persistenza viene catturata, loggata e
+     * incapsulata in una {@link RemoteException}.
+     */
+    @Override
+    public List<Libro> getLibriByIds(List<Long> ids) throws RemoteException {
+        if (ids == null) {
+            throw new RemoteException("La lista degli ID non può essere null");
+        }
+        try {
+            List<Libro> risultati = libroDAO.getLibriByIds(ids);
+            logger.info("Recuperati {} libri su {} ID richiesti", risultati.size(), ids.size());
+            return risultati;
+        } catch (Exception e) {
+            logger.error("Errore durante il recupero di " + ids.size() + " libri per ID", e);
+            throw new RemoteException("Errore durante il recupero dei libri per ID", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione delega la ricerca al metodo {@link LibroDAO#getSintesiByIds(List)}.
+     * Qualsiasi eccezione sollevata dal layer di persistenza viene catturata, loggata e
+     * incapsulata in una {@link RemoteException}.
+     */
+    @Override
+    public List<LibroSintesi> getSintesiLibriByIds(List<Long> ids) throws RemoteException {
+        if (ids == null) {
+            throw new RemoteException("La lista degli ID non può essere null");
+        }
+        try {
+            List<LibroSintesi> risultati = libroDAO.getSintesiByIds(ids);
+            logger.info("Recuperata la sintesi di {} libri su {} ID richiesti", risultati.size(), ids.size());
+            return risultati;
+        } catch (Exception e) {
+            logger.error("Errore durante il recupero della sintesi di " + ids.size() + " libri per ID", e);
+            throw new RemoteException("Errore durante il recupero della sintesi dei libri per ID", e);
+        }
+    }
+
+    /**
+     * Verifica che i parametri di paginazione siano nei limiti consentiti.
+     *
+     * @param offset la posizione del primo risultato richiesto.
+     * @param limite il numero massimo di risultati richiesti.
+     * @throws RemoteException se l'offset è negativo o il limite non è compreso tra 1
+     *                         e {@link CercaLibriService#LIMITE_MASSIMO_PAGINA}.
+     */
+    private static void validaPaginazione(int offset, int limite) throws RemoteException {
+        if (offset < 0 || limite < 1 || limite > LIMITE_MASSIMO_PAGINA) {
+            throw new RemoteException("Parametri di paginazione non validi: offset " + offset + ", limite " + limite);
+        }
+    }
 }
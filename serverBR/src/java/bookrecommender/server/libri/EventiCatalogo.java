@@ -0,0 +1,98 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.condivisi.libri.Libro;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Punto di notifica degli eventi del catalogo dei libri.
+ * <p>
+ * Permette alle strutture in memoria del server che derivano dal catalogo (es. gli indici
+ * del motore di raccomandazione) di essere aggiornate quando un libro viene aggiunto, senza
+ * che i DAO debbano conoscerle. {@link JdbcCercaLibriDAO#creaLibro(String, String, String, String, String, String)}
+ * notifica ogni libro creato con successo.
+ * <p>
+ * Quando il catalogo viene modificato dall'esterno del server (ad esempio con l'aggiornamento
+ * incrementale di DBCreatorBR), {@link AscoltatoreCatalogo} lo rilegge e lo notifica con
+ * {@link #catalogoRicaricato(CatalogoLibri)}, così che le strutture in memoria siano ricostruite.
+ * <p>
+ * Gli ascoltatori sono invocati in modo sincrono sul thread che ha generato l'evento: quelli
+ * dei libri creati devono quindi essere rapidi. Un'eccezione sollevata da un ascoltatore viene registrata
+ * nel log e non impedisce la notifica agli altri.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see JdbcCercaLibriDAO
+ * @version 1.0
+ */
+public final class EventiCatalogo {
+    private static final Logger logger = LogManager.getLogger(EventiCatalogo.class);
+
+    private static final List<Consumer<Libro>> ascoltatoriLibriCreati = new CopyOnWriteArrayList<>();
+    private static final List<Consumer<CatalogoLibri>> ascoltatoriCatalogoRicaricato = new CopyOnWriteArrayList<>();
+
+    private EventiCatalogo() {
+    }
+
+    /**
+     * Registra un ascoltatore da notificare per ogni libro creato.
+     *
+     * @param ascoltatore l'ascoltatore da registrare.
+     */
+    public static void registraLibroCreato(Consumer<Libro> ascoltatore) {
+        ascoltatoriLibriCreati.add(ascoltatore);
+    }
+
+    /**
+     * Rimuove un ascoltatore registrato in precedenza.
+     *
+     * @param ascoltatore l'ascoltatore da rimuovere.
+     */
+    public static void rimuoviLibroCreato(Consumer<Libro> ascoltatore) {
+        ascoltatoriLibriCreati.remove(ascoltatore);
+    }
+
+    /**
+     * Notifica a tutti gli ascoltatori la creazione di un libro.
+     *
+     * @param libro il libro creato.
+     */
+    static void libroCreato(Libro libro) {
+        for (Consumer<Libro> ascoltatore : ascoltatoriLibriCreati) {
+            try {
+                ascoltatore.accept(libro);
+            } catch (RuntimeException e) {
+                logger.error("Errore nella notifica della creazione del libro " + libro.id(), e);
+            }
+        }
+    }
+
+    /**
+     * Registra un ascoltatore da notificare quando il catalogo viene riletto dal database.
+     *
+     * @param ascoltatore l'ascoltatore da registrare.
+     */
+    public static void registraCatalogoRicaricato(Consumer<CatalogoLibri> ascoltatore) {
+        ascoltatoriCatalogoRicaricato.add(ascoltatore);
+    }
+
+    /**
+     * Notifica a tutti gli ascoltatori che il catalogo è stato riletto dal database.
+     *
+     * @param catalogo il catalogo riletto.
+     */
+    static void catalogoRicaricato(CatalogoLibri catalogo) {
+        for (Consumer<CatalogoLibri> ascoltatore : ascoltatoriCatalogoRicaricato) {
+            try {
+                ascoltatore.accept(catalogo);
+            } catch (RuntimeException e) {
+                logger.error("Errore nella notifica del ricaricamento del catalogo", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.condivisi.libri.Libro;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Indice in memoria per la ricerca approssimata, tollerante agli errori di battitura, su
+ * titolo e autori.
+ * <p>
+ * Il campo autori ha la forma {@code "By Colton, Larry"}, mentre gli utenti scrivono
+ * {@code "larry colton"} o sbagliano qualche lettera: la {@code LIKE} della ricerca esatta non
+ * trova questi libri. Qui ogni campo è diviso in parole normalizzate (minuscole, senza accenti,
+ * senza il prefisso {@code "By"} e le sigle dei ruoli come {@code "(COM)"}), e un libro
+ * corrisponde se <em>ogni</em> parola cercata, in qualsiasi ordine, coincide con una sua parola
+ * a meno di una distanza di modifica limitata (Levenshtein, con lo scambio di lettere
+ * adiacenti contato come una modifica): 0 per parole fino a 3 caratteri,
+ * 1 fino a 7, 2 oltre.
+ * <p>
+ * Le parole distinte di un campo formano un vocabolario indicizzato per trigrammi
+ * ({@link IndiceCatalogo.IndiceTrigrammi}): i candidati di una parola cercata sono le parole che
+ * condividono abbastanza trigrammi con essa, e solo su questi si calcola la distanza. Ogni
+ * parola del vocabolario ha l'elenco ordinato dei libri che la contengono.
+ * <p>
+ * Il punteggio di un libro è la somma delle somiglianze delle parole cercate con le parole
+ * trovate, meno una piccola penalità per le parole del campo non cercate; i risultati sono
+ * ordinati per punteggio decrescente e, a parità, per titolo.
+ * <p>
+ * Come in {@link IndiceCatalogo}, la struttura principale è immutabile e i libri creati dopo il
+ * caricamento (vedi {@link #aggiungi(long, String, String)}) finiscono in un segmento
+ * copy-on-write, confrontato parola per parola.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see IndiceCatalogo
+ * @version 1.0
+ */
+public final class IndiceApprossimato {
+    private static final Logger logger = LogManager.getLogger(IndiceApprossimato.class);
+
+
+    /** Numero massimo di parole considerate nel testo cercato. */
+    static final int MAX_PAROLE_RICERCA = 8;
+    /** Somiglianza di una parola identica a quella cercata. */
+    private static final int SOMIGLIANZA_MASSIMA = 1_000;
+
+    private static final Pattern NON_ALFANUMERICO = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern SEGNI_DIACRITICI = Pattern.compile("\\p{M}+");
+    /** Sigle dei ruoli tra parentesi nel campo autori, ad esempio {@code "(COM)"} o {@code "(EDT)"}. */
+    private static final Pattern RUOLI = Pattern.compile("\\([^)]*\\)");
+
+    private final long[] ids;
+    private final Campo titoli;
+    private final Campo autori;
+    private volatile Voce[] aggiunte = new Voce[0];
+
+    private IndiceApprossimato(long[] ids, Campo titoli, Campo autori) {
+        this.ids = ids;
+        this.titoli = titoli;
+        this.autori = autori;
+    }
+
+    /**
+     * Costruisce l'indice con id, titolo e autori dei libri del catalogo, nell'ordine del catalogo.
+     *
+     * @param catalogo i libri letti dal database.
+     * @return l'indice costruito.
+     */
+    public static IndiceApprossimato costruisci(CatalogoLibri catalogo) {
+        long inizio = System.nanoTime();
+        long[] ids = new long[catalogo.size()];
+        String[] titoli = new String[ids.length];
+        String[] autori = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Libro libro = catalogo.libro(i);
+            ids[i] = libro.id();
+            titoli[i] = libro.titolo();
+            autori[i] = libro.autori();
+        }
+        IndiceApprossimato indice = costruisci(ids, titoli, autori);
+        logger.info("Indice della ricerca approssimata costruito: {} libri, {} parole nei titoli e {} negli autori in {} ms",
+                ids.length, indice.titoli.vocabolario.length, indice.autori.vocabolario.length,
+                (System.nanoTime() - inizio) / 1_000_000);
+        return indice;
+    }
+
+    /**
+     * Costruisce l'indice da array paralleli già in memoria, ordinati per titolo.
+     *
+     * @param ids    gli ID dei libri.
+     * @param titoli i titoli.
+     * @param autori i campi autori.
+     * @return l'indice costruito.
+     */
+    static IndiceApprossimato costruisci(long[] ids, String[] titoli, String[] autori) {
+        String[][] paroleTitoli = new String[ids.length][];
+        String[][] paroleAutori = new String[ids.length][];
+        for (int i = 0; i < ids.length; i++) {
+            paroleTitoli[i] = parole(titoli[i], false);
+            paroleAutori[i] = parole(autori[i], true);
+        }
+        return new IndiceApprossimato(ids, new Campo(paroleTitoli), new Campo(paroleAutori));
+    }
+
+    /**
+     * Cerca i libri il cui titolo corrisponde, in modo approssimato, al testo indicato.
+     *
+     * @param testo il testo cercato.
+     * @return gli ID dei libri trovati, in ordine di punteggio decrescente.
+     */
+    public List<Long> cercaPerTitolo(String testo) {
+        return cerca(parole(testo, false), titoli, false);
+    }
+
+    /**
+     * Cerca i libri i cui autori corrispondono, in modo approssimato e in qualsiasi ordine,
+     * alle parole indicate.
+     *
+     * @param testo il testo cercato, ad esempio {@code "larry colton"}.
+     * @return gli ID dei libri trovati, in ordine di punteggio decrescente.
+     */
+    public List<Long> cercaPerAutore(String testo) {
+        return cerca(parole(testo, true), autori, true);
+    }
+
+    /**
+     * Aggiunge all'indice un libro creato dopo il caricamento iniziale.
+     *
+     * @param id     l'ID del libro.
+     * @param titolo il titolo del libro.
+     * @param autori il campo autori del libro.
+     */
+    public synchronized void aggiungi(long id, String titolo, String autori) {
+        Voce[] nuove = Arrays.copyOf(aggiunte, aggiunte.length + 1);
+        nuove[nuove.length - 1] = new Voce(id, parole(titolo, false), parole(autori, true));
+        aggiunte = nuove;
+    }
+
+    /**
+     * Restituisce il numero di libri indicizzati, compresi quelli aggiunti dopo il caricamento.
+     *
+     * @return il numero di libri.
+     */
+    public int size() {
+        return ids.length + aggiunte.length;
+    }
+
+    private List<Long> cerca(String[] cercate, Campo campo, boolean campoAutori) {
+        List<Long> risultati = new ArrayList<>();
+        if (cercate.length == 0) {
+            return risultati;
+        }
+        if (cercate.length > MAX_PAROLE_RICERCA) {
+            cercate = Arrays.copyOf(cercate, MAX_PAROLE_RICERCA);
+        }
+        long[] chiavi = campo.cerca(cercate);
+
+        Voce[] extra = aggiunte;
+        int trovate = chiavi.length;
+        for (int i = 0; i < extra.length; i++) {
+            String[] paroleLibro = campoAutori ? extra[i].autori() : extra[i].titolo();
+            int punteggio = punteggio(cercate, paroleLibro);
+            if (punteggio >= 0) {
+                if (trovate == chiavi.length) {
+                    chiavi = Arrays.copyOf(chiavi, Math.max(4, chiavi.length * 2));
+                }
+                chiavi[trovate++] = chiave(punteggio, ids.length + i);
+            }
+        }
+        Arrays.sort(chiavi, 0, trovate);
+        for (int i = 0; i < trovate; i++) {
+            int doc = (int) chiavi[i];
+            risultati.add(doc < ids.length ? ids[doc] : extra[doc - ids.length].id());
+        }
+        return risultati;
+    }
+
+    /**
+     * Calcola il punteggio di un libro aggiunto confrontando direttamente le sue parole.
+     *
+     * @return il punteggio, o -1 se qualche parola cercata non ha corrispondenze.
+     */
+    private static int punteggio(String[] cercate, String[] paroleLibro) {
+        int somma = 0;
+        for (String cercata : cercate) {
+            int soglia = soglia(cercata.length());
+            int migliore = -1;
+            for (String parola : paroleLibro) {
+                int d = distanza(cercata, parola, soglia);
+                if (d <= soglia) {
+                    migliore = Math.max(migliore, somiglianza(cercata, parola, d));
+                }
+            }
+            if (migliore < 0) {
+                return -1;
+            }
+            somma += migliore;
+        }
+        return combina(somma, cercate.length, paroleLibro.length);
+    }
+
+    /**
+     * Combina la somma delle somiglianze con la penalità per le parole del campo non cercate.
+     */
+    private static int combina(int somma, int cercate, int paroleLibro) {
+        return somma - Math.min(Math.max(paroleLibro - cercate, 0), 9) * 10;
+    }
+
+    /**
+     * Codifica punteggio e documento in una chiave che, in ordine crescente, mette prima i
+     * punteggi più alti e, a parità, i documenti in ordine di titolo.
+     */
+    private static long chiave(int punteggio, int doc) {
+        return ((long) (MAX_PAROLE_RICERCA * SOMIGLIANZA_MASSIMA - punteggio) << 32) | doc;
+    }
+
+    /**
+     * Restituisce la distanza di modifica massima ammessa per una parola cercata della lunghezza indicata.
+     */
+    static int soglia(int lunghezza) {
+        return lunghezza <= 3 ? 0 : lunghezza <= 7 ? 1 : 2;
+    }
+
+    private static int somiglianza(String cercata, String parola, int distanza) {
+        return SOMIGLIANZA_MASSIMA - distanza * SOMIGLIANZA_MASSIMA / Math.max(cercata.length(), parola.length());
+    }
+
+    /**
+     * Calcola la distanza di modifica tra due parole, fermandosi appena supera la soglia. Oltre a
+     * inserimenti, cancellazioni e sostituzioni, lo scambio di due lettere adiacenti (un errore di
+     * battitura frequente, come {@code "tolkein"}) costa una sola modifica.
+     *
+     * @return la distanza, o {@code soglia + 1} se è maggiore della soglia.
+     */
+    static int distanza(String a, String b, int soglia) {
+        if (Math.abs(a.length() - b.length()) > soglia) {
+            return soglia + 1;
+        }
+        if (soglia == 0) {
+            return a.equals(b) ? 0 : 1;
+        }
+        int[] dueRigheFa = new int[b.length() + 1];
+        int[] precedente = new int[b.length() + 1];
+        int[] corrente = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            precedente[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            corrente[0] = i;
+            int minimoRiga = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = c == b.charAt(j - 1) ? 0 : 1;
+                int valore = Math.min(Math.min(corrente[j - 1] + 1, precedente[j] + 1), precedente[j - 1] + costo);
+                if (i > 1 && j > 1 && c == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    valore = Math.min(valore, dueRigheFa[j - 2] + 1);
+                }
+                corrente[j] = valore;
+                minimoRiga = Math.min(minimoRiga, valore);
+            }
+            if (minimoRiga > soglia) {
+                return soglia + 1;
+            }
+            int[] t = dueRigheFa;
+            dueRigheFa = precedente;
+            precedente = corrente;
+            corrente = t;
+        }
+        return Math.min(precedente[b.length()], soglia + 1);
+    }
+
+    /**
+     * Divide un testo nelle sue parole distinte normalizzate: minuscole, senza accenti e senza
+     * punteggiatura. Per il campo autori vengono tolti anche il prefisso {@code "By"}, le sigle
+     * dei ruoli tra parentesi e il separatore {@code "and"}.
+     */
+    static String[] parole(String testo, boolean campoAutori) {
+        if (testo == null || testo.isBlank()) {
+            return new String[0];
+        }
+        String t = testo.strip();
+        if (campoAutori) {
+            if (t.regionMatches(true, 0, "By ", 0, 3)) {
+                t = t.substring(3);
+            }
+            t = RUOLI.matcher(t).replaceAll(" ");
+        }
+        t = SEGNI_DIACRITICI.matcher(Normalizer.normalize(t, Normalizer.Form.NFD)).replaceAll("");
+        Set<String> parole = new LinkedHashSet<>();
+        for (String parola : NON_ALFANUMERICO.split(t.toLowerCase(Locale.ROOT))) {
+            if (!parola.isEmpty() && !(campoAutori && parola.equals("and"))) {
+                parole.add(parola);
+            }
+        }
+        return parole.toArray(new String[0]);
+    }
+
+    /**
+     * Libro aggiunto all'indice dopo il caricamento iniziale, con le parole già normalizzate.
+     */
+    private record Voce(long id, String[] titolo, String[] autori) { }
+
+    /**
+     * Vocabolario e liste dei documenti di uno dei due campi.
+     */
+    private static final class Campo {
+        /** Parole distinte del campo, in ordine alfabetico: la posizione è il codice della parola. */
+        private final String[] vocabolario;
+        /** Trigrammi delle parole del vocabolario, delimitate da spazi. */
+        private final IndiceCatalogo.IndiceTrigrammi trigrammi;
+        /** Per ogni parola, i documenti che la contengono in ordine crescente. */
+        private final int[][] documenti;
+        /** Numero di parole di ogni documento. */
+        private final byte[] numeroParole;
+
+        Campo(String[][] paroleDi) {
+            Map<String, Integer> provvisori = new HashMap<>();
+            for (String[] parole : paroleDi) {
+                for (String parola : parole) {
+                    provvisori.putIfAbsent(parola, provvisori.size());
+                }
+            }
+            vocabolario = provvisori.keySet().toArray(new String[0]);
+            Arrays.sort(vocabolario);
+            int[] codice = new int[vocabolario.length];
+            for (int i = 0; i < vocabolario.length; i++) {
+                codice[provvisori.get(vocabolario[i])] = i;
+            }
+
+            int[] conteggi = new int[vocabolario.length];
+            numeroParole = new byte[paroleDi.length];
+            for (int doc = 0; doc < paroleDi.length; doc++) {
+                numeroParole[doc] = (byte) Math.min(paroleDi[doc].length, Byte.MAX_VALUE);
+                for (String parola : paroleDi[doc]) {
+                    conteggi[codice[provvisori.get(parola)]]++;
+                }
+            }
+            documenti = new int[vocabolario.length][];
+            for (int i = 0; i < vocabolario.length; i++) {
+                documenti[i] = new int[conteggi[i]];
+            }
+            int[] riempiti = new int[vocabolario.length];
+            for (int doc = 0; doc < paroleDi.length; doc++) {
+                for (String parola : paroleDi[doc]) {
+                    int c = codice[provvisori.get(parola)];
+                    documenti[c][riempiti[c]++] = doc;
+                }
+            }
+
+            String[] delimitate = new String[vocabolario.length];
+            for (int i = 0; i < vocabolario.length; i++) {
+                delimitate[i] = delimita(vocabolario[i]);
+            }
+            trigrammi = new IndiceCatalogo.IndiceTrigrammi(delimitate);
+        }
+
+        /**
+         * Restituisce le chiavi (punteggio e documento codificati in un {@code long})
+         * dei documenti in cui ogni parola cercata ha una corrispondenza.
+         */
+        long[] cerca(String[] cercate) {
+            int[][] docs = new int[cercate.length][];
+            int[][] somiglianze = new int[cercate.length][];
+            for (int q = 0; q < cercate.length; q++) {
+                if (!corrispondenze(cercate[q], q, docs, somiglianze)) {
+                    return new long[0];
+                }
+            }
+
+            // intersezione partendo dalla parola con meno documenti, sommando le somiglianze
+            Integer[] ordine = new Integer[cercate.length];
+            for (int q = 0; q < ordine.length; q++) {
+                ordine[q] = q;
+            }
+            Arrays.sort(ordine, (a, b) -> Integer.compare(docs[a].length, docs[b].length));
+            int[] correnti = docs[ordine[0]].clone();
+            int[] somme = somiglianze[ordine[0]].clone();
+            int n = correnti.length;
+            for (int k = 1; k < ordine.length && n > 0; k++) {
+                int[] altri = docs[ordine[k]];
+                int[] altreSomiglianze = somiglianze[ordine[k]];
+                int m = 0;
+                int j = 0;
+                for (int i = 0; i < n && j < altri.length; i++) {
+                    while (j < altri.length && altri[j] < correnti[i]) {
+                        j++;
+                    }
+                    if (j < altri.length && altri[j] == correnti[i]) {
+                        correnti[m] = correnti[i];
+                        somme[m++] = somme[i] + altreSomiglianze[j];
+                    }
+                }
+                n = m;
+            }
+
+            long[] chiavi = new long[n];
+            for (int i = 0; i < n; i++) {
+                int doc = correnti[i];
+                chiavi[i] = chiave(combina(somme[i], cercate.length, numeroParole[doc]), doc);
+            }
+            return chiavi;
+        }
+
+        /**
+         * Trova le parole del vocabolario vicine alla parola cercata e ne unisce i documenti,
+         * tenendo per ogni documento la somiglianza migliore.
+         *
+         * @return {@code false} se la parola non ha alcuna corrispondenza.
+         */
+        private boolean corrispondenze(String cercata, int q, int[][] docs, int[][] somiglianze) {
+            int soglia = soglia(cercata.length());
+            List<int[]> parole = new ArrayList<>();
+            if (soglia == 0) {
+                int codice = Arrays.binarySearch(vocabolario, cercata);
+                if (codice >= 0) {
+                    parole.add(new int[]{codice, SOMIGLIANZA_MASSIMA});
+                }
+            } else {
+                String delimitata = delimita(cercata);
+                // ogni modifica altera al più quattro trigrammi: le parole vicine ne condividono almeno tanti
+                int minimo = Math.max(1, IndiceCatalogo.IndiceTrigrammi.trigrammiDistinti(delimitata).length - 4 * soglia);
+                for (int codice : trigrammi.condivisi(delimitata, minimo)) {
+                    int d = distanza(cercata, vocabolario[codice], soglia);
+                    if (d <= soglia) {
+                        parole.add(new int[]{codice, somiglianza(cercata, vocabolario[codice], d)});
+                    }
+                }
+            }
+            if (parole.isEmpty()) {
+                return false;
+            }
+
+            int totale = 0;
+            for (int[] parola : parole) {
+                totale += documenti[parola[0]].length;
+            }
+            // documento nei 32 bit alti, somiglianza mancante nei bassi: il primo di ogni documento è il migliore
+            long[] coppie = new long[totale];
+            int n = 0;
+            for (int[] parola : parole) {
+                for (int doc : documenti[parola[0]]) {
+                    coppie[n++] = ((long) doc << 32) | (SOMIGLIANZA_MASSIMA - parola[1]);
+                }
+            }
+            if (parole.size() > 1) {
+                Arrays.sort(coppie);
+            }
+            int[] d = new int[totale];
+            int[] s = new int[totale];
+            int m = 0;
+            for (long coppia : coppie) {
+                int doc = (int) (coppia >>> 32);
+                if (m == 0 || d[m - 1] != doc) {
+                    d[m] = doc;
+                    s[m++] = SOMIGLIANZA_MASSIMA - (int) coppia;
+                }
+            }
+            docs[q] = Arrays.copyOf(d, m);
+            somiglianze[q] = Arrays.copyOf(s, m);
+            return true;
+        }
+
+        private static String delimita(String parola) {
+            return " " + parola + " ";
+        }
+    }
+}
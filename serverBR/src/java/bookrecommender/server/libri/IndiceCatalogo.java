@@ -0,0 +1,398 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.server.utili.MappaLongInt;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Indice in memoria del catalogo per la ricerca per sottostringa su titolo e autori.
+ * <p>
+ * Le query {@code LOWER(col) LIKE '%x%'} non possono usare gli indici btree su
+ * {@code titolo} e {@code autori}, per cui ogni ricerca sul database è una scansione
+ * completa della tabella {@code Libri}. Questa classe prende all'avvio del server, dal
+ * {@link CatalogoLibri}, id, titolo e autori di tutti i libri e costruisce, per ciascuno dei due campi, un
+ * indice invertito di trigrammi con le posting list memorizzate in array di {@code int}.
+ * <p>
+ * Una ricerca interseca le posting list dei trigrammi della stringa cercata e verifica
+ * i candidati con un confronto {@code contains} sul testo normalizzato (minuscolo), per
+ * cui la semantica coincide con quella della {@code LIKE} case-insensitive. Le stringhe
+ * più corte di un trigramma vengono cercate con una scansione lineare dei testi in memoria.
+ * <p>
+ * I libri sono letti con {@code ORDER BY titolo, id} e numerati nell'ordine restituito dal
+ * database, come in {@link IndiceFaccette}: i risultati sono quindi già nell'ordine delle query
+ * paginate di {@link JdbcCercaLibriDAO}, secondo la collation del database, e una pagina si
+ * ottiene scorrendo i documenti corrispondenti senza ordinarli né costruire l'elenco completo
+ * (vedi {@link #cercaPerTitolo(String, int, int)}). I libri aggiunti dopo il caricamento (vedi
+ * {@link #aggiungi(long, String, String)}) finiscono in un segmento separato, scandito linearmente,
+ * e compaiono dopo quelli caricati all'avvio, e non in ordine di titolo, fino al caricamento successivo.
+ * <p>
+ * La struttura principale è immutabile dopo la costruzione; il segmento dei nuovi libri
+ * è copy-on-write, per cui le ricerche non richiedono sincronizzazione.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see CatalogoIndicizzatoDAO
+ * @version 1.0
+ */
+public final class IndiceCatalogo {
+    private static final Logger logger = LogManager.getLogger(IndiceCatalogo.class);
+
+
+    private final long[] ids;
+    private final String[] titoli;
+    private final String[] autori;
+    private final IndiceTrigrammi indiceTitoli;
+    private final IndiceTrigrammi indiceAutori;
+    private volatile Voce[] aggiunti = new Voce[0];
+
+    /**
+     * Costruisce l'indice a partire da array paralleli, nell'ordine in cui i libri devono essere restituiti.
+     *
+     * @param ids    gli ID dei libri.
+     * @param titoli i titoli normalizzati.
+     * @param autori gli autori normalizzati.
+     */
+    private IndiceCatalogo(long[] ids, String[] titoli, String[] autori) {
+        this.ids = ids;
+        this.titoli = titoli;
+        this.autori = autori;
+        this.indiceTitoli = new IndiceTrigrammi(titoli);
+        this.indiceAutori = new IndiceTrigrammi(autori);
+    }
+
+    /**
+     * Costruisce l'indice con id, titolo e autori dei libri del catalogo, numerati nell'ordine
+     * del catalogo (titolo e ID, come restituiti dal database).
+     *
+     * @param catalogo i libri letti dal database.
+     * @return l'indice costruito.
+     */
+    public static IndiceCatalogo costruisci(CatalogoLibri catalogo) {
+        long inizio = System.nanoTime();
+        long[] ids = new long[catalogo.size()];
+        String[] titoli = new String[ids.length];
+        String[] autori = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Libro libro = catalogo.libro(i);
+            ids[i] = libro.id();
+            titoli[i] = normalizza(libro.titolo());
+            autori[i] = normalizza(libro.autori());
+        }
+        IndiceCatalogo indice = new IndiceCatalogo(ids, titoli, autori);
+        logger.info("Indice del catalogo costruito: {} libri in {} ms", ids.length,
+                (System.nanoTime() - inizio) / 1_000_000);
+        return indice;
+    }
+
+    /**
+     * Costruisce l'indice da elenchi già in memoria, un elemento per libro, nell'ordine in cui
+     * i libri devono essere restituiti.
+     *
+     * @param ids    gli ID dei libri.
+     * @param titoli i titoli dei libri.
+     * @param autori i campi autori dei libri, nello stesso ordine.
+     * @return l'indice costruito.
+     */
+    static IndiceCatalogo costruisci(long[] ids, String[] titoli, String[] autori) {
+        String[] titoliNormalizzati = new String[titoli.length];
+        String[] autoriNormalizzati = new String[autori.length];
+        for (int i = 0; i < titoli.length; i++) {
+            titoliNormalizzati[i] = normalizza(titoli[i]);
+            autoriNormalizzati[i] = normalizza(autori[i]);
+        }
+        return new IndiceCatalogo(ids.clone(), titoliNormalizzati, autoriNormalizzati);
+    }
+
+    /**
+     * Cerca i libri il cui titolo contiene la stringa indicata (case-insensitive).
+     *
+     * @param testo il testo da cercare.
+     * @return gli ID di tutti i libri trovati, ordinati per titolo.
+     */
+    public List<Long> cercaPerTitolo(String testo) {
+        return cerca(normalizza(testo), titoli, indiceTitoli, true, 0, Integer.MAX_VALUE).ids();
+    }
+
+    /**
+     * Cerca i libri il cui titolo contiene la stringa indicata (case-insensitive) e restituisce
+     * solo quelli della pagina richiesta, insieme al numero totale dei risultati.
+     *
+     * @param testo  il testo da cercare.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return gli ID della pagina, ordinati per titolo, e il numero totale dei risultati.
+     */
+    public Risultato cercaPerTitolo(String testo, int offset, int limite) {
+        return cerca(normalizza(testo), titoli, indiceTitoli, true, offset, limite);
+    }
+
+    /**
+     * Cerca i libri il cui campo autori contiene la stringa indicata (case-insensitive).
+     *
+     * @param testo il testo da cercare.
+     * @return gli ID di tutti i libri trovati, ordinati per titolo.
+     */
+    public List<Long> cercaPerAutore(String testo) {
+        return cerca(normalizza(testo), autori, indiceAutori, false, 0, Integer.MAX_VALUE).ids();
+    }
+
+    /**
+     * Cerca i libri il cui campo autori contiene la stringa indicata (case-insensitive) e
+     * restituisce solo quelli della pagina richiesta, insieme al numero totale dei risultati.
+     *
+     * @param testo  il testo da cercare.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return gli ID della pagina, ordinati per titolo, e il numero totale dei risultati.
+     */
+    public Risultato cercaPerAutore(String testo, int offset, int limite) {
+        return cerca(normalizza(testo), autori, indiceAutori, false, offset, limite);
+    }
+
+    /**
+     * Aggiunge all'indice un libro inserito dopo il caricamento iniziale.
+     *
+     * @param id     l'ID del libro.
+     * @param titolo il titolo del libro.
+     * @param autori gli autori del libro.
+     */
+    public synchronized void aggiungi(long id, String titolo, String autori) {
+        Voce[] correnti = aggiunti;
+        Voce[] nuovi = Arrays.copyOf(correnti, correnti.length + 1);
+        nuovi[correnti.length] = new Voce(id, normalizza(titolo), normalizza(autori));
+        aggiunti = nuovi;
+    }
+
+    /**
+     * Restituisce il numero di libri presenti nell'indice.
+     *
+     * @return il numero di libri indicizzati.
+     */
+    public int size() {
+        return ids.length + aggiunti.length;
+    }
+
+    /**
+     * Esegue la ricerca su uno dei due campi indicizzati, seguita da quella nel segmento dei libri
+     * aggiunti dopo il caricamento. I documenti corrispondenti sono contati tutti, ma solo quelli
+     * della pagina vengono conservati.
+     */
+    private Risultato cerca(String q, String[] testi, IndiceTrigrammi indice, boolean campoTitolo, int offset, int limite) {
+        long fine = (long) offset + limite;
+        List<Long> pagina = new ArrayList<>();
+        int totale = 0;
+        // con meno di un trigramma la ricerca scorre tutti i testi
+        int[] candidati = q.length() < IndiceTrigrammi.N ? null : indice.candidati(q);
+        int n = candidati == null ? testi.length : candidati.length;
+        for (int i = 0; i < n; i++) {
+            int doc = candidati == null ? i : candidati[i];
+            if (testi[doc].contains(q)) {
+                if (totale >= offset && totale < fine) {
+                    pagina.add(ids[doc]);
+                }
+                totale++;
+            }
+        }
+        for (Voce v : aggiunti) {
+            if ((campoTitolo ? v.titolo : v.autori).contains(q)) {
+                if (totale >= offset && totale < fine) {
+                    pagina.add(v.id);
+                }
+                totale++;
+            }
+        }
+        return new Risultato(pagina, totale);
+    }
+
+    /**
+     * Normalizza un testo per la ricerca: {@code null} diventa stringa vuota, il resto
+     * viene convertito in minuscolo.
+     */
+    static String normalizza(String testo) {
+        return testo == null ? "" : testo.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Risultato di una ricerca paginata nell'indice.
+     *
+     * @param ids    gli ID dei libri della pagina richiesta, in ordine.
+     * @param totale il numero totale dei risultati.
+     */
+    public record Risultato(List<Long> ids, int totale) { }
+
+    /**
+     * Libro aggiunto all'indice dopo il caricamento iniziale.
+     */
+    private record Voce(long id, String titolo, String autori) { }
+
+    /**
+     * Indice invertito di trigrammi su un array di testi normalizzati.
+     * <p>
+     * Ogni trigramma è codificato in un {@code long} (tre caratteri da 16 bit) e mappato,
+     * tramite una {@link MappaLongInt}, alla sua posting list: un array ordinato delle
+     * posizioni dei testi che lo contengono.
+     */
+    static final class IndiceTrigrammi {
+        static final int N = 3;
+        private static final int[] VUOTO = new int[0];
+
+        private final MappaLongInt trigrammi;
+        private final int[][] postings;
+
+        /**
+         * Costruisce l'indice in due passate: la prima conta le occorrenze di ogni trigramma
+         * per dimensionare esattamente le posting list, la seconda le riempie.
+         *
+         * @param testi i testi da indicizzare; la posizione nell'array è l'identificativo del documento.
+         */
+        IndiceTrigrammi(String[] testi) {
+            trigrammi = new MappaLongInt(1 << 16);
+            int[] conteggi = new int[1 << 16];
+            for (String testo : testi) {
+                for (long chiave : trigrammiDistinti(testo)) {
+                    int slot = trigrammi.getOrAssegna(chiave);
+                    if (slot >= conteggi.length) {
+                        conteggi = Arrays.copyOf(conteggi, conteggi.length * 2);
+                    }
+                    conteggi[slot]++;
+                }
+            }
+            postings = new int[trigrammi.size()][];
+            for (int slot = 0; slot < postings.length; slot++) {
+                postings[slot] = new int[conteggi[slot]];
+            }
+            int[] riempimento = new int[postings.length];
+            for (int doc = 0; doc < testi.length; doc++) {
+                for (long chiave : trigrammiDistinti(testi[doc])) {
+                    int slot = trigrammi.get(chiave);
+                    postings[slot][riempimento[slot]++] = doc;
+                }
+            }
+        }
+
+        /**
+         * Restituisce i documenti che contengono tutti i trigrammi del testo cercato,
+         * in ordine crescente. I candidati vanno verificati, perché la presenza dei
+         * trigrammi non garantisce che compaiano consecutivi.
+         *
+         * @param q il testo normalizzato da cercare, lungo almeno {@link #N} caratteri.
+         * @return le posizioni dei documenti candidati.
+         */
+        int[] candidati(String q) {
+            long[] chiavi = trigrammiDistinti(q);
+            int[][] liste = new int[chiavi.length][];
+            for (int i = 0; i < chiavi.length; i++) {
+                int slot = trigrammi.get(chiavi[i]);
+                if (slot == MappaLongInt.ASSENTE) {
+                    return VUOTO;
+                }
+                liste[i] = postings[slot];
+            }
+            Arrays.sort(liste, (a, b) -> Integer.compare(a.length, b.length));
+            int[] corrente = liste[0];
+            for (int i = 1; i < liste.length && corrente.length > 0; i++) {
+                corrente = interseca(corrente, liste[i]);
+            }
+            return corrente;
+        }
+
+        /**
+         * Restituisce i documenti che hanno almeno {@code minimo} trigrammi distinti in comune
+         * con il testo indicato, in ordine crescente. È il filtro dei candidati della ricerca
+         * approssimata: ogni modifica (inserimento, cancellazione, sostituzione o scambio di due
+         * lettere adiacenti) altera al più quattro trigrammi di un testo.
+         *
+         * @param q      il testo normalizzato da confrontare.
+         * @param minimo il numero minimo di trigrammi in comune, almeno 1.
+         * @return le posizioni dei documenti candidati.
+         */
+        int[] condivisi(String q, int minimo) {
+            long[] chiavi = trigrammiDistinti(q);
+            int totale = 0;
+            int[][] liste = new int[chiavi.length][];
+            for (int i = 0; i < chiavi.length; i++) {
+                int slot = trigrammi.get(chiavi[i]);
+                liste[i] = slot == MappaLongInt.ASSENTE ? VUOTO : postings[slot];
+                totale += liste[i].length;
+            }
+            int[] tutti = new int[totale];
+            int n = 0;
+            for (int[] lista : liste) {
+                System.arraycopy(lista, 0, tutti, n, lista.length);
+                n += lista.length;
+            }
+            Arrays.sort(tutti);
+            int risultati = 0;
+            for (int i = 0; i < totale; ) {
+                int j = i;
+                while (j < totale && tutti[j] == tutti[i]) {
+                    j++;
+                }
+                if (j - i >= minimo) {
+                    tutti[risultati++] = tutti[i];
+                }
+                i = j;
+            }
+            return Arrays.copyOf(tutti, risultati);
+        }
+
+        /**
+         * Interseca due array ordinati. Il primo è tipicamente molto più corto del secondo,
+         * per cui sul secondo si avanza con ricerca esponenziale (galloping).
+         */
+        private static int[] interseca(int[] corta, int[] lunga) {
+            int[] out = new int[corta.length];
+            int n = 0;
+            int j = 0;
+            for (int valore : corta) {
+                int passo = 1;
+                int alto = j;
+                while (alto < lunga.length && lunga[alto] < valore) {
+                    j = alto + 1;
+                    alto = j + passo;
+                    passo <<= 1;
+                }
+                int k = Arrays.binarySearch(lunga, j, Math.min(alto + 1, lunga.length), valore);
+                if (k >= 0) {
+                    out[n++] = valore;
+                    j = k + 1;
+                } else {
+                    j = -k - 1;
+                }
+                if (j >= lunga.length) {
+                    break;
+                }
+            }
+            return n == out.length ? out : Arrays.copyOf(out, n);
+        }
+
+        /**
+         * Estrae i trigrammi distinti di un testo, codificati come {@code long}.
+         */
+        static long[] trigrammiDistinti(String testo) {
+            int n = testo.length() - N + 1;
+            if (n <= 0) {
+                return new long[0];
+            }
+            long[] chiavi = new long[n];
+            for (int i = 0; i < n; i++) {
+                chiavi[i] = ((long) testo.charAt(i) << 32) | ((long) testo.charAt(i + 1) << 16) | testo.charAt(i + 2);
+            }
+            Arrays.sort(chiavi);
+            int distinti = 1;
+            for (int i = 1; i < n; i++) {
+                if (chiavi[i] != chiavi[distinti - 1]) {
+                    chiavi[distinti++] = chiavi[i];
+                }
+            }
+            return distinti == n ? chiavi : Arrays.copyOf(chiavi, distinti);
+        }
+    }
+}
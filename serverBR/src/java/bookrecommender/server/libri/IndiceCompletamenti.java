@@ -0,0 +1,493 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.condivisi.libri.Completamento;
+import bookrecommender.condivisi.libri.Libro;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Indice in memoria per il completamento automatico dei titoli e degli autori.
+ * <p>
+ * All'avvio del server si usano titolo, autori e numero di valutazioni di tutti i libri del
+ * {@link CatalogoLibri}.
+ * Per ciascuno dei due campi si costruisce l'elenco delle voci distinte (titoli uguali, a meno
+ * di maiuscole, sono una sola voce; il campo autori viene diviso nei singoli autori) con un
+ * peso pari al numero di libri più il numero di valutazioni ricevute.
+ * <p>
+ * Ogni voce è indicizzata a partire dall'inizio di ciascuna delle sue prime
+ * {@value #MAX_PAROLE_PER_VOCE} parole, così che {@code "pot"} completi anche
+ * {@code "Harry Potter and the ..."}. Le posizioni sono codificate in un {@code long}
+ * (voce e offset) e ordinate per il testo che segue l'offset: i completamenti di un prefisso
+ * occupano quindi un intervallo contiguo dell'array, individuato con due ricerche binarie.
+ * Nell'intervallo vengono scelte le voci di peso maggiore. La struttura non alloca oggetti per
+ * posizione e una ricerca costa O(log n) più la scansione dell'intervallo.
+ * <p>
+ * Come in {@link IndiceCatalogo}, la struttura principale è immutabile e i libri creati dopo il
+ * caricamento (vedi {@link #aggiungi(String, String)}) finiscono in un segmento copy-on-write
+ * scandito linearmente, per cui le ricerche non richiedono sincronizzazione.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see Completamento
+ * @version 1.0
+ */
+public final class IndiceCompletamenti {
+    private static final Logger logger = LogManager.getLogger(IndiceCompletamenti.class);
+
+
+    /** Numero massimo di parole, dall'inizio della voce, da cui un prefisso può iniziare a corrispondere. */
+    static final int MAX_PAROLE_PER_VOCE = 8;
+
+    /** Separatori tra gli autori nel campo autori, ad esempio {@code "By Rossi, Mario, and Bianchi, Anna"}. */
+    private static final Pattern SEPARATORE_AUTORI = Pattern.compile(",?\\s+(?:and|&)\\s+|;\\s*");
+
+    private final Campo titoli;
+    private final Campo autori;
+    private volatile Voce[] aggiunte = new Voce[0];
+
+    private IndiceCompletamenti(Campo titoli, Campo autori) {
+        this.titoli = titoli;
+        this.autori = autori;
+    }
+
+    /**
+     * Costruisce l'indice con titoli e autori dei libri del catalogo, pesati con il numero di
+     * valutazioni di ciascun libro.
+     *
+     * @param catalogo i libri letti dal database.
+     * @return l'indice costruito.
+     */
+    public static IndiceCompletamenti costruisci(CatalogoLibri catalogo) {
+        long inizio = System.nanoTime();
+        Accumulatore titoli = new Accumulatore();
+        Accumulatore autori = new Accumulatore();
+        for (int i = 0; i < catalogo.size(); i++) {
+            Libro libro = catalogo.libro(i);
+            int peso = 1 + catalogo.valutazioni(i);
+            titoli.aggiungi(libro.titolo(), peso);
+            for (String autore : dividiAutori(libro.autori())) {
+                autori.aggiungi(autore, peso);
+            }
+        }
+
+        IndiceCompletamenti indice = new IndiceCompletamenti(titoli.costruisci(), autori.costruisci());
+        logger.info("Indice dei completamenti costruito: {} titoli e {} autori ({} posizioni) in {} ms",
+                indice.titoli.testi.length, indice.autori.testi.length,
+                indice.titoli.posizioni.length + indice.autori.posizioni.length,
+                (System.nanoTime() - inizio) / 1_000_000);
+        return indice;
+    }
+
+    /**
+     * Costruisce l'indice da elenchi già in memoria (un elemento per libro, con il relativo peso).
+     *
+     * @param titoli i titoli dei libri.
+     * @param autori i campi autori dei libri, nello stesso ordine.
+     * @param pesi   il peso di ciascun libro.
+     * @return l'indice costruito.
+     */
+    static IndiceCompletamenti costruisci(String[] titoli, String[] autori, int[] pesi) {
+        Accumulatore accTitoli = new Accumulatore();
+        Accumulatore accAutori = new Accumulatore();
+        for (int i = 0; i < titoli.length; i++) {
+            accTitoli.aggiungi(titoli[i], pesi[i]);
+            for (String autore : dividiAutori(autori[i])) {
+                accAutori.aggiungi(autore, pesi[i]);
+            }
+        }
+        return new IndiceCompletamenti(accTitoli.costruisci(), accAutori.costruisci());
+    }
+
+    /**
+     * Restituisce i completamenti di un prefisso: al più {@code limite} titoli seguiti da al più
+     * {@code limite} autori, ciascun gruppo in ordine di peso decrescente.
+     *
+     * @param prefisso il testo digitato dall'utente.
+     * @param limite   il numero massimo di completamenti per ciascun tipo.
+     * @return i completamenti trovati; vuoto se il prefisso è vuoto.
+     */
+    public List<Completamento> completa(String prefisso, int limite) {
+        String p = IndiceCatalogo.normalizza(prefisso).strip();
+        List<Completamento> risultati = new ArrayList<>();
+        if (p.isEmpty() || limite <= 0) {
+            return risultati;
+        }
+        Voce[] extra = aggiunte;
+        titoli.completa(p, limite, extra, Completamento.Tipo.TITOLO, risultati);
+        autori.completa(p, limite, extra, Completamento.Tipo.AUTORE, risultati);
+        return risultati;
+    }
+
+    /**
+     * Aggiunge all'indice il titolo e gli autori di un libro creato dopo il caricamento iniziale.
+     *
+     * @param titolo il titolo del libro.
+     * @param autori il campo autori del libro.
+     */
+    public synchronized void aggiungi(String titolo, String autori) {
+        List<Voce> nuove = new ArrayList<>(Arrays.asList(aggiunte));
+        if (titolo != null && !titolo.isBlank()) {
+            nuove.add(new Voce(titolo.strip(), IndiceCatalogo.normalizza(titolo.strip()), Completamento.Tipo.TITOLO));
+        }
+        for (String autore : dividiAutori(autori)) {
+            nuove.add(new Voce(autore, IndiceCatalogo.normalizza(autore), Completamento.Tipo.AUTORE));
+        }
+        aggiunte = nuove.toArray(new Voce[0]);
+    }
+
+    /**
+     * Divide il campo autori nei singoli autori. Il campo ha la forma
+     * {@code "By Cognome, Nome, Cognome, Nome, and Cognome, Nome"}: dopo aver tolto il prefisso
+     * {@code "By"} e i separatori {@code and}, le parti separate da virgole sono riunite a coppie.
+     */
+    static List<String> dividiAutori(String campo) {
+        List<String> autori = new ArrayList<>();
+        if (campo == null) {
+            return autori;
+        }
+        String testo = campo.strip();
+        if (testo.regionMatches(true, 0, "By ", 0, 3)) {
+            testo = testo.substring(3);
+        }
+        for (String gruppo : SEPARATORE_AUTORI.split(testo)) {
+            String[] parti = gruppo.split(",");
+            for (int i = 0; i < parti.length; i += 2) {
+                String autore = i + 1 < parti.length
+                        ? parti[i].strip() + ", " + parti[i + 1].strip()
+                        : parti[i].strip();
+                if (!autore.isEmpty()) {
+                    autori.add(autore);
+                }
+            }
+        }
+        return autori;
+    }
+
+    /**
+     * Indica se la posizione {@code i} di un testo normalizzato è l'inizio di una parola.
+     */
+    static boolean inizioParola(String testo, int i) {
+        return i == 0 || (!Character.isLetterOrDigit(testo.charAt(i - 1)) && Character.isLetterOrDigit(testo.charAt(i)));
+    }
+
+    /**
+     * Voce aggiunta dopo il caricamento iniziale.
+     */
+    private record Voce(String testo, String normalizzato, Completamento.Tipo tipo) { }
+
+    /**
+     * Raccoglie le voci distinte di un campo durante il caricamento, sommandone i pesi.
+     */
+    private static final class Accumulatore {
+        private final Map<String, Integer> indici = new HashMap<>();
+        private final List<String> testi = new ArrayList<>();
+        private int[] pesi = new int[1024];
+
+        void aggiungi(String testo, int peso) {
+            if (testo == null || testo.isBlank()) {
+                return;
+            }
+            String pulito = testo.strip();
+            Integer indice = indici.putIfAbsent(IndiceCatalogo.normalizza(pulito), testi.size());
+            if (indice == null) {
+                indice = testi.size();
+                testi.add(pulito);
+                if (indice == pesi.length) {
+                    pesi = Arrays.copyOf(pesi, pesi.length * 2);
+                }
+            }
+            pesi[indice] += peso;
+        }
+
+        /**
+         * Costruisce il campo con le voci in ordine alfabetico, così che l'indice di una voce
+         * faccia da criterio di spareggio tra completamenti di pari peso.
+         */
+        Campo costruisci() {
+            Integer[] ordine = new Integer[testi.size()];
+            String[] normalizzati = new String[ordine.length];
+            for (int i = 0; i < ordine.length; i++) {
+                ordine[i] = i;
+                normalizzati[i] = IndiceCatalogo.normalizza(testi.get(i));
+            }
+            Arrays.sort(ordine, (a, b) -> normalizzati[a].compareTo(normalizzati[b]));
+            String[] testiOrdinati = new String[ordine.length];
+            int[] pesiOrdinati = new int[ordine.length];
+            for (int i = 0; i < ordine.length; i++) {
+                testiOrdinati[i] = testi.get(ordine[i]);
+                pesiOrdinati[i] = pesi[ordine[i]];
+            }
+            return new Campo(testiOrdinati, pesiOrdinati);
+        }
+    }
+
+    /**
+     * Le voci di un campo e l'array ordinato delle loro posizioni di inizio parola.
+     */
+    static final class Campo {
+        private final String[] testi;
+        private final String[] normalizzati;
+        private final int[] pesi;
+        /** Posizioni codificate come {@code (voce << 16) | offset}, ordinate per il testo dall'offset in poi. */
+        private final long[] posizioni;
+
+        Campo(String[] testi, int[] pesi) {
+            this.testi = testi;
+            this.pesi = pesi;
+            this.normalizzati = new String[testi.length];
+            int totale = 0;
+            for (int v = 0; v < testi.length; v++) {
+                normalizzati[v] = IndiceCatalogo.normalizza(testi[v]);
+                totale += contaInizi(normalizzati[v]);
+            }
+            long[] pos = new long[totale];
+            int n = 0;
+            for (int v = 0; v < testi.length; v++) {
+                String t = normalizzati[v];
+                int parole = 0;
+                for (int i = 0; i < t.length() && i <= 0xFFFF && parole < MAX_PAROLE_PER_VOCE; i++) {
+                    if (inizioParola(t, i)) {
+                        pos[n++] = ((long) v << 16) | i;
+                        parole++;
+                    }
+                }
+            }
+            ordina(pos, new long[pos.length], 0, pos.length);
+            this.posizioni = pos;
+        }
+
+        private static int contaInizi(String t) {
+            int parole = 0;
+            for (int i = 0; i < t.length() && i <= 0xFFFF && parole < MAX_PAROLE_PER_VOCE; i++) {
+                if (inizioParola(t, i)) {
+                    parole++;
+                }
+            }
+            return parole;
+        }
+
+        private int voce(long posizione) {
+            return (int) (posizione >>> 16);
+        }
+
+        private int offset(long posizione) {
+            return (int) (posizione & 0xFFFF);
+        }
+
+        /**
+         * Confronta i testi di due posizioni, dall'offset di ciascuna in poi.
+         */
+        private int confronta(long a, long b) {
+            String ta = normalizzati[voce(a)];
+            String tb = normalizzati[voce(b)];
+            int ia = offset(a);
+            int ib = offset(b);
+            int n = Math.min(ta.length() - ia, tb.length() - ib);
+            for (int k = 0; k < n; k++) {
+                int d = ta.charAt(ia + k) - tb.charAt(ib + k);
+                if (d != 0) {
+                    return d;
+                }
+            }
+            int d = (ta.length() - ia) - (tb.length() - ib);
+            return d != 0 ? d : Long.compare(a, b);
+        }
+
+        /**
+         * Confronta il testo di una posizione, troncato alla lunghezza del prefisso, con il prefisso.
+         */
+        private int confrontaPrefisso(long posizione, String prefisso) {
+            String t = normalizzati[voce(posizione)];
+            int i = offset(posizione);
+            int n = Math.min(t.length() - i, prefisso.length());
+            for (int k = 0; k < n; k++) {
+                int d = t.charAt(i + k) - prefisso.charAt(k);
+                if (d != 0) {
+                    return d;
+                }
+            }
+            return n < prefisso.length() ? -1 : 0;
+        }
+
+        /**
+         * Ordinamento per fusione delle posizioni (stabile e senza boxing).
+         */
+        private void ordina(long[] a, long[] tmp, int da, int a2) {
+            if (a2 - da < 24) {
+                for (int i = da + 1; i < a2; i++) {
+                    long x = a[i];
+                    int j = i - 1;
+                    while (j >= da && confronta(a[j], x) > 0) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = x;
+                }
+                return;
+            }
+            int meta = (da + a2) >>> 1;
+            ordina(a, tmp, da, meta);
+            ordina(a, tmp, meta, a2);
+            if (confronta(a[meta - 1], a[meta]) <= 0) {
+                return;
+            }
+            System.arraycopy(a, da, tmp, da, a2 - da);
+            int i = da;
+            int j = meta;
+            for (int k = da; k < a2; k++) {
+                if (j >= a2 || (i < meta && confronta(tmp[i], tmp[j]) <= 0)) {
+                    a[k] = tmp[i++];
+                } else {
+                    a[k] = tmp[j++];
+                }
+            }
+        }
+
+        /**
+         * Prima posizione il cui testo troncato è maggiore o uguale al prefisso
+         * ({@code dopo = false}) o strettamente maggiore ({@code dopo = true}).
+         */
+        private int limite(String prefisso, boolean dopo) {
+            int lo = 0;
+            int hi = posizioni.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = confrontaPrefisso(posizioni[mid], prefisso);
+                if (c < 0 || (dopo && c == 0)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * Aggiunge ai risultati le {@code limite} voci di peso maggiore che hanno una parola
+         * che inizia con il prefisso. A parità di peso vengono prima le voci che iniziano con
+         * il prefisso e poi quelle in ordine alfabetico.
+         */
+        void completa(String prefisso, int limite, Voce[] extra, Completamento.Tipo tipo, List<Completamento> out) {
+            int da = limite(prefisso, false);
+            int a = limite(prefisso, true);
+
+            // min-heap sulle chiavi (peso, inizio voce); le voci già presenti vengono ignorate
+            long[] chiavi = new long[limite];
+            int[] voci = new int[limite];
+            int n = 0;
+            for (int k = da; k < a; k++) {
+                int v = voce(posizioni[k]);
+                long chiave = ((long) pesi[v] << 1) | (offset(posizioni[k]) == 0 ? 1 : 0);
+                if (n == limite && !precede(chiave, v, chiavi[0], voci[0])) {
+                    continue;
+                }
+                int presente = -1;
+                for (int h = 0; h < n; h++) {
+                    if (voci[h] == v) {
+                        presente = h;
+                        break;
+                    }
+                }
+                if (presente >= 0) {
+                    if (chiave > chiavi[presente]) {
+                        chiavi[presente] = chiave;
+                        scendi(chiavi, voci, presente, n);
+                    }
+                    continue;
+                }
+                if (n < limite) {
+                    chiavi[n] = chiave;
+                    voci[n] = v;
+                    sali(chiavi, voci, n++);
+                } else {
+                    chiavi[0] = chiave;
+                    voci[0] = v;
+                    scendi(chiavi, voci, 0, n);
+                }
+            }
+
+            Integer[] ordine = new Integer[n];
+            for (int h = 0; h < n; h++) {
+                ordine[h] = h;
+            }
+            Arrays.sort(ordine, (x, y) -> precede(chiavi[x], voci[x], chiavi[y], voci[y]) ? -1 : 1);
+            List<Completamento> trovati = new ArrayList<>(n);
+            for (int h : ordine) {
+                trovati.add(new Completamento(testi[voci[h]], tipo, pesi[voci[h]]));
+            }
+
+            for (Voce voce : extra) {
+                if (voce.tipo() == tipo && iniziaUnaParola(voce.normalizzato(), prefisso)
+                        && trovati.stream().noneMatch(c -> IndiceCatalogo.normalizza(c.testo()).equals(voce.normalizzato()))) {
+                    trovati.add(new Completamento(voce.testo(), tipo, 1));
+                }
+            }
+            out.addAll(trovati.subList(0, Math.min(limite, trovati.size())));
+        }
+
+        /** Ordine dei completamenti: chiave decrescente, poi voce crescente (ordine alfabetico). */
+        private static boolean precede(long chiaveA, int voceA, long chiaveB, int voceB) {
+            return chiaveA != chiaveB ? chiaveA > chiaveB : voceA < voceB;
+        }
+
+        private static void sali(long[] chiavi, int[] voci, int i) {
+            while (i > 0) {
+                int padre = (i - 1) >>> 1;
+                if (!precede(chiavi[padre], voci[padre], chiavi[i], voci[i])) {
+                    break;
+                }
+                scambia(chiavi, voci, i, padre);
+                i = padre;
+            }
+        }
+
+        private static void scendi(long[] chiavi, int[] voci, int i, int n) {
+            while (true) {
+                int minimo = i;
+                int s = 2 * i + 1;
+                int d = s + 1;
+                if (s < n && precede(chiavi[minimo], voci[minimo], chiavi[s], voci[s])) {
+                    minimo = s;
+                }
+                if (d < n && precede(chiavi[minimo], voci[minimo], chiavi[d], voci[d])) {
+                    minimo = d;
+                }
+                if (minimo == i) {
+                    return;
+                }
+                scambia(chiavi, voci, i, minimo);
+                i = minimo;
+            }
+        }
+
+        private static void scambia(long[] chiavi, int[] voci, int i, int j) {
+            long c = chiavi[i];
+            chiavi[i] = chiavi[j];
+            chiavi[j] = c;
+            int v = voci[i];
+            voci[i] = voci[j];
+            voci[j] = v;
+        }
+
+        private static boolean iniziaUnaParola(String testo, String prefisso) {
+            int parole = 0;
+            for (int i = 0; i < testo.length() && parole < MAX_PAROLE_PER_VOCE; i++) {
+                if (inizioParola(testo, i)) {
+                    if (testo.startsWith(prefisso, i)) {
+                        return true;
+                    }
+                    parole++;
+                }
+            }
+            return false;
+        }
+    }
+}
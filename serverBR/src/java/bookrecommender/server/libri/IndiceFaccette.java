@@ -0,0 +1,647 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.condivisi.libri.FiltriRicerca;
+import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.ValoreFaccetta;
+import bookrecommender.server.utili.BitmapCompressa;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indice bitmap in memoria per la ricerca per faccette su categoria, editore e anno.
+ * <p>
+ * All'avvio del server si usano ID, categorie, editore e anno di tutti i libri del
+ * {@link CatalogoLibri}, in ordine di titolo: la posizione di un libro in questo ordine è il suo numero di documento. Per ogni
+ * categoria, editore e anno viene precalcolata una {@link BitmapCompressa} con i documenti che
+ * lo possiedono. Una ricerca unisce (OR) le bitmap dei valori richiesti di ciascuna faccetta e
+ * interseca (AND) i risultati delle faccette: poiché i documenti sono numerati per titolo, la
+ * pagina richiesta si ottiene direttamente dalla bitmap risultante, già ordinata.
+ * <p>
+ * I conteggi di ciascuna faccetta sono calcolati sui documenti che soddisfano i filtri delle
+ * altre faccette, scorrendo gli array con i valori di ogni documento; senza filtri sulle altre
+ * faccette si usano i conteggi precalcolati, senza scorrere alcun documento.
+ * <p>
+ * Come in {@link IndiceCatalogo}, la struttura principale è immutabile e i libri creati dopo il
+ * caricamento (vedi {@link #aggiungi(Libro)}) finiscono in un segmento copy-on-write scandito
+ * linearmente; questi libri compaiono dopo quelli caricati all'avvio, e non in ordine di
+ * titolo, fino al successivo riavvio del server.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see BitmapCompressa
+ * @see FiltriRicerca
+ * @version 1.0
+ */
+public final class IndiceFaccette {
+    private static final Logger logger = LogManager.getLogger(IndiceFaccette.class);
+
+    /** Valore degli array per i documenti senza editore o senza anno. */
+    private static final int ASSENTE = -1;
+
+    private final long[] ids;
+    private final Faccetta categorie;
+    private final Faccetta editori;
+    private final Faccetta anni;
+    /** Per ogni documento, l'indice del primo valore in {@link #categorieDi} (formato CSR). */
+    private final int[] inizioCategorie;
+    private final int[] categorieDi;
+    private final int[] editoreDi;
+    private final int[] annoDi;
+    private volatile Voce[] aggiunte = new Voce[0];
+
+    private IndiceFaccette(long[] ids, Faccetta categorie, Faccetta editori, Faccetta anni,
+                           int[] inizioCategorie, int[] categorieDi, int[] editoreDi, int[] annoDi) {
+        this.ids = ids;
+        this.categorie = categorie;
+        this.editori = editori;
+        this.anni = anni;
+        this.inizioCategorie = inizioCategorie;
+        this.categorieDi = categorieDi;
+        this.editoreDi = editoreDi;
+        this.annoDi = annoDi;
+    }
+
+    /**
+     * Costruisce l'indice con categorie, editore e anno dei libri del catalogo, numerati
+     * nell'ordine del catalogo (titolo e ID, come restituiti dal database).
+     *
+     * @param catalogo i libri letti dal database.
+     * @return l'indice costruito.
+     */
+    public static IndiceFaccette costruisci(CatalogoLibri catalogo) {
+        long inizio = System.nanoTime();
+        Costruttore costruttore = new Costruttore();
+        for (int i = 0; i < catalogo.size(); i++) {
+            Libro libro = catalogo.libro(i);
+            costruttore.aggiungi(libro.id(), libro.categorie(), libro.editore(),
+                    JdbcCercaLibriDAO.annoNumerico(libro.anno()));
+        }
+
+        IndiceFaccette indice = costruttore.costruisci();
+        logger.info("Indice delle faccette costruito: {} libri, {} categorie, {} editori, {} anni ({} KB di bitmap) in {} ms",
+                indice.ids.length, indice.categorie.valori.length, indice.editori.valori.length, indice.anni.valori.length,
+                indice.byteBitmap() / 1024, (System.nanoTime() - inizio) / 1_000_000);
+        return indice;
+    }
+
+    /**
+     * Costruisce l'indice da elenchi già in memoria, uno per campo e un elemento per libro,
+     * nell'ordine in cui i libri devono essere restituiti.
+     *
+     * @param ids       gli ID dei libri.
+     * @param categorie i campi categorie.
+     * @param editori   gli editori.
+     * @param anni      gli anni di pubblicazione, {@code null} se assenti.
+     * @return l'indice costruito.
+     */
+    static IndiceFaccette costruisci(long[] ids, String[] categorie, String[] editori, Integer[] anni) {
+        Costruttore costruttore = new Costruttore();
+        for (int i = 0; i < ids.length; i++) {
+            costruttore.aggiungi(ids[i], categorie[i], editori[i], anni[i]);
+        }
+        return costruttore.costruisci();
+    }
+
+    /**
+     * Restituisce il numero di libri indicizzati, compresi quelli aggiunti dopo il caricamento.
+     *
+     * @return il numero di libri.
+     */
+    public int size() {
+        return ids.length + aggiunte.length;
+    }
+
+    /**
+     * Esegue una ricerca per faccette.
+     *
+     * @param filtri i filtri da applicare.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @param valori il numero massimo di valori restituiti per categoria ed editore.
+     * @return gli ID della pagina, il numero totale dei risultati e i conteggi delle faccette.
+     */
+    public Risultato cerca(FiltriRicerca filtri, int offset, int limite, int valori) {
+        int n = ids.length;
+        // null indica che la faccetta non è filtrata
+        BitmapCompressa perCategoria = categorie.filtra(filtri.categorie(), n);
+        BitmapCompressa perEditore = editori.filtra(filtri.editori(), n);
+        BitmapCompressa perAnno = filtri.filtraAnno() ? anni.filtraIntervallo(filtri.annoMin(), filtri.annoMax(), n) : null;
+        BitmapCompressa risultati = interseca(interseca(perCategoria, perEditore), perAnno);
+        if (risultati == null) {
+            risultati = BitmapCompressa.piena(n);
+        }
+
+        Filtro filtro = new Filtro(filtri);
+        Voce[] extra = aggiunte;
+        List<Long> pagina = new ArrayList<>(Math.min(limite, risultati.cardinalita()));
+        for (int doc : risultati.intervallo(offset, offset + limite)) {
+            pagina.add(ids[doc]);
+        }
+        long totale = risultati.cardinalita();
+        for (Voce voce : extra) {
+            if (filtro.categoria(voce) && filtro.editore(voce) && filtro.anno(voce)) {
+                if (totale >= offset && pagina.size() < limite) {
+                    pagina.add(voce.id());
+                }
+                totale++;
+            }
+        }
+
+        int[] conteggiCategorie = conteggi(interseca(perEditore, perAnno), categorie, (doc, c) -> {
+            for (int i = inizioCategorie[doc]; i < inizioCategorie[doc + 1]; i++) {
+                c[categorieDi[i]]++;
+            }
+        });
+        int[] conteggiEditori = conteggi(interseca(perCategoria, perAnno), editori, (doc, c) -> {
+            if (editoreDi[doc] != ASSENTE) {
+                c[editoreDi[doc]]++;
+            }
+        });
+        int[] conteggiAnni = conteggi(interseca(perCategoria, perEditore), anni, (doc, c) -> {
+            if (annoDi[doc] != ASSENTE) {
+                c[annoDi[doc]]++;
+            }
+        });
+        Map<String, Integer> extraCategorie = new HashMap<>();
+        Map<String, Integer> extraEditori = new HashMap<>();
+        Map<String, Integer> extraAnni = new HashMap<>();
+        for (Voce voce : extra) {
+            boolean categoria = filtro.categoria(voce);
+            boolean editore = filtro.editore(voce);
+            boolean anno = filtro.anno(voce);
+            if (editore && anno) {
+                for (String valore : voce.categorie()) {
+                    categorie.conta(valore, conteggiCategorie, extraCategorie);
+                }
+            }
+            if (categoria && anno && voce.editore() != null) {
+                editori.conta(voce.editore(), conteggiEditori, extraEditori);
+            }
+            if (categoria && editore && voce.anno() != null) {
+                anni.conta(String.valueOf(voce.anno()), conteggiAnni, extraAnni);
+            }
+        }
+
+        return new Risultato(pagina, totale,
+                categorie.piuFrequenti(conteggiCategorie, extraCategorie, valori),
+                editori.piuFrequenti(conteggiEditori, extraEditori, valori),
+                anni.inOrdine(conteggiAnni, extraAnni));
+    }
+
+    /**
+     * Aggiunge all'indice un libro creato dopo il caricamento iniziale.
+     *
+     * @param libro il libro creato.
+     */
+    public synchronized void aggiungi(Libro libro) {
+        Voce[] nuove = Arrays.copyOf(aggiunte, aggiunte.length + 1);
+        String editore = libro.editore() == null || libro.editore().isBlank() ? null : libro.editore().strip();
+        nuove[nuove.length - 1] = new Voce(libro.id(), dividiCategorie(libro.categorie()), editore,
+                JdbcCercaLibriDAO.annoNumerico(libro.anno()));
+        aggiunte = nuove;
+    }
+
+    /**
+     * Divide il campo categorie nelle singole categorie, ad esempio {@code " Fiction , General"}
+     * in {@code "Fiction"} e {@code "General"}, senza ripetizioni.
+     */
+    static List<String> dividiCategorie(String campo) {
+        if (campo == null) {
+            return List.of();
+        }
+        Set<String> valori = new LinkedHashSet<>();
+        for (String parte : campo.split(",")) {
+            String valore = parte.strip();
+            if (!valore.isEmpty()) {
+                valori.add(valore);
+            }
+        }
+        return new ArrayList<>(valori);
+    }
+
+    private long byteBitmap() {
+        return categorie.byteOccupati() + editori.byteOccupati() + anni.byteOccupati();
+    }
+
+    /**
+     * Restituisce l'intersezione di due filtri, dove {@code null} indica l'assenza di filtro.
+     */
+    private static BitmapCompressa interseca(BitmapCompressa a, BitmapCompressa b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : a.intersezione(b);
+    }
+
+    /**
+     * Calcola i conteggi dei valori di una faccetta sui documenti indicati, o restituisce quelli
+     * precalcolati se i documenti non sono filtrati.
+     */
+    private static int[] conteggi(BitmapCompressa documenti, Faccetta faccetta, Contatore contatore) {
+        if (documenti == null) {
+            return faccetta.conteggiTotali.clone();
+        }
+        int[] conteggi = new int[faccetta.valori.length];
+        documenti.perOgni(doc -> contatore.conta(doc, conteggi));
+        return conteggi;
+    }
+
+    /**
+     * Incrementa, nell'array dei conteggi, i valori che un documento possiede.
+     */
+    @FunctionalInterface
+    private interface Contatore {
+        void conta(int doc, int[] conteggi);
+    }
+
+    /**
+     * Risultato di una ricerca nell'indice.
+     *
+     * @param ids       gli ID dei libri della pagina richiesta, in ordine.
+     * @param totale    il numero totale dei risultati.
+     * @param categorie i conteggi delle categorie più frequenti.
+     * @param editori   i conteggi degli editori più frequenti.
+     * @param anni      i conteggi degli anni, in ordine crescente.
+     */
+    public record Risultato(List<Long> ids, long totale, List<ValoreFaccetta> categorie,
+                            List<ValoreFaccetta> editori, List<ValoreFaccetta> anni) { }
+
+    /**
+     * I valori distinti di una faccetta con le relative bitmap.
+     */
+    private static final class Faccetta {
+        /** Valori nella forma letta dal database, indicizzati per codice. */
+        private final String[] valori;
+        private final BitmapCompressa[] bitmap;
+        private final int[] conteggiTotali;
+        /** Codice di ogni valore, per chiave normalizzata. */
+        private final Map<String, Integer> codici;
+
+        private Faccetta(String[] valori, BitmapCompressa[] bitmap, Map<String, Integer> codici) {
+            this.valori = valori;
+            this.bitmap = bitmap;
+            this.codici = codici;
+            this.conteggiTotali = new int[valori.length];
+            for (int i = 0; i < valori.length; i++) {
+                conteggiTotali[i] = bitmap[i].cardinalita();
+            }
+        }
+
+        /**
+         * Restituisce l'unione delle bitmap dei valori richiesti, o {@code null} se l'elenco è vuoto.
+         */
+        BitmapCompressa filtra(List<String> richiesti, int universo) {
+            if (richiesti == null || richiesti.isEmpty()) {
+                return null;
+            }
+            List<BitmapCompressa> scelte = new ArrayList<>();
+            Set<Integer> visti = new HashSet<>();
+            for (String valore : richiesti) {
+                Integer codice = codici.get(chiave(valore));
+                if (codice != null && visti.add(codice)) {
+                    scelte.add(bitmap[codice]);
+                }
+            }
+            return BitmapCompressa.unioneDi(scelte, universo);
+        }
+
+        /**
+         * Restituisce l'unione delle bitmap degli anni compresi nell'intervallo. I valori di
+         * questa faccetta sono gli anni in ordine crescente.
+         */
+        BitmapCompressa filtraIntervallo(Integer min, Integer max, int universo) {
+            List<BitmapCompressa> scelte = new ArrayList<>();
+            for (int i = 0; i < valori.length; i++) {
+                int anno = Integer.parseInt(valori[i]);
+                if ((min == null || anno >= min) && (max == null || anno <= max)) {
+                    scelte.add(bitmap[i]);
+                }
+            }
+            return BitmapCompressa.unioneDi(scelte, universo);
+        }
+
+        /**
+         * Conta un valore di un libro aggiunto dopo il caricamento: nell'array se il valore era
+         * già presente all'avvio, altrimenti nella mappa dei nuovi valori.
+         */
+        void conta(String valore, int[] conteggi, Map<String, Integer> nuovi) {
+            Integer codice = codici.get(chiave(valore));
+            if (codice != null) {
+                conteggi[codice]++;
+            } else {
+                nuovi.merge(valore, 1, Integer::sum);
+            }
+        }
+
+        /**
+         * Restituisce al più {@code limite} valori con conteggio positivo, in ordine di conteggio
+         * decrescente e, a parità, alfabetico.
+         */
+        List<ValoreFaccetta> piuFrequenti(int[] conteggi, Map<String, Integer> nuovi, int limite) {
+            List<ValoreFaccetta> risultato = new ArrayList<>();
+            // heap dei codici migliori: la radice è il peggiore tra quelli tenuti
+            int[] heap = new int[Math.max(limite, 0)];
+            int dimensione = 0;
+            Comparator<Integer> peggiore = Comparator.<Integer>comparingInt(c -> conteggi[c])
+                    .thenComparing(c -> valori[c], Comparator.reverseOrder());
+            for (int c = 0; c < conteggi.length && limite > 0; c++) {
+                if (conteggi[c] == 0) {
+                    continue;
+                }
+                if (dimensione < limite) {
+                    heap[dimensione] = c;
+                    risali(heap, dimensione++, peggiore);
+                } else if (peggiore.compare(c, heap[0]) > 0) {
+                    heap[0] = c;
+                    scendi(heap, dimensione, peggiore);
+                }
+            }
+            for (int i = 0; i < dimensione; i++) {
+                risultato.add(new ValoreFaccetta(valori[heap[i]], conteggi[heap[i]]));
+            }
+            nuovi.forEach((valore, conteggio) -> risultato.add(new ValoreFaccetta(valore, conteggio)));
+            risultato.sort(Comparator.comparingInt(ValoreFaccetta::conteggio).reversed()
+                    .thenComparing(ValoreFaccetta::valore));
+            return risultato.size() > limite ? new ArrayList<>(risultato.subList(0, limite)) : risultato;
+        }
+
+        /**
+         * Restituisce tutti i valori con conteggio positivo, nell'ordine dei codici (per gli anni,
+         * crescente).
+         */
+        List<ValoreFaccetta> inOrdine(int[] conteggi, Map<String, Integer> nuovi) {
+            List<ValoreFaccetta> risultato = new ArrayList<>();
+            for (int c = 0; c < conteggi.length; c++) {
+                if (conteggi[c] > 0) {
+                    risultato.add(new ValoreFaccetta(valori[c], conteggi[c]));
+                }
+            }
+            if (!nuovi.isEmpty()) {
+                nuovi.forEach((valore, conteggio) -> risultato.add(new ValoreFaccetta(valore, conteggio)));
+                risultato.sort(Comparator.comparingInt(v -> Integer.parseInt(v.valore())));
+            }
+            return risultato;
+        }
+
+        long byteOccupati() {
+            long totale = 0;
+            for (BitmapCompressa b : bitmap) {
+                totale += b.byteOccupati();
+            }
+            return totale;
+        }
+
+        private static void risali(int[] heap, int i, Comparator<Integer> ordine) {
+            while (i > 0) {
+                int padre = (i - 1) / 2;
+                if (ordine.compare(heap[i], heap[padre]) >= 0) {
+                    return;
+                }
+                int t = heap[i];
+                heap[i] = heap[padre];
+                heap[padre] = t;
+                i = padre;
+            }
+        }
+
+        private static void scendi(int[] heap, int dimensione, Comparator<Integer> ordine) {
+            int i = 0;
+            while (true) {
+                int minimo = i;
+                int sinistro = 2 * i + 1;
+                int destro = sinistro + 1;
+                if (sinistro < dimensione && ordine.compare(heap[sinistro], heap[minimo]) < 0) {
+                    minimo = sinistro;
+                }
+                if (destro < dimensione && ordine.compare(heap[destro], heap[minimo]) < 0) {
+                    minimo = destro;
+                }
+                if (minimo == i) {
+                    return;
+                }
+                int t = heap[i];
+                heap[i] = heap[minimo];
+                heap[minimo] = t;
+                i = minimo;
+            }
+        }
+    }
+
+    /**
+     * Chiave di confronto di una categoria o di un editore: senza spazi esterni e in minuscolo.
+     */
+    private static String chiave(String valore) {
+        return valore == null ? "" : IndiceCatalogo.normalizza(valore.strip());
+    }
+
+    /**
+     * Libro aggiunto all'indice dopo il caricamento iniziale.
+     */
+    private record Voce(long id, List<String> categorie, String editore, Integer anno) { }
+
+    /**
+     * I filtri di una ricerca in forma normalizzata, per valutare i libri aggiunti.
+     */
+    private static final class Filtro {
+        private final Set<String> categorie;
+        private final Set<String> editori;
+        private final FiltriRicerca filtri;
+
+        Filtro(FiltriRicerca filtri) {
+            this.filtri = filtri;
+            this.categorie = chiavi(filtri.categorie());
+            this.editori = chiavi(filtri.editori());
+        }
+
+        boolean categoria(Voce voce) {
+            if (categorie == null) {
+                return true;
+            }
+            for (String valore : voce.categorie()) {
+                if (categorie.contains(chiave(valore))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean editore(Voce voce) {
+            return editori == null || (voce.editore() != null && editori.contains(chiave(voce.editore())));
+        }
+
+        boolean anno(Voce voce) {
+            if (!filtri.filtraAnno()) {
+                return true;
+            }
+            return voce.anno() != null
+                    && (filtri.annoMin() == null || voce.anno() >= filtri.annoMin())
+                    && (filtri.annoMax() == null || voce.anno() <= filtri.annoMax());
+        }
+
+        private static Set<String> chiavi(List<String> valori) {
+            if (valori == null || valori.isEmpty()) {
+                return null;
+            }
+            Set<String> chiavi = new HashSet<>();
+            for (String valore : valori) {
+                chiavi.add(chiave(valore));
+            }
+            return chiavi;
+        }
+    }
+
+    /**
+     * Raccoglie i libri durante il caricamento e costruisce le bitmap.
+     */
+    private static final class Costruttore {
+        private long[] ids = new long[1024];
+        private int[] editoreDi = new int[1024];
+        private int[] annoDi = new int[1024];
+        private int[] inizioCategorie = new int[1025];
+        private int[] categorieDi = new int[2048];
+        private int documenti;
+        private int numeroCategorie;
+
+        private final Dizionario dizionarioCategorie = new Dizionario();
+        private final Dizionario dizionarioEditori = new Dizionario();
+        /** Anni letti, che diventano codici solo alla fine per averli in ordine crescente. */
+        private final Set<Integer> anniVisti = new HashSet<>();
+
+        void aggiungi(long id, String categorie, String editore, Integer anno) {
+            if (documenti == ids.length) {
+                int capacita = documenti * 2;
+                ids = Arrays.copyOf(ids, capacita);
+                editoreDi = Arrays.copyOf(editoreDi, capacita);
+                annoDi = Arrays.copyOf(annoDi, capacita);
+                inizioCategorie = Arrays.copyOf(inizioCategorie, capacita + 1);
+            }
+            ids[documenti] = id;
+            editoreDi[documenti] = editore == null || editore.isBlank() ? ASSENTE : dizionarioEditori.codice(editore.strip());
+            annoDi[documenti] = anno == null ? ASSENTE : anno;
+            if (anno != null) {
+                anniVisti.add(anno);
+            }
+            for (String categoria : dividiCategorie(categorie)) {
+                int codice = dizionarioCategorie.codice(categoria);
+                if (numeroCategorie == categorieDi.length) {
+                    categorieDi = Arrays.copyOf(categorieDi, numeroCategorie * 2);
+                }
+                categorieDi[numeroCategorie++] = codice;
+            }
+            documenti++;
+            inizioCategorie[documenti] = numeroCategorie;
+        }
+
+        IndiceFaccette costruisci() {
+            int[] anniOrdinati = anniVisti.stream().mapToInt(Integer::intValue).sorted().toArray();
+            Map<Integer, Integer> codiciAnni = new HashMap<>();
+            String[] valoriAnni = new String[anniOrdinati.length];
+            Map<String, Integer> chiaviAnni = new HashMap<>();
+            for (int i = 0; i < anniOrdinati.length; i++) {
+                codiciAnni.put(anniOrdinati[i], i);
+                valoriAnni[i] = String.valueOf(anniOrdinati[i]);
+                chiaviAnni.put(valoriAnni[i], i);
+            }
+            int[] annoDi = Arrays.copyOf(this.annoDi, documenti);
+            for (int doc = 0; doc < documenti; doc++) {
+                if (annoDi[doc] != ASSENTE) {
+                    annoDi[doc] = codiciAnni.get(annoDi[doc]);
+                }
+            }
+            int[] editoreDi = Arrays.copyOf(this.editoreDi, documenti);
+            int[] inizioCategorie = Arrays.copyOf(this.inizioCategorie, documenti + 1);
+            int[] categorieDi = Arrays.copyOf(this.categorieDi, numeroCategorie);
+
+            // bitmap delle categorie: i documenti sono visitati in ordine, quindi ogni elenco è ordinato
+            int[][] perCategoria = elenchi(dizionarioCategorie.size(), categorieDi);
+            int[] riempiti = new int[perCategoria.length];
+            for (int doc = 0; doc < documenti; doc++) {
+                for (int i = inizioCategorie[doc]; i < inizioCategorie[doc + 1]; i++) {
+                    int c = categorieDi[i];
+                    perCategoria[c][riempiti[c]++] = doc;
+                }
+            }
+            Faccetta categorie = new Faccetta(dizionarioCategorie.valori(), bitmap(perCategoria, documenti),
+                    dizionarioCategorie.codici);
+            Faccetta editori = new Faccetta(dizionarioEditori.valori(), bitmap(documentiPerValore(editoreDi, dizionarioEditori.size()), documenti),
+                    dizionarioEditori.codici);
+            Faccetta anni = new Faccetta(valoriAnni, bitmap(documentiPerValore(annoDi, anniOrdinati.length), documenti), chiaviAnni);
+            return new IndiceFaccette(Arrays.copyOf(ids, documenti), categorie, editori, anni,
+                    inizioCategorie, categorieDi, editoreDi, annoDi);
+        }
+
+        /**
+         * Alloca, per ogni codice, un array grande quanto il numero delle sue occorrenze.
+         */
+        private static int[][] elenchi(int codici, int[] occorrenze) {
+            int[] conteggi = new int[codici];
+            for (int c : occorrenze) {
+                if (c != ASSENTE) {
+                    conteggi[c]++;
+                }
+            }
+            int[][] elenchi = new int[codici][];
+            for (int c = 0; c < codici; c++) {
+                elenchi[c] = new int[conteggi[c]];
+            }
+            return elenchi;
+        }
+
+        /**
+         * Restituisce, per ogni codice, i documenti (in ordine) che hanno quel valore.
+         */
+        private static int[][] documentiPerValore(int[] valoreDi, int codici) {
+            int[][] elenchi = elenchi(codici, valoreDi);
+            int[] riempiti = new int[codici];
+            for (int doc = 0; doc < valoreDi.length; doc++) {
+                int c = valoreDi[doc];
+                if (c != ASSENTE) {
+                    elenchi[c][riempiti[c]++] = doc;
+                }
+            }
+            return elenchi;
+        }
+
+        private static BitmapCompressa[] bitmap(int[][] elenchi, int universo) {
+            BitmapCompressa[] bitmap = new BitmapCompressa[elenchi.length];
+            for (int c = 0; c < elenchi.length; c++) {
+                bitmap[c] = BitmapCompressa.daOrdinati(elenchi[c], elenchi[c].length, universo);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Assegna un codice progressivo a ogni valore distinto, a meno di maiuscole e minuscole.
+     */
+    private static final class Dizionario {
+        private final Map<String, Integer> codici = new HashMap<>();
+        private final List<String> valori = new ArrayList<>();
+
+        int codice(String valore) {
+            return codici.computeIfAbsent(chiave(valore), k -> {
+                valori.add(valore);
+                return valori.size() - 1;
+            });
+        }
+
+        int size() {
+            return valori.size();
+        }
+
+        String[] valori() {
+            return valori.toArray(new String[0]);
+        }
+    }
+}
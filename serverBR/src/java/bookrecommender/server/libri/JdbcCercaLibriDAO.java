@@ -1,13 +1,19 @@
 package bookrecommender.server.libri;
 
 import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
+import bookrecommender.condivisi.libri.Pagina;
 import bookrecommender.server.utili.DBConnectionSingleton;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Implementazione JDBC (Java Database Connectivity) dell'interfaccia {@link LibroDAO}.
@@ -41,12 +47,45 @@ public class JdbcCercaLibriDAO implements LibroDAO {
     private static final Logger logger = LogManager.getLogger(JdbcCercaLibriDAO.class);
 
     // == Costanti per le query SQL ==
-    private static final String QUERY_CREA_LIBRO = "INSERT INTO Libri (titolo, autori, anno, descrizione, categorie, editore, prezzo) VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING *";
+    // Le ricerche per titolo e autore usano LOWER(colonna), la stessa espressione degli indici GIN a trigrammi
+    // creati da CreateDatabaseAndTablesBR, che servono sia LIKE '%x%' sia gli operatori di somiglianza di pg_trgm.
+    // anno e prezzo arrivano come testo: una stringa vuota diventa NULL, un valore non numerico fa fallire l'inserimento
+    private static final String QUERY_CREA_LIBRO = "INSERT INTO Libri (titolo, autori, anno, descrizione, categorie, editore, prezzo) VALUES (?, ?, CAST(NULLIF(TRIM(?), '') AS SMALLINT), ?, ?, ?, CAST(NULLIF(TRIM(?), '') AS NUMERIC)) RETURNING *";
     private static final String QUERY_GET_LIBRO_BY_ID = "SELECT * FROM Libri WHERE id = ?";
     private static final String QUERY_CERCA_LIBRI_PER_TITOLO = "SELECT * FROM Libri WHERE LOWER(titolo) LIKE LOWER(?) ORDER BY titolo";
     private static final String QUERY_CERCA_LIBRI_PER_AUTORE = "SELECT * FROM Libri WHERE LOWER(autori) LIKE LOWER(?) ORDER BY titolo";
+    private static final String QUERY_CERCA_LIBRI_PER_TITOLO_PAGINATA = "SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale FROM Libri WHERE LOWER(titolo) LIKE LOWER(?) ORDER BY titolo, id LIMIT ? OFFSET ?";
+    private static final String QUERY_CERCA_LIBRI_PER_AUTORE_PAGINATA = "SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale FROM Libri WHERE LOWER(autori) LIKE LOWER(?) ORDER BY titolo, id LIMIT ? OFFSET ?";
+    private static final String QUERY_CERCA_LIBRI_PER_SIMILARITA = """
+            SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale FROM Libri
+            WHERE LOWER(?) <% LOWER(titolo) OR LOWER(?) <% LOWER(autori)
+            ORDER BY GREATEST(word_similarity(LOWER(?), LOWER(titolo)), word_similarity(LOWER(?), LOWER(autori))) DESC, titolo, id
+            LIMIT ? OFFSET ?""";
+    private static final String QUERY_CERCA_LIBRI_PER_SIMILARITA_TITOLO = """
+            SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale FROM Libri
+            WHERE LOWER(?) <% LOWER(titolo)
+            ORDER BY word_similarity(LOWER(?), LOWER(titolo)) DESC, titolo, id
+            LIMIT ? OFFSET ?""";
+    private static final String QUERY_CERCA_LIBRI_PER_SIMILARITA_AUTORE = """
+            SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale FROM Libri
+            WHERE LOWER(?) <% LOWER(autori)
+            ORDER BY word_similarity(LOWER(?), LOWER(autori)) DESC, titolo, id
+            LIMIT ? OFFSET ?""";
+    // Deve coincidere con l'espressione dell'indice idx_libri_testo_fts, altrimenti l'indice non viene usato
+    private static final String TSVECTOR_LIBRI =
+            "to_tsvector('english', coalesce(titolo, '') || ' ' || coalesce(autori, '') || ' ' || coalesce(descrizione, ''))";
+    private static final String QUERY_CERCA_LIBRI_PER_TESTO = """
+            SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale
+            FROM Libri, websearch_to_tsquery('english', ?) AS q
+            WHERE %1$s @@ q
+            ORDER BY ts_rank(%1$s, q) DESC, titolo, id
+            LIMIT ? OFFSET ?""".formatted(TSVECTOR_LIBRI);
     private static final String QUERY_CERCA_LIBRI_PER_AUTORE_E_ANNO = "SELECT * FROM Libri WHERE LOWER(autori) LIKE LOWER(?) AND anno = ? ORDER BY titolo";
+    private static final String QUERY_CERCA_LIBRI_PER_INTERVALLO_ANNI = "SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale FROM Libri WHERE anno BETWEEN ? AND ? ORDER BY anno, titolo, id LIMIT ? OFFSET ?";
+    private static final String QUERY_CERCA_LIBRI_PER_INTERVALLO_PREZZO = "SELECT id, titolo, autori, anno, COUNT(*) OVER() AS totale FROM Libri WHERE prezzo BETWEEN ? AND ? ORDER BY prezzo, titolo, id LIMIT ? OFFSET ?";
     private static final String QUERY_CERCA_LIBRO_PER_ID = "SELECT * FROM Libri WHERE id = ?";
+    private static final String QUERY_GET_LIBRI_BY_IDS = "SELECT * FROM Libri WHERE id = ANY(?)";
+    private static final String QUERY_GET_SINTESI_BY_IDS = "SELECT id, titolo, autori, anno FROM Libri WHERE id = ANY(?)";
 
     /**
      * Costruttore di default.
@@ -60,12 +99,17 @@ public class JdbcCercaLibriDAO implements LibroDAO {
      * {@inheritDoc}
      * <p>
      * Questa implementazione gestisce autonomamente la connessione al database.
+     * Il libro creato viene notificato agli ascoltatori di {@link EventiCatalogo}.
      * In caso di errore, logga l'eccezione e restituisce {@code null}.
      */
     @Override
     public Libro creaLibro(String titolo, String autore, String descrizione, String categoria, String year, String price) {
         try (Connection conn = DBConnectionSingleton.openNewConnection()) {
-            return creaLibro(conn, titolo, autore, descrizione, categoria, year, price);
+            Libro libro = creaLibro(conn, titolo, autore, descrizione, categoria, year, price);
+            if (libro != null) {
+                EventiCatalogo.libroCreato(libro);
+            }
+            return libro;
         } catch (SQLException e) {
             logger.error("Errore durante la creazione del libro: " + e.getMessage(), e);
             return null;
@@ -120,6 +164,105 @@ public class JdbcCercaLibriDAO implements LibroDAO {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione gestisce autonomamente la connessione al database.
+     * In caso di errore, logga l'eccezione e restituisce una pagina vuota.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerTitolo(String titolo, int offset, int limite) {
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            return cercaLibriPerTitolo(conn, titolo, offset, limite);
+        } catch (SQLException e) {
+            logger.error("Errore durante la ricerca paginata per titolo '" + titolo + "': " + e.getMessage(), e);
+            return new Pagina<>(new ArrayList<>(), offset, limite, 0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione gestisce autonomamente la connessione al database.
+     * In caso di errore, logga l'eccezione e restituisce una pagina vuota.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerAutore(String autore, int offset, int limite) {
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            return cercaLibriPerAutore(conn, autore, offset, limite);
+        } catch (SQLException e) {
+            logger.error("Errore durante la ricerca paginata per autore '" + autore + "': " + e.getMessage(), e);
+            return new Pagina<>(new ArrayList<>(), offset, limite, 0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione gestisce autonomamente la connessione al database.
+     * In caso di errore (ad esempio se l'estensione pg_trgm non è installata), logga
+     * l'eccezione e restituisce una pagina vuota.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerSimilarita(String testo, int offset, int limite) {
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            return cercaLibriPerSimilarita(conn, testo, offset, limite);
+        } catch (SQLException e) {
+            logger.error("Errore durante la ricerca per somiglianza '" + testo + "': " + e.getMessage(), e);
+            return new Pagina<>(new ArrayList<>(), offset, limite, 0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione gestisce autonomamente la connessione al database.
+     * In caso di errore (ad esempio se l'estensione pg_trgm non è installata), logga
+     * l'eccezione e restituisce una pagina vuota.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerSimilaritaTitolo(String titolo, int offset, int limite) {
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            return cercaLibriPerSimilaritaTitolo(conn, titolo, offset, limite);
+        } catch (SQLException e) {
+            logger.error("Errore durante la ricerca per somiglianza del titolo '" + titolo + "': " + e.getMessage(), e);
+            return new Pagina<>(new ArrayList<>(), offset, limite, 0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione gestisce autonomamente la connessione al database.
+     * In caso di errore (ad esempio se l'estensione pg_trgm non è installata), logga
+     * l'eccezione e restituisce una pagina vuota.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerSimilaritaAutore(String autore, int offset, int limite) {
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            return cercaLibriPerSimilaritaAutore(conn, autore, offset, limite);
+        } catch (SQLException e) {
+            logger.error("Errore durante la ricerca per somiglianza dell'autore '" + autore + "': " + e.getMessage(), e);
+            return new Pagina<>(new ArrayList<>(), offset, limite, 0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione gestisce autonomamente la connessione al database.
+     * In caso di errore, logga l'eccezione e restituisce una pagina vuota.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerTesto(String testo, int offset, int limite) {
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            return cercaLibriPerTesto(conn, testo, offset, limite);
+        } catch (SQLException e) {
+            logger.error("Errore durante la ricerca full-text '" + testo + "': " + e.getMessage(), e);
+            return new Pagina<>(new ArrayList<>(), offset, limite, 0);
+        }
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -136,6 +279,38 @@ public class JdbcCercaLibriDAO implements LibroDAO {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione gestisce autonomamente la connessione al database.
+     * In caso di errore, logga l'eccezione e restituisce una pagina vuota.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerIntervalloAnni(int annoMin, int annoMax, int offset, int limite) {
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            return cercaLibriPerIntervalloAnni(conn, annoMin, annoMax, offset, limite);
+        } catch (SQLException e) {
+            logger.error("Errore durante la ricerca per anni " + annoMin + "-" + annoMax + ": " + e.getMessage(), e);
+            return new Pagina<>(new ArrayList<>(), offset, limite, 0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione gestisce autonomamente la connessione al database.
+     * In caso di errore, logga l'eccezione e restituisce una pagina vuota.
+     */
+    @Override
+    public Pagina<LibroSintesi> cercaLibriPerIntervalloPrezzo(BigDecimal prezzoMin, BigDecimal prezzoMax, int offset, int limite) {
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            return cercaLibriPerIntervalloPrezzo(conn, prezzoMin, prezzoMax, offset, limite);
+        } catch (SQLException e) {
+            logger.error("Errore durante la ricerca per prezzo " + prezzoMin + "-" + prezzoMax + ": " + e.getMessage(), e);
+            return new Pagina<>(new ArrayList<>(), offset, limite, 0);
+        }
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -152,6 +327,44 @@ public class JdbcCercaLibriDAO implements LibroDAO {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione gestisce autonomamente la connessione al database.
+     * In caso di errore, logga l'eccezione e restituisce una lista vuota.
+     */
+    @Override
+    public List<Libro> getLibriByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            return getLibriByIds(conn, ids);
+        } catch (SQLException e) {
+            logger.error("Errore durante il recupero di " + ids.size() + " libri per ID: " + e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Questa implementazione gestisce autonomamente la connessione al database.
+     * In caso di errore, logga l'eccezione e restituisce una lista vuota.
+     */
+    @Override
+    public List<LibroSintesi> getSintesiByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            return getSintesiByIds(conn, ids);
+        } catch (SQLException e) {
+            logger.error("Errore durante il recupero della sintesi di " + ids.size() + " libri per ID: " + e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+
     // ----------------------------
     // API "transaction-aware" (ricevono Connection come parametro)
     // ----------------------------
@@ -264,9 +477,132 @@ public class JdbcCercaLibriDAO implements LibroDAO {
         return libri;
     }
 
+    /**
+     * Variante paginata di {@link #cercaLibriPerTitolo(Connection, String)}.
+     *
+     * @param conn la connessione al database da utilizzare.
+     * @param titolo il testo da cercare nel titolo.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di {@link LibroSintesi} corrispondenti.
+     * @throws SQLException se si verifica un errore di accesso al database.
+     */
+    public Pagina<LibroSintesi> cercaLibriPerTitolo(Connection conn, String titolo, int offset, int limite) throws SQLException {
+        Pagina<LibroSintesi> pagina = leggiPagina(conn, QUERY_CERCA_LIBRI_PER_TITOLO_PAGINATA, titolo, offset, limite);
+        logger.info("Pagina di {} libri (offset {}, totale {}) per titolo '{}'", pagina.elementi().size(), offset, pagina.totale(), titolo);
+        return pagina;
+    }
+
+    /**
+     * Variante paginata di {@link #cercaLibriPerAutore(Connection, String)}.
+     *
+     * @param conn la connessione al database da utilizzare.
+     * @param autore il testo da cercare nel nome dell'autore.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di {@link LibroSintesi} corrispondenti.
+     * @throws SQLException se si verifica un errore di accesso al database.
+     */
+    public Pagina<LibroSintesi> cercaLibriPerAutore(Connection conn, String autore, int offset, int limite) throws SQLException {
+        Pagina<LibroSintesi> pagina = leggiPagina(conn, QUERY_CERCA_LIBRI_PER_AUTORE_PAGINATA, autore, offset, limite);
+        logger.info("Pagina di {} libri (offset {}, totale {}) per autore '{}'", pagina.elementi().size(), offset, pagina.totale(), autore);
+        return pagina;
+    }
+
+    /**
+     * Cerca i libri il cui titolo o autore è simile al testo utilizzando una connessione esistente.
+     * <p>
+     * Usa la somiglianza tra parole di pg_trgm ({@code <%} e {@code word_similarity}), adatta a
+     * confrontare un testo breve con titoli lunghi: un libro corrisponde se il testo è simile a una
+     * parte del titolo o dell'autore oltre la soglia {@code pg_trgm.word_similarity_threshold}
+     * (0,6 per default). Gli operatori sono serviti dagli indici GIN a trigrammi.
+     *
+     * @param conn la connessione al database da utilizzare.
+     * @param testo il testo da cercare.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di {@link LibroSintesi} corrispondenti, dalla più simile.
+     * @throws SQLException se si verifica un errore di accesso al database.
+     */
+    public Pagina<LibroSintesi> cercaLibriPerSimilarita(Connection conn, String testo, int offset, int limite) throws SQLException {
+        Pagina<LibroSintesi> pagina = leggiPagina(conn, QUERY_CERCA_LIBRI_PER_SIMILARITA, stmt -> {
+            for (int i = 1; i <= 4; i++) {
+                stmt.setString(i, testo);
+            }
+            return 5;
+        }, offset, limite);
+        logger.info("Pagina di {} libri (offset {}, totale {}) simili a '{}'", pagina.elementi().size(), offset, pagina.totale(), testo);
+        return pagina;
+    }
+
+    /**
+     * Variante di {@link #cercaLibriPerSimilarita(Connection, String, int, int)} che confronta il
+     * testo solo con il titolo.
+     *
+     * @param conn la connessione al database da utilizzare.
+     * @param titolo il testo da cercare nel titolo.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di {@link LibroSintesi} corrispondenti, dalla più simile.
+     * @throws SQLException se si verifica un errore di accesso al database.
+     */
+    public Pagina<LibroSintesi> cercaLibriPerSimilaritaTitolo(Connection conn, String titolo, int offset, int limite) throws SQLException {
+        Pagina<LibroSintesi> pagina = leggiPagina(conn, QUERY_CERCA_LIBRI_PER_SIMILARITA_TITOLO, stmt -> {
+            stmt.setString(1, titolo);
+            stmt.setString(2, titolo);
+            return 3;
+        }, offset, limite);
+        logger.info("Pagina di {} libri (offset {}, totale {}) con titolo simile a '{}'", pagina.elementi().size(), offset, pagina.totale(), titolo);
+        return pagina;
+    }
+
+    /**
+     * Variante di {@link #cercaLibriPerSimilarita(Connection, String, int, int)} che confronta il
+     * testo solo con il nome dell'autore.
+     *
+     * @param conn la connessione al database da utilizzare.
+     * @param autore il testo da cercare nel nome dell'autore.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di {@link LibroSintesi} corrispondenti, dalla più simile.
+     * @throws SQLException se si verifica un errore di accesso al database.
+     */
+    public Pagina<LibroSintesi> cercaLibriPerSimilaritaAutore(Connection conn, String autore, int offset, int limite) throws SQLException {
+        Pagina<LibroSintesi> pagina = leggiPagina(conn, QUERY_CERCA_LIBRI_PER_SIMILARITA_AUTORE, stmt -> {
+            stmt.setString(1, autore);
+            stmt.setString(2, autore);
+            return 3;
+        }, offset, limite);
+        logger.info("Pagina di {} libri (offset {}, totale {}) con autore simile a '{}'", pagina.elementi().size(), offset, pagina.totale(), autore);
+        return pagina;
+    }
+
+    /**
+     * Ricerca full-text in titolo, autori e descrizione utilizzando una connessione esistente.
+     * <p>
+     * Il testo è convertito con {@code websearch_to_tsquery} e confrontato con il {@code tsvector}
+     * dell'indice {@code idx_libri_testo_fts}; i risultati sono ordinati per {@code ts_rank}.
+     *
+     * @param conn la connessione al database da utilizzare.
+     * @param testo le parole da cercare.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di {@link LibroSintesi} corrispondenti, dalla più pertinente.
+     * @throws SQLException se si verifica un errore di accesso al database.
+     */
+    public Pagina<LibroSintesi> cercaLibriPerTesto(Connection conn, String testo, int offset, int limite) throws SQLException {
+        Pagina<LibroSintesi> pagina = leggiPagina(conn, QUERY_CERCA_LIBRI_PER_TESTO, stmt -> {
+            stmt.setString(1, testo);
+            return 2;
+        }, offset, limite);
+        logger.info("Pagina di {} libri (offset {}, totale {}) per il testo '{}'", pagina.elementi().size(), offset, pagina.totale(), testo);
+        return pagina;
+    }
+
     /**
      * Cerca libri per autore e anno utilizzando una connessione esistente.
      * La ricerca sull'autore è case-insensitive e parziale, quella sull'anno è esatta.
+     * Se l'anno non è un numero la query non viene eseguita e la lista restituita è vuota.
      * <p>
      * Questo metodo è progettato per essere eseguito all'interno di una transazione.
      *
@@ -278,9 +614,14 @@ public class JdbcCercaLibriDAO implements LibroDAO {
      */
     public List<Libro> cercaLibriPerAutoreEAnno(Connection conn, String autore, String anno) throws SQLException {
         List<Libro> libri = new ArrayList<>();
+        Integer annoCercato = annoNumerico(anno);
+        if (annoCercato == null) {
+            logger.info("Anno '{}' non numerico: nessun libro per autore '{}'", anno, autore);
+            return libri;
+        }
         try (PreparedStatement stmt = conn.prepareStatement(QUERY_CERCA_LIBRI_PER_AUTORE_E_ANNO)) {
             stmt.setString(1, "%" + autore + "%");
-            stmt.setString(2, anno);
+            stmt.setInt(2, annoCercato);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     libri.add(mapResultSetToLibro(rs));
@@ -291,6 +632,50 @@ public class JdbcCercaLibriDAO implements LibroDAO {
         return libri;
     }
 
+    /**
+     * Cerca i libri pubblicati in un intervallo di anni utilizzando una connessione esistente.
+     * La query usa l'indice sulla colonna {@code anno}.
+     *
+     * @param conn la connessione al database da utilizzare.
+     * @param annoMin il primo anno dell'intervallo.
+     * @param annoMax l'ultimo anno dell'intervallo.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di {@link LibroSintesi} corrispondenti.
+     * @throws SQLException se si verifica un errore di accesso al database.
+     */
+    public Pagina<LibroSintesi> cercaLibriPerIntervalloAnni(Connection conn, int annoMin, int annoMax, int offset, int limite) throws SQLException {
+        Pagina<LibroSintesi> pagina = leggiPagina(conn, QUERY_CERCA_LIBRI_PER_INTERVALLO_ANNI, stmt -> {
+            stmt.setInt(1, annoMin);
+            stmt.setInt(2, annoMax);
+            return 3;
+        }, offset, limite);
+        logger.info("Pagina di {} libri (offset {}, totale {}) per anni {}-{}", pagina.elementi().size(), offset, pagina.totale(), annoMin, annoMax);
+        return pagina;
+    }
+
+    /**
+     * Cerca i libri con prezzo compreso in un intervallo utilizzando una connessione esistente.
+     * La query usa l'indice sulla colonna {@code prezzo}.
+     *
+     * @param conn la connessione al database da utilizzare.
+     * @param prezzoMin il prezzo minimo.
+     * @param prezzoMax il prezzo massimo.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di {@link LibroSintesi} corrispondenti.
+     * @throws SQLException se si verifica un errore di accesso al database.
+     */
+    public Pagina<LibroSintesi> cercaLibriPerIntervalloPrezzo(Connection conn, BigDecimal prezzoMin, BigDecimal prezzoMax, int offset, int limite) throws SQLException {
+        Pagina<LibroSintesi> pagina = leggiPagina(conn, QUERY_CERCA_LIBRI_PER_INTERVALLO_PREZZO, stmt -> {
+            stmt.setBigDecimal(1, prezzoMin);
+            stmt.setBigDecimal(2, prezzoMax);
+            return 3;
+        }, offset, limite);
+        logger.info("Pagina di {} libri (offset {}, totale {}) per prezzo {}-{}", pagina.elementi().size(), offset, pagina.totale(), prezzoMin, prezzoMax);
+        return pagina;
+    }
+
     /**
      * Cerca un libro per ID e lo restituisce in una lista, utilizzando una connessione esistente.
      * <p>
@@ -315,6 +700,106 @@ public class JdbcCercaLibriDAO implements LibroDAO {
         return libri;
     }
 
+    /**
+     * Recupera i libri con gli ID indicati utilizzando una connessione esistente.
+     * <p>
+     * Gli ID vengono passati come un unico array SQL ({@code id = ANY(?)}), per cui
+     * la query richiede un solo round-trip indipendentemente dal loro numero. Poiché
+     * il database non garantisce l'ordine delle righe, la lista viene riordinata
+     * secondo l'ordine degli ID in ingresso.
+     *
+     * @param conn la connessione al database da utilizzare.
+     * @param ids gli ID dei libri da recuperare.
+     * @return una {@link List} di {@link Libro} nello stesso ordine degli ID.
+     * @throws SQLException se si verifica un errore di accesso al database.
+     */
+    public List<Libro> getLibriByIds(Connection conn, List<Long> ids) throws SQLException {
+        return leggiPerIds(conn, QUERY_GET_LIBRI_BY_IDS, ids, this::mapResultSetToLibro, Libro::id);
+    }
+
+    /**
+     * Recupera la sintesi dei libri con gli ID indicati utilizzando una connessione esistente.
+     * <p>
+     * Come {@link #getLibriByIds(Connection, List)}, ma legge solo le colonne
+     * {@code id}, {@code titolo}, {@code autori} e {@code anno}.
+     *
+     * @param conn la connessione al database da utilizzare.
+     * @param ids gli ID dei libri da recuperare.
+     * @return una {@link List} di {@link LibroSintesi} nello stesso ordine degli ID.
+     * @throws SQLException se si verifica un errore di accesso al database.
+     */
+    public List<LibroSintesi> getSintesiByIds(Connection conn, List<Long> ids) throws SQLException {
+        return leggiPerIds(conn, QUERY_GET_SINTESI_BY_IDS, ids, this::mapResultSetToSintesi, LibroSintesi::id);
+    }
+
+    /**
+     * Esegue una query {@code id = ANY(?)} e restituisce le righe mappate nell'ordine degli ID forniti.
+     */
+    private <T> List<T> leggiPerIds(Connection conn, String query, List<Long> ids, MapperRiga<T> mapper, Function<T, Long> idDi) throws SQLException {
+        Map<Long, T> perId = new HashMap<>(ids.size() * 2);
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            Array array = conn.createArrayOf("bigint", ids.toArray());
+            try {
+                stmt.setArray(1, array);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        T elemento = mapper.mappa(rs);
+                        perId.put(idDi.apply(elemento), elemento);
+                    }
+                }
+            } finally {
+                array.free();
+            }
+        }
+        List<T> risultato = new ArrayList<>(perId.size());
+        for (Long id : ids) {
+            T elemento = perId.get(id);
+            if (elemento != null) {
+                risultato.add(elemento);
+            }
+        }
+        return risultato;
+    }
+
+    /**
+     * Esegue una query di ricerca paginata il cui unico criterio è un pattern {@code LIKE}
+     * che contiene il testo indicato.
+     */
+    private Pagina<LibroSintesi> leggiPagina(Connection conn, String query, String testo, int offset, int limite) throws SQLException {
+        return leggiPagina(conn, query, stmt -> {
+            stmt.setString(1, "%" + testo + "%");
+            return 2;
+        }, offset, limite);
+    }
+
+    /**
+     * Esegue una query di ricerca paginata e legge al più {@code limite} righe.
+     * <p>
+     * La query riceve i parametri del criterio di ricerca, seguiti dal limite e dall'offset, e
+     * restituisce, in ogni riga, il numero totale dei risultati nella colonna {@code totale}
+     * ({@code COUNT(*) OVER()}). La lettura del {@link ResultSet} si interrompe appena la pagina è completa.
+     */
+    private Pagina<LibroSintesi> leggiPagina(Connection conn, String query, ParametriRicerca criterio, int offset, int limite) throws SQLException {
+        List<LibroSintesi> libri = new ArrayList<>(limite);
+        long totale = offset;
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
+            int indice = criterio.imposta(stmt);
+            stmt.setInt(indice, limite);
+            stmt.setInt(indice + 1, offset);
+            stmt.setFetchSize(limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (libri.size() < limite && rs.next()) {
+                    totale = rs.getLong("totale");
+                    libri.add(mapResultSetToSintesi(rs));
+                }
+            }
+        }
+        if (libri.isEmpty() && offset == 0) {
+            totale = 0;
+        }
+        return new Pagina<>(libri, offset, limite, totale);
+    }
+
    
     /**
      * Metodo helper per mappare una riga di un {@link ResultSet} a un oggetto {@link Libro}.
@@ -336,4 +821,60 @@ public class JdbcCercaLibriDAO implements LibroDAO {
                 rs.getString("prezzo")
         );
     }
+
+    /**
+     * Metodo helper per mappare una riga di un {@link ResultSet} a un oggetto {@link LibroSintesi}.
+     *
+     * @param rs il ResultSet posizionato sulla riga da mappare.
+     * @return un nuovo oggetto {@link LibroSintesi} popolato con i dati della riga corrente.
+     * @throws SQLException se si verifica un errore durante la lettura dei dati dal ResultSet.
+     */
+    private LibroSintesi mapResultSetToSintesi(ResultSet rs) throws SQLException {
+        return new LibroSintesi(
+                rs.getLong("id"),
+                rs.getString("titolo"),
+                rs.getString("autori"),
+                rs.getString("anno")
+        );
+    }
+
+    /**
+     * Converte l'anno richiesto da un client nel valore della colonna {@code anno} (SMALLINT).
+     *
+     * @param anno l'anno in forma di testo.
+     * @return l'anno, o {@code null} se il testo non è un anno valido.
+     */
+    static Integer annoNumerico(String anno) {
+        if (anno == null) {
+            return null;
+        }
+        try {
+            int valore = Integer.parseInt(anno.trim());
+            return valore >= 0 && valore <= Short.MAX_VALUE ? valore : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Imposta sul {@link PreparedStatement} i parametri del criterio di una ricerca paginata.
+     */
+    @FunctionalInterface
+    private interface ParametriRicerca {
+        /**
+         * @param stmt lo statement della query.
+         * @return l'indice del primo parametro successivo al criterio (il limite della pagina).
+         */
+        int imposta(PreparedStatement stmt) throws SQLException;
+    }
+
+    /**
+     * Funzione che mappa la riga corrente di un {@link ResultSet} in un oggetto.
+     *
+     * @param <T> il tipo dell'oggetto prodotto.
+     */
+    @FunctionalInterface
+    private interface MapperRiga<T> {
+        T mappa(ResultSet rs) throws SQLException;
+    }
 }
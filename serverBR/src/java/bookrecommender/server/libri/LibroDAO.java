@@ -1,6 +1,10 @@
 package bookrecommender.server.libri;
 
 import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.condivisi.libri.LibroSintesi;
+import bookrecommender.condivisi.libri.Pagina;
+
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -53,6 +57,19 @@ public interface LibroDAO {
      *         Se nessun libro corrisponde, restituisce una lista vuota.
      */
     List<Libro> cercaLibriPerTitolo(String titolo);
+
+    /**
+     * Variante paginata di {@link #cercaLibriPerTitolo(String)}: restituisce solo i risultati
+     * compresi tra {@code offset} e {@code offset + limite}, in ordine di titolo, insieme al
+     * numero totale dei risultati.
+     *
+     * @param titolo la stringa da cercare all'interno del titolo dei libri.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di oggetti {@link LibroSintesi}. Se nessun libro corrisponde,
+     *         restituisce una pagina vuota.
+     */
+    Pagina<LibroSintesi> cercaLibriPerTitolo(String titolo, int offset, int limite);
     
     /**
      * Cerca libri nel database il cui nome dell'autore contiene la stringa fornita (match parziale).
@@ -63,7 +80,67 @@ public interface LibroDAO {
      *         Se nessun libro corrisponde, restituisce una lista vuota.
      */
     List<Libro> cercaLibriPerAutore(String autore);
+
+    /**
+     * Variante paginata di {@link #cercaLibriPerAutore(String)}: restituisce solo i risultati
+     * compresi tra {@code offset} e {@code offset + limite}, in ordine di titolo, insieme al
+     * numero totale dei risultati.
+     *
+     * @param autore la stringa da cercare all'interno del nome dell'autore.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di oggetti {@link LibroSintesi}. Se nessun libro corrisponde,
+     *         restituisce una pagina vuota.
+     */
+    Pagina<LibroSintesi> cercaLibriPerAutore(String autore, int offset, int limite);
     
+    /**
+     * Cerca i libri il cui titolo o autore è simile al testo fornito (somiglianza tra trigrammi,
+     * tollerante agli errori di battitura) e restituisce solo quelli della pagina richiesta,
+     * dal più simile al meno simile, insieme al numero totale dei risultati.
+     *
+     * @param testo  il testo da cercare nel titolo o nel nome dell'autore.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di oggetti {@link LibroSintesi}. Se nessun libro corrisponde,
+     *         restituisce una pagina vuota.
+     */
+    Pagina<LibroSintesi> cercaLibriPerSimilarita(String testo, int offset, int limite);
+
+    /**
+     * Come {@link #cercaLibriPerSimilarita(String, int, int)}, ma confronta il testo solo con il titolo.
+     *
+     * @param titolo il testo da cercare nel titolo.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di oggetti {@link LibroSintesi}. Se nessun libro corrisponde,
+     *         restituisce una pagina vuota.
+     */
+    Pagina<LibroSintesi> cercaLibriPerSimilaritaTitolo(String titolo, int offset, int limite);
+
+    /**
+     * Come {@link #cercaLibriPerSimilarita(String, int, int)}, ma confronta il testo solo con il nome dell'autore.
+     *
+     * @param autore il testo da cercare nel nome dell'autore.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di oggetti {@link LibroSintesi}. Se nessun libro corrisponde,
+     *         restituisce una pagina vuota.
+     */
+    Pagina<LibroSintesi> cercaLibriPerSimilaritaAutore(String autore, int offset, int limite);
+
+    /**
+     * Ricerca full-text delle parole fornite in titolo, autori e descrizione: restituisce solo i
+     * libri della pagina richiesta, in ordine di pertinenza, insieme al numero totale dei risultati.
+     *
+     * @param testo  le parole da cercare, nella sintassi dei motori di ricerca web.
+     * @param offset la posizione del primo risultato da restituire.
+     * @param limite il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di oggetti {@link LibroSintesi}. Se nessun libro corrisponde,
+     *         restituisce una pagina vuota.
+     */
+    Pagina<LibroSintesi> cercaLibriPerTesto(String testo, int offset, int limite);
+
     /**
      * Cerca libri nel database combinando autore (match parziale, case-insensitive) e anno di pubblicazione (match esatto).
      *
@@ -74,6 +151,32 @@ public interface LibroDAO {
      */
     List<Libro> cercaLibriPerAutoreEAnno(String autore, String anno);
 
+    /**
+     * Cerca i libri pubblicati tra {@code annoMin} e {@code annoMax} (estremi inclusi) e restituisce
+     * solo quelli della pagina richiesta, in ordine di anno e titolo, insieme al numero totale dei risultati.
+     *
+     * @param annoMin il primo anno dell'intervallo.
+     * @param annoMax l'ultimo anno dell'intervallo.
+     * @param offset  la posizione del primo risultato da restituire.
+     * @param limite  il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di oggetti {@link LibroSintesi}. Se nessun libro corrisponde,
+     *         restituisce una pagina vuota.
+     */
+    Pagina<LibroSintesi> cercaLibriPerIntervalloAnni(int annoMin, int annoMax, int offset, int limite);
+
+    /**
+     * Cerca i libri con prezzo tra {@code prezzoMin} e {@code prezzoMax} (estremi inclusi) e restituisce
+     * solo quelli della pagina richiesta, in ordine di prezzo e titolo, insieme al numero totale dei risultati.
+     *
+     * @param prezzoMin il prezzo minimo.
+     * @param prezzoMax il prezzo massimo.
+     * @param offset    la posizione del primo risultato da restituire.
+     * @param limite    il numero massimo di risultati da restituire.
+     * @return una {@link Pagina} di oggetti {@link LibroSintesi}. Se nessun libro corrisponde,
+     *         restituisce una pagina vuota.
+     */
+    Pagina<LibroSintesi> cercaLibriPerIntervalloPrezzo(BigDecimal prezzoMin, BigDecimal prezzoMax, int offset, int limite);
+
     /**
      * Cerca un libro nel database tramite il suo identificativo univoco (ID).
      *
@@ -82,5 +185,30 @@ public interface LibroDAO {
      *         Se nessun libro corrisponde, restituisce una lista vuota.
      */
     List<Libro> cercaLibroPerId(Long id);
+
+    /**
+     * Recupera in un'unica interrogazione i libri con gli ID indicati.
+     * <p>
+     * L'ordine della lista restituita rispecchia quello degli ID forniti; gli ID
+     * a cui non corrisponde alcun libro vengono ignorati.
+     *
+     * @param ids gli ID dei libri da recuperare.
+     * @return una {@link List} di oggetti {@link Libro} nello stesso ordine degli ID.
+     *         Se nessun libro corrisponde, restituisce una lista vuota.
+     */
+    List<Libro> getLibriByIds(List<Long> ids);
+
+    /**
+     * Recupera in un'unica interrogazione la sintesi (ID, titolo, autori, anno) dei libri
+     * con gli ID indicati, senza leggere descrizione, categorie, editore e prezzo.
+     * <p>
+     * L'ordine della lista restituita rispecchia quello degli ID forniti; gli ID
+     * a cui non corrisponde alcun libro vengono ignorati.
+     *
+     * @param ids gli ID dei libri da recuperare.
+     * @return una {@link List} di oggetti {@link LibroSintesi} nello stesso ordine degli ID.
+     *         Se nessun libro corrisponde, restituisce una lista vuota.
+     */
+    List<LibroSintesi> getSintesiByIds(List<Long> ids);
    
 }
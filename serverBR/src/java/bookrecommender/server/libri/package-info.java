@@ -12,6 +12,20 @@
  *         il contratto per l'accesso ai dati (Data Access Object).</li>
  *     <li>{@link bookrecommender.server.libri.JdbcCercaLibriDAO}: L'implementazione
  *         concreta del DAO che utilizza JDBC per interagire con il database.</li>
+ *     <li>{@link bookrecommender.server.libri.IndiceCatalogo}: L'indice in memoria
+ *         a trigrammi su titolo e autori, caricato all'avvio del server.</li>
+ *     <li>{@link bookrecommender.server.libri.CatalogoIndicizzatoDAO}: Il DAO che
+ *         risponde alle ricerche per titolo e autore tramite l'indice in memoria.</li>
+ *     <li>{@link bookrecommender.server.libri.CacheLibriDAO}: Il DAO che mantiene in
+ *         memoria, con espulsione LRU a due segmenti, i libri letti per ID.</li>
+ *     <li>{@link bookrecommender.server.libri.IndiceCompletamenti}: L'indice in memoria
+ *         dei prefissi di titoli e autori per il completamento automatico.</li>
+ *     <li>{@link bookrecommender.server.libri.IndiceFaccette}: L'indice bitmap in memoria
+ *         per la ricerca per faccette su categoria, editore e anno.</li>
+ *     <li>{@link bookrecommender.server.libri.IndiceApprossimato}: L'indice in memoria
+ *         delle parole di titoli e autori per la ricerca tollerante agli errori di battitura.</li>
+ *     <li>{@link bookrecommender.server.libri.EventiCatalogo}: La notifica dei libri creati e
+ *         dei ricaricamenti del catalogo alle altre strutture in memoria del server.</li>
  * </ul>
  * Il service layer è esposto ai client tramite RMI, mentre il DAO layer astrae la persistenza.
  */
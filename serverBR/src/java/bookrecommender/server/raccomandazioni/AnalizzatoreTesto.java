@@ -0,0 +1,101 @@
+package bookrecommender.server.raccomandazioni;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estrae i termini pesati dai campi testuali di un libro per l'{@link IndiceContenuti}.
+ * <p>
+ * Il testo viene portato in minuscolo, privato degli accenti e diviso sui caratteri non
+ * alfanumerici; sono scartati i termini più corti di {@value #LUNGHEZZA_MINIMA} caratteri e
+ * le parole vuote più comuni in inglese e in italiano. I termini di autori e categorie sono
+ * distinti da quelli della descrizione tramite un prefisso ({@code a:} e {@code c:}) e
+ * pesano di più, perché caratterizzano il libro meglio delle singole parole della descrizione.
+ * <p>
+ * La classe è senza stato e thread-safe.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see IndiceContenuti
+ * @version 1.0
+ */
+final class AnalizzatoreTesto {
+
+    /** Lunghezza minima di un termine. */
+    static final int LUNGHEZZA_MINIMA = 3;
+    /** Peso di un'occorrenza nella descrizione. */
+    static final float PESO_DESCRIZIONE = 1f;
+    /** Peso di un'occorrenza nelle categorie. */
+    static final float PESO_CATEGORIE = 3f;
+    /** Peso di un'occorrenza negli autori. */
+    static final float PESO_AUTORI = 2f;
+
+    private static final Set<String> PAROLE_VUOTE = Set.of(
+            "the", "and", "for", "with", "that", "this", "from", "his", "her", "its", "are", "was", "were",
+            "has", "have", "had", "but", "not", "you", "your", "they", "their", "them", "who", "which",
+            "what", "when", "where", "will", "would", "can", "could", "into", "about", "more", "most",
+            "one", "all", "also", "been", "than", "then", "there", "these", "those", "how", "our", "out",
+            "book", "books", "new", "she", "him", "may", "each", "other", "over", "such", "only",
+            "della", "delle", "degli", "dello", "dei", "del", "che", "con", "per", "una", "uno", "gli",
+            "nel", "nella", "sono", "come", "anche", "suo", "sua", "loro", "questo", "questa", "libro");
+
+    private AnalizzatoreTesto() {
+    }
+
+    /**
+     * Estrae i termini di un libro con la relativa frequenza pesata.
+     *
+     * @param autori      gli autori del libro (può essere {@code null}).
+     * @param descrizione la descrizione del libro (può essere {@code null}).
+     * @param categorie   le categorie del libro (può essere {@code null}).
+     * @return la mappa dai termini alla loro frequenza pesata.
+     */
+    static Map<String, Float> termini(String autori, String descrizione, String categorie) {
+        Map<String, Float> frequenze = new HashMap<>();
+        aggiungi(frequenze, descrizione, "", PESO_DESCRIZIONE);
+        aggiungi(frequenze, categorie, "c:", PESO_CATEGORIE);
+        aggiungi(frequenze, autori, "a:", PESO_AUTORI);
+        return frequenze;
+    }
+
+    private static void aggiungi(Map<String, Float> frequenze, String testo, String prefisso, float peso) {
+        if (testo == null || testo.isEmpty()) {
+            return;
+        }
+        String normalizzato = Normalizer.normalize(testo.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        int inizio = -1;
+        for (int i = 0; i <= normalizzato.length(); i++) {
+            char c = i < normalizzato.length() ? normalizzato.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (inizio < 0) {
+                    inizio = i;
+                }
+            } else if (inizio >= 0) {
+                String termine = senzaAccenti(normalizzato, inizio, i);
+                if (termine.length() >= LUNGHEZZA_MINIMA && !PAROLE_VUOTE.contains(termine)) {
+                    frequenze.merge(prefisso.isEmpty() ? termine : prefisso + termine, peso, Float::sum);
+                }
+                inizio = -1;
+            }
+        }
+    }
+
+    /** Estrae la sottostringa {@code [da, a)} eliminando i segni diacritici della forma NFD. */
+    private static String senzaAccenti(String s, int da, int a) {
+        StringBuilder sb = new StringBuilder(a - da);
+        for (int i = da; i < a; i++) {
+            char c = s.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
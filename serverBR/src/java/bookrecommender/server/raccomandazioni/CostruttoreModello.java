@@ -0,0 +1,314 @@
+package bookrecommender.server.raccomandazioni;
+
+import bookrecommender.server.utili.MappaLongInt;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Costruisce un {@link ModelloSimilarita} item-item dalle interazioni utente-libro
+ * ("chi ha nelle proprie librerie il libro X ha anche il libro Y").
+ * <p>
+ * Ogni libro è rappresentato dal vettore sparso dei suoi utenti: il peso di un utente è
+ * {@code 1} se il libro è in una sua libreria senza valutazione, altrimenti
+ * {@code voto / 3} (da circa 0,33 per un voto 1 a circa 1,67 per un voto 5). La similarità tra
+ * due libri è il coseno tra i rispettivi vettori.
+ * <p>
+ * La costruzione avviene in tre fasi:
+ * <ol>
+ *     <li>le interazioni sono lette in streaming e memorizzate in formato CSR (array di
+ *         offset e array piatti di indici e pesi) per utente;</li>
+ *     <li>la matrice viene trasposta, ottenendo per ogni libro la lista dei suoi utenti;</li>
+ *     <li>i vicini di ogni libro sono calcolati in parallelo con un {@link ForkJoinPool}: per il
+ *         libro {@code i} si accumulano i prodotti scalari con tutti i libri che condividono
+ *         almeno un utente e si conservano i {@code k} con similarità più alta.</li>
+ * </ol>
+ * La memoria occupata è limitata: oltre agli array CSR (proporzionali al numero di
+ * interazioni) servono un accumulatore di {@code numeroLibri} float per thread e gli array
+ * del risultato, di dimensione fissa {@code numeroLibri * k}. Le librerie di un singolo utente
+ * sono considerate fino a {@code maxLibriPerUtente} libri, per evitare che pochi utenti con
+ * librerie enormi rendano il calcolo quadratico.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see ModelloSimilarita
+ * @see InterazioniDAO
+ * @version 1.0
+ */
+public final class CostruttoreModello {
+    private static final Logger logger = LogManager.getLogger(CostruttoreModello.class);
+
+    /** Numero di libri sotto il quale un sotto-compito viene eseguito senza ulteriori suddivisioni. */
+    private static final int SOGLIA_SUDDIVISIONE = 256;
+
+    private final InterazioniDAO dao;
+    private final int k;
+    private final int maxLibriPerUtente;
+    private final ForkJoinPool pool;
+
+    /**
+     * Crea un costruttore del modello.
+     *
+     * @param dao               il DAO da cui leggere le interazioni.
+     * @param k                 il numero di vicini da conservare per ogni libro.
+     * @param maxLibriPerUtente il numero massimo di libri considerati per ogni utente.
+     * @param pool              il pool su cui eseguire il calcolo parallelo.
+     */
+    public CostruttoreModello(InterazioniDAO dao, int k, int maxLibriPerUtente, ForkJoinPool pool) {
+        if (k <= 0 || maxLibriPerUtente <= 0) {
+            throw new IllegalArgumentException("k e maxLibriPerUtente devono essere positivi");
+        }
+        this.dao = dao;
+        this.k = k;
+        this.maxLibriPerUtente = maxLibriPerUtente;
+        this.pool = pool;
+    }
+
+    /**
+     * Legge le interazioni e costruisce il modello.
+     *
+     * @return il modello costruito.
+     * @throws SQLException in caso di errore di accesso al database.
+     */
+    public ModelloSimilarita costruisci() throws SQLException {
+        long inizio = System.nanoTime();
+        Raccolta raccolta = new Raccolta();
+        dao.leggiInterazioni(raccolta);
+        raccolta.chiudiUtente();
+        long letto = System.nanoTime();
+
+        ModelloSimilarita modello = costruisci(raccolta.indici, Arrays.copyOf(raccolta.ids, raccolta.numeroLibri),
+                Arrays.copyOf(raccolta.offsetUtenti, raccolta.numeroUtenti + 1),
+                raccolta.libri, raccolta.pesi);
+        logger.info("Modello di similarità costruito: {} libri, {} utenti, {} interazioni (lettura {} ms, calcolo {} ms)",
+                raccolta.numeroLibri, raccolta.numeroUtenti, raccolta.numeroInterazioni,
+                (letto - inizio) / 1_000_000, (System.nanoTime() - letto) / 1_000_000);
+        return modello;
+    }
+
+    /**
+     * Costruisce il modello da una matrice utenti-libri già in formato CSR.
+     *
+     * @param indici       la mappa da ID del libro a indice denso.
+     * @param ids          gli ID dei libri, per indice denso.
+     * @param offsetUtenti gli offset di inizio delle interazioni di ogni utente ({@code numeroUtenti + 1} elementi).
+     * @param libri        gli indici dei libri delle interazioni.
+     * @param pesi         i pesi delle interazioni.
+     * @return il modello costruito.
+     */
+    ModelloSimilarita costruisci(MappaLongInt indici, long[] ids, int[] offsetUtenti, int[] libri, float[] pesi) {
+        int numeroLibri = ids.length;
+        int numeroUtenti = offsetUtenti.length - 1;
+
+        // Trasposizione: per ogni libro, gli utenti che lo hanno e il relativo peso
+        int[] offsetLibri = new int[numeroLibri + 1];
+        for (int p = 0; p < offsetUtenti[numeroUtenti]; p++) {
+            offsetLibri[libri[p] + 1]++;
+        }
+        for (int i = 0; i < numeroLibri; i++) {
+            offsetLibri[i + 1] += offsetLibri[i];
+        }
+        int[] utenti = new int[offsetUtenti[numeroUtenti]];
+        float[] pesiLibri = new float[utenti.length];
+        int[] cursori = Arrays.copyOf(offsetLibri, numeroLibri);
+        for (int u = 0; u < numeroUtenti; u++) {
+            for (int p = offsetUtenti[u]; p < offsetUtenti[u + 1]; p++) {
+                int pos = cursori[libri[p]]++;
+                utenti[pos] = u;
+                pesiLibri[pos] = pesi[p];
+            }
+        }
+
+        float[] norme = new float[numeroLibri];
+        for (int i = 0; i < numeroLibri; i++) {
+            double somma = 0;
+            for (int p = offsetLibri[i]; p < offsetLibri[i + 1]; p++) {
+                somma += (double) pesiLibri[p] * pesiLibri[p];
+            }
+            norme[i] = (float) Math.sqrt(somma);
+        }
+
+        Calcolo calcolo = new Calcolo(offsetUtenti, libri, pesi, offsetLibri, utenti, pesiLibri, norme,
+                new int[numeroLibri * k], new float[numeroLibri * k], new int[numeroLibri]);
+        pool.invoke(calcolo.new Compito(0, numeroLibri));
+        return new ModelloSimilarita(indici, ids, k, calcolo.vicini, calcolo.similarita, calcolo.numeroVicini);
+    }
+
+    /**
+     * Calcola il peso di un'interazione a partire dal voto.
+     *
+     * @param voto il voto complessivo (1-5), o {@link InterazioniDAO#NON_VALUTATO}.
+     * @return il peso dell'interazione.
+     */
+    static float peso(int voto) {
+        return voto == InterazioniDAO.NON_VALUTATO ? 1f : voto / 3f;
+    }
+
+    /**
+     * Riceve le interazioni in streaming (consecutive per utente) e le accumula in formato CSR.
+     */
+    private final class Raccolta implements InterazioniDAO.ConsumatoreInterazioni {
+        final MappaLongInt indici = new MappaLongInt(1 << 16);
+        long[] ids = new long[1 << 16];
+        int numeroLibri;
+        int[] offsetUtenti = new int[1 << 12];
+        int numeroUtenti;
+        int[] libri = new int[1 << 16];
+        float[] pesi = new float[1 << 16];
+        int numeroInterazioni;
+        private String utenteCorrente;
+        private int libriUtenteCorrente;
+
+        @Override
+        public void accetta(String userId, long libroId, int voto) {
+            if (!userId.equals(utenteCorrente)) {
+                chiudiUtente();
+                utenteCorrente = userId;
+                libriUtenteCorrente = 0;
+            }
+            if (libriUtenteCorrente >= maxLibriPerUtente) {
+                return;
+            }
+            int libro = indici.getOrAssegna(libroId);
+            if (libro == numeroLibri) {
+                if (numeroLibri == ids.length) {
+                    ids = Arrays.copyOf(ids, numeroLibri * 2);
+                }
+                ids[numeroLibri++] = libroId;
+            }
+            if (numeroInterazioni == libri.length) {
+                libri = Arrays.copyOf(libri, numeroInterazioni * 2);
+                pesi = Arrays.copyOf(pesi, numeroInterazioni * 2);
+            }
+            libri[numeroInterazioni] = libro;
+            pesi[numeroInterazioni++] = peso(voto);
+            libriUtenteCorrente++;
+        }
+
+        /** Chiude le interazioni dell'utente corrente, registrandone l'offset finale. */
+        void chiudiUtente() {
+            if (utenteCorrente == null) {
+                return;
+            }
+            if (numeroUtenti + 1 >= offsetUtenti.length) {
+                offsetUtenti = Arrays.copyOf(offsetUtenti, offsetUtenti.length * 2);
+            }
+            offsetUtenti[++numeroUtenti] = numeroInterazioni;
+            utenteCorrente = null;
+        }
+    }
+
+    /**
+     * Stato condiviso del calcolo parallelo dei vicini. Ogni {@link Compito} scrive solo
+     * nelle posizioni dei libri del proprio intervallo, quindi non serve sincronizzazione.
+     */
+    private final class Calcolo {
+        final int[] offsetUtenti;
+        final int[] libri;
+        final float[] pesi;
+        final int[] offsetLibri;
+        final int[] utenti;
+        final float[] pesiLibri;
+        final float[] norme;
+        final int[] vicini;
+        final float[] similarita;
+        final int[] numeroVicini;
+        /** Accumulatore per thread, riutilizzato da tutti i compiti eseguiti sullo stesso thread. */
+        final ThreadLocal<Accumulatore> accumulatori;
+
+        Calcolo(int[] offsetUtenti, int[] libri, float[] pesi, int[] offsetLibri, int[] utenti, float[] pesiLibri,
+                float[] norme, int[] vicini, float[] similarita, int[] numeroVicini) {
+            this.offsetUtenti = offsetUtenti;
+            this.libri = libri;
+            this.pesi = pesi;
+            this.offsetLibri = offsetLibri;
+            this.utenti = utenti;
+            this.pesiLibri = pesiLibri;
+            this.norme = norme;
+            this.vicini = vicini;
+            this.similarita = similarita;
+            this.numeroVicini = numeroVicini;
+            this.accumulatori = ThreadLocal.withInitial(() -> new Accumulatore(norme.length));
+        }
+
+        /** Calcola i vicini del libro {@code i}. */
+        void calcolaVicini(int i, Accumulatore acc) {
+            if (norme[i] == 0f) {
+                return;
+            }
+            for (int p = offsetLibri[i]; p < offsetLibri[i + 1]; p++) {
+                int u = utenti[p];
+                float pesoUtente = pesiLibri[p];
+                for (int q = offsetUtenti[u]; q < offsetUtenti[u + 1]; q++) {
+                    int j = libri[q];
+                    if (j != i) {
+                        acc.aggiungi(j, pesoUtente * pesi[q]);
+                    }
+                }
+            }
+            for (int t = 0; t < acc.numeroToccati; t++) {
+                int j = acc.toccati[t];
+                acc.selezione.proponi(j, acc.somme[j] / (norme[i] * norme[j]));
+                acc.somme[j] = 0f;
+            }
+            acc.numeroToccati = 0;
+            numeroVicini[i] = acc.selezione.estraiOrdinati(vicini, similarita, i * k);
+        }
+
+        /** Sotto-compito che calcola i vicini dei libri in {@code [da, a)}. */
+        final class Compito extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int da;
+            private final int a;
+
+            Compito(int da, int a) {
+                this.da = da;
+                this.a = a;
+            }
+
+            @Override
+            protected void compute() {
+                if (a - da <= SOGLIA_SUDDIVISIONE) {
+                    Accumulatore acc = accumulatori.get();
+                    for (int i = da; i < a; i++) {
+                        calcolaVicini(i, acc);
+                    }
+                    return;
+                }
+                int mezzo = (da + a) >>> 1;
+                invokeAll(new Compito(da, mezzo), new Compito(mezzo, a));
+            }
+        }
+    }
+
+    /**
+     * Accumulatore denso dei prodotti scalari, con l'elenco delle posizioni toccate
+     * per poterlo azzerare in tempo proporzionale ai soli libri correlati.
+     */
+    private final class Accumulatore {
+        final float[] somme;
+        int[] toccati = new int[1024];
+        int numeroToccati;
+        final SelezioneTopK selezione = new SelezioneTopK(k);
+
+        Accumulatore(int numeroLibri) {
+            this.somme = new float[numeroLibri];
+        }
+
+        void aggiungi(int j, float valore) {
+            if (somme[j] == 0f) {
+                if (numeroToccati == toccati.length) {
+                    toccati = Arrays.copyOf(toccati, numeroToccati * 2);
+                }
+                toccati[numeroToccati++] = j;
+            }
+            somme[j] += valore;
+        }
+    }
+}
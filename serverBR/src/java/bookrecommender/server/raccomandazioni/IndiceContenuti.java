@@ -0,0 +1,422 @@
+package bookrecommender.server.raccomandazioni;
+
+import bookrecommender.condivisi.libri.Libro;
+import bookrecommender.server.libri.CatalogoLibri;
+import bookrecommender.server.utili.MappaLongInt;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Indice in memoria per la ricerca di libri simili in base al contenuto (autori,
+ * descrizione e categorie).
+ * <p>
+ * Ogni libro è rappresentato da un vettore TF-IDF sparso, memorizzato come coppia di array
+ * primitivi (identificativi dei termini e pesi) normalizzata a norma unitaria, così che il
+ * prodotto scalare tra due vettori sia la loro similarità del coseno. Per contenere memoria
+ * e tempi, ogni vettore conserva solo i {@value #MAX_TERMINI_PER_LIBRO} termini di peso più alto
+ * e i termini presenti in più di una certa frazione dei libri (poco informativi) sono ignorati.
+ * <p>
+ * I candidati vengono generati con un indice invertito (termine → libri che lo contengono):
+ * la similarità con un libro si calcola scorrendo solo le liste dei suoi termini, senza mai
+ * confrontarlo con tutti gli altri libri del catalogo.
+ * <p>
+ * La costruzione ({@link #carica(Connection, ForkJoinPool)}, o {@link #costruisci(CatalogoLibri, ForkJoinPool)}
+ * all'avvio del server) elabora i libri a blocchi ed estrae
+ * i termini in parallelo; anche il calcolo dei pesi è parallelo. I libri creati dopo la
+ * costruzione possono essere aggiunti con {@link #aggiungi(long, String, String, String)}: il loro
+ * peso usa le frequenze correnti dei termini, mentre i pesi dei libri già presenti non vengono
+ * ricalcolati fino alla costruzione successiva.
+ * <p>
+ * La classe è thread-safe: le ricerche condividono un read lock, le aggiunte usano il write lock.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see AnalizzatoreTesto
+ * @see MotoreRaccomandazioni
+ * @version 1.0
+ */
+public final class IndiceContenuti {
+    private static final Logger logger = LogManager.getLogger(IndiceContenuti.class);
+
+    /** Numero massimo di termini conservati nel vettore di un libro. */
+    static final int MAX_TERMINI_PER_LIBRO = 64;
+    /** Frazione massima di libri in cui un termine può comparire per essere indicizzato. */
+    static final double FRAZIONE_MASSIMA_LIBRI = 0.1;
+    /** Numero di libri letti ed elaborati per blocco durante la costruzione. */
+    private static final int DIMENSIONE_BLOCCO = 10_000;
+
+    private static final String QUERY_CARICA = "SELECT id, autori, descrizione, categorie FROM Libri";
+
+    private static final int[] VUOTO = new int[0];
+    private static final float[] VUOTO_PESI = new float[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final MappaLongInt indici;
+    private long[] ids;
+    private int numeroLibri;
+    /** Termini e pesi del vettore di ogni libro. */
+    private int[][] terminiLibri;
+    private float[][] pesiLibri;
+
+    private final Map<String, Integer> vocabolario;
+    /** Numero di libri che contengono ciascun termine. */
+    private int[] frequenzeDocumento;
+    /** Liste invertite: per ogni termine i libri (indici densi) e il peso del termine in ciascuno. */
+    private int[][] listeLibri;
+    private float[][] listePesi;
+    private int[] lunghezzeListe;
+
+    private IndiceContenuti(int capacita) {
+        this.indici = new MappaLongInt(capacita);
+        this.ids = new long[capacita];
+        this.terminiLibri = new int[capacita][];
+        this.pesiLibri = new float[capacita][];
+        this.vocabolario = new HashMap<>();
+        this.frequenzeDocumento = new int[1024];
+    }
+
+    /**
+     * Costruisce l'indice leggendo tutti i libri dal database.
+     *
+     * @param conn la connessione da utilizzare.
+     * @param pool il pool su cui eseguire le elaborazioni parallele.
+     * @return l'indice costruito.
+     * @throws SQLException in caso di errore di accesso al database.
+     */
+    public static IndiceContenuti carica(Connection conn, ForkJoinPool pool) throws SQLException {
+        long inizio = System.nanoTime();
+        IndiceContenuti indice = new IndiceContenuti(1 << 16);
+        long[] bloccoIds = new long[DIMENSIONE_BLOCCO];
+        String[][] bloccoTesti = new String[DIMENSIONE_BLOCCO][];
+        int nelBlocco = 0;
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(QUERY_CARICA)) {
+            ps.setFetchSize(DIMENSIONE_BLOCCO);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    bloccoIds[nelBlocco] = rs.getLong("id");
+                    bloccoTesti[nelBlocco++] = new String[]{
+                            rs.getString("autori"), rs.getString("descrizione"), rs.getString("categorie")};
+                    if (nelBlocco == DIMENSIONE_BLOCCO) {
+                        indice.aggiungiBlocco(bloccoIds, bloccoTesti, nelBlocco, pool);
+                        nelBlocco = 0;
+                    }
+                }
+            }
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        indice.aggiungiBlocco(bloccoIds, bloccoTesti, nelBlocco, pool);
+        indice.calcolaPesi(pool);
+        logger.info("Indice dei contenuti costruito: {} libri, {} termini in {} ms",
+                indice.numeroLibri, indice.vocabolario.size(), (System.nanoTime() - inizio) / 1_000_000);
+        return indice;
+    }
+
+    /**
+     * Costruisce l'indice dai libri del catalogo letto all'avvio, senza accedere al database.
+     *
+     * @param catalogo i libri letti dal database.
+     * @param pool     il pool su cui eseguire le elaborazioni parallele.
+     * @return l'indice costruito.
+     */
+    public static IndiceContenuti costruisci(CatalogoLibri catalogo, ForkJoinPool pool) {
+        long inizio = System.nanoTime();
+        IndiceContenuti indice = new IndiceContenuti(Math.max(16, catalogo.size()));
+        long[] bloccoIds = new long[DIMENSIONE_BLOCCO];
+        String[][] bloccoTesti = new String[DIMENSIONE_BLOCCO][];
+        for (int da = 0; da < catalogo.size(); da += DIMENSIONE_BLOCCO) {
+            int n = Math.min(DIMENSIONE_BLOCCO, catalogo.size() - da);
+            for (int i = 0; i < n; i++) {
+                Libro libro = catalogo.libro(da + i);
+                bloccoIds[i] = libro.id();
+                bloccoTesti[i] = new String[]{libro.autori(), libro.descrizione(), libro.categorie()};
+            }
+            indice.aggiungiBlocco(bloccoIds, bloccoTesti, n, pool);
+        }
+        indice.calcolaPesi(pool);
+        logger.info("Indice dei contenuti costruito: {} libri, {} termini in {} ms",
+                indice.numeroLibri, indice.vocabolario.size(), (System.nanoTime() - inizio) / 1_000_000);
+        return indice;
+    }
+
+    /**
+     * Costruisce l'indice a partire da testi già in memoria.
+     *
+     * @param ids   gli ID dei libri.
+     * @param testi per ogni libro autori, descrizione e categorie.
+     * @param pool  il pool su cui eseguire le elaborazioni parallele.
+     * @return l'indice costruito.
+     */
+    static IndiceContenuti costruisci(long[] ids, String[][] testi, ForkJoinPool pool) {
+        IndiceContenuti indice = new IndiceContenuti(Math.max(16, ids.length));
+        for (int da = 0; da < ids.length; da += DIMENSIONE_BLOCCO) {
+            int n = Math.min(DIMENSIONE_BLOCCO, ids.length - da);
+            indice.aggiungiBlocco(Arrays.copyOfRange(ids, da, da + n), Arrays.copyOfRange(testi, da, da + n), n, pool);
+        }
+        indice.calcolaPesi(pool);
+        return indice;
+    }
+
+    /**
+     * Aggiunge all'indice un libro creato dopo la costruzione. Se il libro è già presente non fa nulla.
+     *
+     * @param libroId     l'ID del libro.
+     * @param autori      gli autori.
+     * @param descrizione la descrizione.
+     * @param categorie   le categorie.
+     */
+    public void aggiungi(long libroId, String autori, String descrizione, String categorie) {
+        Map<String, Float> frequenze = AnalizzatoreTesto.termini(autori, descrizione, categorie);
+        lock.writeLock().lock();
+        try {
+            if (indici.get(libroId) != MappaLongInt.ASSENTE) {
+                return;
+            }
+            int libro = nuovoLibro(libroId);
+            registraTermini(libro, frequenze);
+            pesa(libro);
+            int[] termini = terminiLibri[libro];
+            float[] pesi = pesiLibri[libro];
+            for (int t = 0; t < termini.length; t++) {
+                int termine = termini[t];
+                if (termine >= listeLibri.length) {
+                    int capacita = Math.max(termine + 1, listeLibri.length * 2);
+                    listeLibri = Arrays.copyOf(listeLibri, capacita);
+                    listePesi = Arrays.copyOf(listePesi, capacita);
+                    lunghezzeListe = Arrays.copyOf(lunghezzeListe, capacita);
+                }
+                int n = lunghezzeListe[termine];
+                if (listeLibri[termine] == null || n == listeLibri[termine].length) {
+                    int capacita = Math.max(4, n * 2);
+                    listeLibri[termine] = listeLibri[termine] == null ? new int[capacita] : Arrays.copyOf(listeLibri[termine], capacita);
+                    listePesi[termine] = listePesi[termine] == null ? new float[capacita] : Arrays.copyOf(listePesi[termine], capacita);
+                }
+                listeLibri[termine][n] = libro;
+                listePesi[termine][n] = pesi[t];
+                lunghezzeListe[termine] = n + 1;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Restituisce i libri più simili per contenuto a quello indicato.
+     *
+     * @param libroId l'ID del libro.
+     * @param limite  il numero massimo di libri da restituire.
+     * @return i libri simili in ordine di similarità decrescente; vuota se il libro non è indicizzato.
+     */
+    public List<ModelloSimilarita.Punteggio> simili(long libroId, int limite) {
+        lock.readLock().lock();
+        try {
+            int libro = indici.get(libroId);
+            if (libro == MappaLongInt.ASSENTE || limite <= 0) {
+                return new ArrayList<>();
+            }
+            int[] termini = terminiLibri[libro];
+            float[] pesi = pesiLibri[libro];
+            MappaLongInt posizioni = new MappaLongInt(256);
+            int[] candidati = new int[256];
+            float[] somme = new float[256];
+            for (int t = 0; t < termini.length; t++) {
+                int termine = termini[t];
+                int[] lista = listeLibri[termine];
+                float[] listaPesi = listePesi[termine];
+                for (int p = 0; p < lunghezzeListe[termine]; p++) {
+                    int altro = lista[p];
+                    if (altro == libro) {
+                        continue;
+                    }
+                    int pos = posizioni.get(altro);
+                    if (pos == MappaLongInt.ASSENTE) {
+                        pos = posizioni.size();
+                        posizioni.put(altro, pos);
+                        if (pos == candidati.length) {
+                            candidati = Arrays.copyOf(candidati, pos * 2);
+                            somme = Arrays.copyOf(somme, pos * 2);
+                        }
+                        candidati[pos] = altro;
+                    }
+                    somme[pos] += pesi[t] * listaPesi[p];
+                }
+            }
+            int n = posizioni.size();
+            SelezioneTopK selezione = new SelezioneTopK(Math.max(1, Math.min(limite, n)));
+            for (int pos = 0; pos < n; pos++) {
+                selezione.proponi(candidati[pos], somme[pos]);
+            }
+            int[] migliori = new int[selezione.dimensione()];
+            float[] valori = new float[migliori.length];
+            selezione.estraiOrdinati(migliori, valori, 0);
+            List<ModelloSimilarita.Punteggio> risultato = new ArrayList<>(migliori.length);
+            for (int r = 0; r < migliori.length; r++) {
+                risultato.add(new ModelloSimilarita.Punteggio(ids[migliori[r]], valori[r]));
+            }
+            return risultato;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restituisce il numero di libri indicizzati.
+     *
+     * @return il numero di libri.
+     */
+    public int numeroLibri() {
+        lock.readLock().lock();
+        try {
+            return numeroLibri;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estrae in parallelo i termini di un blocco di libri e li registra nell'indice.
+     * Le frequenze restano grezze fino a {@link #calcolaPesi(ForkJoinPool)}.
+     */
+    private void aggiungiBlocco(long[] bloccoIds, String[][] bloccoTesti, int n, ForkJoinPool pool) {
+        if (n == 0) {
+            return;
+        }
+        List<Map<String, Float>> frequenze = pool.submit(() -> IntStream.range(0, n).parallel()
+                .mapToObj(i -> AnalizzatoreTesto.termini(bloccoTesti[i][0], bloccoTesti[i][1], bloccoTesti[i][2]))
+                .toList())
+                .join();
+        // L'assegnazione degli identificativi dei termini è sequenziale, nell'ordine dei libri
+        for (int i = 0; i < n; i++) {
+            if (indici.get(bloccoIds[i]) == MappaLongInt.ASSENTE) {
+                registraTermini(nuovoLibro(bloccoIds[i]), frequenze.get(i));
+            }
+            bloccoTesti[i] = null;
+        }
+    }
+
+    /**
+     * Calcola in parallelo i pesi TF-IDF di tutti i libri e costruisce le liste invertite.
+     */
+    private void calcolaPesi(ForkJoinPool pool) {
+        pool.submit(() -> IntStream.range(0, numeroLibri).parallel().forEach(this::pesa)).join();
+
+        int numeroTermini = vocabolario.size();
+        lunghezzeListe = new int[numeroTermini];
+        for (int libro = 0; libro < numeroLibri; libro++) {
+            for (int termine : terminiLibri[libro]) {
+                lunghezzeListe[termine]++;
+            }
+        }
+        listeLibri = new int[numeroTermini][];
+        listePesi = new float[numeroTermini][];
+        for (int termine = 0; termine < numeroTermini; termine++) {
+            listeLibri[termine] = lunghezzeListe[termine] == 0 ? VUOTO : new int[lunghezzeListe[termine]];
+            listePesi[termine] = lunghezzeListe[termine] == 0 ? VUOTO_PESI : new float[lunghezzeListe[termine]];
+        }
+        Arrays.fill(lunghezzeListe, 0);
+        for (int libro = 0; libro < numeroLibri; libro++) {
+            int[] termini = terminiLibri[libro];
+            float[] pesi = pesiLibri[libro];
+            for (int t = 0; t < termini.length; t++) {
+                int termine = termini[t];
+                int pos = lunghezzeListe[termine]++;
+                listeLibri[termine][pos] = libro;
+                listePesi[termine][pos] = pesi[t];
+            }
+        }
+    }
+
+    /** Aggiunge un libro senza termini e ne restituisce l'indice denso. */
+    private int nuovoLibro(long libroId) {
+        int libro = indici.getOrAssegna(libroId);
+        if (libro == ids.length) {
+            int capacita = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacita);
+            terminiLibri = Arrays.copyOf(terminiLibri, capacita);
+            pesiLibri = Arrays.copyOf(pesiLibri, capacita);
+        }
+        ids[libro] = libroId;
+        terminiLibri[libro] = VUOTO;
+        pesiLibri[libro] = VUOTO_PESI;
+        numeroLibri++;
+        return libro;
+    }
+
+    /** Memorizza per il libro i termini con la loro frequenza grezza e aggiorna le frequenze di documento. */
+    private void registraTermini(int libro, Map<String, Float> frequenze) {
+        int[] termini = new int[frequenze.size()];
+        float[] tf = new float[termini.length];
+        int t = 0;
+        for (Map.Entry<String, Float> voce : frequenze.entrySet()) {
+            Integer termine = vocabolario.get(voce.getKey());
+            if (termine == null) {
+                termine = vocabolario.size();
+                vocabolario.put(voce.getKey(), termine);
+                if (termine == frequenzeDocumento.length) {
+                    frequenzeDocumento = Arrays.copyOf(frequenzeDocumento, termine * 2);
+                }
+            }
+            frequenzeDocumento[termine]++;
+            termini[t] = termine;
+            tf[t++] = voce.getValue();
+        }
+        terminiLibri[libro] = termini;
+        pesiLibri[libro] = tf;
+    }
+
+    /**
+     * Trasforma le frequenze grezze del libro in pesi TF-IDF normalizzati, scartando i termini
+     * troppo frequenti e conservando solo i più pesanti.
+     */
+    private void pesa(int libro) {
+        int[] termini = terminiLibri[libro];
+        float[] tf = pesiLibri[libro];
+        double massimaFrequenza = Math.max(2, FRAZIONE_MASSIMA_LIBRI * numeroLibri);
+        SelezioneTopK selezione = new SelezioneTopK(Math.max(1, Math.min(MAX_TERMINI_PER_LIBRO, termini.length)));
+        for (int t = 0; t < termini.length; t++) {
+            int df = frequenzeDocumento[termini[t]];
+            if (df > massimaFrequenza) {
+                continue;
+            }
+            double idf = Math.log((double) numeroLibri / df) + 1;
+            selezione.proponi(termini[t], (float) ((1 + Math.log(tf[t])) * idf));
+        }
+        int[] scelti = new int[selezione.dimensione()];
+        float[] pesi = new float[scelti.length];
+        selezione.estraiOrdinati(scelti, pesi, 0);
+        double norma = 0;
+        for (float p : pesi) {
+            norma += (double) p * p;
+        }
+        norma = Math.sqrt(norma);
+        for (int t = 0; t < pesi.length; t++) {
+            pesi[t] = (float) (pesi[t] / norma);
+        }
+        terminiLibri[libro] = scelti;
+        pesiLibri[libro] = pesi;
+    }
+
+    @Override
+    public String toString() {
+        return "IndiceContenuti[libri=" + numeroLibri() + "]";
+    }
+}
@@ -0,0 +1,67 @@
+package bookrecommender.server.raccomandazioni;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Interfaccia che definisce il contratto per la lettura delle interazioni utente-libro
+ * usate dal motore di raccomandazione.
+ * <p>
+ * Un'interazione indica che un utente ha un libro in almeno una delle sue librerie,
+ * eventualmente con il voto complessivo che gli ha assegnato. Le interazioni sono ricavate
+ * dalle tabelle {@code Librerie}, {@code Libreria_Libro} e {@code ValutazioniLibri}.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see JdbcInterazioniDAO
+ * @see CostruttoreModello
+ * @version 1.0
+ */
+public interface InterazioniDAO {
+
+    /** Valore del voto per un libro presente in libreria ma non valutato. */
+    int NON_VALUTATO = 0;
+
+    /**
+     * Una singola interazione di un utente con un libro.
+     *
+     * @param libroId l'ID del libro.
+     * @param voto    il voto complessivo (1-5), o {@link #NON_VALUTATO}.
+     */
+    record Interazione(long libroId, int voto) {
+    }
+
+    /**
+     * Riceve le interazioni lette da {@link #leggiInterazioni(ConsumatoreInterazioni)}.
+     */
+    @FunctionalInterface
+    interface ConsumatoreInterazioni {
+        /**
+         * Riceve un'interazione.
+         *
+         * @param userId  l'ID dell'utente.
+         * @param libroId l'ID del libro.
+         * @param voto    il voto complessivo (1-5), o {@link #NON_VALUTATO}.
+         */
+        void accetta(String userId, long libroId, int voto);
+    }
+
+    /**
+     * Legge tutte le interazioni, passandole una alla volta al consumatore senza tenerle
+     * in memoria. Le interazioni di uno stesso utente sono consegnate consecutivamente.
+     *
+     * @param consumatore il destinatario delle interazioni.
+     * @throws SQLException in caso di errore di accesso al database.
+     */
+    void leggiInterazioni(ConsumatoreInterazioni consumatore) throws SQLException;
+
+    /**
+     * Recupera le interazioni di un singolo utente.
+     *
+     * @param userId l'ID dell'utente.
+     * @return la lista delle interazioni dell'utente, una per libro; vuota se non ne ha.
+     * @throws SQLException in caso di errore di accesso al database.
+     */
+    List<Interazione> interazioniUtente(String userId) throws SQLException;
+}
@@ -0,0 +1,86 @@
+package bookrecommender.server.raccomandazioni;
+
+import bookrecommender.server.utili.DBConnectionSingleton;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementazione JDBC dell'interfaccia {@link InterazioniDAO}.
+ * <p>
+ * Un libro presente in più librerie dello stesso utente produce una sola interazione;
+ * se è stato valutato più volte si considera il voto più alto. La lettura completa usa un
+ * cursore lato server ({@code fetchSize}) per non caricare in memoria l'intero risultato.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see InterazioniDAO
+ * @see DBConnectionSingleton
+ * @version 1.0
+ */
+public class JdbcInterazioniDAO implements InterazioniDAO {
+
+    /** Numero di righe lette per ogni round-trip durante la lettura completa. */
+    private static final int FETCH_SIZE = 10_000;
+
+    /** Query che restituisce tutte le interazioni, raggruppate per utente. */
+    private static final String SELECT_INTERAZIONI = """
+        SELECT lb.user_id, ll.libro_id, COALESCE(MAX(v.voto_complessivo), 0) AS voto
+        FROM Libreria_Libro ll
+        JOIN Librerie lb ON lb.libreria_id = ll.libreria_id
+        LEFT JOIN ValutazioniLibri v ON v.libreria_id = ll.libreria_id AND v.libro_id = ll.libro_id
+        GROUP BY lb.user_id, ll.libro_id
+        ORDER BY lb.user_id
+        """;
+
+    /** Query che restituisce le interazioni di un utente. */
+    private static final String SELECT_INTERAZIONI_UTENTE = """
+        SELECT ll.libro_id, COALESCE(MAX(v.voto_complessivo), 0) AS voto
+        FROM Libreria_Libro ll
+        JOIN Librerie lb ON lb.libreria_id = ll.libreria_id
+        LEFT JOIN ValutazioniLibri v ON v.libreria_id = ll.libreria_id AND v.libro_id = ll.libro_id
+        WHERE lb.user_id = ?
+        GROUP BY ll.libro_id
+        """;
+
+    /** {@inheritDoc} */
+    @Override
+    public void leggiInterazioni(ConsumatoreInterazioni consumatore) throws SQLException {
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            // Il driver PostgreSQL usa un cursore (e rispetta il fetchSize) solo fuori dall'autocommit
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(SELECT_INTERAZIONI)) {
+                ps.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumatore.accetta(rs.getString("user_id"), rs.getLong("libro_id"), rs.getInt("voto"));
+                    }
+                }
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Interazione> interazioniUtente(String userId) throws SQLException {
+        List<Interazione> interazioni = new ArrayList<>();
+        try (Connection conn = DBConnectionSingleton.openNewConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_INTERAZIONI_UTENTE)) {
+            ps.setString(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    interazioni.add(new Interazione(rs.getLong("libro_id"), rs.getInt("voto")));
+                }
+            }
+        }
+        return interazioni;
+    }
+}
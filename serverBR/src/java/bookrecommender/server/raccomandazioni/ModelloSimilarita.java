@@ -0,0 +1,169 @@
+package bookrecommender.server.raccomandazioni;
+
+import bookrecommender.server.utili.MappaLongInt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Modello di similarità tra libri: per ogni libro conserva i {@code k} libri più simili
+ * ("vicini") con il relativo punteggio.
+ * <p>
+ * Il modello è costruito da {@link CostruttoreModello} ed è immutabile: può essere letto
+ * da più thread senza sincronizzazione. I vicini sono memorizzati in due array piatti di
+ * dimensione {@code numeroLibri * k} (indici dei vicini e similarità, in ordine decrescente),
+ * così che l'occupazione di memoria sia nota in anticipo e indipendente dal numero di coppie
+ * di libri effettivamente correlate.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see CostruttoreModello
+ * @see MotoreRaccomandazioni
+ * @version 1.0
+ */
+public final class ModelloSimilarita {
+
+    /**
+     * Un libro con il suo punteggio di affinità.
+     *
+     * @param libroId   l'ID del libro.
+     * @param punteggio il punteggio (più alto è, più il libro è affine).
+     */
+    public record Punteggio(long libroId, double punteggio) {
+    }
+
+    private final MappaLongInt indici;
+    private final long[] ids;
+    private final int k;
+    private final int[] vicini;
+    private final float[] similarita;
+    private final int[] numeroVicini;
+
+    /**
+     * Crea il modello a partire dagli array già calcolati.
+     *
+     * @param indici       la mappa da ID del libro a indice denso.
+     * @param ids          gli ID dei libri, per indice denso.
+     * @param k            il numero massimo di vicini per libro.
+     * @param vicini       gli indici dei vicini: quelli del libro {@code i} sono in {@code [i*k, i*k + numeroVicini[i])}.
+     * @param similarita   le similarità corrispondenti a {@code vicini}.
+     * @param numeroVicini il numero di vicini effettivi di ogni libro.
+     */
+    ModelloSimilarita(MappaLongInt indici, long[] ids, int k, int[] vicini, float[] similarita, int[] numeroVicini) {
+        this.indici = indici;
+        this.ids = ids;
+        this.k = k;
+        this.vicini = vicini;
+        this.similarita = similarita;
+        this.numeroVicini = numeroVicini;
+    }
+
+    /**
+     * Restituisce i libri più simili a quello indicato.
+     *
+     * @param libroId l'ID del libro.
+     * @param limite  il numero massimo di libri da restituire.
+     * @return i libri simili in ordine di similarità decrescente; vuota se il libro non è nel modello.
+     */
+    public List<Punteggio> simili(long libroId, int limite) {
+        int i = indici.get(libroId);
+        if (i == MappaLongInt.ASSENTE) {
+            return new ArrayList<>();
+        }
+        int n = Math.min(limite, numeroVicini[i]);
+        List<Punteggio> risultato = new ArrayList<>(n);
+        for (int p = i * k; p < i * k + n; p++) {
+            risultato.add(new Punteggio(ids[vicini[p]], similarita[p]));
+        }
+        return risultato;
+    }
+
+    /**
+     * Calcola i suggerimenti per un insieme di libri pesati (es. quelli nelle librerie di un
+     * utente): il punteggio di un libro candidato è la somma, sui libri di partenza, di
+     * similarità per peso. I libri di partenza sono esclusi dal risultato.
+     *
+     * @param libriIds gli ID dei libri di partenza.
+     * @param pesi     il peso di ciascun libro di partenza.
+     * @param limite   il numero massimo di libri da restituire.
+     * @return i libri suggeriti in ordine di punteggio decrescente.
+     */
+    public List<Punteggio> suggerisci(long[] libriIds, float[] pesi, int limite) {
+        int[] partenza = new int[libriIds.length];
+        int numeroPartenza = 0;
+        for (long id : libriIds) {
+            int i = indici.get(id);
+            if (i != MappaLongInt.ASSENTE) {
+                partenza[numeroPartenza++] = i;
+            }
+        }
+        partenza = Arrays.copyOf(partenza, numeroPartenza);
+        Arrays.sort(partenza);
+
+        MappaLongInt posizioni = new MappaLongInt(Math.max(16, numeroPartenza * k));
+        int[] candidati = new int[16];
+        float[] punteggi = new float[16];
+        for (int q = 0; q < libriIds.length; q++) {
+            int i = indici.get(libriIds[q]);
+            if (i == MappaLongInt.ASSENTE) {
+                continue;
+            }
+            for (int p = i * k; p < i * k + numeroVicini[i]; p++) {
+                int j = vicini[p];
+                if (Arrays.binarySearch(partenza, j) >= 0) {
+                    continue;
+                }
+                int pos = posizioni.get(j);
+                if (pos == MappaLongInt.ASSENTE) {
+                    pos = posizioni.size();
+                    posizioni.put(j, pos);
+                    if (pos == candidati.length) {
+                        candidati = Arrays.copyOf(candidati, pos * 2);
+                        punteggi = Arrays.copyOf(punteggi, pos * 2);
+                    }
+                    candidati[pos] = j;
+                }
+                punteggi[pos] += similarita[p] * pesi[q];
+            }
+        }
+
+        int n = posizioni.size();
+        SelezioneTopK selezione = new SelezioneTopK(Math.max(1, Math.min(limite, n)));
+        for (int pos = 0; pos < n; pos++) {
+            selezione.proponi(candidati[pos], punteggi[pos]);
+        }
+        int[] migliori = new int[selezione.dimensione()];
+        float[] valori = new float[migliori.length];
+        selezione.estraiOrdinati(migliori, valori, 0);
+        List<Punteggio> risultato = new ArrayList<>(migliori.length);
+        for (int r = 0; r < migliori.length; r++) {
+            risultato.add(new Punteggio(ids[migliori[r]], valori[r]));
+        }
+        return risultato;
+    }
+
+    /**
+     * Restituisce il numero di libri presenti nel modello.
+     *
+     * @return il numero di libri.
+     */
+    public int numeroLibri() {
+        return ids.length;
+    }
+
+    /**
+     * Restituisce il numero massimo di vicini conservati per ogni libro.
+     *
+     * @return il valore di {@code k}.
+     */
+    public int k() {
+        return k;
+    }
+
+    @Override
+    public String toString() {
+        return "ModelloSimilarita[libri=" + ids.length + ", k=" + k + "]";
+    }
+}
@@ -0,0 +1,274 @@
+package bookrecommender.server.raccomandazioni;
+
+import bookrecommender.condivisi.consigli.LibroSuggerito;
+import bookrecommender.condivisi.libri.LibroSintesi;
+import bookrecommender.server.libri.CatalogoLibri;
+import bookrecommender.server.libri.EventiCatalogo;
+import bookrecommender.server.libri.JdbcCercaLibriDAO;
+import bookrecommender.server.utili.DBConnectionSingleton;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motore di raccomandazione item-item: mantiene il {@link ModelloSimilarita} corrente e lo
+ * usa per suggerire libri a partire da un libro o dalle librerie di un utente.
+ * <p>
+ * Il modello viene costruito in background all'avvio e ricostruito periodicamente, senza
+ * bloccare le richieste: finché il primo modello non è pronto i suggerimenti sono vuoti.
+ * La costruzione usa un {@link ForkJoinPool} dedicato, chiuso al termine di ogni costruzione.
+ * <p>
+ * Insieme al modello viene costruito l'{@link IndiceContenuti}, usato per i libri simili per
+ * contenuto ({@link #libriSimili(long, int)}). L'indice viene aggiornato quando un libro è
+ * creato (tramite {@link EventiCatalogo}) e ricostruito insieme al modello, così da
+ * ricalcolare anche le frequenze dei termini, e quando il catalogo viene riletto dopo una
+ * modifica esterna.
+ * <p>
+ * La configurazione avviene tramite proprietà di sistema:
+ * <ul>
+ *     <li>{@code bookrecommender.raccomandazioni.vicini}: numero di vicini per libro (default 50);</li>
+ *     <li>{@code bookrecommender.raccomandazioni.max.libri.utente}: numero massimo di libri
+ *         considerati per utente (default 1000);</li>
+ *     <li>{@code bookrecommender.raccomandazioni.thread}: parallelismo della costruzione
+ *         (default il numero di processori);</li>
+ *     <li>{@code bookrecommender.raccomandazioni.ricostruzione.ore}: intervallo tra due
+ *         ricostruzioni, {@code 0} per disabilitarle (default 24);</li>
+ *     <li>{@code bookrecommender.raccomandazioni.contenuti}: se {@code false} l'indice dei
+ *         contenuti non viene costruito (default {@code true}).</li>
+ * </ul>
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see ModelloSimilarita
+ * @see CostruttoreModello
+ * @see IndiceContenuti
+ * @version 1.0
+ */
+public class MotoreRaccomandazioni {
+    private static final Logger logger = LogManager.getLogger(MotoreRaccomandazioni.class);
+
+    private final InterazioniDAO interazioniDAO;
+    private final JdbcCercaLibriDAO libriDAO;
+    private final int k;
+    private final int maxLibriPerUtente;
+    private final int parallelismo;
+    private volatile ModelloSimilarita modello;
+    private volatile IndiceContenuti indiceContenuti;
+
+    /**
+     * Crea il motore leggendo la configurazione dalle proprietà di sistema.
+     * Il modello non viene costruito finché non si invoca {@link #avvia(CatalogoLibri)}.
+     */
+    public MotoreRaccomandazioni() {
+        this(new JdbcInterazioniDAO(), new JdbcCercaLibriDAO(),
+                Integer.getInteger("bookrecommender.raccomandazioni.vicini", 50),
+                Integer.getInteger("bookrecommender.raccomandazioni.max.libri.utente", 1000),
+                Integer.getInteger("bookrecommender.raccomandazioni.thread", Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Crea il motore con la configurazione indicata.
+     *
+     * @param interazioniDAO    il DAO da cui leggere le interazioni.
+     * @param libriDAO          il DAO da cui leggere la sintesi dei libri suggeriti.
+     * @param k                 il numero di vicini per libro.
+     * @param maxLibriPerUtente il numero massimo di libri considerati per utente.
+     * @param parallelismo      il numero di thread usati per la costruzione.
+     */
+    public MotoreRaccomandazioni(InterazioniDAO interazioniDAO, JdbcCercaLibriDAO libriDAO,
+                                 int k, int maxLibriPerUtente, int parallelismo) {
+        this.interazioniDAO = interazioniDAO;
+        this.libriDAO = libriDAO;
+        this.k = k;
+        this.maxLibriPerUtente = maxLibriPerUtente;
+        this.parallelismo = Math.max(1, parallelismo);
+    }
+
+    /**
+     * Avvia la costruzione del modello su un thread daemon e pianifica le ricostruzioni periodiche.
+     * <p>
+     * La prima costruzione dell'indice dei contenuti usa il catalogo letto all'avvio, se
+     * disponibile; le ricostruzioni periodiche rileggono i libri dal database.
+     *
+     * @param catalogo i libri letti dal database all'avvio, o {@code null}.
+     */
+    public void avvia(CatalogoLibri catalogo) {
+        long ore = Long.getLong("bookrecommender.raccomandazioni.ricostruzione.ore", 24L);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "costruzione-modello-raccomandazioni");
+            t.setDaemon(true);
+            return t;
+        });
+        Runnable costruzione = this::ricostruisci;
+        Runnable primaCostruzione = costruzione;
+        if (Boolean.parseBoolean(System.getProperty("bookrecommender.raccomandazioni.contenuti", "true"))) {
+            EventiCatalogo.registraLibroCreato(libro -> {
+                IndiceContenuti indice = indiceContenuti;
+                if (indice != null) {
+                    indice.aggiungi(libro.id(), libro.autori(), libro.descrizione(), libro.categorie());
+                }
+            });
+            costruzione = () -> {
+                ricostruisci();
+                ricostruisciIndiceContenuti();
+            };
+            primaCostruzione = catalogo == null ? costruzione : () -> {
+                ricostruisci();
+                costruisciIndiceContenuti(catalogo);
+            };
+            EventiCatalogo.registraCatalogoRicaricato(ricaricato -> scheduler.execute(() -> costruisciIndiceContenuti(ricaricato)));
+        }
+        scheduler.execute(primaCostruzione);
+        if (ore > 0) {
+            scheduler.scheduleWithFixedDelay(costruzione, ore, ore, TimeUnit.HOURS);
+        }
+    }
+
+    /**
+     * Costruisce un nuovo modello e lo sostituisce a quello corrente. In caso di errore
+     * il modello precedente resta in uso.
+     *
+     * @return {@code true} se il modello è stato ricostruito.
+     */
+    public boolean ricostruisci() {
+        ForkJoinPool pool = new ForkJoinPool(parallelismo);
+        try {
+            modello = new CostruttoreModello(interazioniDAO, k, maxLibriPerUtente, pool).costruisci();
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Errore durante la costruzione del modello di raccomandazione", e);
+            return false;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Costruisce un nuovo indice dei contenuti e lo sostituisce a quello corrente. In caso di
+     * errore l'indice precedente resta in uso.
+     * <p>
+     * I libri creati durante la costruzione potrebbero non comparire nel nuovo indice fino
+     * alla costruzione successiva.
+     *
+     * @return {@code true} se l'indice è stato ricostruito.
+     */
+    public boolean ricostruisciIndiceContenuti() {
+        ForkJoinPool pool = new ForkJoinPool(parallelismo);
+        try (Connection conn = DBConnectionSingleton.openNewConnection()) {
+            indiceContenuti = IndiceContenuti.carica(conn, pool);
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            logger.error("Errore durante la costruzione dell'indice dei contenuti", e);
+            return false;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Costruisce l'indice dei contenuti da un catalogo già letto e lo sostituisce a quello
+     * corrente. In caso di errore l'indice precedente, se presente, resta in uso.
+     */
+    private void costruisciIndiceContenuti(CatalogoLibri catalogo) {
+        ForkJoinPool pool = new ForkJoinPool(parallelismo);
+        try {
+            indiceContenuti = IndiceContenuti.costruisci(catalogo, pool);
+        } catch (RuntimeException e) {
+            logger.error("Errore durante la costruzione dell'indice dei contenuti", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Restituisce i libri più simili per contenuto (autori, descrizione e categorie) a un libro.
+     *
+     * @param libroId l'ID del libro.
+     * @param limite  il numero massimo di libri.
+     * @return i libri simili in ordine di similarità decrescente; vuota se l'indice non è pronto.
+     */
+    public List<LibroSuggerito> libriSimili(long libroId, int limite) {
+        IndiceContenuti indice = indiceContenuti;
+        if (indice == null) {
+            return new ArrayList<>();
+        }
+        return conSintesi(indice.simili(libroId, limite));
+    }
+
+    /**
+     * Restituisce i libri suggeriti a partire da un libro.
+     *
+     * @param libroId l'ID del libro.
+     * @param limite  il numero massimo di suggerimenti.
+     * @return i suggerimenti in ordine di punteggio decrescente; vuota se il modello non è pronto.
+     */
+    public List<LibroSuggerito> suggerimentiPerLibro(long libroId, int limite) {
+        ModelloSimilarita m = modello;
+        if (m == null) {
+            return new ArrayList<>();
+        }
+        return conSintesi(m.simili(libroId, limite));
+    }
+
+    /**
+     * Restituisce i libri suggeriti a un utente a partire dai libri delle sue librerie.
+     *
+     * @param userId l'ID dell'utente.
+     * @param limite il numero massimo di suggerimenti.
+     * @return i suggerimenti in ordine di punteggio decrescente; vuota se il modello non è pronto.
+     * @throws SQLException in caso di errore nella lettura delle librerie dell'utente.
+     */
+    public List<LibroSuggerito> suggerimentiPerUtente(String userId, int limite) throws SQLException {
+        ModelloSimilarita m = modello;
+        if (m == null) {
+            return new ArrayList<>();
+        }
+        List<InterazioniDAO.Interazione> interazioni = interazioniDAO.interazioniUtente(userId);
+        long[] libri = new long[interazioni.size()];
+        float[] pesi = new float[libri.length];
+        for (int i = 0; i < libri.length; i++) {
+            libri[i] = interazioni.get(i).libroId();
+            pesi[i] = CostruttoreModello.peso(interazioni.get(i).voto());
+        }
+        return conSintesi(m.suggerisci(libri, pesi, limite));
+    }
+
+    /**
+     * Indica se il modello è pronto.
+     *
+     * @return {@code true} se almeno un modello è stato costruito.
+     */
+    public boolean isPronto() {
+        return modello != null;
+    }
+
+    /**
+     * Associa ai punteggi la sintesi dei libri, recuperata con una sola query.
+     */
+    private List<LibroSuggerito> conSintesi(List<ModelloSimilarita.Punteggio> punteggi) {
+        List<Long> ids = new ArrayList<>(punteggi.size());
+        for (ModelloSimilarita.Punteggio p : punteggi) {
+            ids.add(p.libroId());
+        }
+        // getSintesiByIds restituisce i libri nell'ordine degli ID richiesti, omettendo quelli inesistenti
+        List<LibroSintesi> sintesi = libriDAO.getSintesiByIds(ids);
+        List<LibroSuggerito> risultato = new ArrayList<>(sintesi.size());
+        int p = 0;
+        for (LibroSintesi libro : sintesi) {
+            while (punteggi.get(p).libroId() != libro.id()) {
+                p++;
+            }
+            risultato.add(new LibroSuggerito(libro, punteggi.get(p).punteggio()));
+        }
+        return risultato;
+    }
+}
@@ -0,0 +1,134 @@
+package bookrecommender.server.raccomandazioni;
+
+/**
+ * Selezione dei {@code k} elementi con punteggio più alto da una sequenza di coppie
+ * (indice, punteggio), tramite un min-heap su array primitivi.
+ * <p>
+ * Ogni inserimento costa {@code O(log k)} e non alloca oggetti: l'istanza può essere
+ * riutilizzata per più selezioni chiamando {@link #svuota()}. A parità di punteggio
+ * viene preferito l'indice più basso, così che il risultato sia deterministico.
+ * <p>
+ * La classe non è thread-safe: ogni thread deve usare la propria istanza.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+final class SelezioneTopK {
+    private final int[] indici;
+    private final float[] punteggi;
+    private int dimensione;
+
+    /**
+     * Crea una selezione dei migliori {@code k} elementi.
+     *
+     * @param k il numero massimo di elementi da conservare.
+     */
+    SelezioneTopK(int k) {
+        this.indici = new int[k];
+        this.punteggi = new float[k];
+    }
+
+    /**
+     * Propone un elemento: viene conservato se è tra i migliori {@code k} visti finora.
+     *
+     * @param indice    l'indice dell'elemento.
+     * @param punteggio il punteggio dell'elemento.
+     */
+    void proponi(int indice, float punteggio) {
+        if (dimensione < indici.length) {
+            indici[dimensione] = indice;
+            punteggi[dimensione] = punteggio;
+            risali(dimensione++);
+        } else if (dimensione > 0 && peggiore(indici[0], punteggi[0], indice, punteggio)) {
+            indici[0] = indice;
+            punteggi[0] = punteggio;
+            scendi(0);
+        }
+    }
+
+    /**
+     * Restituisce il numero di elementi selezionati.
+     *
+     * @return il numero di elementi, al più {@code k}.
+     */
+    int dimensione() {
+        return dimensione;
+    }
+
+    /**
+     * Scrive gli elementi selezionati in ordine di punteggio decrescente e svuota la selezione.
+     *
+     * @param indiciDest    l'array in cui scrivere gli indici.
+     * @param punteggiDest  l'array in cui scrivere i punteggi.
+     * @param da            la posizione da cui iniziare a scrivere.
+     * @return il numero di elementi scritti.
+     */
+    int estraiOrdinati(int[] indiciDest, float[] punteggiDest, int da) {
+        int n = dimensione;
+        // Estraendo ripetutamente il minimo si riempie l'intervallo dal fondo
+        for (int i = n - 1; i >= 0; i--) {
+            indiciDest[da + i] = indici[0];
+            punteggiDest[da + i] = punteggi[0];
+            dimensione--;
+            if (dimensione > 0) {
+                indici[0] = indici[dimensione];
+                punteggi[0] = punteggi[dimensione];
+                scendi(0);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Svuota la selezione.
+     */
+    void svuota() {
+        dimensione = 0;
+    }
+
+    /** Indica se l'elemento (i1, p1) è peggiore dell'elemento (i2, p2). */
+    private static boolean peggiore(int i1, float p1, int i2, float p2) {
+        return p1 < p2 || (p1 == p2 && i1 > i2);
+    }
+
+    private void risali(int i) {
+        while (i > 0) {
+            int padre = (i - 1) >>> 1;
+            if (!peggiore(indici[i], punteggi[i], indici[padre], punteggi[padre])) {
+                return;
+            }
+            scambia(i, padre);
+            i = padre;
+        }
+    }
+
+    private void scendi(int i) {
+        while (true) {
+            int sinistro = 2 * i + 1;
+            if (sinistro >= dimensione) {
+                return;
+            }
+            int minimo = sinistro;
+            int destro = sinistro + 1;
+            if (destro < dimensione && peggiore(indici[destro], punteggi[destro], indici[sinistro], punteggi[sinistro])) {
+                minimo = destro;
+            }
+            if (!peggiore(indici[minimo], punteggi[minimo], indici[i], punteggi[i])) {
+                return;
+            }
+            scambia(i, minimo);
+            i = minimo;
+        }
+    }
+
+    private void scambia(int a, int b) {
+        int ti = indici[a];
+        indici[a] = indici[b];
+        indici[b] = ti;
+        float tp = punteggi[a];
+        punteggi[a] = punteggi[b];
+        punteggi[b] = tp;
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * Fornisce il motore di raccomandazione lato server, che calcola suggerimenti di lettura
+ * a partire dai dati già presenti nel database.
+ * <p>
+ * A differenza del package {@link bookrecommender.server.consigli}, che gestisce i consigli
+ * dati esplicitamente dagli utenti, le classi di questo package ricavano i suggerimenti
+ * dalle librerie e dalle valutazioni degli utenti ("chi ha questo libro ha anche..."):
+ * <ul>
+ *     <li>{@link bookrecommender.server.raccomandazioni.MotoreRaccomandazioni}: Il punto di
+ *         accesso usato dal servizio dei consigli; mantiene il modello corrente e lo
+ *         ricostruisce periodicamente in background.</li>
+ *     <li>{@link bookrecommender.server.raccomandazioni.CostruttoreModello}: Costruisce in
+ *         parallelo, con un {@link java.util.concurrent.ForkJoinPool}, la similarità item-item
+ *         tra i libri.</li>
+ *     <li>{@link bookrecommender.server.raccomandazioni.IndiceContenuti}: L'indice TF-IDF di
+ *         autori, descrizione e categorie, usato per trovare i libri simili per contenuto.</li>
+ *     <li>{@link bookrecommender.server.raccomandazioni.ModelloSimilarita}: Il modello immutabile
+ *         con i libri più simili a ciascun libro.</li>
+ *     <li>{@link bookrecommender.server.raccomandazioni.InterazioniDAO} e
+ *         {@link bookrecommender.server.raccomandazioni.JdbcInterazioniDAO}: L'accesso ai dati
+ *         delle librerie e delle valutazioni usati per costruire il modello.</li>
+ * </ul>
+ */
+package bookrecommender.server.raccomandazioni;
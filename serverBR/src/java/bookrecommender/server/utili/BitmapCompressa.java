@@ -0,0 +1,337 @@
+package bookrecommender.server.utili;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Insieme immutabile di interi non negativi minori di un universo fissato, in forma compressa.
+ * <p>
+ * È pensato per gli indici bitmap del server, in cui ogni valore di un attributo (una categoria,
+ * un editore, un anno) è associato all'insieme dei documenti che lo possiedono. La maggior parte
+ * di questi insiemi contiene pochi documenti, mentre pochi valori ne coprono una frazione
+ * consistente: per questo ogni bitmap sceglie la rappresentazione più compatta tra
+ * <ul>
+ *     <li><b>sparsa</b>: array ordinato dei valori presenti (4 byte per elemento);</li>
+ *     <li><b>densa</b>: un bit per ogni valore dell'universo, in un array di {@code long}.</li>
+ * </ul>
+ * La rappresentazione densa viene scelta quando l'insieme contiene almeno un elemento ogni
+ * {@value #SOGLIA_DENSA} valori dell'universo, cioè quando occupa meno memoria dell'array.
+ * Le operazioni di intersezione e unione sfruttano la rappresentazione di entrambi gli operandi
+ * (AND/OR parola per parola, fusione di array ordinati, verifica dei bit) e il risultato viene
+ * di nuovo compresso.
+ * <p>
+ * La classe è immutabile e quindi thread-safe.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public final class BitmapCompressa {
+    /** Un elemento ogni quanti valori dell'universo rende conveniente la rappresentazione densa. */
+    static final int SOGLIA_DENSA = 32;
+
+    private static final int[] NESSUNO = new int[0];
+
+    private final int universo;
+    private final int cardinalita;
+    /** Elementi in ordine crescente, se la bitmap è sparsa; altrimenti {@code null}. */
+    private final int[] elementi;
+    /** Parole della bitmap, se è densa; altrimenti {@code null}. */
+    private final long[] parole;
+
+    private BitmapCompressa(int universo, int cardinalita, int[] elementi, long[] parole) {
+        this.universo = universo;
+        this.cardinalita = cardinalita;
+        this.elementi = elementi;
+        this.parole = parole;
+    }
+
+    /**
+     * Crea una bitmap dagli elementi indicati.
+     *
+     * @param ordinati gli elementi, in ordine strettamente crescente e minori di {@code universo};
+     *                 l'array non viene copiato se la bitmap resta sparsa.
+     * @param n        il numero di elementi validi all'inizio dell'array.
+     * @param universo il numero di valori possibili.
+     * @return la bitmap compressa.
+     */
+    public static BitmapCompressa daOrdinati(int[] ordinati, int n, int universo) {
+        if (densa(n, universo)) {
+            long[] parole = new long[numeroParole(universo)];
+            for (int i = 0; i < n; i++) {
+                parole[ordinati[i] >>> 6] |= 1L << ordinati[i];
+            }
+            return new BitmapCompressa(universo, n, null, parole);
+        }
+        return new BitmapCompressa(universo, n, n == ordinati.length ? ordinati : Arrays.copyOf(ordinati, n), null);
+    }
+
+    /**
+     * Crea la bitmap vuota.
+     *
+     * @param universo il numero di valori possibili.
+     * @return la bitmap senza elementi.
+     */
+    public static BitmapCompressa vuota(int universo) {
+        return new BitmapCompressa(universo, 0, NESSUNO, null);
+    }
+
+    /**
+     * Crea la bitmap che contiene tutti i valori dell'universo.
+     *
+     * @param universo il numero di valori possibili.
+     * @return la bitmap piena.
+     */
+    public static BitmapCompressa piena(int universo) {
+        long[] parole = new long[numeroParole(universo)];
+        Arrays.fill(parole, -1L);
+        if ((universo & 63) != 0) {
+            parole[parole.length - 1] = (1L << universo) - 1;
+        }
+        return comprimi(universo, universo, parole);
+    }
+
+    /**
+     * Restituisce il numero di elementi.
+     *
+     * @return la cardinalità dell'insieme.
+     */
+    public int cardinalita() {
+        return cardinalita;
+    }
+
+    /**
+     * Restituisce il numero di valori possibili.
+     *
+     * @return la dimensione dell'universo.
+     */
+    public int universo() {
+        return universo;
+    }
+
+    /**
+     * Indica se il valore appartiene all'insieme.
+     *
+     * @param valore il valore da verificare.
+     * @return {@code true} se il valore è presente.
+     */
+    public boolean contiene(int valore) {
+        if (valore < 0 || valore >= universo) {
+            return false;
+        }
+        return parole != null
+                ? (parole[valore >>> 6] & (1L << valore)) != 0
+                : Arrays.binarySearch(elementi, valore) >= 0;
+    }
+
+    /**
+     * Restituisce l'intersezione con un'altra bitmap dello stesso universo.
+     *
+     * @param altra l'altra bitmap.
+     * @return gli elementi presenti in entrambe.
+     */
+    public BitmapCompressa intersezione(BitmapCompressa altra) {
+        if (parole != null && altra.parole != null) {
+            long[] risultato = new long[parole.length];
+            int n = 0;
+            for (int i = 0; i < risultato.length; i++) {
+                risultato[i] = parole[i] & altra.parole[i];
+                n += Long.bitCount(risultato[i]);
+            }
+            return comprimi(universo, n, risultato);
+        }
+        if (parole != null) {
+            return altra.intersezione(this);
+        }
+        // questa è sparsa: il risultato ha al più i suoi elementi e resta sparso
+        int[] risultato = new int[cardinalita];
+        int n = 0;
+        if (altra.parole != null) {
+            for (int valore : elementi) {
+                if ((altra.parole[valore >>> 6] & (1L << valore)) != 0) {
+                    risultato[n++] = valore;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < cardinalita && j < altra.cardinalita) {
+                int a = elementi[i];
+                int b = altra.elementi[j];
+                if (a == b) {
+                    risultato[n++] = a;
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+        }
+        return daOrdinati(risultato, n, universo);
+    }
+
+    /**
+     * Restituisce l'unione con un'altra bitmap dello stesso universo.
+     *
+     * @param altra l'altra bitmap.
+     * @return gli elementi presenti in almeno una delle due.
+     */
+    public BitmapCompressa unione(BitmapCompressa altra) {
+        if (parole == null && altra.parole == null && !densa(cardinalita + altra.cardinalita, universo)) {
+            int[] risultato = new int[cardinalita + altra.cardinalita];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinalita || j < altra.cardinalita) {
+                if (j == altra.cardinalita || (i < cardinalita && elementi[i] < altra.elementi[j])) {
+                    risultato[n++] = elementi[i++];
+                } else if (i == cardinalita || altra.elementi[j] < elementi[i]) {
+                    risultato[n++] = altra.elementi[j++];
+                } else {
+                    risultato[n++] = elementi[i++];
+                    j++;
+                }
+            }
+            return daOrdinati(risultato, n, universo);
+        }
+        long[] risultato = new long[numeroParole(universo)];
+        aggiungiA(risultato);
+        altra.aggiungiA(risultato);
+        int n = 0;
+        for (long parola : risultato) {
+            n += Long.bitCount(parola);
+        }
+        return comprimi(universo, n, risultato);
+    }
+
+    /**
+     * Restituisce l'unione di più bitmap dello stesso universo in un solo passaggio, senza
+     * creare i risultati intermedi dell'unione a coppie.
+     *
+     * @param bitmap   le bitmap da unire.
+     * @param universo il numero di valori possibili.
+     * @return gli elementi presenti in almeno una delle bitmap; vuota se l'elenco è vuoto.
+     */
+    public static BitmapCompressa unioneDi(List<BitmapCompressa> bitmap, int universo) {
+        if (bitmap.isEmpty()) {
+            return vuota(universo);
+        }
+        if (bitmap.size() == 1) {
+            return bitmap.get(0);
+        }
+        long[] risultato = new long[numeroParole(universo)];
+        for (BitmapCompressa b : bitmap) {
+            b.aggiungiA(risultato);
+        }
+        int n = 0;
+        for (long parola : risultato) {
+            n += Long.bitCount(parola);
+        }
+        return comprimi(universo, n, risultato);
+    }
+
+    /**
+     * Invoca l'azione per ogni elemento, in ordine crescente.
+     *
+     * @param azione l'azione da eseguire.
+     */
+    public void perOgni(IntConsumer azione) {
+        if (parole == null) {
+            for (int valore : elementi) {
+                azione.accept(valore);
+            }
+            return;
+        }
+        for (int i = 0; i < parole.length; i++) {
+            long parola = parole[i];
+            while (parola != 0) {
+                azione.accept((i << 6) + Long.numberOfTrailingZeros(parola));
+                parola &= parola - 1;
+            }
+        }
+    }
+
+    /**
+     * Copia in un array gli elementi compresi tra le posizioni {@code da} (inclusa) e
+     * {@code a} (esclusa) dell'insieme ordinato, senza scorrere quelli successivi.
+     *
+     * @param da la posizione del primo elemento da copiare.
+     * @param a  la posizione successiva all'ultimo elemento da copiare.
+     * @return gli elementi richiesti, in ordine crescente.
+     */
+    public int[] intervallo(int da, int a) {
+        da = Math.max(0, Math.min(da, cardinalita));
+        a = Math.max(da, Math.min(a, cardinalita));
+        if (parole == null) {
+            return Arrays.copyOfRange(elementi, da, a);
+        }
+        int[] risultato = new int[a - da];
+        int posizione = 0;
+        int n = 0;
+        for (int i = 0; i < parole.length && n < risultato.length; i++) {
+            int bit = Long.bitCount(parole[i]);
+            if (posizione + bit <= da) {
+                posizione += bit;
+                continue;
+            }
+            long parola = parole[i];
+            while (parola != 0 && n < risultato.length) {
+                if (posizione >= da) {
+                    risultato[n++] = (i << 6) + Long.numberOfTrailingZeros(parola);
+                }
+                posizione++;
+                parola &= parola - 1;
+            }
+        }
+        return risultato;
+    }
+
+    /**
+     * Restituisce la memoria occupata dai dati della bitmap, in byte (escluso l'oggetto).
+     *
+     * @return il numero di byte degli array interni.
+     */
+    public long byteOccupati() {
+        return parole != null ? 8L * parole.length : 4L * elementi.length;
+    }
+
+    private void aggiungiA(long[] destinazione) {
+        if (parole != null) {
+            for (int i = 0; i < parole.length; i++) {
+                destinazione[i] |= parole[i];
+            }
+        } else {
+            for (int valore : elementi) {
+                destinazione[valore >>> 6] |= 1L << valore;
+            }
+        }
+    }
+
+    private static BitmapCompressa comprimi(int universo, int cardinalita, long[] parole) {
+        if (densa(cardinalita, universo)) {
+            return new BitmapCompressa(universo, cardinalita, null, parole);
+        }
+        int[] elementi = new int[cardinalita];
+        int n = 0;
+        for (int i = 0; i < parole.length; i++) {
+            long parola = parole[i];
+            while (parola != 0) {
+                elementi[n++] = (i << 6) + Long.numberOfTrailingZeros(parola);
+                parola &= parola - 1;
+            }
+        }
+        return new BitmapCompressa(universo, cardinalita, elementi, null);
+    }
+
+    private static boolean densa(int cardinalita, int universo) {
+        return (long) cardinalita * SOGLIA_DENSA >= universo && cardinalita > 0;
+    }
+
+    private static int numeroParole(int universo) {
+        return (universo + 63) >>> 6;
+    }
+}
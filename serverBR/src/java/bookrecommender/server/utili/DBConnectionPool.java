@@ -0,0 +1,640 @@
+package bookrecommender.server.utili;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool limitato di connessioni JDBC utilizzato da {@link DBConnectionSingleton}.
+ * <p>
+ * Evita di eseguire l'handshake TCP e l'autenticazione verso PostgreSQL a ogni chiamata RMI,
+ * riutilizzando un insieme di connessioni fisiche già aperte. Le caratteristiche principali sono:
+ * <ul>
+ *     <li>Dimensione minima e massima configurabili: le richieste oltre il massimo attendono
+ *         una connessione libera fino a un timeout.</li>
+ *     <li>Validazione al prestito: una connessione rimasta inattiva più a lungo della soglia
+ *         configurata viene verificata con {@link Connection#isValid(int)} prima di essere consegnata.</li>
+ *     <li>Eviction delle connessioni inattive oltre il minimo, eseguita da un thread di manutenzione.</li>
+ *     <li>Rilevamento dei leak: se una connessione resta in prestito oltre la soglia configurata
+ *         viene loggato lo stack trace del punto in cui è stata ottenuta.</li>
+ *     <li>Cache LRU dei {@link java.sql.PreparedStatement} per ogni connessione fisica
+ *         ({@link PreparedStatementCache}), così che le query ripetute non vengano ripreparate.</li>
+ *     <li>Misura dei tempi di ogni istruzione SQL e dell'acquisizione delle connessioni
+ *         ({@link ProfilatoreSQL}).</li>
+ *     <li>Statistiche sul pool (connessioni attive, inattive, tempi di attesa, hit/miss della cache
+ *         degli statement) tramite {@link #getStatistiche()}.</li>
+ * </ul>
+ * Le connessioni restituite sono proxy della connessione fisica: la chiamata a {@link Connection#close()}
+ * le restituisce al pool invece di chiuderle, per cui il codice dei DAO continua a usare il consueto
+ * {@code try-with-resources} senza modifiche.
+ * <p>
+ * La configurazione viene letta dalle proprietà di sistema con prefisso {@code bookrecommender.db.pool.}
+ * (vedi {@link Configurazione#daProprietaDiSistema()}).
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see DBConnectionSingleton
+ * @version 1.0
+ */
+public final class DBConnectionPool {
+    private static final Logger logger = LogManager.getLogger(DBConnectionPool.class);
+
+    /**
+     * Parametri di configurazione del pool.
+     *
+     * @param dimensioneMinima      numero di connessioni mantenute aperte anche in assenza di carico.
+     * @param dimensioneMassima     numero massimo di connessioni fisiche aperte contemporaneamente.
+     * @param attesaMassimaMs       tempo massimo di attesa per ottenere una connessione, in millisecondi.
+     * @param inattivitaMassimaMs   tempo dopo il quale una connessione inattiva oltre il minimo viene chiusa.
+     * @param sogliaValidazioneMs   inattività oltre la quale la connessione viene validata prima del prestito.
+     * @param sogliaLeakMs          durata del prestito oltre la quale viene segnalato un possibile leak
+     *                              (0 per disabilitare il rilevamento).
+     * @param dimensioneCacheStatement numero massimo di statement preparati mantenuti in cache
+     *                              per ogni connessione (0 per disabilitare la cache).
+     */
+    public record Configurazione(int dimensioneMinima, int dimensioneMassima, long attesaMassimaMs,
+                                 long inattivitaMassimaMs, long sogliaValidazioneMs, long sogliaLeakMs,
+                                 int dimensioneCacheStatement) {
+
+        /**
+         * Costruisce la configurazione a partire dalle proprietà di sistema, usando valori di default
+         * adatti al carico tipico del server:
+         * <ul>
+         *     <li>{@code bookrecommender.db.pool.min} (default 2)</li>
+         *     <li>{@code bookrecommender.db.pool.max} (default 16)</li>
+         *     <li>{@code bookrecommender.db.pool.attesaMs} (default 10000)</li>
+         *     <li>{@code bookrecommender.db.pool.inattivitaMs} (default 300000)</li>
+         *     <li>{@code bookrecommender.db.pool.validazioneMs} (default 5000)</li>
+         *     <li>{@code bookrecommender.db.pool.leakMs} (default 60000)</li>
+         *     <li>{@code bookrecommender.db.pool.statementCache} (default 64)</li>
+         * </ul>
+         *
+         * @return la configurazione letta dalle proprietà di sistema.
+         */
+        public static Configurazione daProprietaDiSistema() {
+            int min = Integer.getInteger("bookrecommender.db.pool.min", 2);
+            int max = Integer.getInteger("bookrecommender.db.pool.max", 16);
+            return new Configurazione(
+                    Math.max(0, Math.min(min, max)),
+                    Math.max(1, max),
+                    Long.getLong("bookrecommender.db.pool.attesaMs", 10_000L),
+                    Long.getLong("bookrecommender.db.pool.inattivitaMs", 300_000L),
+                    Long.getLong("bookrecommender.db.pool.validazioneMs", 5_000L),
+                    Long.getLong("bookrecommender.db.pool.leakMs", 60_000L),
+                    Math.max(0, Integer.getInteger("bookrecommender.db.pool.statementCache", 64)));
+        }
+    }
+
+    /**
+     * Istantanea delle statistiche del pool.
+     *
+     * @param attive             connessioni attualmente in prestito.
+     * @param inattive           connessioni aperte e disponibili nel pool.
+     * @param inAttesa           thread in attesa di una connessione.
+     * @param prestitiTotali     numero totale di prestiti eseguiti.
+     * @param connessioniAperte  numero totale di connessioni fisiche aperte dall'avvio.
+     * @param timeout            richieste fallite per superamento del tempo di attesa.
+     * @param leakSegnalati      prestiti segnalati come possibili leak.
+     * @param attesaMediaMs      tempo medio di attesa per ottenere una connessione, in millisecondi.
+     * @param attesaMassimaMs    tempo massimo di attesa osservato, in millisecondi.
+     * @param statementCacheHit  statement preparati serviti dalla cache.
+     * @param statementCacheMiss statement preparati ex novo (cache vuota, disabilitata o statement già in uso).
+     */
+    public record Statistiche(int attive, int inattive, int inAttesa, long prestitiTotali, long connessioniAperte,
+                              long timeout, long leakSegnalati, double attesaMediaMs, double attesaMassimaMs,
+                              long statementCacheHit, long statementCacheMiss) { }
+
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+    private final Configurazione config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition disponibile = lock.newCondition();
+    /** Connessioni libere, usate in ordine LIFO per mantenere "calde" quelle più recenti. */
+    private final Deque<ConnessioneFisica> inattive = new ArrayDeque<>();
+    private final Set<ConnessioneFisica> inPrestito = ConcurrentHashMap.newKeySet();
+    private int totaleAperte;
+    private int inAttesa;
+    private boolean chiuso;
+
+    private final AtomicLong prestitiTotali = new AtomicLong();
+    private final AtomicLong connessioniAperte = new AtomicLong();
+    private final AtomicLong timeoutTotali = new AtomicLong();
+    private final AtomicLong leakSegnalati = new AtomicLong();
+    private final AtomicLong attesaTotaleNanos = new AtomicLong();
+    private final AtomicLong attesaMassimaNanos = new AtomicLong();
+    private final AtomicLong statementCacheHit = new AtomicLong();
+    private final AtomicLong statementCacheMiss = new AtomicLong();
+
+    private final ScheduledExecutorService manutenzione;
+
+    /**
+     * Crea il pool e apre subito il numero minimo di connessioni.
+     *
+     * @param jdbcUrl  l'URL JDBC del database.
+     * @param username il nome utente per l'accesso al database.
+     * @param password la password per l'accesso al database.
+     * @param config   i parametri di configurazione del pool.
+     * @throws SQLException se non è possibile aprire le connessioni iniziali.
+     */
+    public DBConnectionPool(String jdbcUrl, String username, String password, Configurazione config) throws SQLException {
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+        this.config = config;
+
+        try {
+            for (int i = 0; i < config.dimensioneMinima(); i++) {
+                ConnessioneFisica c = apriConnessione();
+                inattive.push(c);
+                totaleAperte++;
+            }
+        } catch (SQLException e) {
+            chiudiTutte(new ArrayList<>(inattive));
+            throw e;
+        }
+
+        manutenzione = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-manutenzione");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1_000L, Math.min(config.inattivitaMassimaMs(), 30_000L));
+        manutenzione.scheduleWithFixedDelay(this::eseguiManutenzione, periodo, periodo, TimeUnit.MILLISECONDS);
+        logger.info("Pool di connessioni inizializzato: min={}, max={}", config.dimensioneMinima(), config.dimensioneMassima());
+    }
+
+    /**
+     * Ottiene una connessione dal pool, attendendo se necessario fino al tempo massimo configurato.
+     * <p>
+     * La connessione restituita va chiusa dal chiamante (tipicamente con un {@code try-with-resources}):
+     * la chiusura la riconsegna al pool.
+     *
+     * @return una connessione valida al database.
+     * @throws SQLException se il pool è chiuso, se il tempo di attesa è scaduto o se non è possibile
+     *                      aprire una nuova connessione fisica.
+     */
+    public Connection getConnection() throws SQLException {
+        long inizio = System.nanoTime();
+        long scadenza = inizio + TimeUnit.MILLISECONDS.toNanos(config.attesaMassimaMs());
+
+        while (true) {
+            ConnessioneFisica candidata = null;
+            boolean apriNuova = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (chiuso) {
+                        throw new SQLException("Pool di connessioni chiuso.");
+                    }
+                    if (!inattive.isEmpty()) {
+                        candidata = inattive.pop();
+                        break;
+                    }
+                    if (totaleAperte < config.dimensioneMassima()) {
+                        totaleAperte++;
+                        apriNuova = true;
+                        break;
+                    }
+                    long residuo = scadenza - System.nanoTime();
+                    if (residuo <= 0) {
+                        timeoutTotali.incrementAndGet();
+                        throw new SQLException("Timeout in attesa di una connessione dal pool dopo "
+                                + config.attesaMassimaMs() + " ms (" + totaleAperte + " connessioni in uso).");
+                    }
+                    inAttesa++;
+                    try {
+                        disponibile.awaitNanos(residuo);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrotto in attesa di una connessione dal pool.", e);
+                    } finally {
+                        inAttesa--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (apriNuova) {
+                try {
+                    candidata = apriConnessione();
+                } catch (SQLException e) {
+                    rilasciaPosto();
+                    throw e;
+                }
+            } else if (!eValida(candidata)) {
+                logger.warn("Connessione del pool non più valida, viene scartata.");
+                chiudiFisica(candidata);
+                rilasciaPosto();
+                continue;
+            }
+
+            registraAttesa(System.nanoTime() - inizio);
+            return presta(candidata);
+        }
+    }
+
+    /**
+     * Restituisce un'istantanea delle statistiche correnti del pool.
+     *
+     * @return le statistiche del pool.
+     */
+    public Statistiche getStatistiche() {
+        int attive;
+        int libere;
+        int attesa;
+        lock.lock();
+        try {
+            attive = inPrestito.size();
+            libere = inattive.size();
+            attesa = inAttesa;
+        } finally {
+            lock.unlock();
+        }
+        long prestiti = prestitiTotali.get();
+        double mediaMs = prestiti == 0 ? 0.0 : attesaTotaleNanos.get() / (double) prestiti / 1_000_000.0;
+        return new Statistiche(attive, libere, attesa, prestiti, connessioniAperte.get(), timeoutTotali.get(),
+                leakSegnalati.get(), mediaMs, attesaMassimaNanos.get() / 1_000_000.0,
+                statementCacheHit.get(), statementCacheMiss.get());
+    }
+
+    /**
+     * Chiude il pool: le connessioni inattive vengono chiuse subito, quelle ancora in prestito
+     * vengono chiuse fisicamente al momento della loro restituzione.
+     */
+    public void close() {
+        List<ConnessioneFisica> daChiudere;
+        lock.lock();
+        try {
+            if (chiuso) {
+                return;
+            }
+            chiuso = true;
+            daChiudere = new ArrayList<>(inattive);
+            totaleAperte -= inattive.size();
+            inattive.clear();
+            disponibile.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        manutenzione.shutdownNow();
+        chiudiTutte(daChiudere);
+        logger.info("Pool di connessioni chiuso. Statistiche finali: {}", getStatistiche());
+    }
+
+    // ----------------------------
+    // Gestione interna
+    // ----------------------------
+
+    /**
+     * Apre una nuova connessione fisica verso il database.
+     *
+     * @return la connessione fisica appena aperta.
+     * @throws SQLException se la connessione non può essere stabilita.
+     */
+    private ConnessioneFisica apriConnessione() throws SQLException {
+        Connection c = DriverManager.getConnection(jdbcUrl, username, password);
+        connessioniAperte.incrementAndGet();
+        PreparedStatementCache cache = config.dimensioneCacheStatement() > 0
+                ? new PreparedStatementCache(c, config.dimensioneCacheStatement(), statementCacheHit, statementCacheMiss)
+                : null;
+        return new ConnessioneFisica(c, cache);
+    }
+
+    /**
+     * Verifica che una connessione prelevata dal pool sia ancora utilizzabile. La validazione
+     * con round-trip al server viene eseguita solo se la connessione è rimasta inattiva più
+     * a lungo della soglia configurata.
+     *
+     * @param c la connessione da verificare.
+     * @return {@code true} se la connessione può essere prestata.
+     */
+    private boolean eValida(ConnessioneFisica c) {
+        try {
+            if (c.fisica.isClosed()) {
+                return false;
+            }
+            long inattivaMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - c.ultimoUtilizzoNanos);
+            return inattivaMs < config.sogliaValidazioneMs() || c.fisica.isValid(5);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Registra il prestito di una connessione e ne restituisce il proxy per il chiamante.
+     *
+     * @param c la connessione fisica da prestare.
+     * @return il proxy che riconsegna la connessione al pool alla chiusura.
+     */
+    private Connection presta(ConnessioneFisica c) {
+        c.inizioPrestitoNanos = System.nanoTime();
+        c.puntoDiPrestito = config.sogliaLeakMs() > 0 ? new Throwable("Connessione ottenuta qui") : null;
+        c.leakSegnalato = false;
+        inPrestito.add(c);
+        prestitiTotali.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(
+                DBConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new GestoreProxy(c));
+    }
+
+    /**
+     * Riconsegna una connessione al pool dopo averne ripristinato lo stato di default.
+     * Se la connessione risulta danneggiata o il pool è chiuso, viene chiusa fisicamente.
+     *
+     * @param c la connessione fisica restituita.
+     */
+    private void restituisci(ConnessioneFisica c) {
+        inPrestito.remove(c);
+        if (c.cacheStatement != null) {
+            c.cacheStatement.rilasciaTutti();
+        }
+        boolean riutilizzabile = ripristinaStato(c);
+
+        lock.lock();
+        try {
+            if (riutilizzabile && !chiuso) {
+                c.ultimoUtilizzoNanos = System.nanoTime();
+                inattive.push(c);
+                disponibile.signal();
+                return;
+            }
+            totaleAperte--;
+            disponibile.signal();
+        } finally {
+            lock.unlock();
+        }
+        chiudiFisica(c);
+    }
+
+    /**
+     * Riporta la connessione allo stato atteso dal prossimo utilizzatore: annulla eventuali
+     * transazioni lasciate aperte e ripristina l'auto-commit.
+     *
+     * @param c la connessione da ripristinare.
+     * @return {@code true} se la connessione può tornare nel pool.
+     */
+    private boolean ripristinaStato(ConnessioneFisica c) {
+        try {
+            if (c.fisica.isClosed()) {
+                return false;
+            }
+            if (!c.fisica.getAutoCommit()) {
+                c.fisica.rollback();
+                c.fisica.setAutoCommit(true);
+            }
+            if (c.fisica.isReadOnly()) {
+                c.fisica.setReadOnly(false);
+            }
+            c.fisica.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            logger.warn("Impossibile ripristinare la connessione restituita al pool, verrà chiusa.", e);
+            return false;
+        }
+    }
+
+    /**
+     * Libera un posto nel conteggio delle connessioni aperte, ad esempio dopo un'apertura fallita.
+     */
+    private void rilasciaPosto() {
+        lock.lock();
+        try {
+            totaleAperte--;
+            disponibile.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Aggiorna le statistiche sui tempi di attesa.
+     *
+     * @param attesaNanos il tempo impiegato per ottenere la connessione.
+     */
+    private void registraAttesa(long attesaNanos) {
+        attesaTotaleNanos.addAndGet(attesaNanos);
+        attesaMassimaNanos.accumulateAndGet(attesaNanos, Math::max);
+        if (ProfilatoreSQL.attivo()) {
+            ProfilatoreSQL.registraAcquisizione(attesaNanos);
+        }
+    }
+
+    /**
+     * Attività periodica di manutenzione: chiude le connessioni inattive oltre il minimo,
+     * ripristina il numero minimo di connessioni e segnala i prestiti sospetti di leak.
+     */
+    private void eseguiManutenzione() {
+        try {
+            evictInattive();
+            ripristinaMinimo();
+            rilevaLeak();
+        } catch (RuntimeException e) {
+            logger.error("Errore durante la manutenzione del pool di connessioni", e);
+        }
+    }
+
+    /**
+     * Chiude le connessioni inattive da più tempo della soglia, senza scendere sotto il minimo.
+     */
+    private void evictInattive() {
+        List<ConnessioneFisica> daChiudere = new ArrayList<>();
+        long ora = System.nanoTime();
+        long soglia = TimeUnit.MILLISECONDS.toNanos(config.inattivitaMassimaMs());
+        lock.lock();
+        try {
+            // le connessioni più vecchie si trovano in fondo alla deque (uso LIFO)
+            while (totaleAperte > config.dimensioneMinima() && !inattive.isEmpty()
+                    && ora - inattive.peekLast().ultimoUtilizzoNanos > soglia) {
+                daChiudere.add(inattive.pollLast());
+                totaleAperte--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!daChiudere.isEmpty()) {
+            logger.debug("Chiusura di {} connessioni inattive del pool", daChiudere.size());
+            chiudiTutte(daChiudere);
+        }
+    }
+
+    /**
+     * Riapre connessioni fino a raggiungere la dimensione minima configurata.
+     */
+    private void ripristinaMinimo() {
+        while (true) {
+            lock.lock();
+            try {
+                if (chiuso || totaleAperte >= config.dimensioneMinima()) {
+                    return;
+                }
+                totaleAperte++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                ConnessioneFisica c = apriConnessione();
+                lock.lock();
+                try {
+                    inattive.addLast(c);
+                    disponibile.signal();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (SQLException e) {
+                rilasciaPosto();
+                logger.warn("Impossibile ripristinare la dimensione minima del pool: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Segnala (una sola volta per prestito) le connessioni trattenute oltre la soglia di leak,
+     * loggando lo stack trace del punto in cui sono state ottenute.
+     */
+    private void rilevaLeak() {
+        if (config.sogliaLeakMs() <= 0) {
+            return;
+        }
+        long ora = System.nanoTime();
+        long soglia = TimeUnit.MILLISECONDS.toNanos(config.sogliaLeakMs());
+        for (ConnessioneFisica c : inPrestito) {
+            if (!c.leakSegnalato && ora - c.inizioPrestitoNanos > soglia) {
+                c.leakSegnalato = true;
+                leakSegnalati.incrementAndGet();
+                logger.warn("Possibile leak: connessione in prestito da {} ms",
+                        TimeUnit.NANOSECONDS.toMillis(ora - c.inizioPrestitoNanos), c.puntoDiPrestito);
+            }
+        }
+    }
+
+    /**
+     * Chiude un insieme di connessioni fisiche ignorando eventuali errori.
+     *
+     * @param connessioni le connessioni da chiudere.
+     */
+    private static void chiudiTutte(List<ConnessioneFisica> connessioni) {
+        for (ConnessioneFisica c : connessioni) {
+            chiudiFisica(c);
+        }
+    }
+
+    /**
+     * Chiude la connessione fisica ignorando eventuali errori.
+     *
+     * @param c la connessione da chiudere.
+     */
+    private static void chiudiFisica(ConnessioneFisica c) {
+        if (c.cacheStatement != null) {
+            c.cacheStatement.chiudiTutti();
+        }
+        try {
+            c.fisica.close();
+        } catch (SQLException ignored) {
+            // la connessione viene comunque scartata
+        }
+    }
+
+    /**
+     * Connessione fisica gestita dal pool, con i metadati necessari a validazione ed eviction.
+     */
+    private static final class ConnessioneFisica {
+        private final Connection fisica;
+        private final PreparedStatementCache cacheStatement;
+        private volatile long ultimoUtilizzoNanos = System.nanoTime();
+        private volatile long inizioPrestitoNanos;
+        private volatile Throwable puntoDiPrestito;
+        private volatile boolean leakSegnalato;
+
+        private ConnessioneFisica(Connection fisica, PreparedStatementCache cacheStatement) {
+            this.fisica = fisica;
+            this.cacheStatement = cacheStatement;
+        }
+    }
+
+    /**
+     * Gestore del proxy consegnato ai chiamanti: inoltra tutte le chiamate alla connessione
+     * fisica tranne {@code close()}, che riconsegna la connessione al pool, e
+     * {@code prepareStatement(String)}, servito dalla cache degli statement. Gli statement
+     * creati sono avvolti da {@link ProfilatoreSQL}, se attivo. Dopo la chiusura
+     * il proxy non è più utilizzabile.
+     */
+    private final class GestoreProxy implements InvocationHandler {
+        private ConnessioneFisica connessione;
+
+        private GestoreProxy(ConnessioneFisica connessione) {
+            this.connessione = connessione;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nome = method.getName();
+            ConnessioneFisica c;
+            synchronized (this) {
+                switch (nome) {
+                    case "close":
+                        if (connessione != null) {
+                            ConnessioneFisica restituita = connessione;
+                            connessione = null;
+                            restituisci(restituita);
+                        }
+                        return null;
+                    case "isClosed":
+                        return connessione == null || connessione.fisica.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "PooledConnection[" + (connessione == null ? "restituita" : connessione.fisica) + "]";
+                    default:
+                        if (connessione == null) {
+                            throw new SQLException("Connessione già restituita al pool.");
+                        }
+                }
+                c = connessione;
+            }
+            Object risultato;
+            if (c.cacheStatement != null && "prepareStatement".equals(nome) && args.length == 1) {
+                risultato = c.cacheStatement.prepara((String) args[0], (Connection) proxy);
+            } else {
+                try {
+                    risultato = method.invoke(c.fisica, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            if (ProfilatoreSQL.attivo() && risultato instanceof Statement statement) {
+                return ProfilatoreSQL.avvolgi(statement, nome.startsWith("prepare") ? (String) args[0] : null,
+                        (Connection) proxy);
+            }
+            return risultato;
+        }
+    }
+}
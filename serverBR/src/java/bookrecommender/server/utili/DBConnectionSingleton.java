@@ -11,7 +11,7 @@ import java.sql.SQLException;
  * Offre metodi per:
  * <ul>
  *     <li>Inizializzare i parametri di connessione (URL, utente, password).</li>
- *     <li>Ottenere una nuova connessione, ideale per contesti concorrenti.</li>
+ *     <li>Ottenere una connessione dal pool ({@link DBConnectionPool}), ideale per contesti concorrenti.</li>
  *     <li>Gestire una connessione condivisa (sconsigliato in produzione).</li>
  *     <li>Chiudere la connessione e resettare la configurazione.</li>
  * </ul>
@@ -23,6 +23,7 @@ import java.sql.SQLException;
  * @author Zoghbani Lilia 759652
  * @see java.sql.Connection
  * @see java.sql.DriverManager
+ * @see DBConnectionPool
  * @version 1.0
  */
 public final class DBConnectionSingleton {
@@ -30,6 +31,7 @@ public final class DBConnectionSingleton {
     private static volatile String jdbcUrl;
     private static volatile String username;
     private static volatile String password;
+    private static volatile DBConnectionPool pool;
 
     /**
      * Costruttore privato per impedire l'istanziazione.
@@ -42,16 +44,28 @@ public final class DBConnectionSingleton {
      * <p>
      * Questo metodo deve essere chiamato almeno una volta prima di poter ottenere connessioni.
      * La creazione della connessione condivisa è thread-safe grazie al double-checked locking.
+     * Inizializza inoltre il pool di connessioni ({@link DBConnectionPool}), sostituendo
+     * un eventuale pool creato con parametri precedenti.
      *
      * @param jdbcUrl  l'URL JDBC del database (es. "jdbc:postgresql://localhost:5432/mydatabase").
      * @param user     il nome utente per l'accesso al database.
      * @param pwd      la password per l'accesso al database.
-     * @throws SQLException se si verifica un errore durante la creazione della connessione condivisa.
+     * @throws SQLException se si verifica un errore durante la creazione della connessione condivisa
+     *                      o delle connessioni iniziali del pool.
      */
     public static void initialiseConnection(String jdbcUrl, String user, String pwd) throws SQLException {
-        DBConnectionSingleton.jdbcUrl = jdbcUrl;
-        DBConnectionSingleton.username = user;
-        DBConnectionSingleton.password = pwd;
+        DBConnectionPool nuovoPool = new DBConnectionPool(jdbcUrl, user, pwd, DBConnectionPool.Configurazione.daProprietaDiSistema());
+        DBConnectionPool precedente;
+        synchronized (DBConnectionSingleton.class) {
+            DBConnectionSingleton.jdbcUrl = jdbcUrl;
+            DBConnectionSingleton.username = user;
+            DBConnectionSingleton.password = pwd;
+            precedente = pool;
+            pool = nuovoPool;
+        }
+        if (precedente != null) {
+            precedente.close();
+        }
 
         if (sharedConnection == null) {
             synchronized (DBConnectionSingleton.class) {
@@ -64,22 +78,63 @@ public final class DBConnectionSingleton {
     }
 
     /**
-     * Apre e restituisce una <strong>nuova</strong> istanza di {@link Connection}.
+     * Restituisce una connessione ad uso esclusivo del chiamante, prelevata dal pool.
      * <p>
      * Questo è il metodo raccomandato per ottenere una connessione in un'applicazione
      * multithread, poiché garantisce che ogni thread di lavoro operi su una connessione
-     * separata, evitando problemi di concorrenza.
+     * separata, evitando problemi di concorrenza. La connessione va chiusa al termine
+     * dell'uso (tipicamente con un {@code try-with-resources}): la chiusura la riconsegna
+     * al pool senza chiudere la connessione fisica.
+     *
+     * @return una connessione al database riservata al chiamante.
+     * @throws SQLException se i parametri di connessione non sono stati prima inizializzati
+     *                      tramite {@link #initialiseConnection(String, String, String)},
+     *                      se il pool non riesce a fornire una connessione entro il tempo
+     *                      di attesa configurato, o se si verifica un errore di accesso al database.
+     */
+    public static Connection openNewConnection() throws SQLException {
+        DBConnectionPool corrente = pool;
+        if (corrente == null) {
+            throw new SQLException("Database non inizializzato (jdbcUrl == null). Chiamare initialiseConnection(...) prima.");
+        }
+        return corrente.getConnection();
+    }
+
+    /**
+     * Apre una nuova connessione fisica, esterna al pool, ad uso esclusivo del chiamante.
+     * <p>
+     * Serve ai thread che tengono una connessione aperta per tutta la durata del server (ad
+     * esempio per ricevere le notifiche {@code LISTEN}), così da non sottrarre connessioni al
+     * pool. La chiusura della connessione è a carico del chiamante.
      *
      * @return una nuova connessione al database.
      * @throws SQLException se i parametri di connessione non sono stati prima inizializzati
      *                      tramite {@link #initialiseConnection(String, String, String)},
      *                      o se si verifica un errore di accesso al database.
      */
-    public static Connection openNewConnection() throws SQLException {
-        if (jdbcUrl == null) {
+    public static Connection openDedicatedConnection() throws SQLException {
+        String url;
+        String user;
+        String pwd;
+        synchronized (DBConnectionSingleton.class) {
+            url = jdbcUrl;
+            user = username;
+            pwd = password;
+        }
+        if (url == null) {
             throw new SQLException("Database non inizializzato (jdbcUrl == null). Chiamare initialiseConnection(...) prima.");
         }
-        return DriverManager.getConnection(jdbcUrl, username, password);
+        return DriverManager.getConnection(url, user, pwd);
+    }
+
+    /**
+     * Restituisce le statistiche correnti del pool di connessioni.
+     *
+     * @return le statistiche del pool, o {@code null} se il database non è stato inizializzato.
+     */
+    public static DBConnectionPool.Statistiche getStatistichePool() {
+        DBConnectionPool corrente = pool;
+        return corrente != null ? corrente.getStatistiche() : null;
     }
 
     /**
@@ -106,11 +161,16 @@ public final class DBConnectionSingleton {
     /**
      * Esegue lo shutdown completo del gestore di connessioni.
      * <p>
-     * Chiude la connessione condivisa e azzera tutti i parametri di connessione (URL, utente, password).
+     * Chiude la connessione condivisa e il pool di connessioni, e azzera tutti i parametri
+     * di connessione (URL, utente, password).
      * Questo metodo è utile per rilasciare le risorse in modo pulito alla terminazione dell'applicazione.
      */
     public static synchronized void shutdown() {
         closeSharedConnectionQuietly();
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
         jdbcUrl = null;
         username = null;
         password = null;
@@ -0,0 +1,36 @@
+package bookrecommender.server.utili;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento di Java Flight Recorder emesso da {@link ProfilatoreSQL} per ogni esecuzione di
+ * un'istruzione SQL. La durata dell'evento comprende l'esecuzione e la lettura delle righe;
+ * il thread dell'evento permette di associarlo alla chiamata RMI che lo ha originato.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see ProfilatoreSQL
+ * @version 1.0
+ */
+@Name("bookrecommender.QuerySQL")
+@Label("Query SQL")
+@Category({"BookRecommender", "Database"})
+@Description("Esecuzione di un'istruzione SQL, dalla chiamata alla lettura dell'ultima riga")
+@StackTrace(false)
+final class EventoQuerySQL extends jdk.jfr.Event {
+    @Label("SQL")
+    @Description("Il testo SQL normalizzato")
+    String sql;
+
+    @Label("Righe")
+    @Description("Le righe lette o modificate")
+    long righe;
+
+    @Label("Errore")
+    boolean errore;
+}
@@ -0,0 +1,194 @@
+package bookrecommender.server.utili;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Istogramma concorrente delle durate, con precisione relativa costante.
+ * <p>
+ * Segue lo schema di HdrHistogram: i valori (in nanosecondi) sono suddivisi in intervalli
+ * di potenze di due e ciascun intervallo è diviso in {@value #SOTTO_INTERVALLI} parti uguali.
+ * I valori minori di {@code 2 * SOTTO_INTERVALLI} sono registrati esattamente; gli altri con un
+ * errore relativo inferiore a {@code 1 / SOTTO_INTERVALLI} (circa 1,6%), qualunque sia il loro
+ * ordine di grandezza. I valori oltre {@value #MASSIMO_NANOSECONDI} ns (circa 18 minuti) sono
+ * registrati nell'ultimo intervallo.
+ * <p>
+ * La registrazione è un incremento atomico senza lock, quindi l'istogramma può essere
+ * aggiornato da tutti i thread che servono le chiamate remote. Percentili, media e massimo
+ * si leggono da una {@link Istantanea}, che può essere sottratta a una precedente per ottenere
+ * la distribuzione di un intervallo di tempo.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public final class IstogrammaLatenze {
+    /** Numero di parti in cui è diviso ogni intervallo tra due potenze di due. */
+    static final int SOTTO_INTERVALLI = 64;
+    /** Valore massimo registrabile senza saturazione, in nanosecondi (2^40). */
+    static final long MASSIMO_NANOSECONDI = 1L << 40;
+
+    private static final int BIT_SOTTO_INTERVALLI = 6;
+    private static final int NUMERO_CONTATORI = indice(MASSIMO_NANOSECONDI - 1) + 1;
+
+    private final AtomicLongArray contatori = new AtomicLongArray(NUMERO_CONTATORI);
+    private final LongAdder somma = new LongAdder();
+    private final AtomicLong massimo = new AtomicLong();
+
+    /**
+     * Registra una durata.
+     *
+     * @param nanosecondi la durata misurata; i valori negativi sono registrati come zero.
+     */
+    public void registra(long nanosecondi) {
+        long valore = Math.max(0L, Math.min(nanosecondi, MASSIMO_NANOSECONDI - 1));
+        contatori.incrementAndGet(indice(valore));
+        somma.add(valore);
+        long attuale = massimo.get();
+        while (valore > attuale && !massimo.compareAndSet(attuale, valore)) {
+            attuale = massimo.get();
+        }
+    }
+
+    /**
+     * Copia lo stato corrente dell'istogramma.
+     * <p>
+     * La copia non è atomica rispetto alle registrazioni concorrenti: una durata registrata
+     * durante la copia può comparire nei contatori ma non ancora nella somma, o viceversa.
+     *
+     * @return l'istantanea dei contatori.
+     */
+    public Istantanea istantanea() {
+        long[] copia = new long[NUMERO_CONTATORI];
+        long totale = 0;
+        for (int i = 0; i < copia.length; i++) {
+            copia[i] = contatori.get(i);
+            totale += copia[i];
+        }
+        return new Istantanea(copia, totale, somma.sum(), massimo.get());
+    }
+
+    /**
+     * Calcola il contatore in cui cade un valore.
+     * <p>
+     * Con {@code h} la posizione del bit più significativo, i valori minori di
+     * {@code 2 * SOTTO_INTERVALLI} hanno un contatore ciascuno; gli altri vengono spostati a destra
+     * di {@code h - BIT_SOTTO_INTERVALLI} bit, così che restino {@code SOTTO_INTERVALLI} valori distinti
+     * per ogni potenza di due.
+     */
+    static int indice(long valore) {
+        int spostamento = Math.max(0, 64 - Long.numberOfLeadingZeros(valore) - (BIT_SOTTO_INTERVALLI + 1));
+        return (spostamento << BIT_SOTTO_INTERVALLI) + (int) (valore >>> spostamento);
+    }
+
+    /** Restituisce il più grande valore che cade nel contatore indicato. */
+    static long limiteSuperiore(int indice) {
+        int spostamento = Math.max(0, (indice >>> BIT_SOTTO_INTERVALLI) - 1);
+        long sotto = indice - ((long) spostamento << BIT_SOTTO_INTERVALLI);
+        return ((sotto + 1) << spostamento) - 1;
+    }
+
+    /**
+     * Copia immutabile dei contatori di un {@link IstogrammaLatenze}.
+     * <p>
+     * I percentili sono restituiti come limite superiore del contatore che li contiene, come in
+     * HdrHistogram, e non superano mai il massimo registrato.
+     */
+    public static final class Istantanea {
+        private final long[] contatori;
+        private final long totale;
+        private final long somma;
+        private final long massimo;
+
+        private Istantanea(long[] contatori, long totale, long somma, long massimo) {
+            this.contatori = contatori;
+            this.totale = totale;
+            this.somma = somma;
+            this.massimo = massimo;
+        }
+
+        /**
+         * Restituisce il numero di durate registrate.
+         *
+         * @return il totale dei contatori.
+         */
+        public long totale() {
+            return totale;
+        }
+
+        /**
+         * Restituisce la somma delle durate registrate.
+         *
+         * @return la somma in nanosecondi.
+         */
+        public long somma() {
+            return somma;
+        }
+
+        /**
+         * Restituisce la durata media.
+         *
+         * @return la media in nanosecondi, 0 se non ci sono registrazioni.
+         */
+        public double media() {
+            return totale == 0 ? 0.0 : (double) somma / totale;
+        }
+
+        /**
+         * Restituisce la durata massima. Per un'istantanea ottenuta con {@link #meno(Istantanea)}
+         * è il massimo dall'avvio se cade nell'intervallo, altrimenti il limite superiore
+         * del contatore più alto dell'intervallo.
+         *
+         * @return il massimo in nanosecondi, 0 se non ci sono registrazioni.
+         */
+        public long massimo() {
+            return totale == 0 ? 0L : massimo;
+        }
+
+        /**
+         * Restituisce il percentile richiesto.
+         *
+         * @param percentile il percentile, tra 0 e 100.
+         * @return la durata in nanosecondi sotto cui cade la percentuale richiesta di registrazioni;
+         *         0 se non ci sono registrazioni.
+         */
+        public long percentile(double percentile) {
+            if (totale == 0) {
+                return 0L;
+            }
+            long soglia = Math.max(1L, (long) Math.ceil(totale * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+            long cumulato = 0;
+            for (int i = 0; i < contatori.length; i++) {
+                cumulato += contatori[i];
+                if (cumulato >= soglia) {
+                    return Math.min(limiteSuperiore(i), massimo);
+                }
+            }
+            return massimo;
+        }
+
+        /**
+         * Restituisce la distribuzione delle durate registrate dopo un'istantanea precedente.
+         *
+         * @param precedente un'istantanea dello stesso istogramma presa prima di questa.
+         * @return le registrazioni avvenute tra le due istantanee.
+         */
+        public Istantanea meno(Istantanea precedente) {
+            long[] differenza = new long[contatori.length];
+            long n = 0;
+            int ultimo = -1;
+            for (int i = 0; i < differenza.length; i++) {
+                differenza[i] = Math.max(0L, contatori[i] - precedente.contatori[i]);
+                n += differenza[i];
+                if (differenza[i] > 0) {
+                    ultimo = i;
+                }
+            }
+            long massimoIntervallo = ultimo < 0 ? 0L
+                    : massimo > precedente.massimo ? massimo : Math.min(limiteSuperiore(ultimo), massimo);
+            return new Istantanea(differenza, n, Math.max(0L, somma - precedente.somma), massimoIntervallo);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package bookrecommender.server.utili;
+
+import java.util.Arrays;
+
+/**
+ * Mappa hash a indirizzamento aperto da chiavi {@code long} a valori {@code int}.
+ * <p>
+ * È pensata per le strutture in memoria del server (indici, grafi) che devono associare
+ * milioni di chiavi primitive senza il costo in memoria di {@code HashMap<Long, Integer>}
+ * (un oggetto {@code Long}, uno {@code Integer} e un nodo per ogni voce).
+ * Usa il probing lineare su array paralleli di chiavi e valori e raddoppia la capacità
+ * quando il fattore di carico supera il 60%. Non supporta la rimozione delle chiavi.
+ * <p>
+ * La classe non è thread-safe: la sincronizzazione è a carico del chiamante.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+public final class MappaLongInt {
+    /** Valore restituito da {@link #get(long)} quando la chiave non è presente. */
+    public static final int ASSENTE = -1;
+
+    private long[] chiavi;
+    private int[] valori;
+    private boolean[] occupate;
+    private int dimensione;
+    private int maschera;
+
+    /**
+     * Crea una mappa vuota con capacità iniziale sufficiente per il numero di chiavi indicato.
+     *
+     * @param capacitaAttesa il numero di chiavi che si prevede di inserire.
+     */
+    public MappaLongInt(int capacitaAttesa) {
+        int capacita = Integer.highestOneBit(Math.max(4, (int) (capacitaAttesa / 0.6f)) - 1) << 1;
+        alloca(capacita);
+    }
+
+    /**
+     * Restituisce il valore associato alla chiave.
+     *
+     * @param chiave la chiave da cercare.
+     * @return il valore associato, o {@link #ASSENTE} se la chiave non è presente.
+     */
+    public int get(long chiave) {
+        int i = indice(chiave);
+        while (occupate[i]) {
+            if (chiavi[i] == chiave) {
+                return valori[i];
+            }
+            i = (i + 1) & maschera;
+        }
+        return ASSENTE;
+    }
+
+    /**
+     * Associa un valore alla chiave, sostituendo l'eventuale valore precedente.
+     *
+     * @param chiave la chiave.
+     * @param valore il valore da associare.
+     */
+    public void put(long chiave, int valore) {
+        int i = indice(chiave);
+        while (occupate[i]) {
+            if (chiavi[i] == chiave) {
+                valori[i] = valore;
+                return;
+            }
+            i = (i + 1) & maschera;
+        }
+        occupate[i] = true;
+        chiavi[i] = chiave;
+        valori[i] = valore;
+        if (++dimensione > chiavi.length * 0.6f) {
+            ridimensiona();
+        }
+    }
+
+    /**
+     * Restituisce il valore associato alla chiave; se la chiave non è presente la associa
+     * al numero progressivo successivo (pari al numero di chiavi già presenti).
+     * <p>
+     * È utile per assegnare identificativi densi {@code 0..n-1} a chiavi sparse.
+     *
+     * @param chiave la chiave.
+     * @return il valore esistente o il nuovo identificativo assegnato.
+     */
+    public int getOrAssegna(long chiave) {
+        int esistente = get(chiave);
+        if (esistente != ASSENTE) {
+            return esistente;
+        }
+        int nuovo = dimensione;
+        put(chiave, nuovo);
+        return nuovo;
+    }
+
+    /**
+     * Restituisce il numero di chiavi presenti.
+     *
+     * @return il numero di chiavi.
+     */
+    public int size() {
+        return dimensione;
+    }
+
+    private int indice(long chiave) {
+        long h = chiave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & maschera;
+    }
+
+    private void alloca(int capacita) {
+        chiavi = new long[capacita];
+        valori = new int[capacita];
+        occupate = new boolean[capacita];
+        maschera = capacita - 1;
+    }
+
+    private void ridimensiona() {
+        long[] vecchieChiavi = chiavi;
+        int[] vecchiValori = valori;
+        boolean[] vecchieOccupate = occupate;
+        alloca(vecchieChiavi.length * 2);
+        for (int j = 0; j < vecchieChiavi.length; j++) {
+            if (vecchieOccupate[j]) {
+                int i = indice(vecchieChiavi[j]);
+                while (occupate[i]) {
+                    i = (i + 1) & maschera;
+                }
+                occupate[i] = true;
+                chiavi[i] = vecchieChiavi[j];
+                valori[i] = vecchiValori[j];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappaLongInt[size=" + dimensione + ", capacita=" + chiavi.length + "]";
+    }
+
+    /**
+     * Svuota la mappa mantenendone la capacità.
+     */
+    public void clear() {
+        Arrays.fill(occupate, false);
+        dimensione = 0;
+    }
+}
@@ -0,0 +1,287 @@
+package bookrecommender.server.utili;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU di {@link PreparedStatement} associata a una singola connessione fisica del pool.
+ * <p>
+ * I DAO preparano sempre le stesse query costanti a ogni chiamata; senza cache ogni
+ * {@code prepareStatement} crea un nuovo statement e PostgreSQL deve ripetere parse e planning.
+ * Mantenendo vivo lo statement tra un prestito e l'altro della connessione, il driver può
+ * promuoverlo a statement preparato lato server (vedi il parametro {@code prepareThreshold}
+ * di pgjdbc) e riutilizzarne il piano.
+ * <p>
+ * Gli statement restituiti sono proxy: {@link PreparedStatement#close()} non chiude lo statement
+ * fisico ma lo rende di nuovo disponibile nella cache, dopo averne azzerato i parametri e chiuso
+ * l'eventuale {@link ResultSet} aperto. Le impostazioni modificate dal chiamante (dimensione del
+ * fetch, numero massimo di righe, timeout, ...) vengono riportate ai valori iniziali, così che
+ * non si trasmettano al prestito successivo. Se la stessa query viene preparata mentre lo statement
+ * in cache è ancora in uso (query annidate), viene creato uno statement non in cache.
+ * <p>
+ * Tutti gli statement consegnati e non ancora chiusi, compresi quelli non in cache e quelli
+ * rimossi dalla cache mentre erano in uso, sono tracciati: {@link #rilasciaTutti()} li rilascia
+ * quando la connessione torna nel pool, anche se il chiamante ha dimenticato di chiuderli.
+ * <p>
+ * La classe non è thread-safe: una connessione del pool viene usata da un solo thread alla volta.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see DBConnectionPool
+ * @version 1.0
+ */
+final class PreparedStatementCache {
+    private final Connection fisica;
+    private final int capacita;
+    private final AtomicLong hit;
+    private final AtomicLong miss;
+    private final Map<String, Voce> voci;
+    /** Statement consegnati al chiamante e non ancora chiusi. */
+    private final Set<Voce> prestate = new HashSet<>();
+
+    /**
+     * Crea una cache vuota per la connessione specificata.
+     *
+     * @param fisica   la connessione fisica su cui preparare gli statement.
+     * @param capacita il numero massimo di statement mantenuti in cache.
+     * @param hit      contatore condiviso dei riutilizzi di statement in cache.
+     * @param miss     contatore condiviso delle preparazioni di nuovi statement.
+     */
+    PreparedStatementCache(Connection fisica, int capacita, AtomicLong hit, AtomicLong miss) {
+        this.fisica = fisica;
+        this.capacita = capacita;
+        this.hit = hit;
+        this.miss = miss;
+        this.voci = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Restituisce uno statement per la query indicata, riutilizzando quello in cache se disponibile.
+     *
+     * @param sql      il testo della query.
+     * @param chiamante il proxy della connessione da esporre tramite {@link PreparedStatement#getConnection()}.
+     * @return un proxy dello statement da chiudere al termine dell'uso.
+     * @throws SQLException se la preparazione dello statement fallisce.
+     */
+    PreparedStatement prepara(String sql, Connection chiamante) throws SQLException {
+        Voce voce = voci.get(sql);
+        if (voce != null && !voce.inUso) {
+            hit.incrementAndGet();
+            return voce.presta(chiamante);
+        }
+        miss.incrementAndGet();
+        PreparedStatement nuovo = fisica.prepareStatement(sql);
+        if (voce != null) {
+            // statement già in uso da una query annidata: si usa uno statement non in cache
+            return new Voce(sql, nuovo, false).presta(chiamante);
+        }
+        voce = new Voce(sql, nuovo, true);
+        voci.put(sql, voce);
+        PreparedStatement proxy = voce.presta(chiamante);
+        rimuoviEccedenti();
+        return proxy;
+    }
+
+    /**
+     * Rilascia tutti gli statement ancora in uso, ad esempio quando la connessione torna
+     * nel pool senza che il chiamante abbia chiuso ogni statement. Gli statement non in cache
+     * vengono chiusi fisicamente.
+     */
+    void rilasciaTutti() {
+        for (Voce voce : new ArrayList<>(prestate)) {
+            voce.rilascia();
+        }
+    }
+
+    /**
+     * Chiude fisicamente tutti gli statement, in cache o ancora in uso. Da invocare prima di
+     * chiudere la connessione.
+     */
+    void chiudiTutti() {
+        List<Voce> tutte = new ArrayList<>(voci.values());
+        voci.clear();
+        for (Voce voce : new ArrayList<>(prestate)) {
+            voce.inCache = false;
+            voce.rilascia();
+        }
+        for (Voce voce : tutte) {
+            voce.chiudiFisico();
+        }
+    }
+
+    /**
+     * Rimuove gli statement usati meno di recente oltre la capacità. Gli statement ancora
+     * in uso vengono chiusi al momento del rilascio.
+     */
+    private void rimuoviEccedenti() {
+        Iterator<Voce> it = voci.values().iterator();
+        while (voci.size() > capacita && it.hasNext()) {
+            Voce voce = it.next();
+            it.remove();
+            voce.inCache = false;
+            if (!voce.inUso) {
+                voce.chiudiFisico();
+            }
+        }
+    }
+
+    /**
+     * Statement fisico con il relativo stato di utilizzo.
+     */
+    private final class Voce {
+        private final String sql;
+        private final PreparedStatement statement;
+        private boolean inCache;
+        private boolean inUso;
+        private ResultSet ultimoResultSet;
+        private Object proxyCorrente;
+        /** Impostazioni iniziali dello statement, salvate alla prima modifica; {@code null} se invariate. */
+        private int[] impostazioniIniziali;
+
+        private Voce(String sql, PreparedStatement statement, boolean inCache) {
+            this.sql = sql;
+            this.statement = statement;
+            this.inCache = inCache;
+        }
+
+        /**
+         * Segna lo statement come in uso e crea il proxy consegnato al chiamante per un singolo utilizzo.
+         */
+        private PreparedStatement presta(Connection chiamante) {
+            PreparedStatement proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatementCache.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    new GestoreStatement(this, chiamante));
+            inUso = true;
+            proxyCorrente = proxy;
+            prestate.add(this);
+            return proxy;
+        }
+
+        /**
+         * Salva le impostazioni correnti dello statement prima che il chiamante le modifichi.
+         */
+        private void salvaImpostazioni() throws SQLException {
+            if (impostazioniIniziali == null) {
+                impostazioniIniziali = new int[] {
+                        statement.getFetchSize(), statement.getFetchDirection(), statement.getMaxRows(),
+                        statement.getMaxFieldSize(), statement.getQueryTimeout()};
+            }
+        }
+
+        /**
+         * Rende lo statement di nuovo disponibile, o lo chiude se non appartiene più alla cache.
+         */
+        private void rilascia() {
+            inUso = false;
+            proxyCorrente = null;
+            prestate.remove(this);
+            if (!inCache) {
+                chiudiFisico();
+                return;
+            }
+            try {
+                if (ultimoResultSet != null) {
+                    ultimoResultSet.close();
+                }
+                statement.clearParameters();
+                if (impostazioniIniziali != null) {
+                    statement.setFetchSize(impostazioniIniziali[0]);
+                    statement.setFetchDirection(impostazioniIniziali[1]);
+                    statement.setMaxRows(impostazioniIniziali[2]);
+                    statement.setMaxFieldSize(impostazioniIniziali[3]);
+                    statement.setQueryTimeout(impostazioniIniziali[4]);
+                    impostazioniIniziali = null;
+                }
+            } catch (SQLException e) {
+                // uno statement in stato inconsistente non deve essere riutilizzato
+                voci.remove(sql, this);
+                inCache = false;
+                chiudiFisico();
+            } finally {
+                ultimoResultSet = null;
+            }
+        }
+
+        private void chiudiFisico() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // lo statement viene comunque scartato
+            }
+        }
+    }
+
+    /**
+     * Gestore del proxy dello statement: intercetta la chiusura, tiene traccia dell'ultimo
+     * {@link ResultSet} prodotto e delle impostazioni modificate e inoltra tutte le altre
+     * chiamate allo statement fisico.
+     */
+    private static final class GestoreStatement implements InvocationHandler {
+        private final Voce voce;
+        private final Connection chiamante;
+        private boolean chiuso;
+
+        private GestoreStatement(Voce voce, Connection chiamante) {
+            this.voce = voce;
+            this.chiamante = chiamante;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!chiuso) {
+                        chiuso = true;
+                        if (voce.proxyCorrente == proxy) {
+                            voce.rilascia();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return chiuso || voce.proxyCorrente != proxy || voce.statement.isClosed();
+                case "getConnection":
+                    return chiamante;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedPreparedStatement[" + voce.sql + "]";
+                default:
+                    if (chiuso || voce.proxyCorrente != proxy) {
+                        throw new SQLException("PreparedStatement già chiuso.");
+                    }
+                    switch (method.getName()) {
+                        case "setFetchSize", "setFetchDirection", "setMaxRows", "setLargeMaxRows",
+                             "setMaxFieldSize", "setQueryTimeout" -> voce.salvaImpostazioni();
+                        default -> { }
+                    }
+            }
+            try {
+                Object risultato = method.invoke(voce.statement, args);
+                if (risultato instanceof ResultSet rs) {
+                    voce.ultimoResultSet = rs;
+                }
+                return risultato;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
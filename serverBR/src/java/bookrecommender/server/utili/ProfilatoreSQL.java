@@ -0,0 +1,558 @@
+package bookrecommender.server.utili;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Misura i tempi delle istruzioni SQL eseguite tramite le connessioni del pool.
+ * <p>
+ * {@link DBConnectionPool} avvolge ogni {@link Statement}, {@link PreparedStatement} e
+ * {@link CallableStatement} creato dai DAO con {@link #avvolgi(Statement, String, Connection)}.
+ * Per ogni esecuzione vengono misurati il tempo di esecuzione e quello speso a leggere le righe
+ * del {@link ResultSet} (rilevante per le letture in streaming con fetch size), e il numero di
+ * righe lette o modificate. L'esecuzione si considera conclusa alla chiusura del
+ * {@code ResultSet} o dello statement, o alla successiva esecuzione dello stesso statement.
+ * <p>
+ * Le misure sono aggregate per testo SQL normalizzato (vedi {@link #normalizza(String)}), fino a
+ * {@value #MASSIMO_STATEMENT} testi distinti; le istruzioni successive confluiscono in
+ * {@value #ALTRI_STATEMENT}. Vengono inoltre raccolti:
+ * <ul>
+ *     <li>il tempo di acquisizione delle connessioni dal pool;</li>
+ *     <li>il tempo SQL e di acquisizione di ogni thread ({@link #tempoThread()}), con cui
+ *         il chiamante può attribuire il tempo passato sul database a una singola chiamata RMI;</li>
+ *     <li>un evento JFR {@code bookrecommender.QuerySQL} per ogni esecuzione, visibile in una
+ *         registrazione di Flight Recorder accanto agli eventi della chiamata che l'ha originata.</li>
+ * </ul>
+ * Le esecuzioni che superano la soglia {@code bookrecommender.db.lenta.ms} (500 ms per default;
+ * un valore non positivo disabilita il log) sono registrate nel log con i parametri associati.
+ * I parametri delle istruzioni sulla tabella degli utenti non vengono mai scritti, perché
+ * contengono password e dati personali. La proprietà {@code bookrecommender.db.profilo} impostata
+ * a {@code false} disabilita del tutto la misura.
+ * <p>
+ * Come gli statement che avvolge, ogni proxy va usato da un solo thread alla volta; le statistiche
+ * aggregate sono thread-safe.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see DBConnectionPool
+ * @see IstogrammaLatenze
+ * @version 1.0
+ */
+public final class ProfilatoreSQL {
+    private static final Logger logger = LogManager.getLogger(ProfilatoreSQL.class);
+
+    /** Numero massimo di testi SQL normalizzati con statistiche proprie. */
+    static final int MASSIMO_STATEMENT = 2000;
+    /** Testo con cui sono aggregate le istruzioni oltre {@link #MASSIMO_STATEMENT}. */
+    static final String ALTRI_STATEMENT = "<altri statement>";
+    /** Lunghezza oltre la quale il valore di un parametro viene troncato nel log. */
+    private static final int LUNGHEZZA_MASSIMA_PARAMETRO = 200;
+
+    private static final Pattern LISTA_PARAMETRI = Pattern.compile("(?i)\\bIN \\( ?\\?( ?, ?\\?)* ?\\)");
+    private static final Pattern DATI_RISERVATI = Pattern.compile("(?i)utentiregistrati|password");
+
+    private static final boolean attivo = Boolean.parseBoolean(System.getProperty("bookrecommender.db.profilo", "true"));
+    private static final long sogliaLentaNanos = sogliaLenta();
+
+    private static final Map<String, StatisticheStatement> perTesto = new ConcurrentHashMap<>();
+    /** Statistiche per testo SQL originale, per non normalizzare ad ogni esecuzione le query costanti dei DAO. */
+    private static final Map<String, StatisticheStatement> perTestoOriginale = new ConcurrentHashMap<>();
+    private static final IstogrammaLatenze acquisizioni = new IstogrammaLatenze();
+    private static final ThreadLocal<TempoThread> tempiThread = ThreadLocal.withInitial(TempoThread::new);
+
+    private ProfilatoreSQL() {
+    }
+
+    /**
+     * Statistiche di un testo SQL normalizzato.
+     *
+     * @param sql        il testo normalizzato.
+     * @param esecuzioni il numero di esecuzioni concluse.
+     * @param errori     il numero di esecuzioni terminate con un'eccezione.
+     * @param righe      il numero totale di righe lette o modificate.
+     * @param durate     la distribuzione delle durate delle esecuzioni, in nanosecondi.
+     */
+    public record Statistica(String sql, long esecuzioni, long errori, long righe, IstogrammaLatenze.Istantanea durate) {
+    }
+
+    /**
+     * Tempo speso sul database dal thread corrente dal suo avvio. I valori crescono soltanto:
+     * la differenza tra due letture misura l'attività tra i due istanti.
+     */
+    public static final class TempoThread {
+        private long nanosSql;
+        private long nanosAcquisizione;
+        private long esecuzioni;
+
+        private TempoThread() {
+        }
+
+        /**
+         * @return il tempo di esecuzione e lettura delle istruzioni SQL, in nanosecondi.
+         */
+        public long nanosSql() {
+            return nanosSql;
+        }
+
+        /**
+         * @return il tempo di attesa per ottenere connessioni dal pool, in nanosecondi.
+         */
+        public long nanosAcquisizione() {
+            return nanosAcquisizione;
+        }
+
+        /**
+         * @return il numero di istruzioni SQL eseguite.
+         */
+        public long esecuzioni() {
+            return esecuzioni;
+        }
+    }
+
+    /**
+     * Indica se la misura delle istruzioni SQL è attiva.
+     *
+     * @return il valore della proprietà {@code bookrecommender.db.profilo} (default {@code true}).
+     */
+    public static boolean attivo() {
+        return attivo;
+    }
+
+    /**
+     * Restituisce i contatori del thread corrente.
+     *
+     * @return il tempo speso sul database dal thread corrente; l'oggetto va letto dallo stesso thread.
+     */
+    public static TempoThread tempoThread() {
+        return tempiThread.get();
+    }
+
+    /**
+     * Restituisce le statistiche dei testi SQL eseguiti, ordinate per tempo totale decrescente.
+     *
+     * @return le statistiche di ogni testo normalizzato.
+     */
+    public static List<Statistica> getStatistiche() {
+        List<Statistica> risultato = new ArrayList<>(perTesto.size());
+        for (StatisticheStatement s : perTesto.values()) {
+            IstogrammaLatenze.Istantanea durate = s.durate.istantanea();
+            risultato.add(new Statistica(s.sql, durate.totale(), s.errori.sum(), s.righe.sum(), durate));
+        }
+        risultato.sort(Comparator.comparingLong((Statistica s) -> s.durate().somma()).reversed());
+        return risultato;
+    }
+
+    /**
+     * Restituisce la distribuzione dei tempi di acquisizione delle connessioni dal pool.
+     *
+     * @return l'istantanea dei tempi di acquisizione, in nanosecondi.
+     */
+    public static IstogrammaLatenze.Istantanea getAcquisizioni() {
+        return acquisizioni.istantanea();
+    }
+
+    /**
+     * Registra il tempo impiegato per ottenere una connessione dal pool.
+     *
+     * @param nanosecondi il tempo di attesa.
+     */
+    static void registraAcquisizione(long nanosecondi) {
+        acquisizioni.registra(nanosecondi);
+        tempiThread.get().nanosAcquisizione += nanosecondi;
+    }
+
+    /**
+     * Avvolge uno statement con un proxy che ne misura le esecuzioni.
+     *
+     * @param statement   lo statement da misurare.
+     * @param sql         il testo dello statement preparato, o {@code null} per uno {@link Statement}
+     *                    il cui testo è passato ad ogni esecuzione.
+     * @param connessione la connessione da restituire con {@link Statement#getConnection()}.
+     * @return il proxy, dello stesso tipo JDBC dello statement avvolto.
+     */
+    static Statement avvolgi(Statement statement, String sql, Connection connessione) {
+        Class<?> tipo = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(ProfilatoreSQL.class.getClassLoader(),
+                new Class<?>[] { tipo }, new GestoreStatement(statement, sql, connessione));
+    }
+
+    /**
+     * Normalizza un testo SQL per aggregare le esecuzioni della stessa istruzione: gli spazi
+     * consecutivi diventano uno solo, le costanti numeriche e le stringhe letterali diventano
+     * {@code ?} e le liste di parametri {@code IN (?, ?, ...)} diventano {@code IN (?...)}.
+     *
+     * @param sql il testo SQL originale.
+     * @return il testo normalizzato.
+     */
+    static String normalizza(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        int n = sql.length();
+        int i = 0;
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < n && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+            } else if (c == '\'') {
+                i++;
+                while (i < n && (sql.charAt(i) != '\'' || (i + 1 < n && sql.charAt(i + 1) == '\''))) {
+                    i += sql.charAt(i) == '\'' ? 2 : 1;
+                }
+                i++;
+                sb.append('?');
+            } else if (c == '"') {
+                int fine = sql.indexOf('"', i + 1);
+                fine = fine < 0 ? n : fine + 1;
+                sb.append(sql, i, fine);
+                i = fine;
+            } else if (Character.isDigit(c) && !parteDiIdentificatore(sb)) {
+                while (i < n && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                sb.append('?');
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        int fine = sb.length();
+        while (fine > 0 && sb.charAt(fine - 1) == ' ') {
+            fine--;
+        }
+        sb.setLength(fine);
+        return LISTA_PARAMETRI.matcher(sb).replaceAll("IN (?...)");
+    }
+
+    private static boolean parteDiIdentificatore(StringBuilder sb) {
+        if (sb.length() == 0) {
+            return false;
+        }
+        char precedente = sb.charAt(sb.length() - 1);
+        return Character.isLetterOrDigit(precedente) || precedente == '_' || precedente == '$';
+    }
+
+    private static StatisticheStatement statistichePer(String sql) {
+        StatisticheStatement s = perTestoOriginale.get(sql);
+        if (s != null) {
+            return s;
+        }
+        String normalizzato = normalizza(sql);
+        s = perTesto.get(normalizzato);
+        if (s == null) {
+            s = perTesto.size() < MASSIMO_STATEMENT
+                    ? perTesto.computeIfAbsent(normalizzato, StatisticheStatement::new)
+                    : perTesto.computeIfAbsent(ALTRI_STATEMENT, StatisticheStatement::new);
+        }
+        if (perTestoOriginale.size() < 4 * MASSIMO_STATEMENT) {
+            perTestoOriginale.put(sql, s);
+        }
+        return s;
+    }
+
+    private static long sogliaLenta() {
+        long ms = Long.getLong("bookrecommender.db.lenta.ms", 500L);
+        return ms > 0 ? TimeUnit.MILLISECONDS.toNanos(ms) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Contatori di un testo SQL normalizzato.
+     */
+    private static final class StatisticheStatement {
+        private final String sql;
+        private final IstogrammaLatenze durate = new IstogrammaLatenze();
+        private final LongAdder errori = new LongAdder();
+        private final LongAdder righe = new LongAdder();
+        private final boolean riservato;
+
+        private StatisticheStatement(String sql) {
+            this.sql = sql;
+            this.riservato = DATI_RISERVATI.matcher(sql).find();
+        }
+    }
+
+    /**
+     * Una singola esecuzione di uno statement, dall'invocazione fino alla lettura dell'ultima riga.
+     */
+    private static final class Esecuzione {
+        private final StatisticheStatement statistiche;
+        private final String sql;
+        private final EventoQuerySQL evento;
+        private long nanos;
+        private long righe;
+        private boolean conclusa;
+
+        private Esecuzione(StatisticheStatement statistiche, String sql, EventoQuerySQL evento) {
+            this.statistiche = statistiche;
+            this.sql = sql;
+            this.evento = evento;
+        }
+    }
+
+    /**
+     * Gestore del proxy dello statement: misura le esecuzioni, registra i parametri per il log
+     * delle query lente e avvolge i {@link ResultSet} prodotti per misurarne la lettura.
+     */
+    private static final class GestoreStatement implements InvocationHandler {
+        private final Statement statement;
+        private final String sqlPreparato;
+        private final Connection connessione;
+        private Object[] parametri;
+        private int numeroParametri;
+        private Esecuzione corrente;
+
+        private GestoreStatement(Statement statement, String sqlPreparato, Connection connessione) {
+            this.statement = statement;
+            this.sqlPreparato = sqlPreparato;
+            this.connessione = connessione;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nome = method.getName();
+            switch (nome) {
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "execute":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return esegui(proxy, method, args);
+                case "getResultSet": {
+                    Object rs = inoltra(method, args);
+                    return rs != null && corrente != null && !corrente.conclusa
+                            ? avvolgiResultSet((ResultSet) rs, (Statement) proxy, corrente) : rs;
+                }
+                case "close":
+                    concludi(corrente, false);
+                    return inoltra(method, args);
+                case "clearParameters":
+                    parametri = null;
+                    numeroParametri = 0;
+                    return inoltra(method, args);
+                case "getConnection":
+                    return connessione;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ProfiledStatement[" + statement + "]";
+                default:
+                    if (nome.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+                        registraParametro(indice, nome.equals("setNull") ? null : args[1]);
+                    }
+                    return inoltra(method, args);
+            }
+        }
+
+        private Object esegui(Object proxy, Method method, Object[] args) throws Throwable {
+            concludi(corrente, false);
+            String sql = args != null && args.length > 0 && args[0] instanceof String testo ? testo : sqlPreparato;
+            EventoQuerySQL evento = new EventoQuerySQL();
+            Esecuzione esecuzione = new Esecuzione(statistichePer(sql != null ? sql : "?"), sql,
+                    evento.isEnabled() ? evento : null);
+            if (esecuzione.evento != null) {
+                esecuzione.evento.begin();
+            }
+            corrente = esecuzione;
+            long inizio = System.nanoTime();
+            Object risultato;
+            try {
+                risultato = inoltra(method, args);
+            } catch (Throwable e) {
+                esecuzione.nanos += System.nanoTime() - inizio;
+                concludi(esecuzione, true);
+                throw e;
+            }
+            esecuzione.nanos += System.nanoTime() - inizio;
+
+            if (risultato instanceof ResultSet rs) {
+                return avvolgiResultSet(rs, (Statement) proxy, esecuzione);
+            }
+            if (risultato instanceof Boolean haResultSet) {
+                if (haResultSet) {
+                    return risultato; // conclusa alla lettura del ResultSet
+                }
+                esecuzione.righe = Math.max(0, statement.getUpdateCount());
+            } else if (risultato instanceof Number righe) {
+                esecuzione.righe = Math.max(0L, righe.longValue());
+            } else if (risultato instanceof int[] conteggi) {
+                esecuzione.righe = Arrays.stream(conteggi).filter(r -> r > 0).asLongStream().sum();
+            } else if (risultato instanceof long[] conteggi) {
+                esecuzione.righe = Arrays.stream(conteggi).filter(r -> r > 0).sum();
+            }
+            concludi(esecuzione, false);
+            return risultato;
+        }
+
+        private Object inoltra(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void registraParametro(int indice, Object valore) {
+            if (indice < 1 || indice > 10_000) {
+                return;
+            }
+            if (parametri == null) {
+                parametri = new Object[Math.max(8, indice)];
+            } else if (indice > parametri.length) {
+                parametri = Arrays.copyOf(parametri, Math.max(indice, 2 * parametri.length));
+            }
+            parametri[indice - 1] = valore;
+            numeroParametri = Math.max(numeroParametri, indice);
+        }
+
+        /**
+         * Conclude un'esecuzione, se non è già conclusa: aggiorna le statistiche e i contatori
+         * del thread, emette l'evento JFR e, se la soglia è superata, scrive il log della query lenta.
+         */
+        private void concludi(Esecuzione e, boolean errore) {
+            if (e == null || e.conclusa) {
+                return;
+            }
+            e.conclusa = true;
+            StatisticheStatement s = e.statistiche;
+            s.durate.registra(e.nanos);
+            s.righe.add(e.righe);
+            if (errore) {
+                s.errori.increment();
+            }
+            TempoThread t = tempiThread.get();
+            t.nanosSql += e.nanos;
+            t.esecuzioni++;
+
+            if (e.evento != null) {
+                e.evento.end();
+                if (e.evento.shouldCommit()) {
+                    e.evento.sql = s.sql;
+                    e.evento.righe = e.righe;
+                    e.evento.errore = errore;
+                    e.evento.commit();
+                }
+            }
+            if (e.nanos >= sogliaLentaNanos) {
+                logger.warn(String.format(Locale.ROOT, "Query lenta (%.1f ms, %d righe%s): %s [parametri: %s]",
+                        e.nanos / 1_000_000.0, e.righe, errore ? ", errore" : "",
+                        e.sql != null ? normalizzaSpazi(e.sql) : s.sql,
+                        s.riservato ? "omessi" : descriviParametri()));
+            }
+        }
+
+        private String descriviParametri() {
+            if (parametri == null) {
+                return "nessuno";
+            }
+            StringJoiner sj = new StringJoiner(", ");
+            for (int i = 0; i < numeroParametri; i++) {
+                Object v = parametri[i];
+                String testo = v == null ? "NULL"
+                        : v instanceof byte[] b ? "<" + b.length + " byte>"
+                        : v instanceof String str ? "'" + str + "'"
+                        : String.valueOf(v);
+                if (testo.length() > LUNGHEZZA_MASSIMA_PARAMETRO) {
+                    testo = testo.substring(0, LUNGHEZZA_MASSIMA_PARAMETRO) + "...";
+                }
+                sj.add((i + 1) + "=" + testo);
+            }
+            return sj.toString();
+        }
+
+        private ResultSet avvolgiResultSet(ResultSet rs, Statement proxyStatement, Esecuzione esecuzione) {
+            return (ResultSet) Proxy.newProxyInstance(ProfilatoreSQL.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, new GestoreResultSet(rs, proxyStatement, esecuzione, this));
+        }
+    }
+
+    private static String normalizzaSpazi(String sql) {
+        return sql.strip().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Gestore del proxy del {@link ResultSet}: misura il tempo speso in {@link ResultSet#next()},
+     * conta le righe lette e conclude l'esecuzione alla chiusura.
+     */
+    private static final class GestoreResultSet implements InvocationHandler {
+        private final ResultSet rs;
+        private final Statement statement;
+        private final Esecuzione esecuzione;
+        private final GestoreStatement gestore;
+
+        private GestoreResultSet(ResultSet rs, Statement statement, Esecuzione esecuzione, GestoreStatement gestore) {
+            this.rs = rs;
+            this.statement = statement;
+            this.esecuzione = esecuzione;
+            this.gestore = gestore;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    long inizio = System.nanoTime();
+                    try {
+                        boolean riga = rs.next();
+                        esecuzione.nanos += System.nanoTime() - inizio;
+                        if (riga) {
+                            esecuzione.righe++;
+                        }
+                        return riga;
+                    } catch (SQLException e) {
+                        esecuzione.nanos += System.nanoTime() - inizio;
+                        gestore.concludi(esecuzione, true);
+                        throw e;
+                    }
+                }
+                case "close":
+                    gestore.concludi(esecuzione, false);
+                    rs.close();
+                    return null;
+                case "getStatement":
+                    return statement;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ProfiledResultSet[" + rs + "]";
+                default:
+                    try {
+                        return method.invoke(rs, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
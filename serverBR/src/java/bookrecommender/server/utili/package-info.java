@@ -7,6 +7,18 @@
  * <ul>
  *     <li>{@link bookrecommender.server.utili.DBConnectionSingleton}: Un singleton per
  *         la gestione centralizzata della connessione al database.</li>
+ *     <li>{@link bookrecommender.server.utili.DBConnectionPool}: Il pool limitato di
+ *         connessioni JDBC da cui {@code DBConnectionSingleton} preleva le connessioni.</li>
+ *     <li>{@code PreparedStatementCache}: La cache LRU (interna al package) degli statement
+ *         preparati associata a ogni connessione fisica del pool.</li>
+ *     <li>{@link bookrecommender.server.utili.MappaLongInt}: Una mappa hash compatta da
+ *         chiavi {@code long} a valori {@code int} per le strutture dati in memoria.</li>
+ *     <li>{@link bookrecommender.server.utili.BitmapCompressa}: Un insieme compresso di
+ *         interi (sparso o a bit) per gli indici bitmap in memoria.</li>
+ *     <li>{@link bookrecommender.server.utili.ProfilatoreSQL}: La misura dei tempi delle istruzioni
+ *         SQL e dell'acquisizione delle connessioni, con log delle query lente ed eventi JFR.</li>
+ *     <li>{@link bookrecommender.server.utili.IstogrammaLatenze}: Un istogramma concorrente delle
+ *         durate, a precisione relativa costante, da cui leggere media e percentili.</li>
  *     <li>{@link bookrecommender.server.utili.DBUtil}: Una classe di utilità per
  *         la gestione e la stampa dettagliata delle {@code SQLException}.</li>
  * </ul>
@@ -0,0 +1,122 @@
+package bookrecommender.server.valutazioni;
+
+import bookrecommender.condivisi.valutazioni.RiepilogoValutazioni;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Gestisce la tabella {@code AggregatiValutazioni}, che conserva per ogni libro i dati
+ * aggregati delle sue valutazioni.
+ * <p>
+ * Per ogni libro la tabella memorizza il numero di valutazioni, la somma dei punteggi di
+ * ciascun criterio e del voto complessivo e il numero di voti complessivi pari a 1, 2, 3, 4 e 5.
+ * Medie e istogramma si ottengono quindi con una lettura per chiave primaria, senza
+ * ricalcolare {@code AVG()} e {@code COUNT()} su {@code ValutazioniLibri} ad ogni richiesta.
+ * <p>
+ * Gli aggregati sono aggiornati in modo incrementale dal trigger {@code trg_aggregati_valutazioni}
+ * su {@code ValutazioniLibri}, creato da {@code CreateDatabaseAndTablesBR} nel modulo creazioneDB,
+ * nella stessa transazione che inserisce, modifica o elimina la valutazione. Il trigger vale per
+ * ogni modifica della tabella, comprese le eliminazioni a cascata dovute alla rimozione di una
+ * libreria, di un libro da una libreria o di un utente, che il server non esegue direttamente su
+ * {@code ValutazioniLibri}. L'aggiornamento usa un {@code INSERT ... ON CONFLICT DO UPDATE} che somma
+ * le differenze ai valori esistenti, così che salvataggi concorrenti sullo stesso libro non si
+ * sovrascrivano. I metodi di questa classe ricevono la {@link Connection} dal chiamante e non
+ * gestiscono commit o rollback.
+ * <p>
+ * La tabella, la funzione e il trigger fanno parte dello schema creato da creazioneDB: il server
+ * si limita a verificarne la presenza con {@link #disponibili(Connection)}. In caso di disallineamento
+ * (es. trigger disattivato durante modifiche manuali al database) gli aggregati vanno ricalcolati
+ * da zero con {@code DBCreatorBR --ricostruisci-aggregati}, a server fermo.
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @see JdbcValutazioniDAO
+ * @see RiepilogoValutazioni
+ * @version 1.0
+ */
+final class AggregatiValutazioni {
+
+    /** Nome del trigger su {@code ValutazioniLibri} che aggiorna gli aggregati. */
+    static final String TRIGGER = "trg_aggregati_valutazioni";
+
+    private static final String VERIFICA = """
+            SELECT to_regclass('aggregativalutazioni') IS NOT NULL
+               AND EXISTS (SELECT 1 FROM pg_trigger
+                           WHERE tgrelid = to_regclass('valutazionilibri') AND tgname = ? AND tgenabled <> 'D')
+            """;
+
+    /** Colonne di {@code AggregatiValutazioni} lette da {@link #riepilogo(ResultSet, int)}. */
+    static final String COLONNE = "numero_valutazioni, somma_stile, somma_contenuto, somma_gradimento, "
+            + "somma_originalita, somma_qualita, somma_complessivo, voti_1, voti_2, voti_3, voti_4, voti_5";
+
+    private static final String LEGGI = "SELECT " + COLONNE + " FROM AggregatiValutazioni WHERE libro_id = ?";
+
+    private AggregatiValutazioni() {
+    }
+
+    /**
+     * Verifica che la tabella degli aggregati esista e che il trigger che la mantiene sia attivo.
+     *
+     * @param conn la connessione da utilizzare.
+     * @return {@code true} se gli aggregati sono disponibili e aggiornati dal trigger.
+     * @throws SQLException in caso di errore di accesso al database.
+     */
+    static boolean disponibili(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(VERIFICA)) {
+            ps.setString(1, TRIGGER);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * Legge gli aggregati di un libro e ne calcola le medie.
+     *
+     * @param conn    la connessione da utilizzare.
+     * @param libroId l'ID del libro.
+     * @return il riepilogo delle valutazioni, vuoto se il libro non ha valutazioni.
+     * @throws SQLException in caso di errore di accesso al database.
+     */
+    static RiepilogoValutazioni leggi(Connection conn, int libroId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(LEGGI)) {
+            ps.setLong(1, libroId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? riepilogo(rs, libroId) : RiepilogoValutazioni.vuoto(libroId);
+            }
+        }
+    }
+
+    /**
+     * Converte la riga corrente degli aggregati di un libro nel suo riepilogo, calcolandone le medie.
+     *
+     * @param rs      il result set posizionato sulla riga da convertire, con le colonne {@link #COLONNE}.
+     * @param libroId l'ID del libro.
+     * @return il riepilogo delle valutazioni, vuoto se il libro non ha valutazioni.
+     * @throws SQLException in caso di errore di lettura del result set.
+     */
+    static RiepilogoValutazioni riepilogo(ResultSet rs, int libroId) throws SQLException {
+        int n = rs.getInt("numero_valutazioni");
+        if (n <= 0) {
+            return RiepilogoValutazioni.vuoto(libroId);
+        }
+        int[] istogramma = new int[RiepilogoValutazioni.NUMERO_VOTI];
+        for (int voto = 1; voto <= istogramma.length; voto++) {
+            istogramma[voto - 1] = rs.getInt("voti_" + voto);
+        }
+        return new RiepilogoValutazioni(
+                libroId,
+                n,
+                (double) rs.getLong("somma_complessivo") / n,
+                (double) rs.getLong("somma_stile") / n,
+                (double) rs.getLong("somma_contenuto") / n,
+                (double) rs.getLong("somma_gradimento") / n,
+                (double) rs.getLong("somma_originalita") / n,
+                (double) rs.getLong("somma_qualita") / n,
+                istogramma);
+    }
+}
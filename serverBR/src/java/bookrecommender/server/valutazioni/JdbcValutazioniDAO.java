@@ -1,7 +1,10 @@
 package bookrecommender.server.valutazioni;
 
+import bookrecommender.condivisi.valutazioni.RiepilogoValutazioni;
 import bookrecommender.condivisi.valutazioni.ValutazioneDettagliata;
 import bookrecommender.server.utili.DBConnectionSingleton;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -19,8 +22,14 @@ import java.util.*;
  * Ogni metodo gestisce autonomamente la connessione al database tramite il singleton
  * {@link DBConnectionSingleton}, aprendo e chiudendo una connessione per ogni
  * operazione. La gestione degli errori è semplificata: le eccezioni SQL vengono
- * catturate e gestite internamente, restituendo valori di default (es. {@code false},
- * {@code null}, o collezioni vuote) per indicare un fallimento.
+ * registrate nel log e gestite internamente, restituendo valori di default (es. {@code false},
+ * {@code null}, o collezioni vuote) per indicare un fallimento. Fanno eccezione le medie e
+ * il riepilogo, che rilanciano l'errore: un riepilogo vuoto non sarebbe distinguibile da
+ * quello di un libro senza valutazioni.
+ * <p>
+ * Le medie e i conteggi sono letti dalla tabella {@code AggregatiValutazioni} (vedi
+ * {@link AggregatiValutazioni}), che il trigger su {@code ValutazioniLibri} aggiorna nella
+ * stessa transazione di ogni salvataggio, modifica o eliminazione di una valutazione.
  *
  * @author Abou Aziz Sara Hesham Abdel Hamid 757004
  * @author Ben Mahjoub Ali 759560
@@ -33,6 +42,8 @@ import java.util.*;
  */
 public class JdbcValutazioniDAO implements ValutazioniDAO {
 
+    private static final Logger logger = LogManager.getLogger(JdbcValutazioniDAO.class);
+
     /** {@inheritDoc} */
     @Override
     public boolean isLibroGiaValutato(int libroId, String userId) {
@@ -57,27 +68,26 @@ public class JdbcValutazioniDAO implements ValutazioniDAO {
             return false;
         }
         String sql = "INSERT INTO ValutazioniLibri (user_id, libreria_id, libro_id, stile_score, contenuto_score, gradimento_score, originalita_score, qualita_score, voto_complessivo, stile_note, contenuto_note, gradimento_note, originalita_note, qualita_note, commento_finale) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection c = DBConnectionSingleton.openNewConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setString(1, userId);
-            ps.setInt(2, libreriaId);
-            ps.setInt(3, libroId);
-            ps.setInt(4, stile);
-            ps.setInt(5, contenuto);
-            ps.setInt(6, gradevolezza);
-            ps.setInt(7, originalita);
-            ps.setInt(8, edizione);
-            ps.setDouble(9, votoFinale);
-            ps.setString(10, stileNote);
-            ps.setString(11, contenutoNote);
-            ps.setString(12, gradevolezzaNote);
-            ps.setString(13, originalitaNote);
-            ps.setString(14, edizioneNote);
-            ps.setString(15, commentoFinale);
-            return ps.executeUpdate() == 1;
-        } catch (Exception e) {
-            return false;
-        }
+        return inTransazione(c -> {
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, userId);
+                ps.setInt(2, libreriaId);
+                ps.setInt(3, libroId);
+                ps.setInt(4, stile);
+                ps.setInt(5, contenuto);
+                ps.setInt(6, gradevolezza);
+                ps.setInt(7, originalita);
+                ps.setInt(8, edizione);
+                ps.setDouble(9, votoFinale);
+                ps.setString(10, stileNote);
+                ps.setString(11, contenutoNote);
+                ps.setString(12, gradevolezzaNote);
+                ps.setString(13, originalitaNote);
+                ps.setString(14, edizioneNote);
+                ps.setString(15, commentoFinale);
+                return ps.executeUpdate() > 0;
+            }
+        });
     }
 
     /** {@inheritDoc} */
@@ -116,128 +126,68 @@ public class JdbcValutazioniDAO implements ValutazioniDAO {
 
     /** {@inheritDoc} */
     @Override
-    public double calcolaMediaValutazioni(int libroId) {
-        String sql = "SELECT AVG(voto_complessivo) AS media FROM ValutazioniLibri WHERE libro_id = ?";
-        try (Connection c = DBConnectionSingleton.openNewConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, libroId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("media");
-                }
-            }
-        } catch (Exception e) {
-            // ignore
-        }
-        return 0.0;
+    public double calcolaMediaValutazioni(int libroId) throws SQLException {
+        return calcolaRiepilogo(libroId).mediaComplessiva();
     }
 
     /** {@inheritDoc} */
     @Override
-    public int getNumeroValutazioni(int libroId) {
-        String sql = "SELECT COUNT(*) AS n FROM ValutazioniLibri WHERE libro_id = ?";
-        try (Connection c = DBConnectionSingleton.openNewConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, libroId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("n");
-                }
-            }
-        } catch (Exception e) {
-            // ignore
-        }
-        return 0;
+    public int getNumeroValutazioni(int libroId) throws SQLException {
+        return calcolaRiepilogo(libroId).numeroValutazioni();
     }
     
     /** {@inheritDoc} */
     @Override
-    public double calcolaMediaStile(int libroId) {
-        String sql = "SELECT AVG(stile_score) AS media FROM ValutazioniLibri WHERE libro_id = ?";
-        try (Connection c = DBConnectionSingleton.openNewConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, libroId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("media");
-                }
-            }
-        } catch (Exception e) {
-            // ignore
-        }
-        return 0.0;
+    public double calcolaMediaStile(int libroId) throws SQLException {
+        return calcolaRiepilogo(libroId).mediaStile();
     }
     
     /** {@inheritDoc} */
     @Override
-    public double calcolaMediaContenuto(int libroId) {
-        String sql = "SELECT AVG(contenuto_score) AS media FROM ValutazioniLibri WHERE libro_id = ?";
-        try (Connection c = DBConnectionSingleton.openNewConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, libroId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("media");
-                }
-            }
-        } catch (Exception e) {
-            // ignore
-        }
-        return 0.0;
+    public double calcolaMediaContenuto(int libroId) throws SQLException {
+        return calcolaRiepilogo(libroId).mediaContenuto();
     }
     
     /** {@inheritDoc} */
     @Override
-    public double calcolaMediaGradevolezza(int libroId) {
-        String sql = "SELECT AVG(gradimento_score) AS media FROM ValutazioniLibri WHERE libro_id = ?";
-        try (Connection c = DBConnectionSingleton.openNewConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, libroId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("media");
-                }
-            }
-        } catch (Exception e) {
-            // ignore
-        }
-        return 0.0;
+    public double calcolaMediaGradevolezza(int libroId) throws SQLException {
+        return calcolaRiepilogo(libroId).mediaGradevolezza();
     }
     
     /** {@inheritDoc} */
     @Override
-    public double calcolaMediaOriginalita(int libroId) {
-        String sql = "SELECT AVG(originalita_score) AS media FROM ValutazioniLibri WHERE libro_id = ?";
-        try (Connection c = DBConnectionSingleton.openNewConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, libroId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("media");
-                }
-            }
-        } catch (Exception e) {
-            // ignore
-        }
-        return 0.0;
+    public double calcolaMediaOriginalita(int libroId) throws SQLException {
+        return calcolaRiepilogo(libroId).mediaOriginalita();
     }
     
     /** {@inheritDoc} */
     @Override
-    public double calcolaMediaEdizione(int libroId) {
-        String sql = "SELECT AVG(qualita_score) AS media FROM ValutazioniLibri WHERE libro_id = ?";
-        try (Connection c = DBConnectionSingleton.openNewConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, libroId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getDouble("media");
-                }
-            }
-        } catch (Exception e) {
-            // ignore
+    public double calcolaMediaEdizione(int libroId) throws SQLException {
+        return calcolaRiepilogo(libroId).mediaEdizione();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Il riepilogo è letto dalla tabella {@code AggregatiValutazioni} con un accesso per
+     * chiave primaria, senza scandire le valutazioni del libro.
+     */
+    @Override
+    public RiepilogoValutazioni calcolaRiepilogo(int libroId) throws SQLException {
+        try (Connection c = DBConnectionSingleton.openNewConnection()) {
+            return AggregatiValutazioni.leggi(c, libroId);
+        } catch (SQLException e) {
+            logger.error("Errore lettura aggregati valutazioni per libroId={}", libroId, e);
+            throw e;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean aggregatiDisponibili() throws SQLException {
+        try (Connection c = DBConnectionSingleton.openNewConnection()) {
+            return AggregatiValutazioni.disponibili(c);
         }
-        return 0.0;
     }
     
     /**
@@ -325,7 +275,7 @@ public class JdbcValutazioniDAO implements ValutazioniDAO {
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            logger.error("Errore recupero valutazioni dettagliate per userId={}", userId, e);
         }
         return result;
     }
@@ -347,41 +297,81 @@ public class JdbcValutazioniDAO implements ValutazioniDAO {
             WHERE user_id = ? AND libro_id = ?
             """;
 
-        try (Connection c = DBConnectionSingleton.openNewConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, stile);
-            ps.setString(2, stileNote);
-            ps.setInt(3, contenuto);
-            ps.setString(4, contenutoNote);
-            ps.setInt(5, gradevolezza);
-            ps.setString(6, gradevolezzaNote);
-            ps.setInt(7, originalita);
-            ps.setString(8, originalitaNote);
-            ps.setInt(9, edizione);
-            ps.setString(10, edizioneNote);
-            ps.setDouble(11, votoFinale);
-            ps.setString(12, commentoFinale);
-            ps.setString(13, userId);
-            ps.setInt(14, libroId);
-
-            return ps.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
+        return inTransazione(c -> {
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, stile);
+                ps.setString(2, stileNote);
+                ps.setInt(3, contenuto);
+                ps.setString(4, contenutoNote);
+                ps.setInt(5, gradevolezza);
+                ps.setString(6, gradevolezzaNote);
+                ps.setInt(7, originalita);
+                ps.setString(8, originalitaNote);
+                ps.setInt(9, edizione);
+                ps.setString(10, edizioneNote);
+                ps.setDouble(11, votoFinale);
+                ps.setString(12, commentoFinale);
+                ps.setString(13, userId);
+                ps.setInt(14, libroId);
+                return ps.executeUpdate() > 0;
+            }
+        });
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean eliminaValutazione(String userId, int libroId) {
         String sql = "DELETE FROM ValutazioniLibri WHERE user_id = ? AND libro_id = ?";
-        try (Connection c = DBConnectionSingleton.openNewConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setString(1, userId);
-            ps.setInt(2, libroId);
-            return ps.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
+        return inTransazione(c -> {
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, userId);
+                ps.setInt(2, libroId);
+                return ps.executeUpdate() > 0;
+            }
+        });
+    }
+
+    /**
+     * Operazione da eseguire all'interno di una transazione.
+     */
+    @FunctionalInterface
+    private interface OperazioneTransazionale {
+        /**
+         * Esegue l'operazione sulla connessione indicata.
+         *
+         * @param c la connessione con la transazione in corso.
+         * @return {@code true} se l'operazione è riuscita e la transazione va confermata.
+         * @throws SQLException in caso di errore di accesso al database.
+         */
+        boolean esegui(Connection c) throws SQLException;
+    }
+
+    /**
+     * Esegue un'operazione di scrittura in una transazione: se l'operazione restituisce
+     * {@code false} o solleva un'eccezione, la transazione viene annullata insieme alle modifiche
+     * che il trigger ha apportato a {@code AggregatiValutazioni}.
+     *
+     * @param operazione l'operazione da eseguire.
+     * @return l'esito dell'operazione, o {@code false} in caso di errore.
+     */
+    private boolean inTransazione(OperazioneTransazionale operazione) {
+        try (Connection c = DBConnectionSingleton.openNewConnection()) {
+            c.setAutoCommit(false);
+            try {
+                if (operazione.esegui(c)) {
+                    c.commit();
+                    return true;
+                }
+                c.rollback();
+                return false;
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (Exception e) {
+            logger.error("Errore durante la transazione sulle valutazioni", e);
             return false;
         }
     }
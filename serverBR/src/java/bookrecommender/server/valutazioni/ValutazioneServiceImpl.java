@@ -1,5 +1,6 @@
 package bookrecommender.server.valutazioni;
 
+import bookrecommender.condivisi.valutazioni.RiepilogoValutazioni;
 import bookrecommender.condivisi.valutazioni.ValutazioneService;
 import bookrecommender.condivisi.valutazioni.ValutazioneDettagliata;
 import org.apache.logging.log4j.LogManager;
@@ -50,9 +51,30 @@ public class ValutazioneServiceImpl extends UnicastRemoteObject implements Valut
      */
     public ValutazioneServiceImpl() throws RemoteException {
         super();
+        verificaAggregati();
         logger.info("ValutazioneServiceImpl inizializzato");
     }
 
+    /**
+     * Verifica che gli aggregati delle valutazioni usati per medie e conteggi siano disponibili.
+     * <p>
+     * La tabella e il trigger che la mantiene sono creati da creazioneDB; se mancano viene
+     * registrato un errore con le istruzioni per installarli. Il servizio viene comunque avviato,
+     * ma medie e conteggi non saranno disponibili finché lo schema non è aggiornato.
+     */
+    private void verificaAggregati() {
+        try {
+            if (!valutazioniDAO.aggregatiDisponibili()) {
+                logger.error("Aggregati delle valutazioni non disponibili: arrestare il server ed eseguire DBCreatorBR"
+                        + " con l'opzione --ricostruisci-aggregati per creare e popolare la tabella AggregatiValutazioni"
+                        + " e il trigger {}",
+                        AggregatiValutazioni.TRIGGER);
+            }
+        } catch (Exception e) {
+            logger.warn("Impossibile verificare gli aggregati delle valutazioni: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -216,6 +238,21 @@ public class ValutazioneServiceImpl extends UnicastRemoteObject implements Valut
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Delega il calcolo al {@link ValutazioniDAO}.
+     */
+    @Override
+    public RiepilogoValutazioni getRiepilogoValutazioni(int libroId) throws RemoteException {
+        try {
+            return valutazioniDAO.calcolaRiepilogo(libroId);
+        } catch (Exception e) {
+            logger.error("Errore calcolo riepilogo valutazioni", e);
+            throw new RemoteException("Errore calcolo riepilogo valutazioni", e);
+        }
+    }
+
     /**
      * Metodo di utilità privato per validare i punteggi di una valutazione.
      * Verifica che ogni punteggio sia compreso nell'intervallo [1, 5].
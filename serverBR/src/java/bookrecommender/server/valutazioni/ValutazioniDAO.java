@@ -1,6 +1,8 @@
 package bookrecommender.server.valutazioni;
 
+import bookrecommender.condivisi.valutazioni.RiepilogoValutazioni;
 import bookrecommender.condivisi.valutazioni.ValutazioneDettagliata;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 
@@ -76,56 +78,83 @@ public interface ValutazioniDAO {
      *
      * @param libroId L'ID del libro.
      * @return La media dei voti, o 0.0 se non ci sono valutazioni.
+     * @throws SQLException in caso di errore di accesso al database.
      */
-    double calcolaMediaValutazioni(int libroId);
+    double calcolaMediaValutazioni(int libroId) throws SQLException;
 
     /**
      * Conta il numero totale di valutazioni ricevute da un libro.
      *
      * @param libroId L'ID del libro.
      * @return Il numero di valutazioni, o 0 se non ce ne sono.
+     * @throws SQLException in caso di errore di accesso al database.
      */
-    int getNumeroValutazioni(int libroId);
+    int getNumeroValutazioni(int libroId) throws SQLException;
 
     /**
      * Calcola la media dei punteggi per la categoria "stile" per un libro specifico.
      *
      * @param libroId L'ID del libro.
      * @return La media dei punteggi di stile, o 0.0 se non ci sono valutazioni.
+     * @throws SQLException in caso di errore di accesso al database.
      */
-    double calcolaMediaStile(int libroId);
+    double calcolaMediaStile(int libroId) throws SQLException;
 
     /**
      * Calcola la media dei punteggi per la categoria "contenuto" per un libro specifico.
      *
      * @param libroId L'ID del libro.
      * @return La media dei punteggi di contenuto, o 0.0 se non ci sono valutazioni.
+     * @throws SQLException in caso di errore di accesso al database.
      */
-    double calcolaMediaContenuto(int libroId);
+    double calcolaMediaContenuto(int libroId) throws SQLException;
 
     /**
      * Calcola la media dei punteggi per la categoria "gradevolezza" per un libro specifico.
      *
      * @param libroId L'ID del libro.
      * @return La media dei punteggi di gradevolezza, o 0.0 se non ci sono valutazioni.
+     * @throws SQLException in caso di errore di accesso al database.
      */
-    double calcolaMediaGradevolezza(int libroId);
+    double calcolaMediaGradevolezza(int libroId) throws SQLException;
 
     /**
      * Calcola la media dei punteggi per la categoria "originalità" per un libro specifico.
      *
      * @param libroId L'ID del libro.
      * @return La media dei punteggi di originalità, o 0.0 se non ci sono valutazioni.
+     * @throws SQLException in caso di errore di accesso al database.
      */
-    double calcolaMediaOriginalita(int libroId);
+    double calcolaMediaOriginalita(int libroId) throws SQLException;
 
     /**
      * Calcola la media dei punteggi per la categoria "edizione" per un libro specifico.
      *
      * @param libroId L'ID del libro.
      * @return La media dei punteggi di edizione, o 0.0 se non ci sono valutazioni.
+     * @throws SQLException in caso di errore di accesso al database.
      */
-    double calcolaMediaEdizione(int libroId);
+    double calcolaMediaEdizione(int libroId) throws SQLException;
+
+    /**
+     * Calcola il riepilogo delle valutazioni di un libro (conteggio, medie e distribuzione
+     * dei voti complessivi) con un'unica query di aggregazione.
+     *
+     * @param libroId L'ID del libro.
+     * @return Il riepilogo delle valutazioni; un riepilogo vuoto se non ci sono valutazioni.
+     * @throws SQLException in caso di errore di accesso al database.
+     */
+    RiepilogoValutazioni calcolaRiepilogo(int libroId) throws SQLException;
+
+    /**
+     * Verifica che la struttura che memorizza gli aggregati delle valutazioni esista e che
+     * sia mantenuta aggiornata. Lo schema è creato da creazioneDB: questo metodo non lo modifica.
+     *
+     * @return {@code true} se gli aggregati sono disponibili, {@code false} se mancano
+     *         (database creato da una versione precedente).
+     * @throws SQLException in caso di errore di accesso al database.
+     */
+    boolean aggregatiDisponibili() throws SQLException;
 
     /**
      * Trova tutte le valutazioni effettuate da un utente specifico, arricchite con dettagli
@@ -12,6 +12,9 @@
  *         il contratto per l'accesso ai dati (Data Access Object).</li>
  *     <li>{@link bookrecommender.server.valutazioni.JdbcValutazioniDAO}: L'implementazione
  *         concreta del DAO che utilizza JDBC per interagire con il database.</li>
+ *     <li>{@code AggregatiValutazioni}: Classe di supporto del DAO che legge e ricalcola, per ogni
+ *         libro, conteggi, somme dei punteggi e distribuzione dei voti dalla tabella
+ *         {@code AggregatiValutazioni}, aggiornata da un trigger su {@code ValutazioniLibri}.</li>
  * </ul>
  * Il service layer è esposto ai client tramite RMI, mentre il DAO layer astrae la persistenza.
  */
@@ -0,0 +1,237 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.condivisi.libri.Libro;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifica la cache read-through {@link CacheLibriDAO} su un DAO simulato che registra le
+ * richieste ricevute: le letture servite dalla cache, la politica LRU a due segmenti, lo
+ * svuotamento e il precaricamento.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+class CacheLibriDAOTest {
+
+    /** Libri del DAO simulato, con ID da 1 a 300. */
+    private final Map<Long, Libro> libri = new HashMap<>();
+    /** ID richiesti al DAO simulato, nell'ordine delle richieste. */
+    private final List<Long> richiesti = new ArrayList<>();
+    /** Azione eseguita dal DAO simulato durante ogni lettura. */
+    private Runnable durataLettura = () -> { };
+    private LibroDAO delegato;
+
+    @BeforeEach
+    void preparaDelegato() {
+        for (long id = 1; id <= 300; id++) {
+            libri.put(id, new Libro(id, "Titolo " + id, "By Autore " + id, "2000", null, null, null, null));
+        }
+        delegato = (LibroDAO) Proxy.newProxyInstance(LibroDAO.class.getClassLoader(),
+                new Class<?>[]{LibroDAO.class}, (proxy, metodo, argomenti) -> switch (metodo.getName()) {
+                    case "getLibroById" -> {
+                        long id = (Integer) argomenti[0];
+                        richiesti.add(id);
+                        durataLettura.run();
+                        yield libri.get(id);
+                    }
+                    case "cercaLibroPerId" -> {
+                        Long id = (Long) argomenti[0];
+                        richiesti.add(id);
+                        Libro libro = id == null ? null : libri.get(id);
+                        yield libro == null ? new ArrayList<Libro>() : new ArrayList<>(List.of(libro));
+                    }
+                    case "getLibriByIds" -> {
+                        List<Libro> trovati = new ArrayList<>();
+                        for (Object id : (List<?>) argomenti[0]) {
+                            richiesti.add((Long) id);
+                            Libro libro = libri.get((Long) id);
+                            if (libro != null) {
+                                trovati.add(libro);
+                            }
+                        }
+                        durataLettura.run();
+                        yield trovati;
+                    }
+                    case "creaLibro" -> new Libro(301L, (String) argomenti[0], (String) argomenti[1], null, null, null, null, null);
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    @Test
+    void capacitaNonValida() {
+        assertThrows(IllegalArgumentException.class, () -> new CacheLibriDAO(delegato, 0));
+    }
+
+    @Test
+    void secondaLetturaDallaCache() {
+        CacheLibriDAO cache = new CacheLibriDAO(delegato, 10);
+        Libro libro = cache.getLibroById(7);
+        assertSame(libro, cache.getLibroById(7));
+        assertSame(libro, cache.cercaLibroPerId(7L).get(0));
+        assertEquals(List.of(7L), richiesti);
+        assertStatistiche(cache, 2, 1, 0, 0, 1);
+    }
+
+    @Test
+    void libriAssentiNonMemorizzati() {
+        CacheLibriDAO cache = new CacheLibriDAO(delegato, 10);
+        assertNull(cache.getLibroById(999));
+        assertNull(cache.getLibroById(999));
+        assertEquals(List.of(), cache.cercaLibroPerId(999L));
+        assertEquals(List.of(), cache.cercaLibroPerId(null));
+        assertEquals(Arrays.asList(999L, 999L, 999L, null), richiesti);
+        assertEquals(0, cache.getStatistiche().dimensione());
+    }
+
+    @Test
+    void creaLibroDelegato() {
+        CacheLibriDAO cache = new CacheLibriDAO(delegato, 10);
+        assertEquals(301, cache.creaLibro("Nuovo", "By Nuovo", null, null, null, null).id());
+        assertEquals(0, cache.getStatistiche().dimensione());
+    }
+
+    @Test
+    void letturaMultiplaChiedeSoloIMancanti() {
+        CacheLibriDAO cache = new CacheLibriDAO(delegato, 10);
+        cache.getLibroById(2);
+        cache.getLibroById(4);
+        richiesti.clear();
+        List<Libro> letti = cache.getLibriByIds(Arrays.asList(4L, 1L, null, 2L, 999L, 3L, 1L));
+        assertEquals(List.of(4L, 1L, 2L, 3L, 1L), letti.stream().map(Libro::id).toList());
+        assertEquals(List.of(1L, 999L, 3L), richiesti);
+
+        richiesti.clear();
+        cache.getLibriByIds(List.of(1L, 2L, 3L, 4L));
+        assertEquals(List.of(), richiesti);
+    }
+
+    @Test
+    void unaScansioneNonEspelleILibriRichiestiPiuVolte() {
+        CacheLibriDAO cache = new CacheLibriDAO(delegato, 10);
+        for (int ripetizione = 0; ripetizione < 2; ripetizione++) {
+            for (int id = 1; id <= 5; id++) {
+                cache.getLibroById(id);
+            }
+        }
+        // lettura occasionale di molti libri diversi, ad esempio una lista lunga
+        for (int id = 100; id < 200; id++) {
+            cache.getLibroById(id);
+        }
+        richiesti.clear();
+        for (int id = 1; id <= 5; id++) {
+            cache.getLibroById(id);
+        }
+        assertEquals(List.of(), richiesti);
+        // al segmento di prova resta lo spazio non usato dal segmento protetto
+        assertEquals(10, cache.getStatistiche().dimensione());
+        assertEquals(100 - 5, cache.getStatistiche().espulsioni());
+    }
+
+    @Test
+    void segmentoDiProvaLRU() {
+        CacheLibriDAO cache = new CacheLibriDAO(delegato, 10);
+        for (int id = 1; id <= 30; id++) {
+            cache.getLibroById(id);
+        }
+        assertStatistiche(cache, 0, 30, 20, 0, 10);
+        richiesti.clear();
+        for (int id = 21; id <= 30; id++) {
+            cache.getLibroById(id);
+        }
+        assertEquals(List.of(), richiesti);
+        cache.getLibroById(20);
+        assertEquals(List.of(20L), richiesti);
+    }
+
+    @Test
+    void ilSegmentoProtettoPienoRetrocedeIlMenoRecente() {
+        // capacità 5: un posto riservato alla prova, al più 4 libri protetti
+        CacheLibriDAO cache = new CacheLibriDAO(delegato, 5);
+        for (int id = 1; id <= 5; id++) {
+            cache.getLibroById(id);
+            cache.getLibroById(id);
+        }
+        // la promozione del libro 5 ha retrocesso il libro 1 nel segmento di prova, senza espellerlo
+        richiesti.clear();
+        cache.getLibroById(1);
+        assertEquals(List.of(), richiesti);
+        assertStatistiche(cache, 6, 5, 0, 0, 5);
+
+        // ora è il libro 2 a essere retrocesso, ed è il primo a uscire dalla prova
+        cache.getLibroById(6);
+        cache.getLibroById(2);
+        assertEquals(List.of(6L, 2L), richiesti);
+        richiesti.clear();
+        for (int id : new int[]{1, 3, 4, 5}) {
+            cache.getLibroById(id);
+        }
+        assertEquals(List.of(), richiesti);
+    }
+
+    @Test
+    void svuotaRimuoveTuttiILibri() {
+        CacheLibriDAO cache = new CacheLibriDAO(delegato, 10);
+        for (int id = 1; id <= 4; id++) {
+            cache.getLibroById(id);
+            cache.getLibroById(id < 3 ? id : id + 10);
+        }
+        assertEquals(6, cache.svuota());
+        assertStatistiche(cache, 2, 6, 0, 6, 0);
+        richiesti.clear();
+        cache.getLibroById(1);
+        assertEquals(List.of(1L), richiesti);
+        assertEquals(0, new CacheLibriDAO(delegato, 10).svuota());
+    }
+
+    @Test
+    void unLibroLettoDuranteLoSvuotamentoNonVieneInserito() {
+        CacheLibriDAO cache = new CacheLibriDAO(delegato, 10);
+        durataLettura = cache::svuota;
+        cache.getLibroById(1);
+        cache.getLibriByIds(List.of(2L, 3L));
+        durataLettura = () -> { };
+        assertEquals(0, cache.getStatistiche().dimensione());
+        cache.getLibroById(1);
+        assertEquals(1, cache.getStatistiche().dimensione());
+    }
+
+    @Test
+    void precaricaILibriConGliIDPiuBassi() {
+        Libro[] catalogo = {libri.get(9L), libri.get(3L), libri.get(12L), libri.get(1L), libri.get(5L)};
+        CacheLibriDAO cache = new CacheLibriDAO(delegato, 3);
+        assertEquals(3, cache.precarica(CatalogoLibri.di(catalogo, new int[catalogo.length])));
+        assertEquals(3, cache.getStatistiche().dimensione());
+        for (int id : new int[]{1, 3, 5}) {
+            assertSame(libri.get((long) id), cache.getLibroById(id));
+        }
+        assertEquals(List.of(), richiesti);
+        cache.getLibroById(9);
+        assertEquals(List.of(9L), richiesti);
+    }
+
+    private static void assertStatistiche(CacheLibriDAO cache, long hit, long miss, long espulsioni,
+                                          long invalidazioni, int dimensione) {
+        CacheLibriDAO.Statistiche s = cache.getStatistiche();
+        assertEquals(hit, s.hit(), "hit");
+        assertEquals(miss, s.miss(), "miss");
+        assertEquals(espulsioni, s.espulsioni(), "espulsioni");
+        assertEquals(invalidazioni, s.invalidazioni(), "invalidazioni");
+        assertEquals(dimensione, s.dimensione(), "dimensione");
+    }
+}
@@ -0,0 +1,213 @@
+package bookrecommender.server.libri;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica {@link IndiceApprossimato}: la distanza di modifica e le sue soglie, la divisione in
+ * parole dei campi e la ricerca, confrontando i risultati dell'indice con quelli del confronto
+ * diretto parola per parola usato per i libri aggiunti.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+class IndiceApprossimatoTest {
+
+    @Test
+    void sogliaInBaseAllaLunghezza() {
+        assertEquals(0, IndiceApprossimato.soglia(1));
+        assertEquals(0, IndiceApprossimato.soglia(3));
+        assertEquals(1, IndiceApprossimato.soglia(4));
+        assertEquals(1, IndiceApprossimato.soglia(7));
+        assertEquals(2, IndiceApprossimato.soglia(8));
+    }
+
+    @Test
+    void distanzaConScambioDiLettereAdiacenti() {
+        assertEquals(0, IndiceApprossimato.distanza("tolkien", "tolkien", 1));
+        assertEquals(1, IndiceApprossimato.distanza("tolkein", "tolkien", 1));
+        assertEquals(1, IndiceApprossimato.distanza("colton", "coltno", 1));
+        assertEquals(1, IndiceApprossimato.distanza("larry", "lary", 1));
+        assertEquals(1, IndiceApprossimato.distanza("larry", "barry", 1));
+        assertEquals(2, IndiceApprossimato.distanza("abcdef", "badcef", 2));
+        // lo scambio non si combina con altre modifiche sulle stesse lettere
+        assertEquals(3, IndiceApprossimato.distanza("ca", "abc", 3));
+    }
+
+    @Test
+    void distanzaOltreLaSoglia() {
+        assertEquals(1, IndiceApprossimato.distanza("abc", "abd", 1));
+        assertEquals(1, IndiceApprossimato.distanza("abc", "abd", 0));
+        assertEquals(0, IndiceApprossimato.distanza("abc", "abc", 0));
+        // differenza di lunghezza maggiore della soglia
+        assertEquals(2, IndiceApprossimato.distanza("ab", "abcd", 1));
+        assertEquals(2, IndiceApprossimato.distanza("", "ab", 1));
+        assertEquals(3, IndiceApprossimato.distanza("kitten", "sitting", 2));
+        assertEquals(3, IndiceApprossimato.distanza("kitten", "sitting", 3));
+    }
+
+    @Test
+    void distanzaUgualeAlCalcoloCompleto() {
+        SplittableRandom r = new SplittableRandom(23);
+        for (int prova = 0; prova < 20_000; prova++) {
+            String a = casuale(r, "abc", r.nextInt(0, 8));
+            String b = casuale(r, "abc", r.nextInt(0, 8));
+            int soglia = r.nextInt(0, 4);
+            int attesa = Math.min(distanzaCompleta(a, b), soglia + 1);
+            assertEquals(attesa, IndiceApprossimato.distanza(a, b, soglia), a + " / " + b + ", soglia " + soglia);
+        }
+    }
+
+    @Test
+    void paroleDelCampoAutori() {
+        assertArrayEquals(new String[]{"colton", "larry"}, IndiceApprossimato.parole("By Colton, Larry", true));
+        assertArrayEquals(new String[]{"smith", "john", "doe", "jane"},
+                IndiceApprossimato.parole("By Smith, John (COM) and Doe, Jane (EDT)", true));
+        assertArrayEquals(new String[]{"garcia", "marquez", "gabriel"},
+                IndiceApprossimato.parole("  by García Márquez, Gabriel ", true));
+        // "By" è un prefisso solo se seguito da uno spazio
+        assertArrayEquals(new String[]{"byron", "lord"}, IndiceApprossimato.parole("Byron, Lord", true));
+        assertArrayEquals(new String[]{"eco", "umberto"}, IndiceApprossimato.parole("Eco, Umberto", true));
+    }
+
+    @Test
+    void paroleDelTitolo() {
+        // nel titolo "by", "and" e le parentesi restano
+        assertArrayEquals(new String[]{"by", "the", "sea", "and", "sky", "vol", "2"},
+                IndiceApprossimato.parole("By the Sea and Sky (Vol. 2)", false));
+        assertArrayEquals(new String[]{"l", "ecole", "des", "femmes"},
+                IndiceApprossimato.parole("L'École des femmes", false));
+        assertArrayEquals(new String[]{"new", "york"}, IndiceApprossimato.parole("New York, New York!", false));
+        assertArrayEquals(new String[0], IndiceApprossimato.parole(null, false));
+        assertArrayEquals(new String[0], IndiceApprossimato.parole("  ", true));
+        assertArrayEquals(new String[0], IndiceApprossimato.parole("By (COM)", true));
+    }
+
+    @Test
+    void ricercaTolleranteAgliErrori() {
+        IndiceApprossimato indice = IndiceApprossimato.costruisci(
+                new long[]{1, 2, 3, 4},
+                new String[]{"Goat Brothers", "The Lord of the Rings", "The Lord of the Flies", "Rings"},
+                new String[]{"By Colton, Larry", "By Tolkien, J. R. R.", "By Golding, William", "By Barry, Lary"});
+        assertEquals(List.of(1L), indice.cercaPerAutore("larry colton"));
+        assertEquals(List.of(1L), indice.cercaPerAutore("lary coltno"));
+        assertEquals(List.of(2L), indice.cercaPerAutore("tolkein"));
+        // parola corta: solo corrispondenze esatte
+        assertEquals(List.of(), indice.cercaPerTitolo("lrd"));
+        // la corrispondenza esatta precede quella con un errore
+        assertEquals(List.of(4L, 1L), indice.cercaPerAutore("lary"));
+        // a parità di somiglianza, il titolo con meno parole non cercate viene prima
+        assertEquals(List.of(4L, 2L), indice.cercaPerTitolo("rigns"));
+        assertEquals(List.of(), indice.cercaPerTitolo(""));
+        assertEquals(List.of(), indice.cercaPerTitolo("rings zzzzzz"));
+
+        indice.aggiungi(5, "Ringz", "By Colton, Larry");
+        assertEquals(5, indice.size());
+        assertEquals(List.of(1L, 5L), indice.cercaPerAutore("colton larry"));
+        assertEquals(List.of(4L, 2L, 5L), indice.cercaPerTitolo("rings"));
+    }
+
+    @Test
+    void indiceUgualeAlConfrontoDiretto() {
+        SplittableRandom r = new SplittableRandom(29);
+        String[] sillabe = {"ro", "sa", "ma", "ri", "no", "la", "ta", "ar", "os"};
+        int n = 400;
+        long[] ids = new long[n];
+        String[] titoli = new String[n];
+        String[] autori = new String[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = 1_000 + i;
+            titoli[i] = frase(r, sillabe, r.nextInt(1, 5));
+            autori[i] = "By " + frase(r, sillabe, r.nextInt(1, 3));
+        }
+        IndiceApprossimato indicizzato = IndiceApprossimato.costruisci(ids, titoli, autori);
+        // con nessun libro nella struttura principale ogni ricerca usa il confronto diretto
+        IndiceApprossimato diretto = IndiceApprossimato.costruisci(new long[0], new String[0], new String[0]);
+        for (int i = 0; i < n; i++) {
+            diretto.aggiungi(ids[i], titoli[i], autori[i]);
+        }
+        int trovati = 0;
+        for (int prova = 0; prova < 300; prova++) {
+            String testo = frase(r, sillabe, r.nextInt(1, 3));
+            if (r.nextBoolean()) {
+                testo = errore(r, testo);
+            }
+            List<Long> attesi = diretto.cercaPerTitolo(testo);
+            assertEquals(attesi, indicizzato.cercaPerTitolo(testo), "titolo: " + testo);
+            assertEquals(diretto.cercaPerAutore(testo), indicizzato.cercaPerAutore(testo), "autore: " + testo);
+            trovati += attesi.size();
+        }
+        assertTrue(trovati > 300, "le ricerche casuali devono trovare dei libri");
+    }
+
+    /** Distanza di modifica con scambio di lettere adiacenti, calcolata sull'intera matrice. */
+    private static int distanzaCompleta(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    /** Applica al testo una modifica casuale: inserimento, cancellazione, sostituzione o scambio. */
+    private static String errore(SplittableRandom r, String testo) {
+        StringBuilder sb = new StringBuilder(testo);
+        int p = r.nextInt(sb.length());
+        switch (r.nextInt(4)) {
+            case 0 -> sb.insert(p, 'x');
+            case 1 -> sb.deleteCharAt(p);
+            case 2 -> sb.setCharAt(p, 'x');
+            default -> {
+                if (p + 1 < sb.length()) {
+                    char c = sb.charAt(p);
+                    sb.setCharAt(p, sb.charAt(p + 1));
+                    sb.setCharAt(p + 1, c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String frase(SplittableRandom r, String[] sillabe, int parole) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parole; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            int lunghezza = r.nextInt(1, 5);
+            for (int j = 0; j < lunghezza; j++) {
+                sb.append(sillabe[r.nextInt(sillabe.length)]);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String casuale(SplittableRandom r, String alfabeto, int lunghezza) {
+        StringBuilder sb = new StringBuilder(lunghezza);
+        for (int i = 0; i < lunghezza; i++) {
+            sb.append(alfabeto.charAt(r.nextInt(alfabeto.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package bookrecommender.server.libri;
+
+import bookrecommender.condivisi.libri.Libro;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica che {@link IndiceCatalogo} restituisca, per ogni ricerca e pagina, gli stessi libri
+ * di una scansione con {@code contains} sui testi in minuscolo, nell'ordine del catalogo.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+class IndiceCatalogoTest {
+
+    private static final long[] IDS = {40, 7, 12, 3, 99, 15};
+    private static final String[] TITOLI = {
+            "Anna Karenina", "Il nome della rosa", "La Rosa Bianca", "Rosario", null, "Ab"};
+    private static final String[] AUTORI = {
+            "By Tolstoj, Lev", "By Eco, Umberto", "By Scholl, Inge", "By Eco, Umberto", "By Anonimo", ""};
+
+    @Test
+    void ricercaPerSottostringaCaseInsensitive() {
+        IndiceCatalogo indice = IndiceCatalogo.costruisci(IDS, TITOLI, AUTORI);
+        assertEquals(List.of(7L, 12L, 3L), indice.cercaPerTitolo("ROSA"));
+        assertEquals(List.of(7L, 3L), indice.cercaPerAutore("eco, umb"));
+        assertEquals(List.of(), indice.cercaPerTitolo("rosse"));
+        // trigrammi presenti ma non consecutivi
+        assertEquals(List.of(), indice.cercaPerTitolo("rosa rosa"));
+    }
+
+    @Test
+    void testiPiuCortiDiUnTrigramma() {
+        IndiceCatalogo indice = IndiceCatalogo.costruisci(IDS, TITOLI, AUTORI);
+        assertEquals(List.of(40L, 12L), indice.cercaPerTitolo("AN"));
+        assertEquals(List.of(40L, 7L, 12L, 3L, 99L, 15L), indice.cercaPerTitolo(""));
+        assertEquals(List.of(40L, 7L, 12L, 3L, 99L, 15L), indice.cercaPerTitolo(null));
+    }
+
+    @Test
+    void paginazione() {
+        IndiceCatalogo indice = IndiceCatalogo.costruisci(IDS, TITOLI, AUTORI);
+        IndiceCatalogo.Risultato pagina = indice.cercaPerTitolo("a", 1, 2);
+        assertEquals(List.of(7L, 12L), pagina.ids());
+        assertEquals(5, pagina.totale());
+        IndiceCatalogo.Risultato oltre = indice.cercaPerTitolo("a", 10, 2);
+        assertEquals(List.of(), oltre.ids());
+        assertEquals(5, oltre.totale());
+    }
+
+    @Test
+    void libriAggiuntiInCoda() {
+        IndiceCatalogo indice = IndiceCatalogo.costruisci(IDS, TITOLI, AUTORI);
+        indice.aggiungi(1, "Aaa rosa", "By Nuovo, Autore");
+        assertEquals(7, indice.size());
+        assertEquals(List.of(7L, 12L, 3L, 1L), indice.cercaPerTitolo("rosa"));
+        IndiceCatalogo.Risultato pagina = indice.cercaPerTitolo("rosa", 3, 5);
+        assertEquals(List.of(1L), pagina.ids());
+        assertEquals(4, pagina.totale());
+        assertEquals(List.of(1L), indice.cercaPerAutore("nuovo"));
+    }
+
+    @Test
+    void costruzioneDalCatalogoNeMantieneLOrdine() {
+        Libro[] libri = new Libro[IDS.length];
+        for (int i = 0; i < libri.length; i++) {
+            libri[i] = new Libro(IDS[i], TITOLI[i], AUTORI[i], null, null, null, null, null);
+        }
+        IndiceCatalogo indice = IndiceCatalogo.costruisci(CatalogoLibri.di(libri, new int[libri.length]));
+        assertEquals(IDS.length, indice.size());
+        assertEquals(List.of(7L, 12L, 3L), indice.cercaPerTitolo("rosa"));
+        assertEquals(List.of(99L), indice.cercaPerAutore("anonimo"));
+    }
+
+    @Test
+    void ugualeAllaScansioneSuUnCatalogoCasuale() {
+        SplittableRandom r = new SplittableRandom(3);
+        String alfabeto = "abcAB ,";
+        int n = 2_000;
+        long[] ids = new long[n];
+        String[] titoli = new String[n];
+        String[] autori = new String[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = r.nextLong(1, 1_000_000);
+            titoli[i] = casuale(r, alfabeto, r.nextInt(0, 12));
+            autori[i] = casuale(r, alfabeto, r.nextInt(0, 8));
+        }
+        IndiceCatalogo indice = IndiceCatalogo.costruisci(ids, titoli, autori);
+        for (int q = 0; q < 300; q++) {
+            String testo = casuale(r, alfabeto, r.nextInt(1, 6));
+            List<Long> perTitolo = scansione(ids, titoli, testo);
+            List<Long> perAutore = scansione(ids, autori, testo);
+            assertEquals(perTitolo, indice.cercaPerTitolo(testo), "titolo: " + testo);
+            assertEquals(perAutore, indice.cercaPerAutore(testo), "autore: " + testo);
+
+            int offset = r.nextInt(0, 50);
+            int limite = r.nextInt(1, 30);
+            IndiceCatalogo.Risultato pagina = indice.cercaPerTitolo(testo, offset, limite);
+            assertEquals(perTitolo.size(), pagina.totale(), "totale: " + testo);
+            assertEquals(perTitolo.subList(Math.min(offset, perTitolo.size()), Math.min(offset + limite, perTitolo.size())),
+                    pagina.ids(), "pagina: " + testo);
+        }
+    }
+
+    @Test
+    void candidatiContengonoTuttiITrigrammi() {
+        String[] testi = {"abcd", "bcda", "xabcx", "ab", ""};
+        IndiceCatalogo.IndiceTrigrammi trigrammi = new IndiceCatalogo.IndiceTrigrammi(testi);
+        assertArrayEquals(new int[]{0}, trigrammi.candidati("abcd"));
+        assertArrayEquals(new int[]{}, trigrammi.candidati("abcz"));
+        assertArrayEquals(new int[]{0, 2}, trigrammi.condivisi("abcx", 1));
+        assertArrayEquals(new int[]{2}, trigrammi.condivisi("abcx", 2));
+    }
+
+    private static List<Long> scansione(long[] ids, String[] testi, String testo) {
+        String q = testo.toLowerCase(Locale.ROOT);
+        List<Long> trovati = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (testi[i].toLowerCase(Locale.ROOT).contains(q)) {
+                trovati.add(ids[i]);
+            }
+        }
+        return trovati;
+    }
+
+    private static String casuale(SplittableRandom r, String alfabeto, int lunghezza) {
+        StringBuilder sb = new StringBuilder(lunghezza);
+        for (int i = 0; i < lunghezza; i++) {
+            sb.append(alfabeto.charAt(r.nextInt(alfabeto.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package bookrecommender.server.raccomandazioni;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica che {@link SelezioneTopK} restituisca gli stessi elementi, nello stesso ordine, di un
+ * ordinamento completo per punteggio decrescente e indice crescente.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+class SelezioneTopKTest {
+
+    @Test
+    void menoElementiDiK() {
+        SelezioneTopK selezione = new SelezioneTopK(5);
+        selezione.proponi(3, 0.5f);
+        selezione.proponi(8, 2f);
+        assertEquals(2, selezione.dimensione());
+        int[] indici = new int[2];
+        float[] punteggi = new float[2];
+        assertEquals(2, selezione.estraiOrdinati(indici, punteggi, 0));
+        assertArrayEquals(new int[]{8, 3}, indici);
+        assertArrayEquals(new float[]{2f, 0.5f}, punteggi);
+        assertEquals(0, selezione.dimensione());
+    }
+
+    @Test
+    void aParitaDiPunteggioVinceLIndicePiuBasso() {
+        SelezioneTopK selezione = new SelezioneTopK(3);
+        for (int indice : new int[]{9, 4, 7, 1, 6}) {
+            selezione.proponi(indice, 1f);
+        }
+        int[] indici = new int[3];
+        selezione.estraiOrdinati(indici, new float[3], 0);
+        assertArrayEquals(new int[]{1, 4, 6}, indici);
+    }
+
+    @Test
+    void kZeroNonConservaNulla() {
+        SelezioneTopK selezione = new SelezioneTopK(0);
+        selezione.proponi(1, 10f);
+        assertEquals(0, selezione.dimensione());
+        assertEquals(0, selezione.estraiOrdinati(new int[0], new float[0], 0));
+    }
+
+    @Test
+    void scritturaDaUnaPosizioneERiutilizzo() {
+        SelezioneTopK selezione = new SelezioneTopK(2);
+        selezione.proponi(1, 1f);
+        selezione.proponi(2, 3f);
+        selezione.proponi(3, 2f);
+        int[] indici = {-1, -1, -1, -1};
+        float[] punteggi = new float[4];
+        assertEquals(2, selezione.estraiOrdinati(indici, punteggi, 1));
+        assertArrayEquals(new int[]{-1, 2, 3, -1}, indici);
+
+        selezione.proponi(5, 1f);
+        selezione.svuota();
+        selezione.proponi(6, 4f);
+        assertEquals(1, selezione.estraiOrdinati(indici, punteggi, 0));
+        assertEquals(6, indici[0]);
+    }
+
+    @Test
+    void ugualeAllOrdinamentoCompleto() {
+        SplittableRandom r = new SplittableRandom(5);
+        SelezioneTopK selezione = new SelezioneTopK(25);
+        for (int prova = 0; prova < 200; prova++) {
+            int n = r.nextInt(0, 200);
+            List<float[]> elementi = new ArrayList<>(n);
+            selezione.svuota();
+            for (int i = 0; i < n; i++) {
+                // Punteggi su pochi valori, così che le parità siano frequenti
+                float punteggio = r.nextInt(-5, 6) / 2f;
+                int indice = r.nextInt(0, 1000);
+                elementi.add(new float[]{indice, punteggio});
+                selezione.proponi(indice, punteggio);
+            }
+            elementi.sort(Comparator.<float[]>comparingDouble(e -> -e[1]).thenComparingDouble(e -> e[0]));
+            int k = Math.min(25, n);
+            int[] indici = new int[k];
+            float[] punteggi = new float[k];
+            assertEquals(k, selezione.estraiOrdinati(indici, punteggi, 0), "prova " + prova);
+            for (int i = 0; i < k; i++) {
+                assertEquals((int) elementi.get(i)[0], indici[i], "prova " + prova + ", posizione " + i);
+                assertEquals(elementi.get(i)[1], punteggi[i], "prova " + prova + ", posizione " + i);
+            }
+        }
+    }
+}
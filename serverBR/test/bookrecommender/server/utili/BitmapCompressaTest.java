@@ -0,0 +1,140 @@
+package bookrecommender.server.utili;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Verifica {@link BitmapCompressa} confrontandola con {@link BitSet}, con insiemi sparsi e densi,
+ * così che ogni operazione sia provata con tutte le combinazioni di rappresentazioni, anche su
+ * universi che non sono multipli di 64.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+class BitmapCompressaTest {
+
+    private static final int[] UNIVERSI = {1, 63, 64, 65, 1000, 4099};
+    /** Probabilità di ogni valore di appartenere all'insieme: dalle bitmap sparse a quelle piene. */
+    private static final double[] DENSITA = {0, 0.005, 0.02, 1.0 / BitmapCompressa.SOGLIA_DENSA, 0.2, 0.9, 1};
+
+    @Test
+    void vuotaEPiena() {
+        for (int universo : UNIVERSI) {
+            BitmapCompressa vuota = BitmapCompressa.vuota(universo);
+            BitmapCompressa piena = BitmapCompressa.piena(universo);
+            assertEquals(0, vuota.cardinalita());
+            assertEquals(universo, piena.cardinalita());
+            assertEquals(universo, piena.universo());
+            BitSet tutti = new BitSet();
+            tutti.set(0, universo);
+            assertUguale(tutti, piena, "piena " + universo);
+            assertUguale(new BitSet(), vuota, "vuota " + universo);
+        }
+    }
+
+    @Test
+    void valoriFuoriDallUniverso() {
+        BitmapCompressa piena = BitmapCompressa.piena(100);
+        assertFalse(piena.contiene(-1));
+        assertFalse(piena.contiene(100));
+        assertFalse(BitmapCompressa.daOrdinati(new int[]{3}, 1, 100).contiene(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void rappresentazioneSceltaInBaseAllaDensita() {
+        int universo = 64 * 100;
+        int soglia = universo / BitmapCompressa.SOGLIA_DENSA;
+        // sparsa: 4 byte per elemento; densa: 8 byte per parola
+        assertEquals(4L * (soglia - 1), casuale(new SplittableRandom(1), universo, soglia - 1).byteOccupati());
+        assertEquals(8L * 100, casuale(new SplittableRandom(1), universo, soglia).byteOccupati());
+        assertEquals(8L * 100, BitmapCompressa.piena(universo).byteOccupati());
+    }
+
+    @Test
+    void soloIPrimiNElementiDellArray() {
+        BitmapCompressa bitmap = BitmapCompressa.daOrdinati(new int[]{2, 5, 9, 0, 0}, 3, 1000);
+        assertEquals(3, bitmap.cardinalita());
+        assertArrayEquals(new int[]{2, 5, 9}, bitmap.intervallo(0, 10));
+    }
+
+    @Test
+    void operazioniUgualiABitSet() {
+        SplittableRandom r = new SplittableRandom(17);
+        for (int universo : UNIVERSI) {
+            List<BitSet> insiemi = new ArrayList<>();
+            List<BitmapCompressa> bitmap = new ArrayList<>();
+            for (double densita : DENSITA) {
+                BitSet insieme = new BitSet(universo);
+                for (int v = 0; v < universo; v++) {
+                    if (r.nextDouble() < densita) {
+                        insieme.set(v);
+                    }
+                }
+                insiemi.add(insieme);
+                bitmap.add(BitmapCompressa.daOrdinati(insieme.stream().toArray(), insieme.cardinality(), universo));
+            }
+            for (int i = 0; i < insiemi.size(); i++) {
+                assertUguale(insiemi.get(i), bitmap.get(i), "universo " + universo + ", insieme " + i);
+                for (int j = 0; j < insiemi.size(); j++) {
+                    String caso = "universo " + universo + ", insiemi " + i + " e " + j;
+                    BitSet and = (BitSet) insiemi.get(i).clone();
+                    and.and(insiemi.get(j));
+                    assertUguale(and, bitmap.get(i).intersezione(bitmap.get(j)), "intersezione, " + caso);
+                    BitSet or = (BitSet) insiemi.get(i).clone();
+                    or.or(insiemi.get(j));
+                    assertUguale(or, bitmap.get(i).unione(bitmap.get(j)), "unione, " + caso);
+                }
+            }
+            BitSet tutti = new BitSet();
+            insiemi.subList(1, 3).forEach(tutti::or);
+            assertUguale(tutti, BitmapCompressa.unioneDi(bitmap.subList(1, 3), universo), "unioneDi, universo " + universo);
+            tutti = new BitSet();
+            insiemi.forEach(tutti::or);
+            assertUguale(tutti, BitmapCompressa.unioneDi(bitmap, universo), "unioneDi, universo " + universo);
+            assertUguale(new BitSet(), BitmapCompressa.unioneDi(List.of(), universo), "unioneDi vuota");
+        }
+    }
+
+    /**
+     * Confronta la bitmap con l'insieme atteso: cardinalità, appartenenza di ogni valore,
+     * elementi restituiti da {@code perOgni} e intervalli di posizioni.
+     */
+    private static void assertUguale(BitSet atteso, BitmapCompressa bitmap, String caso) {
+        int[] elementi = atteso.stream().toArray();
+        assertEquals(elementi.length, bitmap.cardinalita(), caso + ": cardinalità");
+        for (int v = 0; v < bitmap.universo(); v++) {
+            assertEquals(atteso.get(v), bitmap.contiene(v), caso + ": valore " + v);
+        }
+        List<Integer> visitati = new ArrayList<>();
+        bitmap.perOgni(visitati::add);
+        assertArrayEquals(elementi, visitati.stream().mapToInt(Integer::intValue).toArray(), caso + ": perOgni");
+        assertArrayEquals(elementi, bitmap.intervallo(0, Integer.MAX_VALUE), caso + ": intervallo completo");
+        for (int da = 0; da <= elementi.length; da += Math.max(1, elementi.length / 7)) {
+            int a = Math.min(elementi.length, da + 37);
+            assertArrayEquals(Arrays.copyOfRange(elementi, da, a), bitmap.intervallo(da, a),
+                    caso + ": intervallo " + da + "-" + a);
+        }
+        assertArrayEquals(new int[0], bitmap.intervallo(elementi.length, elementi.length + 5), caso + ": intervallo oltre la fine");
+    }
+
+    /** Crea una bitmap con {@code n} elementi distinti scelti a caso. */
+    private static BitmapCompressa casuale(SplittableRandom r, int universo, int n) {
+        BitSet insieme = new BitSet(universo);
+        while (insieme.cardinality() < n) {
+            insieme.set(r.nextInt(universo));
+        }
+        return BitmapCompressa.daOrdinati(insieme.stream().toArray(), n, universo);
+    }
+}
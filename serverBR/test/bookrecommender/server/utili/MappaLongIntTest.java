@@ -0,0 +1,101 @@
+package bookrecommender.server.utili;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifica {@link MappaLongInt} confrontandola con una {@link HashMap}, anche con chiavi che
+ * collidono nella tabella e oltre i ridimensionamenti.
+ *
+ * @author Abou Aziz Sara Hesham Abdel Hamid 757004
+ * @author Ben Mahjoub Ali 759560
+ * @author Hidri Mohamed Taha 756235
+ * @author Zoghbani Lilia 759652
+ * @version 1.0
+ */
+class MappaLongIntTest {
+
+    @Test
+    void chiaveAssente() {
+        MappaLongInt mappa = new MappaLongInt(0);
+        assertEquals(MappaLongInt.ASSENTE, mappa.get(0));
+        assertEquals(MappaLongInt.ASSENTE, mappa.get(-1));
+        assertEquals(0, mappa.size());
+    }
+
+    @Test
+    void putSostituisceIlValore() {
+        MappaLongInt mappa = new MappaLongInt(4);
+        mappa.put(42, 1);
+        mappa.put(42, 7);
+        assertEquals(7, mappa.get(42));
+        assertEquals(1, mappa.size());
+    }
+
+    @Test
+    void chiaviEstremeENegative() {
+        MappaLongInt mappa = new MappaLongInt(4);
+        long[] chiavi = {0, -1, Long.MIN_VALUE, Long.MAX_VALUE, 1L << 32, -(1L << 32)};
+        for (int i = 0; i < chiavi.length; i++) {
+            mappa.put(chiavi[i], i);
+        }
+        for (int i = 0; i < chiavi.length; i++) {
+            assertEquals(i, mappa.get(chiavi[i]), "chiave " + chiavi[i]);
+        }
+        assertEquals(chiavi.length, mappa.size());
+    }
+
+    @Test
+    void ugualeAHashMapOltreIRidimensionamenti() {
+        // Capacità iniziale minima: la tabella viene raddoppiata molte volte durante gli inserimenti
+        MappaLongInt mappa = new MappaLongInt(1);
+        Map<Long, Integer> attesa = new HashMap<>();
+        SplittableRandom r = new SplittableRandom(11);
+        for (int i = 0; i < 50_000; i++) {
+            // Chiavi in un intervallo ristretto, così che molte vengano reinserite
+            long chiave = r.nextLong(-30_000, 30_000) * 1_000_003L;
+            int valore = r.nextInt();
+            mappa.put(chiave, valore);
+            attesa.put(chiave, valore);
+        }
+        assertEquals(attesa.size(), mappa.size());
+        attesa.forEach((chiave, valore) -> assertEquals(valore, mappa.get(chiave), "chiave " + chiave));
+        for (int i = 0; i < 10_000; i++) {
+            long chiave = r.nextLong();
+            if (!attesa.containsKey(chiave)) {
+                assertEquals(MappaLongInt.ASSENTE, mappa.get(chiave));
+            }
+        }
+    }
+
+    @Test
+    void getOrAssegnaAssegnaIdentificativiDensi() {
+        MappaLongInt mappa = new MappaLongInt(2);
+        long[] chiavi = {900, 5, 900, 123_456_789_012L, 5, -3};
+        int[] attesi = {0, 1, 0, 2, 1, 3};
+        for (int i = 0; i < chiavi.length; i++) {
+            assertEquals(attesi[i], mappa.getOrAssegna(chiavi[i]), "chiave " + chiavi[i]);
+        }
+        assertEquals(4, mappa.size());
+    }
+
+    @Test
+    void clearSvuotaLaMappa() {
+        MappaLongInt mappa = new MappaLongInt(8);
+        for (long k = 0; k < 100; k++) {
+            mappa.put(k, (int) k);
+        }
+        mappa.clear();
+        assertEquals(0, mappa.size());
+        for (long k = 0; k < 100; k++) {
+            assertEquals(MappaLongInt.ASSENTE, mappa.get(k));
+        }
+        assertEquals(0, mappa.getOrAssegna(50));
+        assertEquals(0, mappa.get(50));
+    }
+}